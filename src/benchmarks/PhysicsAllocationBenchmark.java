@@ -0,0 +1,152 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import org.joml.Vector3f;
+
+import objects.Cannon;
+import objects.Circle;
+import objects.Entity;
+import objects.Rectangle;
+import physicsEngine.AABBTree;
+import physicsEngine.Broadphase;
+import physicsEngine.CollisionPairs;
+import physicsEngine.Physics;
+import physicsEngine.PhysicsWithCannons;
+import physicsEngine.PhysicsWorld;
+
+/**
+ * Measures how many bytes the physics step allocates once the scene has
+ * warmed up. The step is the same as SimulationWindow.update(), but
+ * without any rendering, so this runs without an OpenGL context.
+ *
+ * Usage: java benchmarks.PhysicsAllocationBenchmark [number of bodies] [number of steps]
+ */
+public class PhysicsAllocationBenchmark {
+
+	// static variables
+	private static final float DT = 0.05f;
+	private static final float Z = -1f;
+	private static final int WARM_UP_STEPS = 2000;
+	
+	private static PhysicsWorld world = new PhysicsWorld();
+	private static AABBTree boundaryTree = new AABBTree();
+	private static Broadphase broadphase = Physics.createBroadphase();
+	private static CollisionPairs pairs = new CollisionPairs();
+
+	// main
+	public static void main(String[] args) {
+
+		int numBodies = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int numSteps = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		for (int mode = 0; mode < 2; mode++) {
+
+			boolean physicsWithCannons = mode == 1;
+
+			ArrayList<Entity> entities = createBodies(numBodies);
+			ArrayList<Entity> boundaries = createBoundaries();
+
+			// warm up (lets the JIT compile the step and the reusable arrays grow)
+			for (int i = 0; i < WARM_UP_STEPS; i++)
+				step(entities, boundaries, physicsWithCannons);
+
+			long bytes = threads.getThreadAllocatedBytes(thread);
+			long time = System.nanoTime();
+
+			for (int i = 0; i < numSteps; i++)
+				step(entities, boundaries, physicsWithCannons);
+
+			time = System.nanoTime() - time;
+			bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+			System.out.println((physicsWithCannons ? "PhysicsWithCannons" : "Physics") + ": " +
+					numBodies + " bodies, " + numSteps + " steps, " +
+					(time / numSteps / 1000) + " us/step, " +
+					(bytes / numSteps) + " bytes/step allocated, " +
+					world.getNumSleeping() + " bodies asleep");
+		}
+	}
+
+	/**
+	 * Performs one time step.
+	 */
+	private static void step(ArrayList<Entity> entities, ArrayList<Entity> boundaries,
+			boolean physicsWithCannons) {
+
+		world.setBodies(entities, boundaries);
+		world.update(DT);
+
+		if (physicsWithCannons) {
+			PhysicsWithCannons.collision(world, entities, boundaries, broadphase, pairs, boundaryTree, Z);
+			world.updateSleeping(pairs);
+		}
+		else
+			Physics.collision(world, entities, broadphase, pairs, (Rectangle) boundaries.get(0),
+					(Rectangle) boundaries.get(1), (Rectangle) boundaries.get(3), (Rectangle) boundaries.get(2), Z);
+	}
+
+	/**
+	 * Creates a grid of crates, balls and cannons that will fall and
+	 * pile up on the ground.
+	 */
+	static ArrayList<Entity> createBodies(int numBodies) {
+
+		ArrayList<Entity> entities = new ArrayList<Entity>();
+
+		int columns = 12;
+		Vector3f rotation = new Vector3f(0,0,0);
+		Vector3f acceleration = new Vector3f(0,-9.81f,0);
+
+		for (int i = 0; i < numBodies; i++) {
+
+			Vector3f position = new Vector3f(-330 + (i % columns) * 58, -230 + (i / columns) * 58, Z);
+			Vector3f velocity = new Vector3f((i * 7) % 41 - 20, (i * 13) % 41 - 20, 0);
+
+			switch (i % 5) {
+
+				case 0:
+				case 2:
+					entities.add(new Circle(null, position, velocity, acceleration, rotation, 1,
+							20, -0.7f, 25, 0.05f, 0.02f));
+					break;
+
+				case 4:
+					entities.add(new Cannon(null, position, velocity, acceleration, rotation, 1,
+							20, -0.3f, 50, 50, 0.2f, 0.1f));
+					break;
+
+				default:
+					entities.add(new Rectangle(null, position, velocity, acceleration, rotation, 1,
+							20, -0.3f, 50, 50, 0.2f, 0.1f));
+			}
+		}
+
+		return entities;
+	}
+
+	/**
+	 * Creates the ground, left, right and top boundaries (in that order).
+	 */
+	static ArrayList<Entity> createBoundaries() {
+
+		ArrayList<Entity> boundaries = new ArrayList<Entity>();
+		Vector3f zero = new Vector3f(0,0,0);
+
+		boundaries.add(new Rectangle(null, new Vector3f(0,-300,Z), zero, zero, zero, 1,
+				Float.MAX_VALUE, -1f, 800, 70, 0.2f, 0.1f));
+		boundaries.add(new Rectangle(null, new Vector3f(-380,0,Z), zero, zero, zero, 1,
+				Float.MAX_VALUE, -1f, 30, 600, 0.1f, 0.05f));
+		boundaries.add(new Rectangle(null, new Vector3f(380,0,Z), zero, zero, zero, 1,
+				Float.MAX_VALUE, -1f, 30, 600, 0.1f, 0.05f));
+		boundaries.add(new Rectangle(null, new Vector3f(0,300,Z), zero, zero, zero, 1,
+				Float.MAX_VALUE, -1f, 800, 30, 0.1f, 0.05f));
+
+		return boundaries;
+	}
+}
@@ -0,0 +1,208 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import io.Scene;
+import io.SceneCache;
+import io.SceneFile;
+import io.SceneReader;
+import widgets.SimulationWindow;
+
+/**
+ * Measures how fast a large scene is loaded, from text and from binary.
+ * A scene with the given number of entities (of every type) is written
+ * to a temporary text file and a temporary binary file, and then:
+ *
+ *   original	parsed line by line with a BufferedReader and Float.parseFloat(),
+ *				as loadSimulation() used to (through the old static IO class)
+ *   text		read with SceneFile.read() (tokenized by SceneReader)
+ *   binary		read with SceneFile.read() (memory-mapped)
+ *
+ * Each file is also loaded into a headless SimulationWindow with
+ * loadSimulation(), which includes creating the entities, and from a
+ * SceneCache (which only creates the entities, as switching to or
+ * resetting a simulation does once its scene is cached). Last, the
+ * text file is read on several threads at once, each with its own
+ * SceneReader, and checked against the scene.
+ *
+ * Usage: java benchmarks.SceneLoadBenchmark [number of entities] [number of rounds]
+ */
+public class SceneLoadBenchmark {
+
+	// static variables
+	private static final int WARM_UP_ROUNDS = 5;
+
+	// the application's screen size and z-value
+	private static final float WIDTH = 1000;
+	private static final float HEIGHT = 600;
+	private static final float Z = -1f;
+
+	// main
+	public static void main(String[] args) throws IOException {
+
+		int numEntities = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		Scene scene = createScene(numEntities, new Random(1));
+
+		File textFile = File.createTempFile("scene", ".txt");
+		File binaryFile = File.createTempFile("scene", SceneFile.BINARY_EXTENSION);
+		textFile.deleteOnExit();
+		binaryFile.deleteOnExit();
+
+		SceneFile.writeText(scene, textFile.getPath());
+		SceneFile.writeBinary(scene, binaryFile.getPath());
+
+		System.out.println(numEntities + " entities, text " + textFile.length() / 1024 +
+				" KB, binary " + binaryFile.length() / 1024 + " KB");
+		System.out.println("round trip: text " + scene.equals(SceneFile.read(textFile.getPath())) +
+				", binary " + scene.equals(SceneFile.read(binaryFile.getPath())));
+
+		SimulationWindow simulation = new SimulationWindow(0, null, WIDTH, HEIGHT, Z);
+
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		SceneCache scenes = new SceneCache(1);
+
+		String[] names = {"original", "text", "binary", "load text", "load binary", "load cached"};
+
+		for (int mode = 0; mode < names.length; mode++) {
+
+			for (int i = 0; i < WARM_UP_ROUNDS; i++)
+				run(mode, textFile.getPath(), binaryFile.getPath(), simulation, scenes);
+
+			long bytes = threads.getThreadAllocatedBytes(thread);
+			long time = System.nanoTime();
+
+			for (int i = 0; i < rounds; i++)
+				run(mode, textFile.getPath(), binaryFile.getPath(), simulation, scenes);
+
+			time = (System.nanoTime() - time) / rounds;
+			bytes = (threads.getThreadAllocatedBytes(thread) - bytes) / rounds;
+
+			System.out.printf("%-12s %8.2f ms per load, %6.0f ns per entity, %5d bytes allocated per entity%n",
+					names[mode], time / 1e6, (double) time / numEntities, bytes / numEntities);
+		}
+
+		System.out.println("concurrent loads match: " + loadConcurrently(scene, textFile.getPath()));
+
+		scenes.cleanUp();
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Loads the scene once.
+	 */
+	private static void run(int mode, String textFile, String binaryFile, SimulationWindow simulation,
+			SceneCache scenes) throws IOException {
+
+		switch (mode) {
+
+			case 0:
+				original(textFile);
+				break;
+
+			case 1:
+				SceneFile.read(textFile);
+				break;
+
+			case 2:
+				SceneFile.read(binaryFile);
+				break;
+
+			case 3:
+				simulation.loadSimulation(textFile);
+				break;
+
+			case 4:
+				simulation.loadSimulation(binaryFile);
+				break;
+
+			case 5:
+				simulation.loadSimulation(textFile, scenes);
+				break;
+		}
+	}
+
+	/**
+	 * The parsing loadSimulation() used to do, without creating the entities.
+	 */
+	private static float original(String fileName) throws IOException {
+
+		float sum = 0;
+
+		try (BufferedReader in = new BufferedReader(new FileReader(fileName))) {
+
+			int numEntities = Integer.parseInt(in.readLine());
+
+			// line buffer
+			in.readLine();
+
+			for (int i = 0; i < numEntities; i++) {
+
+				int type = Scene.getType(in.readLine());
+
+				for (int j = 0; j < Scene.getNumFields(type); j++)
+					sum += Float.parseFloat(in.readLine());
+
+				// line buffer
+				in.readLine();
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Reads a text scene on several threads at once.
+	 *
+	 * @return whether every thread read the same scene
+	 */
+	private static boolean loadConcurrently(Scene scene, String fileName) {
+
+		int numThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+		return IntStream.range(0, numThreads * 4).parallel().allMatch(i -> {
+
+			try (SceneReader reader = new SceneReader(fileName)) {
+				return reader.readScene().equals(scene);
+
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		});
+	}
+
+	/**
+	 * Creates a scene of random entities of every type.
+	 */
+	private static Scene createScene(int numEntities, Random random) {
+
+		int[] types = new int[numEntities];
+		float[] fields = new float[numEntities * Scene.MAX_FIELDS];
+
+		for (int i = 0; i < numEntities; i++) {
+
+			types[i] = Scene.RECTANGLE + random.nextInt(Scene.TARGET);
+
+			for (int j = 0; j < Scene.getNumFields(types[i]); j++)
+				fields[i * Scene.MAX_FIELDS + j] = (random.nextInt(20000) - 10000) / 10f;
+
+			// a positive size, so the entities are valid
+			fields[i * Scene.MAX_FIELDS] = 1 + random.nextInt(50);
+		}
+
+		return new Scene(types, fields);
+	}
+}
@@ -0,0 +1,200 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.system.MemoryUtil;
+
+import objects.ImageDecoder;
+
+/**
+ * Measures how fast the PNG images in a directory are turned into the
+ * RGBA pixels that are uploaded to OpenGL, in three ways:
+ *
+ *   original	getRGB(), then a column-major loop into a new ByteBuffer
+ *   getRGB		getRGB(), then a row-major loop into an off-heap buffer
+ *   direct		ImageDecoder.toRGBA(), from the image's own pixels
+ *
+ * The files are read into memory first, so only decoding and
+ * converting is timed. ImageIO's decoding (the same for all three) is
+ * also timed on its own. The direct pixels are checked against getRGB()
+ * for every image.
+ *
+ * Usage: java benchmarks.TextureDecodeBenchmark [directory] [number of rounds]
+ */
+public class TextureDecodeBenchmark {
+
+	// static variables
+	private static final int WARM_UP_ROUNDS = 3;
+
+	// main
+	public static void main(String[] args) throws IOException {
+
+		String directory = args.length > 0 ? args[0] : "./res";
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		ArrayList<byte[]> files = readFiles(directory);
+
+		long pixels = 0;
+
+		for (byte[] data:files) {
+			BufferedImage image = ImageDecoder.read(data);
+			pixels += (long) image.getWidth() * image.getHeight();
+		}
+
+		System.out.println(files.size() + " images, " + pixels / 1000000f + " million pixels");
+		System.out.println("mismatched images: " + countMismatches(files));
+
+		for (int mode = 0; mode < 4; mode++) {
+
+			for (int i = 0; i < WARM_UP_ROUNDS; i++)
+				run(files, mode);
+
+			long time = System.nanoTime();
+
+			for (int i = 0; i < rounds; i++)
+				run(files, mode);
+
+			time = (System.nanoTime() - time) / rounds;
+
+			String name = new String[] {"ImageIO only", "original", "getRGB", "direct"}[mode];
+
+			System.out.printf("%-13s %8.1f ms per pass, %7.1f Mpixels/s%n",
+					name, time / 1e6, pixels * 1e3 / time);
+		}
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Decodes and converts every image once.
+	 */
+	private static void run(ArrayList<byte[]> files, int mode) throws IOException {
+
+		for (byte[] data:files) {
+
+			BufferedImage image = ImageDecoder.read(data);
+
+			switch (mode) {
+
+				case 1:
+					original(image);
+					break;
+
+				case 2:
+					MemoryUtil.memFree(rowMajor(image));
+					break;
+
+				case 3:
+					MemoryUtil.memFree(ImageDecoder.toRGBA(image));
+					break;
+			}
+		}
+	}
+
+	/**
+	 * The conversion Loader.loadTexture() used to do.
+	 */
+	private static ByteBuffer original(BufferedImage image) {
+
+		int width = image.getWidth();
+		int height = image.getHeight();
+
+		int[] pixels_raw = image.getRGB(0, 0, width, height, null, 0, width);
+
+		ByteBuffer pixels = BufferUtils.createByteBuffer(width * height * 4);
+
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+
+				int pixel = pixels_raw[i * height + j];
+				pixels.put((byte) ((pixel >> 16) & 0xFF));
+				pixels.put((byte) ((pixel >> 8) & 0xFF));
+				pixels.put((byte) (pixel & 0xFF));
+				pixels.put((byte) ((pixel >> 24) & 0xFF));
+			}
+		}
+
+		pixels.flip();
+
+		return pixels;
+	}
+
+	/**
+	 * getRGB(), then a row-major loop into an off-heap buffer.
+	 */
+	private static ByteBuffer rowMajor(BufferedImage image) {
+
+		int width = image.getWidth();
+		int height = image.getHeight();
+
+		int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+
+		ByteBuffer pixels = MemoryUtil.memAlloc(argb.length * 4);
+
+		for (int pixel:argb) {
+			pixels.put((byte) ((pixel >> 16) & 0xFF));
+			pixels.put((byte) ((pixel >> 8) & 0xFF));
+			pixels.put((byte) (pixel & 0xFF));
+			pixels.put((byte) ((pixel >> 24) & 0xFF));
+		}
+
+		pixels.flip();
+
+		return pixels;
+	}
+
+	/**
+	 * Counts the images whose direct pixels differ from getRGB()'s.
+	 */
+	private static int countMismatches(ArrayList<byte[]> files) throws IOException {
+
+		int mismatches = 0;
+
+		for (byte[] data:files) {
+
+			BufferedImage image = ImageDecoder.read(data);
+
+			ByteBuffer expected = rowMajor(image);
+			ByteBuffer actual = ImageDecoder.toRGBA(image);
+
+			if (!expected.equals(actual))
+				mismatches++;
+
+			MemoryUtil.memFree(expected);
+			MemoryUtil.memFree(actual);
+		}
+
+		return mismatches;
+	}
+
+	/**
+	 * Reads the PNG files in a directory.
+	 */
+	private static ArrayList<byte[]> readFiles(String directory) throws IOException {
+
+		File[] list = new File(directory).listFiles();
+
+		if (list == null)
+			throw new IOException("Not a directory: " + directory);
+
+		Arrays.sort(list);
+
+		ArrayList<byte[]> files = new ArrayList<byte[]>();
+
+		for (File file:list) {
+
+			if (file.getName().toLowerCase().endsWith(".png"))
+				files.add(Files.readAllBytes(file.toPath()));
+		}
+
+		return files;
+	}
+}
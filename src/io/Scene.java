@@ -0,0 +1,162 @@
+package io;
+
+import java.util.Arrays;
+
+/**
+ * This class holds a scene: the entities a simulation starts with, as
+ * records of a type and a fixed number of fields. A scene can't be
+ * changed once it is made, so one scene can be loaded into any number
+ * of simulation windows.
+ *
+ * The fields of each type are, in order:
+ *
+ *   RECTANGLE	side length, x, y, vx, vy, mass, e
+ *   bRECTANGLE	side length, x, y, mass, e			(a crate boundary)
+ *   CANNON		side length, x, y, vx, vy, mass, e
+ *   CIRCLE		radius, x, y, vx, vy, mass, e
+ *   METAL		width, height, x, y, mass, e		(a metal boundary)
+ *   TARGET		radius, x, y
+ */
+public class Scene {
+
+	// static variables
+
+	// the record types (the tags stored in binary scene files)
+	public static final int RECTANGLE = 1;
+	public static final int RECTANGLE_BOUNDARY = 2;
+	public static final int CANNON = 3;
+	public static final int CIRCLE = 4;
+	public static final int METAL = 5;
+	public static final int TARGET = 6;
+
+	// the names of the types in text scene files, and their number of fields
+	private static final String[] TYPE_NAMES = {null, "RECTANGLE", "bRECTANGLE", "CANNON", "CIRCLE", "METAL", "TARGET"};
+	private static final int[] NUM_FIELDS = {0, 7, 5, 7, 7, 6, 3};
+
+	// the number of fields of the type with the most
+	public static final int MAX_FIELDS = 7;
+
+	public static final Scene EMPTY = new Scene(new int[0], new float[0]);
+
+	// instance variables
+	private int[] types;
+	private float[] fields;		// MAX_FIELDS per record
+
+	/**
+	 * Creates a scene. The arrays are copied.
+	 *
+	 * @param types		the type of each record
+	 * @param fields	the fields of each record, MAX_FIELDS per record
+	 * 					(the fields a type does not have are ignored)
+	 */
+	public Scene(int[] types, float[] fields) {
+		this(types, fields, types.length);
+	}
+
+	/**
+	 * Creates a scene from the first records of the given arrays. The
+	 * arrays are copied.
+	 *
+	 * @param types			the type of each record
+	 * @param fields		the fields of each record, MAX_FIELDS per record
+	 * @param numRecords	the number of records
+	 */
+	public Scene(int[] types, float[] fields, int numRecords) {
+
+		for (int i = 0; i < numRecords; i++) {
+
+			if (getNumFields(types[i]) == 0)
+				throw new IllegalArgumentException("Unknown record type: " + types[i]);
+		}
+
+		this.types = Arrays.copyOf(types, numRecords);
+		this.fields = Arrays.copyOf(fields, numRecords * MAX_FIELDS);
+
+		// so that scenes with the same fields are equal
+		for (int i = 0; i < numRecords; i++)
+			Arrays.fill(this.fields, i * MAX_FIELDS + getNumFields(types[i]), (i + 1) * MAX_FIELDS, 0f);
+	}
+
+	/**
+	 * Returns the number of records.
+	 *
+	 * @return the number of records
+	 */
+	public int getNumRecords() {
+		return types.length;
+	}
+
+	/**
+	 * Returns the type of a record.
+	 *
+	 * @param record	the record
+	 * @return the type
+	 */
+	public int getType(int record) {
+		return types[record];
+	}
+
+	/**
+	 * Returns a field of a record.
+	 *
+	 * @param record	the record
+	 * @param field		the field (see the class comment for their order)
+	 * @return the value
+	 */
+	public float getField(int record, int field) {
+		return fields[record * MAX_FIELDS + field];
+	}
+
+	/**
+	 * Returns the name of a type, as written in text scene files.
+	 *
+	 * @param type
+	 * @return the name, or null if there is no such type
+	 */
+	public static String getTypeName(int type) {
+		return type > 0 && type < TYPE_NAMES.length ? TYPE_NAMES[type] : null;
+	}
+
+	/**
+	 * Returns the type with the given name.
+	 *
+	 * @param name	the name, as written in text scene files
+	 * @return the type, or 0 if there is no such type
+	 */
+	public static int getType(String name) {
+
+		for (int type = 1; type < TYPE_NAMES.length; type++) {
+
+			if (TYPE_NAMES[type].equals(name))
+				return type;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Returns the number of fields of a type.
+	 *
+	 * @param type
+	 * @return the number of fields, or 0 if there is no such type
+	 */
+	public static int getNumFields(int type) {
+		return type > 0 && type < NUM_FIELDS.length ? NUM_FIELDS[type] : 0;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+
+		if (!(other instanceof Scene))
+			return false;
+
+		Scene scene = (Scene) other;
+
+		return Arrays.equals(types, scene.types) && Arrays.equals(fields, scene.fields);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(types) * 31 + Arrays.hashCode(fields);
+	}
+}
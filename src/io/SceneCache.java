@@ -0,0 +1,261 @@
+package io;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * This class keeps the scenes the screens switch between in memory, so
+ * that switching to or resetting a simulation only creates its
+ * entities, without reading the file again. Scenes are immutable, so
+ * every simulation window can load the same cached scene.
+ *
+ * Scenes are read on a pool of worker threads when they are preloaded.
+ * A scene that is needed before a worker got to it is read by the
+ * thread that needs it, instead of waiting for the workers.
+ *
+ * The directories of the cached scenes are watched, and a scene is
+ * dropped from the cache when its file is changed or deleted, so that
+ * it is read again the next time it is needed. (Files the program
+ * saves itself should also be invalidated right away, since the change
+ * may not have been seen yet.)
+ *
+ * The methods can be called from any thread.
+ */
+public class SceneCache {
+
+	// instance variables
+	private ExecutorService workers;
+
+	// the scenes read or being read, by their absolute path
+	private ConcurrentHashMap<Path, FutureTask<Scene>> scenes;
+
+	// the directories being watched, or null if they can't be watched
+	private WatchService watcher;
+	private Set<Path> watchedDirectories;
+
+	/**
+	 * Constructor. Starts the worker threads and the thread that
+	 * watches for changed files.
+	 *
+	 * @param threads	the number of worker threads
+	 */
+	public SceneCache(int threads) {
+
+		workers = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+
+			Thread thread = new Thread(task, "Scene reader");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		scenes = new ConcurrentHashMap<Path, FutureTask<Scene>>();
+		watchedDirectories = ConcurrentHashMap.newKeySet();
+
+		try {
+			watcher = FileSystems.getDefault().newWatchService();
+
+			Thread thread = new Thread(this::watch, "Scene watcher");
+			thread.setDaemon(true);
+			thread.start();
+
+		} catch (IOException | UnsupportedOperationException exception) {
+			System.out.println("*** Scene files can't be watched; edits are seen after a restart ***");
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Starts reading scenes on the worker threads. Scenes that are
+	 * already cached are ignored.
+	 *
+	 * @param fileNames	the scene files
+	 */
+	public void preload(String... fileNames) {
+
+		for (String fileName:fileNames) {
+
+			FutureTask<Scene> task = getTask(fileName);
+
+			// running a task that already ran does nothing
+			if (!task.isDone())
+				workers.execute(task);
+		}
+	}
+
+	/**
+	 * Returns a scene, reading it on this thread if it is not cached and
+	 * no worker has started it.
+	 *
+	 * @param fileName	the scene file
+	 * @return the scene
+	 * @throws IOException	if the file can't be read or is not a scene
+	 */
+	public Scene get(String fileName) throws IOException {
+
+		FutureTask<Scene> task = getTask(fileName);
+
+		// does nothing if it already ran
+		task.run();
+
+		try {
+			return task.get();
+
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading " + fileName);
+
+		} catch (ExecutionException exception) {
+
+			// so that the next get() tries again
+			scenes.remove(toKey(fileName), task);
+
+			if (exception.getCause() instanceof IOException)
+				throw (IOException) exception.getCause();
+
+			throw new IOException(exception.getCause());
+		}
+	}
+
+	/**
+	 * Drops a scene from the cache, so that it is read again the next
+	 * time it is needed.
+	 *
+	 * @param fileName	the scene file
+	 */
+	public void invalidate(String fileName) {
+		scenes.remove(toKey(fileName));
+	}
+
+	/**
+	 * Checks whether a scene has been read and is still cached.
+	 *
+	 * @param fileName	the scene file
+	 * @return true if yes, false otherwise
+	 */
+	public boolean isCached(String fileName) {
+
+		FutureTask<Scene> task = scenes.get(toKey(fileName));
+
+		return task != null && task.isDone();
+	}
+
+	/**
+	 * Stops the worker threads and watching for changed files.
+	 */
+	public void cleanUp() {
+
+		workers.shutdownNow();
+		scenes.clear();
+
+		if (watcher != null) {
+
+			try {
+				watcher.close();
+			} catch (IOException exception) {
+				exception.printStackTrace();
+			}
+		}
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Returns the task that reads a scene, adding it (and watching its
+	 * directory) if there is none.
+	 */
+	private FutureTask<Scene> getTask(String fileName) {
+
+		Path key = toKey(fileName);
+
+		FutureTask<Scene> task = scenes.get(key);
+
+		if (task != null)
+			return task;
+
+		FutureTask<Scene> newTask = new FutureTask<Scene>(() -> SceneFile.read(fileName));
+
+		task = scenes.putIfAbsent(key, newTask);
+
+		if (task != null)
+			return task;
+
+		watchDirectory(key.getParent());
+
+		return newTask;
+	}
+
+	/**
+	 * Starts watching a directory for changed files, if it is not watched
+	 * already.
+	 */
+	private void watchDirectory(Path directory) {
+
+		if (watcher == null || directory == null || !watchedDirectories.add(directory))
+			return;
+
+		try {
+			directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+		} catch (ClosedWatchServiceException exception) {
+			// cleaned up
+
+		} catch (IOException exception) {
+			exception.printStackTrace();
+		}
+	}
+
+	/**
+	 * Drops the scenes whose files change until the watcher is closed
+	 * (on the watcher thread).
+	 */
+	private void watch() {
+
+		try {
+
+			while (true) {
+
+				WatchKey key = watcher.take();
+				Path directory = (Path) key.watchable();
+
+				for (WatchEvent<?> event:key.pollEvents()) {
+
+					// too many changes to list, so drop every scene
+					if (event.kind() == OVERFLOW)
+						scenes.clear();
+
+					else
+						scenes.remove(directory.resolve((Path) event.context()).normalize());
+				}
+
+				key.reset();
+			}
+
+		} catch (InterruptedException | ClosedWatchServiceException exception) {
+			// cleaned up
+		}
+	}
+
+	/**
+	 * Returns the absolute path of a file, which the cache and the
+	 * watcher both use to find it.
+	 */
+	private static Path toKey(String fileName) {
+		return Paths.get(fileName).toAbsolutePath().normalize();
+	}
+}
@@ -0,0 +1,208 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads and writes scene files, as text or binary.
+ *
+ * A text scene file is the number of entities and a blank line, then
+ * each entity's type, its fields one per line, and a blank line.
+ *
+ * A binary scene file is a 16 byte header and a fixed-width record per
+ * entity, all little-endian:
+ *
+ *   header	"PSIM", version (int), record size (int), number of records (int)
+ *   record	type (int), then MAX_FIELDS fields (float), unused fields 0
+ *
+ * Later versions may only add fields to the end of a record, and new
+ * types. Files of a later version are still read, as long as their
+ * records are at least as large as this version's: the stored record
+ * size is used to skip the fields this version doesn't know, and
+ * records of types it doesn't know are left out of the scene.
+ *
+ * Text files are read and written with SceneReader and SceneWriter.
+ * Binary files are memory-mapped and their fields are read in place,
+ * without parsing strings. Floats are stored exactly, so converting a
+ * scene to binary and back gives the same values.
+ */
+public class SceneFile {
+
+	// static variables
+	public static final String BINARY_EXTENSION = ".scene";
+
+	public static final int VERSION = 1;
+
+	private static final byte[] MAGIC = {'P', 'S', 'I', 'M'};
+	private static final int HEADER_SIZE = 16;
+	private static final int RECORD_SIZE = 4 + Scene.MAX_FIELDS * 4;
+
+	/**
+	 * Reads a scene file, text or binary.
+	 *
+	 * @param fileName
+	 * @return the scene
+	 * @throws IOException	if the file can't be read or is not a scene
+	 */
+	public static Scene read(String fileName) throws IOException {
+
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+
+		// the reader closes the channel
+		try (SceneReader reader = new SceneReader(channel)) {
+
+			if (isBinary(channel))
+				return readBinary(channel);
+
+			channel.position(0);
+
+			return reader.readScene();
+		}
+	}
+
+	/**
+	 * Returns whether or not a file is a binary scene file.
+	 *
+	 * @param fileName
+	 * @return whether the file starts with the binary header
+	 * @throws IOException	if the file can't be read
+	 */
+	public static boolean isBinary(String fileName) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			return isBinary(channel);
+		}
+	}
+
+	/**
+	 * Writes a scene as a binary scene file.
+	 *
+	 * @param scene
+	 * @param fileName
+	 * @throws IOException	if the file can't be written
+	 */
+	public static void writeBinary(Scene scene, String fileName) throws IOException {
+
+		int numRecords = scene.getNumRecords();
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + numRecords * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.put(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(RECORD_SIZE);
+		buffer.putInt(numRecords);
+
+		for (int i = 0; i < numRecords; i++) {
+
+			int type = scene.getType(i);
+			int numFields = Scene.getNumFields(type);
+
+			buffer.putInt(type);
+
+			for (int j = 0; j < Scene.MAX_FIELDS; j++)
+				buffer.putFloat(j < numFields ? scene.getField(i, j) : 0f);
+		}
+
+		buffer.flip();
+
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Writes a scene as a text scene file.
+	 *
+	 * @param scene
+	 * @param fileName
+	 * @throws IOException	if the file can't be written
+	 */
+	public static void writeText(Scene scene, String fileName) throws IOException {
+
+		try (SceneWriter writer = new SceneWriter(fileName)) {
+			writer.writeScene(scene);
+		}
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Returns whether or not a channel starts with the binary header.
+	 */
+	private static boolean isBinary(FileChannel channel) throws IOException {
+
+		ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+
+		while (magic.hasRemaining() && channel.read(magic) > 0);
+
+		if (magic.hasRemaining())
+			return false;
+
+		magic.flip();
+
+		return magic.equals(ByteBuffer.wrap(MAGIC));
+	}
+
+	/**
+	 * Reads a binary scene from a memory-mapped channel. The mapping stays
+	 * valid after the channel is closed, and is freed with the buffer.
+	 */
+	private static Scene readBinary(FileChannel channel) throws IOException {
+
+		if (channel.size() < HEADER_SIZE)
+			throw new IOException("Truncated scene header");
+
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		int version = buffer.getInt(4);
+		int recordSize = buffer.getInt(8);
+		int numRecords = buffer.getInt(12);
+
+		// later versions may only add fields to the end of a record, and new
+		// types, so their files are read too (see the class comment)
+		if (version < 1)
+			throw new IOException("Unsupported scene version: " + version);
+
+		if (recordSize < RECORD_SIZE || numRecords < 0 || HEADER_SIZE + (long) numRecords * recordSize > buffer.capacity())
+			throw new IOException("Corrupt scene header");
+
+		int[] types = new int[numRecords];
+		float[] fields = new float[numRecords * Scene.MAX_FIELDS];
+
+		// the records kept
+		int n = 0;
+
+		for (int i = 0, position = HEADER_SIZE; i < numRecords; i++, position += recordSize) {
+
+			int type = buffer.getInt(position);
+
+			if (Scene.getNumFields(type) == 0) {
+
+				// a type added by a later version
+				if (version > VERSION)
+					continue;
+
+				throw new IOException("Unknown entity type: " + type);
+			}
+
+			types[n] = type;
+
+			for (int j = 0; j < Scene.MAX_FIELDS; j++)
+				fields[n * Scene.MAX_FIELDS + j] = buffer.getFloat(position + 4 + j * 4);
+
+			n++;
+		}
+
+		return new Scene(types, fields, n);
+	}
+}
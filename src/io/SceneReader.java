@@ -0,0 +1,420 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads text scene files and file lists from a channel. Each
+ * reader has its own buffer, so any number of files can be read at the
+ * same time, and it is closed with try-with-resources:
+ *
+ *   try (SceneReader reader = new SceneReader(fileName)) {
+ *       Scene scene = reader.readScene();
+ *   }
+ *
+ * Numbers and entity types are read as whitespace-separated tokens,
+ * straight from the bytes in the buffer, without making a String for
+ * each one. Floats with at most 7 significant digits and a small
+ * exponent (all the numbers Float.toString() writes for the scenes in
+ * data/) are computed exactly from their digits; anything else is
+ * handed to Float.parseFloat(), so every token reads as the same float
+ * it always did.
+ */
+public class SceneReader implements Closeable {
+
+	// static variables
+	private static final int BUFFER_SIZE = 8192;
+
+	// the largest mantissa and power of ten a float holds exactly, so
+	// that one multiplication or division rounds correctly
+	private static final long MAX_EXACT_MANTISSA = 1 << 24;
+	private static final float[] POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+	// the entity types as they are written, to compare with tokens
+	private static final byte[][] TYPE_NAMES = new byte[Scene.TARGET + 1][];
+
+	static {
+
+		for (int type = 1; type < TYPE_NAMES.length; type++)
+			TYPE_NAMES[type] = Scene.getTypeName(type).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	// instance variables
+	private ReadableByteChannel channel;
+	private ByteBuffer buffer;
+	private boolean endOfStream;
+
+	// the last token read
+	private byte[] token = new byte[64];
+	private int tokenLength;
+
+	/**
+	 * Opens a file for reading.
+	 *
+	 * @param fileName
+	 * @throws IOException	if the file can't be opened
+	 */
+	public SceneReader(String fileName) throws IOException {
+		this(FileChannel.open(Paths.get(fileName), StandardOpenOption.READ));
+	}
+
+	/**
+	 * Reads from a channel, from its current position. The channel is
+	 * closed with the reader.
+	 *
+	 * @param channel
+	 */
+	public SceneReader(ReadableByteChannel channel) {
+
+		this.channel = channel;
+
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		buffer.flip();
+	}
+
+	/**
+	 * Reads a scene: the number of entities, then each entity's type and
+	 * fields (see Scene).
+	 *
+	 * @return the scene
+	 * @throws IOException	if the scene can't be read or is malformed
+	 */
+	public Scene readScene() throws IOException {
+
+		int numRecords = readInt();
+
+		if (numRecords < 0)
+			throw new IOException("Bad number of entities: " + numRecords);
+
+		int[] types = new int[numRecords];
+		float[] fields = new float[numRecords * Scene.MAX_FIELDS];
+
+		for (int i = 0; i < numRecords; i++) {
+
+			if (!nextToken())
+				throw new IOException("Expected " + numRecords + " entities, found " + i);
+
+			types[i] = tokenToType();
+
+			if (types[i] == 0)
+				throw new IOException("Unknown entity type: " + tokenToString());
+
+			for (int j = 0; j < Scene.getNumFields(types[i]); j++)
+				fields[i * Scene.MAX_FIELDS + j] = readFloat();
+		}
+
+		return new Scene(types, fields);
+	}
+
+	/**
+	 * Reads a list of files: the number of files, then one file per line.
+	 * File names may contain spaces.
+	 *
+	 * @return the files
+	 * @throws IOException	if the list can't be read or is malformed
+	 */
+	public String[] readFileList() throws IOException {
+
+		String line = readLine();
+
+		if (line == null)
+			throw new IOException("Empty file list");
+
+		int n;
+
+		try {
+			n = Integer.parseInt(line.trim());
+		} catch (NumberFormatException exception) {
+			throw new IOException("Bad number of files: " + line);
+		}
+
+		if (n < 0)
+			throw new IOException("Bad number of files: " + n);
+
+		String[] files = new String[n];
+
+		for (int i = 0; i < n; i++) {
+
+			files[i] = readLine();
+
+			if (files[i] == null)
+				throw new IOException("Expected " + n + " files, found " + i);
+		}
+
+		return files;
+	}
+
+	/**
+	 * Reads the rest of the current line.
+	 *
+	 * @return the line, without its line break, or null at the end of the file
+	 * @throws IOException	if the channel can't be read
+	 */
+	public String readLine() throws IOException {
+
+		tokenLength = 0;
+
+		while (true) {
+
+			if (!buffer.hasRemaining() && !fill())
+				return tokenLength > 0 ? tokenToString() : null;
+
+			byte b = buffer.get();
+
+			if (b == '\n')
+				break;
+
+			appendToToken(b);
+		}
+
+		// a line ending in CR LF
+		if (tokenLength > 0 && token[tokenLength - 1] == '\r')
+			tokenLength--;
+
+		return tokenToString();
+	}
+
+	/**
+	 * Reads the next token as an int.
+	 *
+	 * @return the int
+	 * @throws IOException	if there is no token or it is not an int
+	 */
+	public int readInt() throws IOException {
+
+		if (!nextToken())
+			throw new IOException("Expected an int at the end of the file");
+
+		boolean negative = token[0] == '-';
+		int i = negative || token[0] == '+' ? 1 : 0;
+		long value = 0;
+
+		if (i == tokenLength || tokenLength - i > 10)
+			throw new IOException("Bad int: " + tokenToString());
+
+		for (; i < tokenLength; i++) {
+
+			int digit = token[i] - '0';
+
+			if (digit < 0 || digit > 9)
+				throw new IOException("Bad int: " + tokenToString());
+
+			value = value * 10 + digit;
+		}
+
+		value = negative ? -value : value;
+
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw new IOException("Bad int: " + tokenToString());
+
+		return (int) value;
+	}
+
+	/**
+	 * Reads the next token as a float, exactly as Float.parseFloat() would.
+	 *
+	 * @return the float
+	 * @throws IOException	if there is no token or it is not a float
+	 */
+	public float readFloat() throws IOException {
+
+		if (!nextToken())
+			throw new IOException("Expected a float at the end of the file");
+
+		boolean negative = token[0] == '-';
+		int i = negative || token[0] == '+' ? 1 : 0;
+
+		long mantissa = 0;
+		int exponent = 0;
+		int digits = 0;
+		boolean point = false;
+		boolean exact = i < tokenLength;
+
+		// the digits, with or without a decimal point
+		for (; i < tokenLength && exact; i++) {
+
+			byte b = token[i];
+
+			if (b >= '0' && b <= '9') {
+
+				// more digits than a long holds
+				if (++digits > 18)
+					exact = false;
+
+				mantissa = mantissa * 10 + (b - '0');
+
+				if (point)
+					exponent--;
+			}
+
+			else if (b == '.' && !point)
+				point = true;
+
+			else if (b == 'e' || b == 'E')
+				break;
+
+			else
+				exact = false;
+		}
+
+		exact &= digits > 0;
+
+		// the exponent
+		if (exact && i < tokenLength) {
+
+			boolean negativeExponent = i + 1 < tokenLength && token[i + 1] == '-';
+			int start = i + 1 < tokenLength && (negativeExponent || token[i + 1] == '+') ? i + 2 : i + 1;
+			int value = 0;
+
+			exact = start < tokenLength && tokenLength - start < 4;
+
+			for (i = start; i < tokenLength && exact; i++) {
+
+				int digit = token[i] - '0';
+
+				if (digit < 0 || digit > 9)
+					exact = false;
+
+				value = value * 10 + digit;
+			}
+
+			exponent += negativeExponent ? -value : value;
+		}
+
+		if (exact) {
+
+			// trailing zeros, as in "25.000"
+			while (mantissa != 0 && mantissa % 10 == 0) {
+				mantissa /= 10;
+				exponent++;
+			}
+
+			if (mantissa == 0)
+				return negative ? -0f : 0f;
+
+			if (mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) < POWERS_OF_TEN.length) {
+
+				float value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+
+				return negative ? -value : value;
+			}
+		}
+
+		// long, tiny, huge or unusual numbers (and errors)
+		try {
+			return Float.parseFloat(tokenToString());
+		} catch (NumberFormatException exception) {
+			throw new IOException("Bad float: " + tokenToString());
+		}
+	}
+
+	/**
+	 * Closes the reader and its channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Reads the next whitespace-separated token into the token array.
+	 *
+	 * @return whether there was a token before the end of the file
+	 */
+	private boolean nextToken() throws IOException {
+
+		tokenLength = 0;
+
+		while (true) {
+
+			if (!buffer.hasRemaining() && !fill())
+				return tokenLength > 0;
+
+			byte b = buffer.get();
+
+			if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+
+				if (tokenLength > 0)
+					return true;
+			}
+
+			else
+				appendToToken(b);
+		}
+	}
+
+	/**
+	 * Adds a byte to the token, growing it if needed.
+	 */
+	private void appendToToken(byte b) {
+
+		if (tokenLength == token.length)
+			token = Arrays.copyOf(token, token.length * 2);
+
+		token[tokenLength++] = b;
+	}
+
+	/**
+	 * Refills the buffer from the channel.
+	 *
+	 * @return whether there is anything left to read
+	 */
+	private boolean fill() throws IOException {
+
+		if (endOfStream)
+			return false;
+
+		buffer.clear();
+
+		int read;
+
+		while ((read = channel.read(buffer)) == 0);
+
+		buffer.flip();
+
+		endOfStream = read < 0;
+
+		return buffer.hasRemaining();
+	}
+
+	/**
+	 * Returns the type the token names, or 0 if it is not a type.
+	 */
+	private int tokenToType() {
+
+		for (int type = 1; type < TYPE_NAMES.length; type++) {
+
+			byte[] name = TYPE_NAMES[type];
+
+			if (name.length != tokenLength)
+				continue;
+
+			int i = 0;
+
+			while (i < tokenLength && token[i] == name[i])
+				i++;
+
+			if (i == tokenLength)
+				return type;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Returns the token as a String.
+	 */
+	private String tokenToString() {
+		return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+	}
+}
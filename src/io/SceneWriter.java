@@ -0,0 +1,165 @@
+package io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * This class writes text scene files and file lists to a channel, in
+ * the format SceneReader reads. Each writer has its own buffer, and it
+ * is closed (which writes out the buffer) with try-with-resources:
+ *
+ *   try (SceneWriter writer = new SceneWriter(fileName)) {
+ *       writer.writeScene(scene);
+ *   }
+ *
+ * Floats are written with Float.toString(), which gives the shortest
+ * text that reads back as the same float.
+ */
+public class SceneWriter implements Closeable, Flushable {
+
+	// static variables
+	private static final int BUFFER_SIZE = 8192;
+
+	// instance variables
+	private WritableByteChannel channel;
+	private ByteBuffer buffer;
+
+	/**
+	 * Creates (or replaces) a file for writing.
+	 *
+	 * @param fileName
+	 * @throws IOException	if the file can't be created
+	 */
+	public SceneWriter(String fileName) throws IOException {
+		this(FileChannel.open(Paths.get(fileName), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	/**
+	 * Writes to a channel. The channel is closed with the writer.
+	 *
+	 * @param channel
+	 */
+	public SceneWriter(WritableByteChannel channel) {
+
+		this.channel = channel;
+
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	}
+
+	/**
+	 * Writes a scene: the number of entities and a blank line, then each
+	 * entity's type, its fields one per line, and a blank line.
+	 *
+	 * @param scene
+	 * @throws IOException	if the channel can't be written
+	 */
+	public void writeScene(Scene scene) throws IOException {
+
+		writeLine(Integer.toString(scene.getNumRecords()));
+		writeLine("");
+
+		for (int i = 0; i < scene.getNumRecords(); i++) {
+
+			int type = scene.getType(i);
+
+			writeLine(Scene.getTypeName(type));
+
+			for (int j = 0; j < Scene.getNumFields(type); j++)
+				writeLine(Float.toString(scene.getField(i, j)));
+
+			writeLine("");
+		}
+	}
+
+	/**
+	 * Writes a list of files: the number of files, then one file per line.
+	 *
+	 * @param files
+	 * @throws IOException	if the channel can't be written
+	 */
+	public void writeFileList(List<String> files) throws IOException {
+
+		writeLine(Integer.toString(files.size()));
+
+		for (String file:files)
+			writeLine(file);
+	}
+
+	/**
+	 * Writes a line.
+	 *
+	 * @param line	the line, without a line break
+	 * @throws IOException	if the channel can't be written
+	 */
+	public void writeLine(String line) throws IOException {
+
+		for (int i = 0; i < line.length(); i++) {
+
+			char c = line.charAt(i);
+
+			// ASCII (everything but file names) is written as it is
+			if (c < 0x80)
+				writeByte((byte) c);
+
+			else {
+
+				for (byte b:line.substring(i).getBytes(StandardCharsets.UTF_8))
+					writeByte(b);
+
+				break;
+			}
+		}
+
+		writeByte((byte) '\n');
+	}
+
+	/**
+	 * Writes out the buffer.
+	 */
+	@Override
+	public void flush() throws IOException {
+
+		buffer.flip();
+
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+
+	/**
+	 * Writes out the buffer and closes the writer and its channel.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Writes a byte into the buffer, writing out the buffer when it is full.
+	 */
+	private void writeByte(byte b) throws IOException {
+
+		if (!buffer.hasRemaining())
+			flush();
+
+		buffer.put(b);
+	}
+}
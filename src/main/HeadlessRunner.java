@@ -0,0 +1,230 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import io.SceneReader;
+import io.SceneWriter;
+import objects.Cannon;
+import objects.Circle;
+import objects.Entity;
+import physicsEngine.BruteForceBroadphase;
+import physicsEngine.Physics;
+import physicsEngine.SpatialHashBroadphase;
+import physicsEngine.SweepAndPruneBroadphase;
+import widgets.SimulationWindow;
+
+/**
+ * This class runs simulations without a window or an OpenGL context.
+ * Each scene file is loaded into a headless SimulationWindow and
+ * stepped as fast as possible with the same physics its screen uses,
+ * and the final state of every entity is written out. Runs of the same
+ * scenes give the same output, so this can be used for regression runs
+ * and batch experiments.
+ *
+ * Usage: java main.HeadlessRunner [-steps n] [-out file] [-lesson] [-time]
+ *        [-broadphase brute|hash|sap] [-nosleep] [scene files...]
+ *
+ * With no scene files, every scene listed in the game, lesson and
+ * customized data files is run. Scene files given on the command line
+ * are run with the game and customized physics (with cannons), or with
+ * the lesson physics if -lesson is given. With -time, the time each
+ * scene took is printed to the error stream, so that the output stays
+ * the same from run to run.
+ *
+ * -broadphase picks the broadphase (the spatial hash by default), and
+ * -nosleep keeps every entity awake. The sleeping islands are built
+ * from the candidate pairs, so the broadphases only give the same
+ * output with -nosleep, which is how they are checked against brute
+ * force.
+ */
+public class HeadlessRunner {
+
+	// static variables
+	private static final int DEFAULT_STEPS = 1000;
+
+	// the same screen size and z-value as the application, so that the boundaries match
+	private static final float Z = -1f;
+
+	// the output file, or null to write to the console
+	private static SceneWriter out;
+
+	// whether to print the time each scene took
+	private static boolean timed;
+
+	// whether entities that have come to rest are put to sleep
+	private static boolean sleeping = true;
+
+	// main
+	public static void main(String[] args) throws IOException {
+
+		int steps = DEFAULT_STEPS;
+		String outputFile = null;
+		boolean lesson = false;
+
+		ArrayList<String> scenes = new ArrayList<String>();
+		ArrayList<Boolean> physicsWithCannons = new ArrayList<Boolean>();
+
+		// read arguments
+		for (int i = 0; i < args.length; i++) {
+
+			if (args[i].equals("-steps"))
+				steps = Integer.parseInt(args[++i]);
+
+			else if (args[i].equals("-out"))
+				outputFile = args[++i];
+
+			else if (args[i].equals("-lesson"))
+				lesson = true;
+
+			else if (args[i].equals("-time"))
+				timed = true;
+
+			else if (args[i].equals("-broadphase"))
+				setBroadphase(args[++i]);
+
+			else if (args[i].equals("-nosleep"))
+				sleeping = false;
+
+			else
+				scenes.add(args[i]);
+		}
+
+		for (int i = 0; i < scenes.size(); i++)
+			physicsWithCannons.add(!lesson);
+
+		// no scene files given, so run every scene the screens use
+		if (scenes.isEmpty()) {
+
+			readSceneList("./data/game_data_files.txt", true, scenes, physicsWithCannons);
+			readSceneList("./data/lesson_data_files.txt", false, scenes, physicsWithCannons);
+			readSceneList("./data/customized_data_files.txt", true, scenes, physicsWithCannons);
+		}
+
+		if (outputFile != null)
+			out = new SceneWriter(outputFile);
+
+		try {
+
+			for (int i = 0; i < scenes.size(); i++)
+				run(scenes.get(i), physicsWithCannons.get(i), steps);
+
+		} finally {
+
+			if (out != null)
+				out.close();
+		}
+	}
+
+	/**
+	 * Loads a scene, steps it and writes out the final state of its entities.
+	 *
+	 * @param fileName				the scene file
+	 * @param physicsWithCannons	whether to use the game and customized physics
+	 * @param steps					the number of time steps
+	 * @throws IOException	if the output file can't be written
+	 */
+	public static void run(String fileName, boolean physicsWithCannons, int steps) throws IOException {
+
+		if (!new File(fileName).isFile()) {
+			System.out.println("*** Skipping missing scene: " + fileName + " ***");
+			return;
+		}
+
+		SimulationWindow simulation = new SimulationWindow(0, null, Main.WIDTH, Main.HEIGHT, Z);
+		simulation.loadSimulation(fileName);
+		simulation.setSleepingEnabled(sleeping);
+
+		long time = System.nanoTime();
+
+		for (int i = 0; i < steps; i++)
+			simulation.update(physicsWithCannons);
+
+		time = System.nanoTime() - time;
+
+		ArrayList<Entity> entities = simulation.getEntities();
+
+		output("SCENE " + fileName);
+		output((physicsWithCannons ? "physics with cannons" : "lesson physics") + ", " +
+				steps + " steps, " + entities.size() + " entities, " +
+				simulation.getNumSleepingEntities() + " asleep");
+
+		if (timed)
+			System.err.println(fileName + ": " + (time / 1000000) + " ms");
+
+		// one line per entity: type, position and velocity
+		for (int i = 0; i < entities.size(); i++) {
+
+			Entity entity = entities.get(i);
+
+			output(getType(entity) + " " +
+					entity.getX() + " " + entity.getY() + " " +
+					entity.getVelocityX() + " " + entity.getVelocityY());
+		}
+
+		output("");
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Sets the broadphase from its name on the command line.
+	 */
+	private static void setBroadphase(String name) {
+
+		if (name.equals("brute"))
+			Physics.setBroadphase(BruteForceBroadphase::new);
+
+		else if (name.equals("hash"))
+			Physics.setBroadphase(SpatialHashBroadphase::new);
+
+		else if (name.equals("sap"))
+			Physics.setBroadphase(SweepAndPruneBroadphase::new);
+
+		else
+			throw new IllegalArgumentException("Unknown broadphase: " + name);
+	}
+
+	/**
+	 * Adds the scenes listed in a data file (same format as the files
+	 * read by Main.initScreens()).
+	 */
+	private static void readSceneList(String listFile, boolean physicsWithCannons,
+			ArrayList<String> scenes, ArrayList<Boolean> physics) throws IOException {
+
+		try (SceneReader reader = new SceneReader(listFile)) {
+
+			for (String scene:reader.readFileList()) {
+				scenes.add(scene);
+				physics.add(physicsWithCannons);
+			}
+		}
+	}
+
+	/**
+	 * Returns the type of an entity, as written in the scene files.
+	 */
+	private static String getType(Entity entity) {
+
+		if (entity instanceof Cannon)
+			return "CANNON";
+
+		if (entity instanceof Circle)
+			return "CIRCLE";
+
+		return "RECTANGLE";
+	}
+
+	/**
+	 * Writes a line to the output file, or to the console if there is none.
+	 */
+	private static void output(String line) throws IOException {
+
+		if (out != null)
+			out.writeLine(line);
+		else
+			System.out.println(line);
+	}
+}
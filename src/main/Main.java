@@ -14,8 +14,11 @@ import org.lwjgl.glfw.GLFWVidMode;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.system.MemoryStack;
 
-import io.IO;
+import io.SceneCache;
+import io.SceneReader;
 import objects.Loader;
+import physicsEngine.PhysicsThread;
+import renderEngine.GLState;
 import renderEngine.Renderer;
 import screens.CustomizedScreen;
 import screens.GameScreen;
@@ -41,12 +44,25 @@ public class Main {
 	private Renderer renderer;
 	private Loader loader;
 	
+	// the scenes of every screen's simulations, read in parallel at startup
+	private SceneCache scenes;
+	private String[][] sceneLists;
+	
+	// runs the time steps of the game and customized screens while the buffers are swapped
+	private PhysicsThread physicsThread;
+	
 	private MenuScreen menuScreen;
 	private GameScreen gameScreen;
 	private LessonScreen lessonScreen;
 	private CustomizedScreen customizedScreen;
 	private UserGuideScreenModes userGuide;
 	
+	// the number of screens after the menu screen that have been created
+	private int screensLoaded;
+	
+	// when the drawing statistics were last shown
+	private long frameStatsTime;
+	
 	private float z = -1f;
 	private int currScreen;		// 0 = menu, 1 = game, 2 = lesson, 3 = customized, 4 = user guide
 	
@@ -56,12 +72,50 @@ public class Main {
 	private boolean rightClick;
 	
 	// static variables
-	private static final int WIDTH = 1000;
-	private static final int HEIGHT = 600;
+	static final int WIDTH = 1000;
+	static final int HEIGHT = 600;
+	
+	static final String TITLE = "Simple Physics Simulator";
+	
+	// the simulation takes a time step every 1/60th of a second (in nanoseconds),
+	// no matter how often frames are drawn
+	private static final long STEP_TIME = 1000000000L / 60;
+	
+	// if a frame takes too long, the remaining time steps are dropped so that
+	// the simulation never falls further and further behind
+	private static final int MAX_STEPS_PER_FRAME = 5;
 	
 	public static final String VERTEX_FILE = "src/shaders/vertexShader.vs";
 	public static final String FRAGMENT_FILE = "src/shaders/fragmentShader.fs";
 	
+	// the images small enough to be packed into the texture atlas
+	public static final String[] ATLAS_DIRECTORIES = {"./res", "./text"};
+	public static final int ATLAS_PAGE_SIZE = 2048;
+	public static final int ATLAS_MAX_SPRITE_SIZE = 512;
+	
+	// the time spent uploading preloaded textures each frame, in nanoseconds
+	private static final long UPLOAD_BUDGET = 4000000L;
+	
+	// the screens created one per frame while the menu screen is shown
+	private static final int NUM_SCREENS_TO_LOAD = 3;
+	
+	// the owners of the screens' models and textures (see Loader.beginOwner())
+	private static final String MENU_OWNER = "menu screen";
+	private static final String[] SCREEN_OWNERS = {"game screen", "lesson screen", "customized screen"};
+	private static final String USER_GUIDE_OWNER = "user guide";
+	
+	// the lists of the scenes of the game, lesson and customized screens
+	private static final String[] SCENE_LISTS = {"./data/game_data_files.txt", 
+			"./data/lesson_data_files.txt", "./data/customized_data_files.txt"};
+	
+	// run with -Dphysics.debugResources=true to print the live OpenGL objects 
+	// of each screen whenever the screen changes, and at exit, and to show the 
+	// last frame's drawing statistics in the window's title
+	private static final boolean DEBUG_RESOURCES = Boolean.getBoolean("physics.debugResources");
+	
+	// how often the drawing statistics in the title are updated, in nanoseconds
+	private static final long FRAME_STATS_INTERVAL = 500000000L;
+	
 	public static final int KEY_SPACE = 0;
 	public static final int KEY_UP = 1;
 	public static final int KEY_DOWN = 2;
@@ -100,18 +154,48 @@ public class Main {
 		
 		// set the clear color
 		glClearColor(0.5f, 0.8f, 0.8f, 0f); // blue
+		
+		// time that has passed but has not been simulated yet
+		long previousTime = System.nanoTime();
+		long accumulator = 0;
+		
+		// the interpolation for the time steps started last frame
+		float previousAlpha = 1f;
+		
+		// the screens may not have been created yet
+		Runnable updateGameScreen = () -> gameScreen.update();
+		Runnable updateCustomizedScreen = () -> customizedScreen.update();
 
 		// run the loop until the user has attempted to close
 		// the window or has pressed the ESCAPE key
 		while (!glfwWindowShouldClose(window)) {
+			
 			glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT); // clear the framebuffer
 			
 			// key callback will be invoked here
 			glfwPollEvents();
 			
-			glEnable(GL_DEPTH_TEST);
-			glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-			glEnable(GL_BLEND);
+			// find how many time steps to take this frame
+			long currentTime = System.nanoTime();
+			accumulator += currentTime - previousTime;
+			previousTime = currentTime;
+			
+			int steps = 0;
+			
+			while (accumulator >= STEP_TIME && steps < MAX_STEPS_PER_FRAME) {
+				accumulator -= STEP_TIME;
+				steps++;
+			}
+			
+			if (accumulator >= STEP_TIME)
+				accumulator %= STEP_TIME;
+			
+			// how far this frame is between the last time step and the next
+			float alpha = (float) accumulator / STEP_TIME;
+			
+			// only calls OpenGL the first frame (see GLState)
+			GLState.setDepthTest(true);
+			GLState.setBlend(true, GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
 			
 			// check the current screen the user is on, check for inputs, then render it
 			switch (currScreen) {
@@ -123,20 +207,36 @@ public class Main {
 					
 				case 1:
 					gameScreen.input(this, key, leftClick, rightClick);
-					gameScreen.update();
+					gameScreen.getSimulationWindow().setInterpolation(previousAlpha);
 					gameScreen.render(renderer);
+					
+					// step the simulation while the buffers are swapped (shown next frame), 
+					// or only make the changes posted by the input above while paused
+					physicsThread.start(updateGameScreen, 
+							gameScreen.getSimulationWindow().isPaused() ? 1 : steps);
 					break;
 					
 				case 2:
 					lessonScreen.input(this, key, leftClick);
-					lessonScreen.update();
+					
+					// the lesson panels' text is updated with OpenGL calls every time step,
+					// so the lesson screen is stepped on this thread
+					for (int i = 0; i < steps; i++)
+						lessonScreen.update();
+					
+					lessonScreen.getSimulationWindow().setInterpolation(alpha);
 					lessonScreen.render(renderer);
 					break;
 					
 				case 3:
 					customizedScreen.input(this, key, leftClick, rightClick);
-					customizedScreen.update();
+					customizedScreen.getSimulationWindow().setInterpolation(previousAlpha);
 					customizedScreen.render(renderer);
+					
+					// step the simulation while the buffers are swapped (shown next frame), 
+					// or only make the changes posted by the input above while paused
+					physicsThread.start(updateCustomizedScreen, 
+							customizedScreen.getSimulationWindow().isPaused() ? 1 : steps);
 					break;
 					
 				case 4:
@@ -150,7 +250,20 @@ public class Main {
 			leftClick = false;
 			rightClick = false;
 			
+			previousAlpha = alpha;
+			
+			// draw everything the screen rendered, one draw call per texture and depth
+			renderer.flush();
+			GLState.endFrame();
+			
 			glfwSwapBuffers(window); // swap the color buffers
+			
+			// create the other screens while the menu screen is shown
+			if (!isLoaded())
+				loadNext();
+			
+			else if (DEBUG_RESOURCES)
+				showFrameStats();
 		}
 	}
 		
@@ -172,7 +285,7 @@ public class Main {
 		glfwWindowHint(GLFW_RESIZABLE, GLFW_FALSE);
 					
 		// create the window
-		window = glfwCreateWindow(WIDTH, HEIGHT, "Simple Physics Simulator", NULL, NULL);
+		window = glfwCreateWindow(WIDTH, HEIGHT, TITLE, NULL, NULL);
 		if (window == NULL)
 			throw new RuntimeException("Failed to create the GLFW window");
 						
@@ -256,6 +369,13 @@ public class Main {
 			shader = new ShaderProgram(VERTEX_FILE, FRAGMENT_FILE);
 			renderer = new Renderer(shader, window);
 			loader = new Loader();
+			loader.loadAtlas(ATLAS_PAGE_SIZE, ATLAS_MAX_SPRITE_SIZE, ATLAS_DIRECTORIES);
+			
+			// decode the images that were too large for the atlas on other threads
+			loader.preloadTextures(ATLAS_DIRECTORIES);
+			
+			scenes = new SceneCache(Runtime.getRuntime().availableProcessors() - 1);
+			physicsThread = new PhysicsThread();
 				
 		} catch (Exception e) {
 			System.out.println("Exception occurred");
@@ -264,71 +384,75 @@ public class Main {
 	}
 	
 	/**
-	 * Initializes the screens.
+	 * Initializes the menu screen. The other screens are created 
+	 * one per frame once the menu screen is shown (see loadNext()), 
+	 * and their scenes are read on other threads in the meantime.
 	 */
 	public void initScreens() {
 		
-		try {
-			
-			// menu screen
-			menuScreen = new MenuScreen(loader, WIDTH, HEIGHT, z);
-			
-			
-			// game screen
-			IO.openInputFile("./data/game_data_files.txt");
-			
-			int n = Integer.parseInt(IO.readLine());
-			String[] files = new String[n];
-			
-			for (int i = 0; i < n; i++) {
-				
-				files[i] = IO.readLine();
-			}
-			
-			gameScreen = new GameScreen(window, loader, WIDTH, HEIGHT, z, files);
-			
-			IO.closeInputFile();
-			
-			
-			// lesson screen
-			
-			IO.openInputFile("./data/lesson_data_files.txt");
-			
-			n = Integer.parseInt(IO.readLine());
-			files = new String[n];
-			
-			for (int i = 0; i < n; i++) {
-				
-				files[i] = IO.readLine();
-			}
-			
-			lessonScreen = new LessonScreen(window, loader, WIDTH, HEIGHT, z, files);
-			
-			IO.closeInputFile();
-			
-			
-			// customized screen
-			
-			IO.openInputFile("./data/customized_data_files.txt");
-			
-			n = Integer.parseInt(IO.readLine());
-			files = new String[n];
+		sceneLists = new String[SCENE_LISTS.length][];
+		
+		for (int i = 0; i < SCENE_LISTS.length; i++) {
 			
-			for (int i = 0; i < n; i++) {
+			try {
+				sceneLists[i] = readFileList(SCENE_LISTS[i]);
 				
-				files[i] = IO.readLine();
+			} catch (IOException exception) {
+				exception.printStackTrace();
+				sceneLists[i] = new String[0];
 			}
 			
-			customizedScreen = new CustomizedScreen(window, loader, WIDTH, HEIGHT, z, files);
-			
-			IO.closeInputFile();
-			
-		} catch (IOException exception) {
-			exception.printStackTrace();
+			scenes.preload(sceneLists[i]);
 		}
 		
+		// menu screen
+		loader.beginOwner(MENU_OWNER);
+		menuScreen = new MenuScreen(loader, WIDTH, HEIGHT, z);
+		loader.endOwner();
+		
+		screensLoaded = 0;
 		currScreen = 0;
 	}
+	
+	/**
+	 * Uploads the preloaded textures decoded so far and creates the 
+	 * next screen that has not been created. Shows the progress in the 
+	 * window's title.
+	 */
+	public void loadNext() {
+		
+		loader.uploadTextures(UPLOAD_BUDGET);
+		
+		if (screensLoaded < NUM_SCREENS_TO_LOAD)
+			loadScreen(screensLoaded++);
+		
+		if (isLoaded()) {
+			glfwSetWindowTitle(window, TITLE);
+		}
+		else {
+			float progress = (screensLoaded + loader.getPreloadProgress()) / (NUM_SCREENS_TO_LOAD + 1);
+			glfwSetWindowTitle(window, TITLE + " (loading " + Math.round(progress * 100) + "%)");
+		}
+	}
+	
+	/**
+	 * Creates every screen that has not been created yet.
+	 */
+	public void loadScreens() {
+		
+		while (screensLoaded < NUM_SCREENS_TO_LOAD)
+			loadScreen(screensLoaded++);
+	}
+	
+	/**
+	 * Checks whether every screen has been created and every 
+	 * preloaded texture uploaded.
+	 * 
+	 * @return true if yes, false otherwise
+	 */
+	public boolean isLoaded() {
+		return screensLoaded == NUM_SCREENS_TO_LOAD && loader.getPreloadProgress() == 1f;
+	}
 		
 	/**
 	 * Cleans up GLFW components.
@@ -348,7 +472,13 @@ public class Main {
 	 * Cleans up engine components.
 	 */
 	public void cleanUpEngine() {
-			
+		
+		if (DEBUG_RESOURCES)
+			System.out.println(loader.getResourceReport());
+		
+		physicsThread.stop();
+		scenes.cleanUp();
+		renderer.cleanUp();
 		loader.cleanUp();
 		shader.cleanUp();
 	}
@@ -361,33 +491,124 @@ public class Main {
 	 */
 	public void setCurrScreen(int currScreen) {
 		
-		this.currScreen = currScreen;
+		// the screen must exist before it is shown
+		if (currScreen != 0)
+			loadScreens();
 		
+		this.currScreen = currScreen;
+
+		// only the game and customized screens are stepped on the physics thread,
+		// so the time steps it still has to take must not run alongside the others
+		if (currScreen != 1 && currScreen != 3)
+			physicsThread.join();
+
 		// reset the simulation window of that screen (if not menu screen)
 		switch (currScreen) {
 		
 			case 1:
 				userType = 1;
 				gameScreen.setCurrentSim(-1);
-				gameScreen.getSimulationWindow().getEntities().clear();
+				gameScreen.getSimulationWindow().clearEntities();
 				break;
 				
 			case 2:
 				userType = 2;
 				lessonScreen.setCurrentSim(-1);
+				
+				// the lesson is stepped on this thread, so its entities can be cleared directly
 				lessonScreen.getSimulationWindow().getEntities().clear();
 				break;
 				
 			case 3:
 				userType = 3;
 				customizedScreen.setCurrentSim(-1);
-				customizedScreen.getSimulationWindow().getEntities().clear();
+				customizedScreen.getSimulationWindow().clearEntities();
 				break;
 		}
 		
 		// set up user guide screen
-		if (currScreen == 1 || currScreen == 2 || currScreen == 3)
+		if (currScreen == 1 || currScreen == 2 || currScreen == 3) {
+			
+			// the previous user guide's models and textures are no longer needed
+			loader.releaseOwner(USER_GUIDE_OWNER);
+			
+			loader.beginOwner(USER_GUIDE_OWNER);
 			userGuide = new UserGuideScreenModes(window, loader, WIDTH, HEIGHT, z);
+			loader.endOwner();
+		}
+		
+		if (DEBUG_RESOURCES)
+			System.out.println(loader.getResourceReport());
+	}
+	
+	
+	// ********** PRIVATE HELPER METHODS **********
+	
+	/**
+	 * Creates a screen after the menu screen: 0 = game, 1 = lesson, 
+	 * 2 = customized.
+	 * 
+	 * @param screen	the screen
+	 */
+	private void loadScreen(int screen) {
+		
+		loader.beginOwner(SCREEN_OWNERS[screen]);
+		
+		try {
+			
+			switch (screen) {
+			
+				case 0:
+					gameScreen = new GameScreen(window, loader, WIDTH, HEIGHT, z, sceneLists[0], scenes);
+					break;
+					
+				case 1:
+					lessonScreen = new LessonScreen(window, loader, WIDTH, HEIGHT, z, sceneLists[1], scenes);
+					break;
+					
+				case 2:
+					customizedScreen = new CustomizedScreen(window, loader, WIDTH, HEIGHT, z, sceneLists[2], scenes);
+					break;
+			}
+			
+		} finally {
+			loader.endOwner();
+		}
+	}
+	
+	/**
+	 * Shows the last frame's drawing statistics in the window's 
+	 * title: the objects drawn and culled, the draw calls, and the 
+	 * OpenGL state changes made and avoided. The title is only 
+	 * changed every FRAME_STATS_INTERVAL, so that it can be read.
+	 */
+	private void showFrameStats() {
+		
+		long time = System.nanoTime();
+		
+		if (time - frameStatsTime < FRAME_STATS_INTERVAL)
+			return;
+		
+		frameStatsTime = time;
+		
+		glfwSetWindowTitle(window, TITLE + " [drawn " + renderer.getNumDrawn() + 
+				", culled " + renderer.getNumCulled() + 
+				", draw calls " + renderer.getDrawCalls() + 
+				", state changes " + GLState.getCalls() + 
+				", avoided " + GLState.getAvoidedCalls() + "]");
 	}
 	
+	/**
+	 * Reads a list of files: the number of files, then one file per line.
+	 * 
+	 * @param filename	the file with the list
+	 * @return the files
+	 * @throws IOException
+	 */
+	private String[] readFileList(String filename) throws IOException {
+		
+		try (SceneReader reader = new SceneReader(filename)) {
+			return reader.readFileList();
+		}
+	}
 }
@@ -0,0 +1,40 @@
+package main;
+
+import java.io.IOException;
+
+import io.Scene;
+import io.SceneFile;
+
+/**
+ * This class converts scene files between the text and binary formats
+ * (see SceneFile). The input can be either format; the output is
+ * binary if its name ends with SceneFile.BINARY_EXTENSION and text
+ * otherwise. The output is read back and checked against the input, so
+ * a conversion that would lose anything fails.
+ *
+ * Usage: java main.SceneConverter input output
+ */
+public class SceneConverter {
+
+	// main
+	public static void main(String[] args) throws IOException {
+
+		if (args.length != 2) {
+			System.out.println("Usage: java main.SceneConverter input output");
+			System.exit(1);
+		}
+
+		Scene scene = SceneFile.read(args[0]);
+
+		if (args[1].endsWith(SceneFile.BINARY_EXTENSION))
+			SceneFile.writeBinary(scene, args[1]);
+
+		else
+			SceneFile.writeText(scene, args[1]);
+
+		if (!SceneFile.read(args[1]).equals(scene))
+			throw new IOException("*** " + args[1] + " does not match " + args[0] + " ***");
+
+		System.out.println(args[0] + " -> " + args[1] + ": " + scene.getNumRecords() + " entities");
+	}
+}
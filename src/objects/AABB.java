@@ -63,25 +63,26 @@ public class AABB {
 	public boolean intersects(Circle c) {
 		
 		// check horizontal direction
-		if (this.max.x <= c.getPosition().x - c.getRadius() || 
-				this.min.x >= c.getPosition().x + c.getRadius())
+		if (this.max.x <= c.getX() - c.getRadius() || 
+				this.min.x >= c.getX() + c.getRadius())
 			return false;
 		
 		// check vertical direction
-		if (this.max.y <= c.getPosition().y - c.getRadius() || 
-				this.min.y >= c.getPosition().y + c.getRadius())
+		if (this.max.y <= c.getY() - c.getRadius() || 
+				this.min.y >= c.getY() + c.getRadius())
 			return false;
 		
 		
 		// check corners:
 		
 		// clamp closest point to the AABB's extents
-		Vector2f closest = new Vector2f(c.getPosition().x, c.getPosition().y);
-		closest.x = Physics.clamp(closest.x, this.min.x, this.max.x);
-		closest.y = Physics.clamp(closest.y, this.min.y, this.max.y);
+		float closestX = Physics.clamp(c.getX(), this.min.x, this.max.x);
+		float closestY = Physics.clamp(c.getY(), this.min.y, this.max.y);
 		
-		Vector2f circleCenter = new Vector2f(c.getPosition().x, c.getPosition().y);
-		float distance = circleCenter.distance(closest);
+		// distance from the circle's center to the closest point
+		float dx = closestX - c.getX();
+		float dy = closestY - c.getY();
+		float distance = (float) Math.sqrt(dx * dx + dy * dy);
 		
 		if (distance >= c.getRadius())
 			return false;
@@ -50,8 +50,8 @@ public class Circle extends Entity {
 		float r = this.radius + c.getRadius();
 		r *= r;
 		
-		return r > Math.pow(this.getPosition().x - c.getPosition().x, 2) 
-				+ Math.pow(this.getPosition().y - c.getPosition().y, 2);
+		return r > Math.pow(this.getX() - c.getX(), 2) 
+				+ Math.pow(this.getY() - c.getY(), 2);
 	}
 	
 	/**
@@ -74,7 +74,7 @@ public class Circle extends Entity {
 	 */
 	public boolean intersects(float x, float y) {
 		
-		return Math.abs(x - getPosition().x) < radius && Math.abs(y - getPosition().y) < radius;
+		return Math.abs(x - getX()) < radius && Math.abs(y - getY()) < radius;
 	}
 
 	/**
@@ -92,6 +92,10 @@ public class Circle extends Entity {
 	 * @param radius
 	 */
 	public void setRadius(float radius) {
+		
+		if (radius != this.radius)
+			wake();
+		
 		this.radius = radius;
 	}
 }
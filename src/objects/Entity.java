@@ -1,11 +1,22 @@
 package objects;
 
+import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
+import physicsEngine.PhysicsWorld;
+import renderEngine.WorldMatrix;
+
 /**
  * This class is the blueprint for entities. An entity is an object to 
  * be placed in the OpenGL world.
  * 
+ * While an entity is in a PhysicsWorld, its x and y position, velocity 
+ * and acceleration, its mass, coefficient of restitution and coefficients 
+ * of friction are stored in the world's arrays, and the getters and 
+ * setters below read and write its slot there. Otherwise (e.g. before 
+ * it is first stepped), they are stored in the entity itself. The z-values 
+ * of the position and velocity always stay in the entity.
+ * 
  * @author Cindy Li
  * @author Larissa Jin
  * @since Tuesday, April 17th, 2018
@@ -24,6 +35,13 @@ public class Entity {
 	private float staticFriction;
 	private float kineticFriction;
 	private Vector3f storedvelocity;
+	private boolean sleeping;	// whether the physics has put this entity to sleep
+	private WorldMatrix worldMatrix;	// recomputed only when the entity moves
+	
+	// the world the entity's state is stored in, and the entity's index in it
+	// (null and -1 while the state is stored in the fields above)
+	private PhysicsWorld world;
+	private int index = -1;
 	
 	/**
 	 * Creates an entity.
@@ -44,6 +62,7 @@ public class Entity {
 		
 		// model
 		this.model = model;
+		worldMatrix = new WorldMatrix();
 		
 		// position
 		this.position = new Vector3f();
@@ -98,6 +117,7 @@ public class Entity {
 		
 		// model
 		this.model = model;
+		worldMatrix = new WorldMatrix();
 				
 		// position
 		this.position = new Vector3f();
@@ -125,6 +145,9 @@ public class Entity {
 	 */
 	public void update(float dt) {
 		
+		// bring the position, velocity and acceleration up to date
+		copyFromWorld();
+		
 		// update velocity
 		velocity.x += acceleration.x * dt;
 		velocity.y += acceleration.y * dt;
@@ -134,6 +157,11 @@ public class Entity {
 		position.x += velocity.x * dt;
 		position.y += velocity.y * dt;
 		position.z += velocity.z * dt;
+		
+		if (world != null) {
+			world.setVelocity(index, velocity.x, velocity.y);
+			world.setPosition(index, position.x, position.y);
+		}
 	}
 	
 	/**
@@ -236,12 +264,50 @@ public class Entity {
 	}
 
 	/**
-	 * Returns the entity's position.
+	 * Returns a copy of the entity's position. Change it with 
+	 * setPosition().
 	 * 
 	 * @return position
 	 */
 	public Vector3f getPosition() {
-		return position;
+		return new Vector3f(getX(), getY(), position.z);
+	}
+	
+	/**
+	 * Returns the x coordinate of the entity's position.
+	 * 
+	 * @return x
+	 */
+	public float getX() {
+		return world != null ? world.getX()[index] : position.x;
+	}
+	
+	/**
+	 * Returns the y coordinate of the entity's position.
+	 * 
+	 * @return y
+	 */
+	public float getY() {
+		return world != null ? world.getY()[index] : position.y;
+	}
+
+	/**
+	 * Returns the z coordinate of the entity's position. It is kept
+	 * by the entity even while it is in a physics world.
+	 * 
+	 * @return z
+	 */
+	public float getZ() {
+		return position.z;
+	}
+
+	/**
+	 * Sets the z coordinate of the entity's position.
+	 * 
+	 * @param z
+	 */
+	public void setZ(float z) {
+		position.z = z;
 	}
 
 	/**
@@ -250,18 +316,42 @@ public class Entity {
 	 * @param position
 	 */
 	public void setPosition(Vector3f position) {
+		
+		if (world != null)
+			world.setPosition(index, position.x, position.y);
+		
 		this.position.x = position.x;
 		this.position.y = position.y;
 		this.position.z = position.z;
+		worldMatrix.markDirty();
 	}
 
 	/**
-	 * Returns the entity's velocity.
+	 * Returns a copy of the entity's velocity. Change it with 
+	 * setVelocity().
 	 * 
 	 * @return velocity
 	 */
 	public Vector3f getVelocity() {
-		return velocity;
+		return new Vector3f(getVelocityX(), getVelocityY(), velocity.z);
+	}
+	
+	/**
+	 * Returns the x-value of the entity's velocity.
+	 * 
+	 * @return the x-value of the velocity
+	 */
+	public float getVelocityX() {
+		return world != null ? world.getVelocityX()[index] : velocity.x;
+	}
+	
+	/**
+	 * Returns the y-value of the entity's velocity.
+	 * 
+	 * @return the y-value of the velocity
+	 */
+	public float getVelocityY() {
+		return world != null ? world.getVelocityY()[index] : velocity.y;
 	}
 	
 	/**
@@ -296,18 +386,89 @@ public class Entity {
 	 */
 	public void setVelocity(Vector3f velocity) {
 		
+		if (world != null)
+			world.setVelocity(index, velocity.x, velocity.y);
+		
 		this.velocity.x = velocity.x;
 		this.velocity.y = velocity.y;
 		this.velocity.z = velocity.z;
 	}
 	
 	/**
-	 * Returns the entity's acceleration.
+	 * Sets the x-value of the entity's velocity.
+	 * 
+	 * @param x
+	 */
+	public void setVelocityX(float x) {
+		
+		if (world != null)
+			world.setVelocity(index, x, world.getVelocityY()[index]);
+		
+		velocity.x = x;
+	}
+	
+	/**
+	 * Sets the y-value of the entity's velocity.
+	 * 
+	 * @param y
+	 */
+	public void setVelocityY(float y) {
+		
+		if (world != null)
+			world.setVelocity(index, world.getVelocityX()[index], y);
+		
+		velocity.y = y;
+	}
+
+	/**
+	 * Returns the z-value of the entity's velocity. It is kept by
+	 * the entity even while it is in a physics world.
+	 * 
+	 * @return the z-value of the velocity
+	 */
+	public float getVelocityZ() {
+		return velocity.z;
+	}
+
+	/**
+	 * Sets the z-value of the entity's velocity.
+	 * 
+	 * @param z
+	 */
+	public void setVelocityZ(float z) {
+		velocity.z = z;
+	}
+
+	/**
+	 * Returns a copy of the entity's acceleration. Change it with 
+	 * setAcceleration().
 	 * 
 	 * @return acceleration
 	 */
 	public Vector3f getAcceleration() {
-		return acceleration;
+		
+		if (world != null)
+			return new Vector3f(world.getAccelerationX()[index], world.getAccelerationY()[index], acceleration.z);
+		
+		return new Vector3f(acceleration);
+	}
+
+	/**
+	 * Returns the x-value of the entity's acceleration.
+	 * 
+	 * @return the x-value of the acceleration
+	 */
+	public float getAccelerationX() {
+		return world != null ? world.getAccelerationX()[index] : acceleration.x;
+	}
+	
+	/**
+	 * Returns the y-value of the entity's acceleration.
+	 * 
+	 * @return the y-value of the acceleration
+	 */
+	public float getAccelerationY() {
+		return world != null ? world.getAccelerationY()[index] : acceleration.y;
 	}
 
 	/**
@@ -316,10 +477,40 @@ public class Entity {
 	 * @param acceleration
 	 */
 	public void setAcceleration(Vector3f acceleration) {
+		
+		if (world != null)
+			world.setAcceleration(index, acceleration.x, acceleration.y);
+		
 		this.acceleration.x = acceleration.x;
 		this.acceleration.y = acceleration.y;
 		this.acceleration.z = acceleration.z;
 	}
+	
+	/**
+	 * Sets the x-value of the entity's acceleration.
+	 * 
+	 * @param x
+	 */
+	public void setAccelerationX(float x) {
+		
+		if (world != null)
+			world.setAcceleration(index, x, world.getAccelerationY()[index]);
+		
+		acceleration.x = x;
+	}
+	
+	/**
+	 * Sets the y-value of the entity's acceleration.
+	 * 
+	 * @param y
+	 */
+	public void setAccelerationY(float y) {
+		
+		if (world != null)
+			world.setAcceleration(index, world.getAccelerationX()[index], y);
+		
+		acceleration.y = y;
+	}
 
 	/**
 	 * Returns the entity's rotation.
@@ -339,6 +530,7 @@ public class Entity {
 		this.rotation.x = rotation.x;
 		this.rotation.y = rotation.y;
 		this.rotation.z = rotation.z;
+		worldMatrix.markDirty();
 	}
 
 	/**
@@ -356,7 +548,37 @@ public class Entity {
 	 * @param scale
 	 */
 	public void setScale(float scale) {
+		
+		if (scale != this.scale)
+			wake();
+		
 		this.scale = scale;
+		worldMatrix.markDirty();
+	}
+	
+	/**
+	 * Returns the entity's world matrix. It is only recomputed when 
+	 * the entity's position, rotation or scale have changed.
+	 * 
+	 * @return the world matrix (do not change it)
+	 */
+	public Matrix4f getWorldMatrix() {
+		return worldMatrix.get(getX(), getY(), position.z, rotation.x, rotation.y, rotation.z, scale);
+	}
+	
+	/**
+	 * Returns the entity's world matrix at the given position and 
+	 * rotation about the z axis (e.g. from a PhysicsWorld.Snapshot), 
+	 * instead of its current ones. 
+	 * 
+	 * @param x			the x coordinate
+	 * @param y			the y coordinate
+	 * @param z			the z coordinate
+	 * @param rotationZ	the rotation about the z axis, in degrees
+	 * @return the world matrix (do not change it)
+	 */
+	public Matrix4f getWorldMatrix(float x, float y, float z, float rotationZ) {
+		return worldMatrix.get(x, y, z, rotation.x, rotation.y, rotationZ, scale);
 	}
 
 	/**
@@ -365,7 +587,7 @@ public class Entity {
 	 * @return mass
 	 */
 	public float getMass() {
-		return mass;
+		return world != null ? world.getMass()[index] : mass;
 	}
 
 	/**
@@ -374,6 +596,10 @@ public class Entity {
 	 * @param mass
 	 */
 	public void setMass(float mass) {
+		
+		if (world != null)
+			world.setMass(index, mass);
+		
 		this.mass = mass;
 	}
 
@@ -383,7 +609,7 @@ public class Entity {
 	 * @return e  the entity's coefficient of restitution
 	 */
 	public float getCoefficientOfRestitution() {
-		return e;
+		return world != null ? world.getRestitution()[index] : e;
 	}
 
 	/**
@@ -392,6 +618,10 @@ public class Entity {
 	 * @param e  the entity's coefficient of restitution
 	 */
 	public void setCoefficientOfRestitution(float e) {
+		
+		if (world != null)
+			world.getRestitution()[index] = e;
+		
 		this.e = e;
 	}
 
@@ -401,7 +631,7 @@ public class Entity {
 	 * @return staticFriction
 	 */
 	public float getStaticFriction() {
-		return staticFriction;
+		return world != null ? world.getStaticFriction()[index] : staticFriction;
 	}
 
 	/**
@@ -410,9 +640,82 @@ public class Entity {
 	 * @return kineticFriction
 	 */
 	public float getKineticFriction() {
-		return kineticFriction;
+		return world != null ? world.getKineticFriction()[index] : kineticFriction;
+	}
+	
+	/**
+	 * Returns the physics world the entity's state is stored in.
+	 * 
+	 * @return world, or null if the entity is not in a world
+	 */
+	public PhysicsWorld getWorld() {
+		return world;
+	}
+	
+	/**
+	 * Returns the entity's index in its physics world.
+	 * 
+	 * @return index, or -1 if the entity is not in a world
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Moves the entity into a slot of a physics world, or out of its 
+	 * world if world is null. The state the entity had in its previous 
+	 * world is copied back into the entity first. Only PhysicsWorld calls 
+	 * this, after it has copied the entity's state into the slot.
+	 * 
+	 * @param world		the world, or null
+	 * @param index		the entity's index in the world, or -1
+	 */
+	public void setWorld(PhysicsWorld world, int index) {
+		
+		if (this.world != null) {
+			
+			copyFromWorld();
+			
+			mass = getMass();
+			e = getCoefficientOfRestitution();
+			staticFriction = getStaticFriction();
+			kineticFriction = getKineticFriction();
+		}
+		
+		this.world = world;
+		this.index = index;
+	}
+	
+	/**
+	 * Returns whether or not the entity is asleep. A sleeping entity 
+	 * is at rest and is skipped by the physics until something hits it 
+	 * or it is moved.
+	 * 
+	 * @return sleeping
+	 */
+	public boolean isSleeping() {
+		return sleeping;
 	}
 	
+	/**
+	 * Sets whether or not the entity is asleep.
+	 * 
+	 * @param sleeping
+	 */
+	public void setSleeping(boolean sleeping) {
+		this.sleeping = sleeping;
+	}
+
+	/**
+	 * Wakes the entity up, if it is asleep in a physics world. Called
+	 * when something outside the physics changes the entity's size.
+	 */
+	protected void wake() {
+
+		if (world != null)
+			world.wake(index);
+	}
+
 	
 	// ********** PUBLIC HELPER METHODS **********
 	
@@ -479,4 +782,23 @@ public class Entity {
 		return indices;
 	}
 	
+	
+	// ********** PRIVATE HELPER METHODS **********
+	
+	/**
+	 * Copies the position, velocity and acceleration in the entity's 
+	 * world slot into the entity's own fields.
+	 */
+	private void copyFromWorld() {
+		
+		if (world == null)
+			return;
+		
+		position.x = world.getX()[index];
+		position.y = world.getY()[index];
+		velocity.x = world.getVelocityX()[index];
+		velocity.y = world.getVelocityY()[index];
+		acceleration.x = world.getAccelerationX()[index];
+		acceleration.y = world.getAccelerationY()[index];
+	}
 }
@@ -0,0 +1,112 @@
+package objects;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * This class converts decoded images into the RGBA pixels OpenGL reads,
+ * straight from the image's own pixel array into an off-heap buffer.
+ *
+ * The common PNG layouts are converted in bulk: ABGR bytes are copied
+ * as whole ints into a little-endian view of the buffer (which reverses
+ * each pixel's bytes into RGBA as it copies), and BGR bytes and ARGB
+ * ints are converted pixel by pixel without going through getRGB().
+ * Other layouts (grey, palette) fall back to getRGB().
+ */
+public class ImageDecoder {
+
+	/**
+	 * Decodes an image file.
+	 *
+	 * @param data	the contents of the file
+	 * @return the image
+	 * @throws IOException	if the file is not an image
+	 */
+	public static BufferedImage read(byte[] data) throws IOException {
+
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+
+		if (image == null)
+			throw new IOException("Not an image");
+
+		return image;
+	}
+
+	/**
+	 * Stores an image's pixels into a new buffer of RGBA pixels, row by
+	 * row. The caller must free the buffer.
+	 *
+	 * @param image		the image
+	 * @return the buffer
+	 */
+	public static ByteBuffer toRGBA(BufferedImage image) {
+
+		int numPixels = image.getWidth() * image.getHeight();
+
+		// images that are part of a larger raster can't be copied whole
+		if (image.getRaster().getParent() != null || image.getRaster().getDataBuffer().getNumBanks() != 1)
+			return Loader.storeDataInRGBABuffer(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+
+		ByteBuffer buffer = MemoryUtil.memAlloc(numPixels * 4);
+
+		switch (image.getType()) {
+
+			case BufferedImage.TYPE_4BYTE_ABGR: {
+
+				byte[] abgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+				// ABGR read big-endian and written little-endian is RGBA
+				IntBuffer source = ByteBuffer.wrap(abgr, 0, numPixels * 4).order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+				buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(source);
+				break;
+			}
+
+			case BufferedImage.TYPE_3BYTE_BGR: {
+
+				byte[] bgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+				for (int i = 0; i < numPixels * 3; i += 3) {
+					buffer.put(bgr[i + 2]);		// RED
+					buffer.put(bgr[i + 1]);		// GREEN
+					buffer.put(bgr[i]);			// BLUE
+					buffer.put((byte) 0xFF);	// ALPHA
+				}
+
+				break;
+			}
+
+			case BufferedImage.TYPE_INT_ARGB:
+			case BufferedImage.TYPE_INT_RGB: {
+
+				int[] argb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+				boolean opaque = image.getType() == BufferedImage.TYPE_INT_RGB;
+
+				// ARGB rotated left by a byte is RGBA, written big-endian
+				IntBuffer rgba = buffer.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+
+				for (int i = 0; i < numPixels; i++)
+					rgba.put(i, Integer.rotateLeft(opaque ? argb[i] | 0xFF000000 : argb[i], 8));
+
+				break;
+			}
+
+			default:
+				MemoryUtil.memFree(buffer);
+				return Loader.storeDataInRGBABuffer(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+		}
+
+		buffer.clear();
+
+		return buffer;
+	}
+}
@@ -11,13 +11,21 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import javax.imageio.ImageIO;
-
-import org.lwjgl.BufferUtils;
 import org.lwjgl.system.MemoryUtil;
 
+import objects.TextureStreamer.DecodedImage;
+import renderEngine.GLState;
+
 /**
  * This is a helper class to load attributes 
  * into a Model.
@@ -28,11 +36,42 @@ import org.lwjgl.system.MemoryUtil;
  */
 public class Loader {
 
-	// instance variables
+	// static variables
+	
+	// the number of textures kept after they are released, in case they are loaded again
+	private static final int MAX_UNUSED_TEXTURES = 8;
+	
+	// the rectangles made by Entity, and the unit square they are all drawn with
+	private static final float[] QUAD_TEX_COORDS = Entity.getTexCoords();
+	private static final int[] QUAD_INDICES = Entity.getIndices();
+	private static final float[] UNIT_QUAD_VERTICES = Entity.getVertices(1, 1, 0);
+	
+	// the owner of resources loaded outside of beginOwner() and endOwner()
+	public static final String GLOBAL_OWNER = "global";
+	
+	// instance variables (the live OpenGL objects)
 	private static ArrayList<Integer> vaos;
 	private static ArrayList<Integer> vbos;
 	private static ArrayList<Integer> textures;
 	
+	// each geometry and its VAO, so that models with the same geometry share one
+	private static HashMap<Geometry, Geometry> geometries;
+	private static HashMap<Integer, Geometry> geometriesByVAO;
+	
+	// the models and textures loaded by each owner (e.g. a screen), so that 
+	// they can be released together
+	private static LinkedHashMap<String, Owner> owners;
+	private static ArrayDeque<String> currentOwners;
+	
+	// small images packed into shared textures
+	private static TextureAtlas atlas;
+	
+	// the other textures, by file and by contents
+	private static TextureCache textureCache;
+	
+	// decodes the textures that will be needed on other threads
+	private static TextureStreamer streamer;
+	
 	/**
 	 * Constructor.
 	 */
@@ -40,6 +79,12 @@ public class Loader {
 		vaos = new ArrayList<Integer>();
 		vbos = new ArrayList<Integer>();
 		textures = new ArrayList<Integer>();
+		geometries = new HashMap<Geometry, Geometry>();
+		geometriesByVAO = new HashMap<Integer, Geometry>();
+		owners = new LinkedHashMap<String, Owner>();
+		currentOwners = new ArrayDeque<String>();
+		textureCache = new TextureCache(MAX_UNUSED_TEXTURES);
+		streamer = new TextureStreamer(Runtime.getRuntime().availableProcessors() - 1);
 	}
 	
 	/**
@@ -49,6 +94,13 @@ public class Loader {
 	 * attributes (eg. vertices, texCoords) in Vertex Buffer Objects, or VBOs. A 
 	 * VBO stores a list of the elements of an attribute. A VAO is a list of VBOs.
 	 * 
+	 * Models with the same geometry share a VAO. Rectangles made by 
+	 * Entity.getVertices() all share the unit square's VAO, and are scaled 
+	 * to their size when they are drawn.
+	 * 
+	 * The model belongs to the current owner (see beginOwner()), until it 
+	 * is released with releaseModel() or releaseOwner().
+	 * 
 	 * @param vertices  the float array that contains the model's vertices
 	 * @param texCoords  the float array that contains the model texture's vertices
 	 * @param indices  the integer array that contains the indices to which the 
@@ -58,72 +110,309 @@ public class Loader {
 	 */
 	public Model loadToVAO(float[] vertices, float[] texCoords, int[] indices, int textureID) {
 		
-		// create a new VAO
-		int vaoID = glGenVertexArrays();
-		glBindVertexArray(vaoID);
-		vaos.add(vaoID);
+		Model model;
+		
+		if (isQuad(vertices, texCoords, indices)) {
+			
+			// the corners are (-width/2, height/2, z), ...
+			model = new Model(getVAO(UNIT_QUAD_VERTICES, texCoords, indices), indices.length, textureID);
+			model.setQuad(vertices[6] * 2, vertices[1] * 2, vertices[2]);
+		}
+		else {
+			model = new Model(getVAO(vertices, texCoords, indices), indices.length, textureID);
+		}
+		
+		setTexture(model, textureID);
+		setBounds(model, vertices);
+		
+		getOwner().models.add(model);
+		
+		return model;
+	}
+	
+	/**
+	 * Packs the small images in the given directories into a texture 
+	 * atlas. From then on, loadTexture() returns a region of the atlas 
+	 * for these images instead of creating a texture for each.
+	 * 
+	 * @param pageSize			the width and height of the atlas' textures
+	 * @param maxSpriteSize		the largest width or height of an image that is packed
+	 * @param directories		the directories with the images
+	 */
+	public void loadAtlas(int pageSize, int maxSpriteSize, String... directories) {
+		
+		atlas = new TextureAtlas(pageSize, maxSpriteSize);
+		atlas.pack(directories);
+		
+		// upload the pages
+		for (int page = 0; page < atlas.getNumPages(); page++) {
+			
+			int id = createTexture(atlas.getPagePixels(page), pageSize, pageSize);
+			atlas.setPageTextureID(page, id);
+		}
+	}
+	
+	/**
+	 * Sets a model's texture. If the texture ID refers to a region of 
+	 * the texture atlas, the model is given the atlas' texture and the 
+	 * region's texture coordinates.
+	 * 
+	 * @param model			the model
+	 * @param textureID		the texture ID (as returned by loadTexture())
+	 */
+	public void setTexture(Model model, int textureID) {
+		
+		if (atlas != null && atlas.isRegion(textureID))
+			model.setTexture(atlas.getTextureID(textureID), 
+					atlas.getU(textureID), atlas.getV(textureID), 
+					atlas.getWidth(textureID), atlas.getHeight(textureID));
+		else
+			model.setTexture(textureID, 0, 0, 1, 1);
+	}
+	
+	/**
+	 * Starts decoding, on other threads, the PNG images in the given 
+	 * directories that were not packed into the texture atlas. The 
+	 * decoded images are uploaded by uploadTextures(), or as soon as 
+	 * loadTexture() needs them.
+	 * 
+	 * @param directories	the directories with the images
+	 */
+	public void preloadTextures(String... directories) {
 		
-		// bind the indices to the attribute elements
-		bindIndicesBuffer(indices);
+		for (String directory:directories) {
+			
+			File[] list = new File(directory).listFiles();
+			
+			if (list == null)
+				continue;
+			
+			Arrays.sort(list);
+			
+			for (File file:list) {
+				
+				String filename = file.getPath();
+				
+				if (!filename.toLowerCase().endsWith(".png"))
+					continue;
+				
+				if (atlas != null && atlas.getRegionID(filename) != 0)
+					continue;
+				
+				streamer.request(filename);
+			}
+		}
+	}
+	
+	/**
+	 * Uploads the textures that have been decoded by preloadTextures(), 
+	 * until the given time has passed. Call this once per frame, so that 
+	 * the textures are uploaded without stalling a frame for long.
+	 * 
+	 * @param budget	the time to spend, in nanoseconds
+	 * @return true if every preloaded texture has been uploaded, false otherwise
+	 */
+	public boolean uploadTextures(long budget) {
 		
-		// store data in attribute lists (VBOs)
-		storeDataInAttributeList(0, 3, vertices);
-		storeDataInAttributeList(1, 2, texCoords);
+		long start = System.nanoTime();
 		
-		// unbind VAO
-		glBindVertexArray(0);
+		while (System.nanoTime() - start < budget) {
+			
+			DecodedImage image = streamer.poll();
+			
+			if (image == null)
+				break;
+			
+			// the texture keeps one use until loadTexture() claims it
+			uploadTexture(image);
+			streamer.setUnclaimed(image.filename);
+		}
 		
-		return new Model(vaoID, indices.length, textureID);
+		return streamer.isDone();
+	}
+	
+	/**
+	 * Returns the fraction of the preloaded textures that have been 
+	 * uploaded.
+	 * 
+	 * @return the progress, from 0 to 1
+	 */
+	public float getPreloadProgress() {
+		return streamer.getProgress();
 	}
 	
 	/**
 	 * Takes in a texture a file and binds the texture to a texture ID. 
-	 * Returns the texture ID.
+	 * Returns the texture ID. If the image was packed into the texture 
+	 * atlas, the ID of its region of the atlas is returned instead. 
+	 * 
+	 * Each file (or file with the same contents) is only loaded once; 
+	 * loading it again returns the same texture. Call releaseTexture() 
+	 * when a texture is no longer used. The texture belongs to the 
+	 * current owner (see beginOwner()) until then.
 	 * 
 	 * @param filename  the name of the texture file
 	 * @return id  the texture ID
 	 */
 	public int loadTexture(String filename) {
 		
+		int id = acquireTexture(filename);
+		
+		// the atlas is never deleted, so its regions belong to no one
+		if (id > 0)
+			getOwner().textures.add(id);
+		
+		return id;
+	}
+	
+	/**
+	 * Releases a model returned by loadToVAO(). Once no model uses its 
+	 * VAO, the VAO and its VBOs are deleted. The model's texture is not 
+	 * released (it was loaded separately).
+	 * 
+	 * @param model		the model
+	 */
+	public void releaseModel(Model model) {
+		
+		for (Owner owner:owners.values()) {
+			
+			if (owner.models.remove(model)) {
+				releaseGeometry(model.getVaoID());
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Makes an owner the current owner: the models and textures loaded 
+	 * from now on (until endOwner()) belong to it, and can be released 
+	 * together with releaseOwner(). Owners can be nested.
+	 * 
+	 * @param owner		the owner's name (e.g. a screen)
+	 */
+	public void beginOwner(String owner) {
+		currentOwners.push(owner);
+	}
+	
+	/**
+	 * Makes the owner that was current before the last beginOwner() 
+	 * the current owner again.
+	 */
+	public void endOwner() {
+		currentOwners.pop();
+	}
+	
+	/**
+	 * Releases every model and texture an owner still has. OpenGL 
+	 * objects that no other owner uses are deleted.
+	 * 
+	 * @param owner		the owner's name
+	 */
+	public void releaseOwner(String owner) {
+		
+		Owner resources = owners.remove(owner);
+		
+		if (resources == null)
+			return;
+		
+		for (Model model:resources.models)
+			releaseGeometry(model.getVaoID());
+		
+		for (int texture:resources.textures)
+			textureCache.release(texture);
+		
+		evictTextures();
+	}
+	
+	/**
+	 * Returns a report of the live OpenGL objects, and of the models and 
+	 * textures each owner has. Objects that keep growing while the 
+	 * program runs are leaks.
+	 * 
+	 * @return the report
+	 */
+	public String getResourceReport() {
+		
+		StringBuilder report = new StringBuilder();
+		
+		report.append("Live OpenGL objects: " + vaos.size() + " VAOs, " + vbos.size() + " VBOs, " + 
+				textures.size() + " textures (" + textureCache.getNumUnused() + " unused, kept to be reused)");
+		
+		for (Map.Entry<String, Owner> entry:owners.entrySet()) {
+			
+			Owner owner = entry.getValue();
+			HashSet<Integer> ownerVAOs = new HashSet<Integer>();
+			
+			for (Model model:owner.models)
+				ownerVAOs.add(model.getVaoID());
+			
+			report.append("\n  " + entry.getKey() + ": " + owner.models.size() + " models on " + 
+					ownerVAOs.size() + " VAOs, " + owner.textures.size() + " textures");
+		}
+		
+		return report.toString();
+	}
+	
+	/**
+	 * Returns the texture of a file (see loadTexture()).
+	 * 
+	 * @param filename  the name of the texture file
+	 * @return id  the texture ID
+	 */
+	private int acquireTexture(String filename) {
+		
+		if (atlas != null) {
+			
+			int region = atlas.getRegionID(filename);
+			
+			if (region != 0)
+				return region;
+		}
+		
+		// the file was loaded before
+		int id = textureCache.acquire(filename);
+		
+		if (id != 0) {
+			
+			// the texture was preloaded: its use by the preload is over
+			if (streamer.claim(filename))
+				textureCache.release(id);
+			
+			return id;
+		}
+		
+		// the file is being decoded on another thread
+		DecodedImage image = streamer.take(filename);
+		
+		if (image != null)
+			return uploadTexture(image);
+		
 		BufferedImage bi;
 		int width;
 		int height;
-		int id;
 		
 		// put the texture in a ByteBuffer and bind the texture to a 
 		// texture ID
 		try {
-			bi = ImageIO.read(new File(filename));
-			width = bi.getWidth();
-			height = bi.getHeight();
+			byte[] data = Files.readAllBytes(Paths.get(filename));
+			String hash = TextureCache.hash(data);
 			
-			int[] pixels_raw = new int[width * height * 4];
-			pixels_raw = bi.getRGB(0, 0, width, height, null, 0, width);
+			// a file with the same contents was loaded before
+			id = textureCache.acquire(filename, hash);
 			
-			ByteBuffer pixels = BufferUtils.createByteBuffer(width * height * 4);
-			
-			for (int i = 0; i < width; i++) {
-				for (int j = 0; j < height; j++) {
-					
-					int pixel = pixels_raw[i * height + j];
-					pixels.put((byte) ((pixel >> 16) & 0xFF)); 	// RED
-					pixels.put((byte) ((pixel >> 8) & 0xFF)); 	// GREEN
-					pixels.put((byte) (pixel & 0xFF)); 			// BLUE
-					pixels.put((byte) ((pixel >> 24) & 0xFF)); 	// ALPHA
-				}
-			}
+			if (id != 0)
+				return id;
 			
-			pixels.flip();
-			
-			id = glGenTextures();
-			glBindTexture(GL_TEXTURE_2D, id);
+			bi = ImageDecoder.read(data);
+			width = bi.getWidth();
+			height = bi.getHeight();
 			
-			glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-			glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+			ByteBuffer pixels = ImageDecoder.toRGBA(bi);
 			
-			glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+			id = createTexture(pixels, width, height);
+			textureCache.add(filename, hash, id);
 			
-			textures.add(id);
+			MemoryUtil.memFree(pixels);
 			
 			return id;
 		}
@@ -134,22 +423,259 @@ public class Loader {
 		return -1;
 	}
 	
+	/**
+	 * Releases a texture returned by loadTexture(). Once a texture has 
+	 * been unused for a while (and enough other textures are unused), it 
+	 * is deleted. Textures of the atlas are never deleted.
+	 * 
+	 * @param textureID  the texture ID
+	 */
+	public void releaseTexture(int textureID) {
+		
+		// the texture no longer belongs to its owner (the current owner, if it has it)
+		if (!getOwner().textures.remove(Integer.valueOf(textureID))) {
+			
+			for (Owner owner:owners.values()) {
+				
+				if (owner.textures.remove(Integer.valueOf(textureID)))
+					break;
+			}
+		}
+		
+		textureCache.release(textureID);
+		
+		evictTextures();
+	}
+	
 	/**
 	 * A cleanup method to erase memory data when the program stops.
 	 */
 	public void cleanUp() {
 		
+		streamer.cleanUp();
+		textureCache.clear();
+		geometries.clear();
+		geometriesByVAO.clear();
+		owners.clear();
+		
 		for (int vao:vaos) {
-			glDeleteVertexArrays(vao);
+			GLState.deleteVertexArray(vao);
 		}
 		for (int vbo:vbos) {
-			glDeleteBuffers(vbo);
+			GLState.deleteBuffer(vbo);
 		}
 		for (int texture:textures) {
-			glDeleteTextures(texture);
+			GLState.deleteTexture(texture);
 		}
 	}
 
+	/**
+	 * Returns the VAO with the given geometry, creating it if there is 
+	 * none yet, and counts one more model using it.
+	 * 
+	 * @param vertices  the float array that contains the model's vertices
+	 * @param texCoords  the float array that contains the model texture's vertices
+	 * @param indices  the integer array that contains the indices
+	 * @return vaoID  the VAO ID
+	 */
+	private int getVAO(float[] vertices, float[] texCoords, int[] indices) {
+		
+		Geometry key = new Geometry(vertices, texCoords, indices);
+		Geometry geometry = geometries.get(key);
+		
+		if (geometry == null) {
+			
+			geometry = key;
+			
+			// create a new VAO
+			geometry.vaoID = glGenVertexArrays();
+			GLState.bindVertexArray(geometry.vaoID);
+			vaos.add(geometry.vaoID);
+			
+			// bind the indices to the attribute elements
+			geometry.vboIDs[0] = bindIndicesBuffer(indices);
+			
+			// store data in attribute lists (VBOs)
+			geometry.vboIDs[1] = storeDataInAttributeList(0, 3, vertices);
+			geometry.vboIDs[2] = storeDataInAttributeList(1, 2, texCoords);
+			
+			// unbind VAO
+			GLState.bindVertexArray(0);
+			
+			geometries.put(geometry, geometry);
+			geometriesByVAO.put(geometry.vaoID, geometry);
+		}
+		
+		geometry.references++;
+		
+		return geometry.vaoID;
+	}
+	
+	/**
+	 * Counts one less model using a VAO, and deletes the VAO and its 
+	 * VBOs if no model uses it any more.
+	 * 
+	 * @param vaoID		the VAO ID
+	 */
+	private void releaseGeometry(int vaoID) {
+		
+		Geometry geometry = geometriesByVAO.get(vaoID);
+		
+		if (geometry == null || --geometry.references > 0)
+			return;
+		
+		geometries.remove(geometry);
+		geometriesByVAO.remove(vaoID);
+		
+		GLState.deleteVertexArray(vaoID);
+		vaos.remove(Integer.valueOf(vaoID));
+		
+		for (int vbo:geometry.vboIDs) {
+			GLState.deleteBuffer(vbo);
+			vbos.remove(Integer.valueOf(vbo));
+		}
+	}
+	
+	/**
+	 * Deletes the textures that have been unused the longest, if too 
+	 * many textures are unused.
+	 */
+	private void evictTextures() {
+		
+		int evicted;
+		
+		while ((evicted = textureCache.evict()) != 0) {
+			GLState.deleteTexture(evicted);
+			textures.remove(Integer.valueOf(evicted));
+		}
+	}
+	
+	/**
+	 * Returns the resources of the current owner.
+	 * 
+	 * @return the owner
+	 */
+	private Owner getOwner() {
+		
+		String name = currentOwners.isEmpty() ? GLOBAL_OWNER : currentOwners.peek();
+		Owner owner = owners.get(name);
+		
+		if (owner == null) {
+			owner = new Owner();
+			owners.put(name, owner);
+		}
+		
+		return owner;
+	}
+	
+	/**
+	 * Checks whether a geometry is a rectangle made by Entity.getVertices(), 
+	 * Entity.getTexCoords() and Entity.getIndices().
+	 * 
+	 * @param vertices  the float array that contains the model's vertices
+	 * @param texCoords  the float array that contains the model texture's vertices
+	 * @param indices  the integer array that contains the indices
+	 * @return true if yes, false otherwise
+	 */
+	private boolean isQuad(float[] vertices, float[] texCoords, int[] indices) {
+		
+		if (vertices.length != 12 || !Arrays.equals(texCoords, QUAD_TEX_COORDS) || !Arrays.equals(indices, QUAD_INDICES))
+			return false;
+		
+		return Arrays.equals(vertices, Entity.getVertices(vertices[6] * 2, vertices[1] * 2, vertices[2]));
+	}
+	
+	/**
+	 * Sets the bounds of a model to the box around its vertices.
+	 * 
+	 * @param model		the model
+	 * @param vertices	the model's vertices (x, y, z)
+	 */
+	private void setBounds(Model model, float[] vertices) {
+		
+		if (vertices.length < 3)
+			return;
+		
+		float minX = vertices[0], minY = vertices[1], minZ = vertices[2];
+		float maxX = minX, maxY = minY, maxZ = minZ;
+		
+		for (int i = 3; i + 2 < vertices.length; i += 3) {
+			
+			minX = Math.min(minX, vertices[i]);
+			minY = Math.min(minY, vertices[i + 1]);
+			minZ = Math.min(minZ, vertices[i + 2]);
+			maxX = Math.max(maxX, vertices[i]);
+			maxY = Math.max(maxY, vertices[i + 1]);
+			maxZ = Math.max(maxZ, vertices[i + 2]);
+		}
+		
+		model.setBounds(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+	
+	/**
+	 * Creates a texture from a decoded image (or finds a texture with 
+	 * the same contents), and frees the image's pixels. The texture is 
+	 * added to the cache with one use.
+	 * 
+	 * @param image		the image
+	 * @return id		the texture ID
+	 */
+	private int uploadTexture(DecodedImage image) {
+		
+		int id = textureCache.acquire(image.filename, image.hash);
+		
+		if (id == 0) {
+			id = createTexture(image.pixels, image.width, image.height);
+			textureCache.add(image.filename, image.hash, id);
+		}
+		
+		MemoryUtil.memFree(image.pixels);
+		
+		return id;
+	}
+	
+	/**
+	 * Creates a texture from ARGB pixels, row by row.
+	 * 
+	 * @param pixels_raw	the pixels
+	 * @param width			the width of the texture
+	 * @param height		the height of the texture
+	 * @return id			the texture ID
+	 */
+	private int createTexture(int[] pixels_raw, int width, int height) {
+		
+		ByteBuffer pixels = storeDataInRGBABuffer(pixels_raw);
+		
+		int id = createTexture(pixels, width, height);
+		
+		MemoryUtil.memFree(pixels);
+		
+		return id;
+	}
+	
+	/**
+	 * Creates a texture from RGBA pixels, row by row.
+	 * 
+	 * @param pixels	the pixels
+	 * @param width		the width of the texture
+	 * @param height	the height of the texture
+	 * @return id		the texture ID
+	 */
+	private int createTexture(ByteBuffer pixels, int width, int height) {
+		
+		int id = glGenTextures();
+		GLState.bindTexture(0, id);
+		
+		glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+		glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+		
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+		
+		textures.add(id);
+		
+		return id;
+	}
+	
 	/**
 	 * Takes in information about an attribute and stores them into a VBO, 
 	 * then storing that VBO into the model's VAO.
@@ -157,24 +683,25 @@ public class Loader {
 	 * @param attributeNumber  the index of the attribute list
 	 * @param coordinateSize  the size of each element in the attribute list
 	 * @param data  the float array that contains the attribute's elements
+	 * @return vboID  the VBO ID
 	 */
-	private void storeDataInAttributeList(int attributeNumber, int coordinateSize, float[] data) {
+	private int storeDataInAttributeList(int attributeNumber, int coordinateSize, float[] data) {
 		
 		// create new VBO
 		int vboID = glGenBuffers();
 		vbos.add(vboID);
 		
 		// bind VBO and store data in VBO
-		glBindBuffer(GL_ARRAY_BUFFER, vboID);
+		GLState.bindArrayBuffer(vboID);
 		FloatBuffer buffer = storeDataInFloatBuffer(data);
 		glBufferData(GL_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
-		MemoryUtil.memFree(buffer);
 		glVertexAttribPointer(attributeNumber, coordinateSize, GL_FLOAT, false, 0, 0);
-		glBindBuffer(GL_ARRAY_BUFFER, 0);
+		GLState.bindArrayBuffer(0);
 		
-		// clear buffer data
-		if (buffer != null)
-		    MemoryUtil.memFree(buffer);
+		// clear buffer data (once: freeing it twice corrupts the native heap)
+		MemoryUtil.memFree(buffer);
+		
+		return vboID;
 	}
 	
 	/**
@@ -182,8 +709,9 @@ public class Loader {
 	 * 
 	 * @param indices  the integer array that contains the indices to which the 
 	 * 				   model's attributes' elements are referred
+	 * @return vboID  the VBO ID
 	 */
-	private void bindIndicesBuffer(int[] indices) {
+	private int bindIndicesBuffer(int[] indices) {
 		
 		// create new VBO
 		int vboID = glGenBuffers();
@@ -193,6 +721,11 @@ public class Loader {
 		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboID);
 		IntBuffer buffer = storeDataInIntBuffer(indices);
 		glBufferData(GL_ELEMENT_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
+		
+		// clear buffer data
+		MemoryUtil.memFree(buffer);
+		
+		return vboID;
 	}
 	
 	/**
@@ -224,4 +757,83 @@ public class Loader {
 		
 		return buffer;
 	}
+	
+	/**
+	 * Helper method to store ARGB pixels in an integer array into a 
+	 * ByteBuffer of RGBA pixels (the order OpenGL reads them in). The 
+	 * caller must free the buffer.
+	 * 
+	 * @param argb  the integer array containing the pixels
+	 * @return buffer  the ByteBuffer
+	 */
+	static ByteBuffer storeDataInRGBABuffer(int[] argb) {
+		
+		ByteBuffer buffer = MemoryUtil.memAlloc(argb.length * 4);
+		
+		for (int pixel:argb) {
+			buffer.put((byte) ((pixel >> 16) & 0xFF)); 	// RED
+			buffer.put((byte) ((pixel >> 8) & 0xFF)); 	// GREEN
+			buffer.put((byte) (pixel & 0xFF)); 			// BLUE
+			buffer.put((byte) ((pixel >> 24) & 0xFF)); 	// ALPHA
+		}
+		
+		buffer.flip();
+		
+		return buffer;
+	}
+	
+	/**
+	 * The vertices, texture coordinates and indices of a model, 
+	 * compared by value.
+	 */
+	private static class Geometry {
+		
+		private float[] vertices;
+		private float[] texCoords;
+		private int[] indices;
+		private int hash;
+		
+		private int vaoID;
+		private int[] vboIDs;
+		private int references;
+		
+		private Geometry(float[] vertices, float[] texCoords, int[] indices) {
+			
+			// copied, since the caller may reuse the arrays
+			this.vertices = vertices.clone();
+			this.texCoords = texCoords.clone();
+			this.indices = indices.clone();
+			
+			hash = (Arrays.hashCode(vertices) * 31 + Arrays.hashCode(texCoords)) * 31 + Arrays.hashCode(indices);
+			
+			vboIDs = new int[3];
+			references = 0;
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			
+			if (!(other instanceof Geometry))
+				return false;
+			
+			Geometry geometry = (Geometry) other;
+			
+			return hash == geometry.hash && Arrays.equals(vertices, geometry.vertices) && 
+					Arrays.equals(texCoords, geometry.texCoords) && Arrays.equals(indices, geometry.indices);
+		}
+	}
+	
+	/**
+	 * The models and textures loaded by an owner.
+	 */
+	private static class Owner {
+		
+		private ArrayList<Model> models = new ArrayList<Model>();
+		private ArrayList<Integer> textures = new ArrayList<Integer>();
+	}
 }
@@ -15,6 +15,24 @@ public class Model {
 	private int textureID;
 	private int vertexCount;
 	
+	// the part of the texture the model shows, in texture coordinates
+	private float textureU;
+	private float textureV;
+	private float textureWidth;
+	private float textureHeight;
+	
+	// the box around the model's vertices (used to skip models that are off screen)
+	private boolean hasBounds;
+	private float minX, minY, minZ;
+	private float maxX, maxY, maxZ;
+	
+	// the size and depth of a quad that shares the unit quad's VAO (applied 
+	// on top of the world matrix when the model is drawn)
+	private boolean isUnitQuad;
+	private float quadWidth;
+	private float quadHeight;
+	private float quadZ;
+	
 	/**
 	 * Creates a model.
 	 * 
@@ -27,6 +45,36 @@ public class Model {
 		this.vaoID = vaoID;
 		this.textureID = textureID;
 		this.vertexCount = vertexCount;
+		
+		// the whole texture
+		textureU = 0;
+		textureV = 0;
+		textureWidth = 1;
+		textureHeight = 1;
+		
+		// unknown, so never culled
+		hasBounds = false;
+		
+		isUnitQuad = false;
+	}
+	
+	/**
+	 * Creates a model that shares another model's VAO, texture and 
+	 * bounds. The copy's texture can be changed on its own.
+	 * 
+	 * @param model		the model to copy
+	 */
+	public Model(Model model) {
+		
+		this(model.vaoID, model.vertexCount, model.textureID);
+		
+		setTexture(model.textureID, model.textureU, model.textureV, model.textureWidth, model.textureHeight);
+		
+		if (model.hasBounds)
+			setBounds(model.minX, model.minY, model.minZ, model.maxX, model.maxY, model.maxZ);
+		
+		if (model.isUnitQuad)
+			setQuad(model.quadWidth, model.quadHeight, model.quadZ);
 	}
 
 	/**
@@ -56,13 +104,205 @@ public class Model {
 		return textureID;
 	}
 	
+	/**
+	 * Returns the left edge of the part of the texture the model 
+	 * shows, in texture coordinates.
+	 * 
+	 * @return textureU
+	 */
+	public float getTextureU() {
+		return textureU;
+	}
+	
+	/**
+	 * Returns the top edge of the part of the texture the model 
+	 * shows, in texture coordinates.
+	 * 
+	 * @return textureV
+	 */
+	public float getTextureV() {
+		return textureV;
+	}
+	
+	/**
+	 * Returns the width of the part of the texture the model 
+	 * shows, in texture coordinates.
+	 * 
+	 * @return textureWidth
+	 */
+	public float getTextureWidth() {
+		return textureWidth;
+	}
+	
+	/**
+	 * Returns the height of the part of the texture the model 
+	 * shows, in texture coordinates.
+	 * 
+	 * @return textureHeight
+	 */
+	public float getTextureHeight() {
+		return textureHeight;
+	}
+	
+	/**
+	 * Checks whether the model's bounds are known.
+	 * 
+	 * @return true if yes, false otherwise
+	 */
+	public boolean hasBounds() {
+		return hasBounds;
+	}
+	
+	/**
+	 * Returns the smallest x-coordinate of the model's vertices.
+	 * 
+	 * @return minX
+	 */
+	public float getMinX() {
+		return minX;
+	}
+	
+	/**
+	 * Returns the smallest y-coordinate of the model's vertices.
+	 * 
+	 * @return minY
+	 */
+	public float getMinY() {
+		return minY;
+	}
+	
+	/**
+	 * Returns the smallest z-coordinate of the model's vertices.
+	 * 
+	 * @return minZ
+	 */
+	public float getMinZ() {
+		return minZ;
+	}
+	
+	/**
+	 * Returns the largest x-coordinate of the model's vertices.
+	 * 
+	 * @return maxX
+	 */
+	public float getMaxX() {
+		return maxX;
+	}
+	
+	/**
+	 * Returns the largest y-coordinate of the model's vertices.
+	 * 
+	 * @return maxY
+	 */
+	public float getMaxY() {
+		return maxY;
+	}
+	
+	/**
+	 * Returns the largest z-coordinate of the model's vertices.
+	 * 
+	 * @return maxZ
+	 */
+	public float getMaxZ() {
+		return maxZ;
+	}
+	
+	/**
+	 * Sets the box around the model's vertices.
+	 */
+	void setBounds(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+		
+		hasBounds = true;
+	}
+	
+	/**
+	 * Checks whether the model uses the unit quad's VAO, scaled to 
+	 * its size and moved to its depth.
+	 * 
+	 * @return true if yes, false otherwise
+	 */
+	public boolean isUnitQuad() {
+		return isUnitQuad;
+	}
+	
+	/**
+	 * Returns the width the unit quad is scaled to.
+	 * 
+	 * @return quadWidth
+	 */
+	public float getQuadWidth() {
+		return quadWidth;
+	}
+	
+	/**
+	 * Returns the height the unit quad is scaled to.
+	 * 
+	 * @return quadHeight
+	 */
+	public float getQuadHeight() {
+		return quadHeight;
+	}
+	
+	/**
+	 * Returns the z-value the unit quad is moved to.
+	 * 
+	 * @return quadZ
+	 */
+	public float getQuadZ() {
+		return quadZ;
+	}
+	
+	/**
+	 * Makes the model a unit quad scaled to the given size and moved 
+	 * to the given depth.
+	 */
+	void setQuad(float width, float height, float z) {
+		
+		quadWidth = width;
+		quadHeight = height;
+		quadZ = z;
+		
+		isUnitQuad = true;
+	}
+	
 	/**
 	 * Sets the model's texture ID
 	 * @param texture	the texture file
 	 * @param loader
 	 */
 	public void setTextureID(String texture, Loader loader) {
-		this.textureID = loader.loadTexture(texture);
+		
+		int previous = textureID;
+		
+		loader.setTexture(this, loader.loadTexture(texture));
+		
+		// the previous texture may no longer be needed
+		loader.releaseTexture(previous);
+	}
+	
+	/**
+	 * Sets the model's texture and the part of it the model shows.
+	 * 
+	 * @param textureID		the OpenGL texture ID
+	 * @param u				the left edge, in texture coordinates
+	 * @param v				the top edge, in texture coordinates
+	 * @param width			the width, in texture coordinates
+	 * @param height		the height, in texture coordinates
+	 */
+	void setTexture(int textureID, float u, float v, float width, float height) {
+		
+		this.textureID = textureID;
+		this.textureU = u;
+		this.textureV = v;
+		this.textureWidth = width;
+		this.textureHeight = height;
 	}
 	
 }
@@ -3,6 +3,8 @@ package objects;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 
+import physicsEngine.AABBTree;
+
 /**
  * This class specifies a rectangular entity. It manages and updates 
  * the rectangle's AABB bounding-box.
@@ -19,6 +21,9 @@ public class Rectangle extends Entity {
 	
 	private AABB aabb;
 	
+	private AABBTree tree;	// the tree this rectangle is a leaf of, if any
+	private int proxy;		// the ID of this rectangle's leaf in the tree
+	
 	/**
 	 * Creates a rectangle object.
 	 * 
@@ -53,6 +58,9 @@ public class Rectangle extends Entity {
 		float yMax = position.y + height/2;
 				
 		this.aabb = new AABB(new Vector2f(xMin, yMin), new Vector2f(new Vector2f(xMax, yMax)));
+		
+		this.tree = null;
+		this.proxy = -1;
 	}
 
 	/**
@@ -71,8 +79,12 @@ public class Rectangle extends Entity {
 	 */
 	public void updateAABB() {
 		
-		this.aabb.setMin(new Vector2f(getPosition().x - width/2, getPosition().y - height/2)); 
-		this.aabb.setMax(new Vector2f(getPosition().x + width/2, getPosition().y + height/2));
+		this.aabb.getMin().set(getX() - width/2, getY() - height/2); 
+		this.aabb.getMax().set(getX() + width/2, getY() + height/2);
+		
+		// refit this rectangle's leaf in the tree
+		if (tree != null)
+			tree.move(proxy);
 	}
 	
 	/**
@@ -84,6 +96,18 @@ public class Rectangle extends Entity {
 		return aabb;
 	}
 
+	/**
+	 * Sets the tree this rectangle is a leaf of. The leaf will be 
+	 * refit every time the rectangle's AABB is updated.
+	 * 
+	 * @param tree		the tree, or null if the rectangle is not in a tree
+	 * @param proxy		the ID of the rectangle's leaf in the tree
+	 */
+	public void setTree(AABBTree tree, int proxy) {
+		this.tree = tree;
+		this.proxy = proxy;
+	}
+
 	/**
 	 * Returns the rectangle's width.
 	 * 
@@ -99,6 +123,10 @@ public class Rectangle extends Entity {
 	 * @param width
 	 */
 	public void setWidth(float width) {
+		
+		if (width != this.width)
+			wake();
+		
 		this.width = width;
 	}
 
@@ -117,6 +145,10 @@ public class Rectangle extends Entity {
 	 * @param height
 	 */
 	public void setHeight(float height) {
+		
+		if (height != this.height)
+			wake();
+		
 		this.height = height;
 	}
 
@@ -0,0 +1,427 @@
+package objects;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * This class packs many small images into a few large pages, so that
+ * sprites with different images can share a texture (and be drawn in
+ * the same draw call). Each packed image becomes a region of a page,
+ * given by its texture coordinates in the page.
+ *
+ * The images are packed on shelves, tallest first. Each image is
+ * surrounded by a one pixel border that repeats its edge pixels, so
+ * that sampling at the edge of a region never picks up a neighbour.
+ * Images larger than the maximum sprite size, and images that can't be
+ * read, are not packed.
+ *
+ * Regions are referred to by region IDs, which are negative so that
+ * they can be told apart from OpenGL texture IDs.
+ */
+public class TextureAtlas {
+
+	// static variables
+	private static final int BORDER = 1;
+
+	// region IDs count down from here (-1 is returned when a texture can't be loaded)
+	private static final int FIRST_REGION_ID = -2;
+
+	// instance variables
+	private int pageSize;
+	private int maxSpriteSize;
+
+	// the pixels of each page (ARGB), until they are uploaded
+	private ArrayList<int[]> pagePixels;
+	private int[] pageTextureIDs;
+
+	// the region of each packed file
+	private HashMap<String, Integer> regions;
+
+	private int[] regionPage;
+	private float[] regionU;
+	private float[] regionV;
+	private float[] regionWidth;
+	private float[] regionHeight;
+	private int numRegions;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pageSize			the width and height of each page, in pixels
+	 * @param maxSpriteSize		the largest width or height of an image that is packed
+	 */
+	public TextureAtlas(int pageSize, int maxSpriteSize) {
+
+		this.pageSize = pageSize;
+		this.maxSpriteSize = maxSpriteSize;
+
+		pagePixels = new ArrayList<int[]>();
+		pageTextureIDs = new int[0];
+
+		regions = new HashMap<String, Integer>();
+
+		regionPage = new int[0];
+		regionU = new float[0];
+		regionV = new float[0];
+		regionWidth = new float[0];
+		regionHeight = new float[0];
+		numRegions = 0;
+	}
+
+	/**
+	 * Packs the PNG images in the given directories into pages. The 
+	 * images are read and decoded in parallel. An image that can't be 
+	 * read is skipped (so loading it makes a texture of its own, or 
+	 * fails on its own).
+	 *
+	 * @param directories	the directories
+	 */
+	public void pack(String... directories) {
+
+		// find the images
+		ArrayList<File> pngs = new ArrayList<File>();
+
+		for (String directory:directories) {
+
+			File[] list = new File(directory).listFiles();
+
+			if (list == null)
+				continue;
+
+			// sorted, so that the pages are the same every time
+			Arrays.sort(list);
+
+			for (File file:list) {
+
+				if (file.getName().toLowerCase().endsWith(".png"))
+					pngs.add(file);
+			}
+		}
+
+		// find the sizes of the images, and keep the ones small enough to pack
+		int[][] pngSizes = new int[pngs.size()][];
+
+		inParallel(pngs.size(), i -> pngSizes[i] = readSize(pngs.get(i)));
+
+		ArrayList<File> files = new ArrayList<File>();
+		ArrayList<int[]> sizes = new ArrayList<int[]>();
+
+		for (int i = 0; i < pngs.size(); i++) {
+
+			int[] size = pngSizes[i];
+
+			if (size != null && size[0] <= maxSpriteSize && size[1] <= maxSpriteSize) {
+				files.add(pngs.get(i));
+				sizes.add(size);
+			}
+		}
+
+		// tallest images first, so that each shelf wastes little space
+		Integer[] order = new Integer[files.size()];
+
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+
+		Arrays.sort(order, (a, b) -> sizes.get(b)[1] - sizes.get(a)[1]);
+
+		// place the images: the page, x and y of each
+		int[][] places = new int[files.size()][];
+
+		int page = -1;
+		int x = pageSize;
+		int y = 0;
+		int shelfHeight = 0;
+
+		for (int i:order) {
+
+			int width = sizes.get(i)[0] + 2 * BORDER;
+			int height = sizes.get(i)[1] + 2 * BORDER;
+
+			// start a new shelf
+			if (x + width > pageSize) {
+				x = 0;
+				y += shelfHeight;
+				shelfHeight = 0;
+			}
+
+			// start a new page
+			if (page == -1 || y + height > pageSize) {
+				pagePixels.add(new int[pageSize * pageSize]);
+				page++;
+				x = 0;
+				y = 0;
+				shelfHeight = 0;
+			}
+
+			places[i] = new int[] {page, x + BORDER, y + BORDER};
+
+			x += width;
+			shelfHeight = Math.max(shelfHeight, height);
+		}
+
+		// there is a texture for every page, even if an image fails to decode
+		pageTextureIDs = new int[pagePixels.size()];
+
+		// decode the images into their places (which never overlap)
+		boolean[] copied = new boolean[files.size()];
+
+		inParallel(files.size(), i -> {
+
+			BufferedImage image = ImageIO.read(files.get(i));
+
+			if (image != null) {
+				copy(image, pagePixels.get(places[i][0]), places[i][1], places[i][2]);
+				copied[i] = true;
+			}
+		});
+
+		for (int i:order) {
+
+			if (copied[i])
+				addRegion(files.get(i).getPath(), places[i][0], places[i][1], places[i][2], sizes.get(i)[0], sizes.get(i)[1]);
+		}
+	}
+
+	/**
+	 * Returns the region ID of a packed image.
+	 *
+	 * @param filename	the image file
+	 * @return the region ID, or 0 if the image was not packed
+	 */
+	public int getRegionID(String filename) {
+
+		Integer region = regions.get(normalize(filename));
+
+		if (region == null)
+			return 0;
+
+		return FIRST_REGION_ID - region;
+	}
+
+	/**
+	 * Checks whether a texture ID refers to a region of the atlas.
+	 *
+	 * @param textureID
+	 * @return true if yes, false otherwise
+	 */
+	public boolean isRegion(int textureID) {
+		return textureID <= FIRST_REGION_ID && FIRST_REGION_ID - textureID < numRegions;
+	}
+
+	/**
+	 * Returns the number of pages.
+	 *
+	 * @return the number of pages
+	 */
+	public int getNumPages() {
+		return pagePixels.size();
+	}
+
+	/**
+	 * Returns the width and height of the pages.
+	 *
+	 * @return pageSize
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns the pixels of a page (ARGB, row by row), or null once
+	 * the page has been uploaded.
+	 *
+	 * @param page	the page
+	 * @return the pixels
+	 */
+	public int[] getPagePixels(int page) {
+		return pagePixels.get(page);
+	}
+
+	/**
+	 * Sets the OpenGL texture that a page was uploaded to, and lets go
+	 * of its pixels.
+	 *
+	 * @param page			the page
+	 * @param textureID		the texture ID
+	 */
+	public void setPageTextureID(int page, int textureID) {
+
+		pageTextureIDs[page] = textureID;
+		pagePixels.set(page, null);
+	}
+
+	/**
+	 * Returns the OpenGL texture of the page a region is on.
+	 *
+	 * @param regionID
+	 * @return the texture ID
+	 */
+	public int getTextureID(int regionID) {
+		return pageTextureIDs[regionPage[FIRST_REGION_ID - regionID]];
+	}
+
+	/**
+	 * Returns the texture coordinates of the left edge of a region.
+	 *
+	 * @param regionID
+	 * @return u
+	 */
+	public float getU(int regionID) {
+		return regionU[FIRST_REGION_ID - regionID];
+	}
+
+	/**
+	 * Returns the texture coordinates of the top edge of a region.
+	 *
+	 * @param regionID
+	 * @return v
+	 */
+	public float getV(int regionID) {
+		return regionV[FIRST_REGION_ID - regionID];
+	}
+
+	/**
+	 * Returns the width of a region, in texture coordinates.
+	 *
+	 * @param regionID
+	 * @return the width
+	 */
+	public float getWidth(int regionID) {
+		return regionWidth[FIRST_REGION_ID - regionID];
+	}
+
+	/**
+	 * Returns the height of a region, in texture coordinates.
+	 *
+	 * @param regionID
+	 * @return the height
+	 */
+	public float getHeight(int regionID) {
+		return regionHeight[FIRST_REGION_ID - regionID];
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Runs a task for every index from 0 to count, in parallel. A task
+	 * that fails to read its file is skipped (its results are left unset).
+	 */
+	private static void inParallel(int count, IndexTask task) {
+
+		IntStream.range(0, count).parallel().forEach(i -> {
+
+			try {
+				task.run(i);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Returns the width and height of an image, without decoding it.
+	 */
+	private static int[] readSize(File file) throws IOException {
+
+		ImageInputStream in = ImageIO.createImageInputStream(file);
+
+		if (in == null)
+			return null;
+
+		try {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+
+			if (!readers.hasNext())
+				return null;
+
+			ImageReader reader = readers.next();
+
+			try {
+				reader.setInput(in);
+				return new int[] {reader.getWidth(0), reader.getHeight(0)};
+			} finally {
+				reader.dispose();
+			}
+
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Copies an image into a page at (x, y), and repeats its edge
+	 * pixels into the border around it.
+	 */
+	private void copy(BufferedImage image, int[] page, int x, int y) {
+
+		int width = image.getWidth();
+		int height = image.getHeight();
+
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+		for (int row = -BORDER; row < height + BORDER; row++) {
+
+			int sourceRow = Math.min(Math.max(row, 0), height - 1);
+			int target = (y + row) * pageSize + x;
+
+			for (int column = -BORDER; column < width + BORDER; column++) {
+
+				int sourceColumn = Math.min(Math.max(column, 0), width - 1);
+				page[target + column] = pixels[sourceRow * width + sourceColumn];
+			}
+		}
+	}
+
+	/**
+	 * Adds a region for a packed image.
+	 */
+	private void addRegion(String filename, int page, int x, int y, int width, int height) {
+
+		if (numRegions == regionPage.length) {
+
+			int capacity = Math.max(16, numRegions * 2);
+
+			regionPage = Arrays.copyOf(regionPage, capacity);
+			regionU = Arrays.copyOf(regionU, capacity);
+			regionV = Arrays.copyOf(regionV, capacity);
+			regionWidth = Arrays.copyOf(regionWidth, capacity);
+			regionHeight = Arrays.copyOf(regionHeight, capacity);
+		}
+
+		regionPage[numRegions] = page;
+		regionU[numRegions] = (float) x / pageSize;
+		regionV[numRegions] = (float) y / pageSize;
+		regionWidth[numRegions] = (float) width / pageSize;
+		regionHeight[numRegions] = (float) height / pageSize;
+
+		regions.put(normalize(filename), numRegions);
+
+		numRegions++;
+	}
+
+	/**
+	 * Returns the path of a file in the same form however it is
+	 * written (e.g. "./res/ball.png" and "res/ball.png").
+	 */
+	static String normalize(String filename) {
+		return new File(filename).toPath().normalize().toString();
+	}
+
+	/**
+	 * A task run for each index, that may fail to read a file.
+	 */
+	private interface IndexTask {
+		void run(int i) throws IOException;
+	}
+}
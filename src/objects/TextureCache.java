@@ -0,0 +1,240 @@
+package objects;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * This class keeps track of the textures created by the Loader, so
+ * that each image is only decoded and uploaded once. Textures are found
+ * by the path of their file, or by a hash of the file's contents (so
+ * that two copies of an image share a texture).
+ *
+ * Each texture counts the models using it. A texture that is no longer
+ * used is kept, in case it is needed again soon, until more than
+ * maxUnused textures are unused; then the one unused the longest is
+ * evicted. The number of textures therefore stays bounded, however
+ * many times textures are swapped.
+ */
+public class TextureCache {
+
+	// instance variables
+	private int maxUnused;
+
+	private HashMap<String, Entry> byPath;
+	private HashMap<String, Entry> byHash;
+	private HashMap<Integer, Entry> byTextureID;
+
+	// unused textures, the one unused the longest first
+	private LinkedHashMap<Integer, Entry> unused;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxUnused		the number of unused textures that are kept
+	 */
+	public TextureCache(int maxUnused) {
+
+		this.maxUnused = maxUnused;
+
+		byPath = new HashMap<String, Entry>();
+		byHash = new HashMap<String, Entry>();
+		byTextureID = new HashMap<Integer, Entry>();
+		unused = new LinkedHashMap<Integer, Entry>();
+	}
+
+	/**
+	 * Returns the texture loaded from a file, and counts one more use
+	 * of it.
+	 *
+	 * @param path	the file
+	 * @return the texture ID, or 0 if the file has not been loaded
+	 */
+	public int acquire(String path) {
+
+		Entry entry = byPath.get(TextureAtlas.normalize(path));
+
+		if (entry == null)
+			return 0;
+
+		return acquire(entry);
+	}
+
+	/**
+	 * Returns the texture loaded from a file with the same contents,
+	 * and counts one more use of it. From then on, the texture is also
+	 * found by the given path.
+	 *
+	 * @param path	the file
+	 * @param hash	the hash of the file's contents
+	 * @return the texture ID, or 0 if no such file has been loaded
+	 */
+	public int acquire(String path, String hash) {
+
+		Entry entry = byHash.get(hash);
+
+		if (entry == null)
+			return 0;
+
+		String key = TextureAtlas.normalize(path);
+
+		byPath.put(key, entry);
+		entry.paths.add(key);
+
+		return acquire(entry);
+	}
+
+	/**
+	 * Adds a texture that was just loaded, with one use.
+	 *
+	 * @param path			the file
+	 * @param hash			the hash of the file's contents
+	 * @param textureID		the texture ID
+	 */
+	public void add(String path, String hash, int textureID) {
+
+		String key = TextureAtlas.normalize(path);
+
+		Entry entry = new Entry(textureID, hash);
+		entry.paths.add(key);
+		entry.references = 1;
+
+		byPath.put(key, entry);
+		byHash.put(hash, entry);
+		byTextureID.put(textureID, entry);
+	}
+
+	/**
+	 * Counts one less use of a texture. Textures that are not in the
+	 * cache are ignored.
+	 *
+	 * @param textureID		the texture ID
+	 */
+	public void release(int textureID) {
+
+		Entry entry = byTextureID.get(textureID);
+
+		if (entry == null || entry.references == 0)
+			return;
+
+		entry.references--;
+
+		if (entry.references == 0)
+			unused.put(textureID, entry);
+	}
+
+	/**
+	 * Removes the texture that has been unused the longest, if too many
+	 * textures are unused. The caller must delete the texture.
+	 *
+	 * @return the texture ID, or 0 if nothing has to be evicted
+	 */
+	public int evict() {
+
+		if (unused.size() <= maxUnused)
+			return 0;
+
+		Iterator<Entry> it = unused.values().iterator();
+		Entry entry = it.next();
+		it.remove();
+
+		for (String path:entry.paths)
+			byPath.remove(path);
+
+		byHash.remove(entry.hash);
+		byTextureID.remove(entry.textureID);
+
+		return entry.textureID;
+	}
+
+	/**
+	 * Returns the number of textures in the cache.
+	 *
+	 * @return the number of textures
+	 */
+	public int size() {
+		return byTextureID.size();
+	}
+
+	/**
+	 * Returns the number of textures in the cache that are not used.
+	 *
+	 * @return the number of unused textures
+	 */
+	public int getNumUnused() {
+		return unused.size();
+	}
+
+	/**
+	 * Removes every texture from the cache.
+	 */
+	public void clear() {
+
+		byPath.clear();
+		byHash.clear();
+		byTextureID.clear();
+		unused.clear();
+	}
+
+	/**
+	 * Returns a hash of a file's contents.
+	 *
+	 * @param data	the contents of the file
+	 * @return the hash, as a hexadecimal string
+	 */
+	public static String hash(byte[] data) {
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+
+			StringBuilder hash = new StringBuilder();
+
+			for (byte b:digest)
+				hash.append(String.format("%02x", b));
+
+			return hash.toString();
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Counts one more use of a texture.
+	 */
+	private int acquire(Entry entry) {
+
+		if (entry.references == 0)
+			unused.remove(entry.textureID);
+
+		entry.references++;
+
+		return entry.textureID;
+	}
+
+	/**
+	 * A texture in the cache.
+	 */
+	private static class Entry {
+
+		private int textureID;
+		private String hash;
+		private ArrayList<String> paths;
+		private int references;
+
+		private Entry(int textureID, String hash) {
+
+			this.textureID = textureID;
+			this.hash = hash;
+
+			paths = new ArrayList<String>();
+			references = 0;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package objects;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * This class decodes images on a pool of worker threads, so that the
+ * textures the program will need are ready before it asks for them.
+ * The workers read, hash and decode each image into a buffer of RGBA
+ * pixels; the Loader then uploads the decoded images on the OpenGL
+ * thread, a few each frame.
+ *
+ * An image that is needed before a worker got to it is decoded by the
+ * thread that needs it, instead of waiting for the workers.
+ *
+ * Every method must be called on the OpenGL thread.
+ */
+public class TextureStreamer {
+
+	// instance variables
+	private ExecutorService workers;
+
+	// the images being decoded, in the order they were requested
+	private LinkedHashMap<String, FutureTask<DecodedImage>> pending;
+
+	// images that were uploaded before anything loaded them
+	private HashSet<String> unclaimed;
+
+	private int numRequested;
+
+	/**
+	 * Constructor. Starts the worker threads.
+	 *
+	 * @param threads	the number of worker threads
+	 */
+	public TextureStreamer(int threads) {
+
+		workers = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+
+			Thread thread = new Thread(task, "Texture decoder");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+
+			return thread;
+		});
+
+		pending = new LinkedHashMap<String, FutureTask<DecodedImage>>();
+		unclaimed = new HashSet<String>();
+
+		numRequested = 0;
+	}
+
+	/**
+	 * Starts decoding an image. Images that were already requested are
+	 * ignored.
+	 *
+	 * @param filename	the image file
+	 */
+	public void request(String filename) {
+
+		String key = TextureAtlas.normalize(filename);
+
+		if (pending.containsKey(key) || unclaimed.contains(key))
+			return;
+
+		FutureTask<DecodedImage> task = new DecodeTask(filename);
+
+		pending.put(key, task);
+		numRequested++;
+
+		workers.execute(task);
+	}
+
+	/**
+	 * Returns an image that has been decoded, without waiting. The
+	 * caller must free its pixels.
+	 *
+	 * @return the image, or null if no image is ready
+	 */
+	DecodedImage poll() {
+
+		Iterator<FutureTask<DecodedImage>> it = pending.values().iterator();
+
+		while (it.hasNext()) {
+
+			FutureTask<DecodedImage> task = it.next();
+
+			if (!task.isDone())
+				continue;
+
+			it.remove();
+
+			DecodedImage image = get(task);
+
+			if (image != null)
+				return image;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns a requested image that has not been uploaded yet, decoding
+	 * it on this thread if no worker has started it. The caller must free
+	 * its pixels.
+	 *
+	 * @param filename	the image file
+	 * @return the image, or null if it was not requested or can't be decoded
+	 */
+	DecodedImage take(String filename) {
+
+		FutureTask<DecodedImage> task = pending.remove(TextureAtlas.normalize(filename));
+
+		if (task == null)
+			return null;
+
+		// does nothing if a worker already started it
+		task.run();
+
+		return get(task);
+	}
+
+	/**
+	 * Records that a decoded image was uploaded before anything loaded
+	 * it. The texture keeps one extra use until the image is claimed.
+	 *
+	 * @param filename	the image file
+	 */
+	public void setUnclaimed(String filename) {
+		unclaimed.add(TextureAtlas.normalize(filename));
+	}
+
+	/**
+	 * Claims an image that was uploaded before anything loaded it.
+	 *
+	 * @param filename	the image file
+	 * @return true if the image was unclaimed (and its extra use must be released)
+	 */
+	public boolean claim(String filename) {
+		return unclaimed.remove(TextureAtlas.normalize(filename));
+	}
+
+	/**
+	 * Checks whether every requested image has been taken.
+	 *
+	 * @return true if yes, false otherwise
+	 */
+	public boolean isDone() {
+		return pending.isEmpty();
+	}
+
+	/**
+	 * Returns the fraction of the requested images that have been
+	 * taken.
+	 *
+	 * @return the progress, from 0 to 1
+	 */
+	public float getProgress() {
+
+		if (numRequested == 0)
+			return 1f;
+
+		return (float) (numRequested - pending.size()) / numRequested;
+	}
+
+	/**
+	 * Stops the worker threads and frees the images that were not taken.
+	 */
+	public void cleanUp() {
+
+		workers.shutdownNow();
+
+		for (FutureTask<DecodedImage> task:pending.values()) {
+
+			// a task that has not started will never run, and a task that
+			// is still running frees its own image (see DecodeTask)
+			if (!task.isDone() && task.cancel(false))
+				continue;
+
+			DecodedImage image = get(task);
+
+			if (image != null)
+				MemoryUtil.memFree(image.pixels);
+		}
+
+		pending.clear();
+		unclaimed.clear();
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Reads, hashes and decodes an image (on a worker thread).
+	 */
+	private static DecodedImage decode(String filename) throws IOException {
+
+		byte[] data = Files.readAllBytes(Paths.get(filename));
+
+		BufferedImage image = ImageDecoder.read(data);
+
+		return new DecodedImage(filename, TextureCache.hash(data), image.getWidth(), image.getHeight(), ImageDecoder.toRGBA(image));
+	}
+
+	/**
+	 * Returns the image of a finished task, or null if it failed.
+	 */
+	private static DecodedImage get(FutureTask<DecodedImage> task) {
+
+		try {
+			return task.get();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+		} catch (ExecutionException e) {
+			e.getCause().printStackTrace();
+		}
+
+		return null;
+	}
+
+	/**
+	 * The task that decodes an image. If it is cancelled while it is
+	 * running, nothing can get its image, so it frees the pixels itself.
+	 */
+	private static class DecodeTask extends FutureTask<DecodedImage> {
+		
+		private DecodeTask(String filename) {
+			super(() -> decode(filename));
+		}
+		
+		@Override
+		protected void set(DecodedImage image) {
+			
+			super.set(image);
+			
+			// the image was not stored
+			if (isCancelled())
+				MemoryUtil.memFree(image.pixels);
+		}
+	}
+	
+	/**
+	 * An image decoded into RGBA pixels, row by row.
+	 */
+	static class DecodedImage {
+
+		String filename;
+		String hash;
+		int width;
+		int height;
+		ByteBuffer pixels;
+
+		private DecodedImage(String filename, String hash, int width, int height, ByteBuffer pixels) {
+
+			this.filename = filename;
+			this.hash = hash;
+			this.width = width;
+			this.height = height;
+			this.pixels = pixels;
+		}
+	}
+}
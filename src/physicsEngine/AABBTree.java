@@ -0,0 +1,671 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.joml.Vector2f;
+
+import objects.AABB;
+import objects.Entity;
+import objects.Rectangle;
+
+/**
+ * This class is a dynamic bounding volume tree. Every leaf holds an
+ * entity and a "fat" AABB, which is the entity's bounding box grown by
+ * a margin. Every branch holds the AABB that encloses both of its
+ * children. To find what overlaps a box, the tree is walked from the
+ * root and any branch whose AABB does not overlap the box is skipped,
+ * so a query only visits about log(n) nodes.
+ *
+ * A leaf only has to be moved when its entity leaves its fat AABB.
+ * Rectangles that are in a tree refit their leaf whenever their own
+ * AABB is updated.
+ *
+ * USED FOR THE BOUNDARIES IN GAME AND CUSTOMIZED MODES.
+ */
+public class AABBTree {
+
+	// static variables
+	public static final float DEFAULT_MARGIN = 10f;
+
+	private static final int NULL_NODE = -1;
+
+	// instance variables
+	private float margin;
+
+	// nodes (a node is a leaf if it has no children)
+	private AABB[] aabbs;
+	private int[] parent;	// also used as the "next" pointer of the free list
+	private int[] child1;
+	private int[] child2;
+	private int[] height;
+	private int[] items;
+	private Entity[] entities;
+
+	private int root;
+	private int freeList;
+
+	// the entities the tree was built for, and their leaves
+	private Entity[] known;
+	private int[] proxies;
+	private int numKnown;
+
+	// reusable query storage
+	private int[] stack;
+	private int[] results;
+	private int numResults;
+
+	/**
+	 * Creates an empty tree with the default margin.
+	 */
+	public AABBTree() {
+		this(DEFAULT_MARGIN);
+	}
+
+	/**
+	 * Creates an empty tree.
+	 *
+	 * @param margin	how much each leaf's AABB is grown on every side
+	 */
+	public AABBTree(float margin) {
+
+		this.margin = margin;
+
+		aabbs = new AABB[0];
+		parent = new int[0];
+		child1 = new int[0];
+		child2 = new int[0];
+		height = new int[0];
+		items = new int[0];
+		entities = new Entity[0];
+
+		root = NULL_NODE;
+		freeList = NULL_NODE;
+
+		known = new Entity[16];
+		proxies = new int[16];
+		numKnown = 0;
+
+		stack = new int[64];
+		results = new int[16];
+		numResults = 0;
+
+		grow(16);
+	}
+
+	/**
+	 * Makes sure the tree holds exactly the entities in the given list.
+	 * The item of each leaf is the entity's index in the list. Nothing
+	 * is done if the list has not changed since the last call.
+	 *
+	 * @param list	the ArrayList containing the entities (eg. the boundaries)
+	 */
+	public void update(ArrayList<Entity> list) {
+
+		if (isSameEntities(list))
+			return;
+
+		clear();
+
+		int n = list.size();
+
+		if (known.length < n) {
+			known = new Entity[Math.max(n, known.length * 2)];
+			proxies = new int[known.length];
+		}
+
+		for (int i = 0; i < n; i++) {
+
+			known[i] = list.get(i);
+			proxies[i] = insert(known[i], i);
+		}
+
+		numKnown = n;
+	}
+
+	/**
+	 * Adds an entity to the tree.
+	 *
+	 * @param entity	the entity
+	 * @param item		a number that is returned by queries that find this entity
+	 * @return proxy	the ID of the entity's leaf
+	 */
+	public int insert(Entity entity, int item) {
+
+		int proxy = allocateNode();
+
+		setFatAABB(proxy, entity);
+		entities[proxy] = entity;
+		items[proxy] = item;
+		height[proxy] = 0;
+
+		insertLeaf(proxy);
+
+		// let rectangles refit their own leaf
+		if (entity instanceof Rectangle)
+			((Rectangle) entity).setTree(this, proxy);
+
+		return proxy;
+	}
+
+	/**
+	 * Removes a leaf from the tree.
+	 *
+	 * @param proxy		the ID of the leaf
+	 */
+	public void remove(int proxy) {
+
+		if (entities[proxy] instanceof Rectangle)
+			((Rectangle) entities[proxy]).setTree(null, NULL_NODE);
+
+		removeLeaf(proxy);
+		freeNode(proxy);
+	}
+
+	/**
+	 * Moves a leaf if its entity is no longer inside the leaf's fat AABB.
+	 *
+	 * @param proxy		the ID of the leaf
+	 * @return true if the leaf had to be moved, false otherwise
+	 */
+	public boolean move(int proxy) {
+
+		Entity entity = entities[proxy];
+		AABB fat = aabbs[proxy];
+
+		// still inside the fat AABB
+		if (fat.getMin().x <= Broadphase.getMinX(entity) && fat.getMin().y <= Broadphase.getMinY(entity) &&
+				fat.getMax().x >= Broadphase.getMaxX(entity) && fat.getMax().y >= Broadphase.getMaxY(entity))
+			return false;
+
+		removeLeaf(proxy);
+		setFatAABB(proxy, entity);
+		insertLeaf(proxy);
+
+		return true;
+	}
+
+	/**
+	 * Removes every leaf from the tree.
+	 */
+	public void clear() {
+
+		for (int i = 0; i < parent.length; i++) {
+
+			if (entities[i] instanceof Rectangle)
+				((Rectangle) entities[i]).setTree(null, NULL_NODE);
+
+			entities[i] = null;
+		}
+
+		// put every node back into the free list
+		for (int i = 0; i < parent.length - 1; i++) {
+			parent[i] = i + 1;
+			height[i] = -1;
+		}
+
+		parent[parent.length - 1] = NULL_NODE;
+		height[parent.length - 1] = -1;
+
+		freeList = 0;
+		root = NULL_NODE;
+
+		Arrays.fill(known, null);
+		numKnown = 0;
+	}
+
+	/**
+	 * Finds the items of every leaf whose fat AABB overlaps the given box.
+	 * The results are sorted in ascending order and can be read with
+	 * getResult().
+	 *
+	 * @param minX	the smallest x coordinate of the box
+	 * @param minY	the smallest y coordinate of the box
+	 * @param maxX	the largest x coordinate of the box
+	 * @param maxY	the largest y coordinate of the box
+	 * @return the number of results
+	 */
+	public int query(float minX, float minY, float maxX, float maxY) {
+
+		numResults = 0;
+
+		if (root == NULL_NODE)
+			return 0;
+
+		int top = 0;
+		stack[top++] = root;
+
+		while (top > 0) {
+
+			int node = stack[--top];
+			AABB box = aabbs[node];
+
+			// skip this branch if it does not overlap
+			if (box.getMax().x < minX || box.getMin().x > maxX ||
+					box.getMax().y < minY || box.getMin().y > maxY)
+				continue;
+
+			if (isLeaf(node)) {
+
+				if (numResults == results.length)
+					results = Arrays.copyOf(results, results.length * 2);
+
+				results[numResults++] = items[node];
+			}
+			else {
+
+				if (top + 2 > stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+
+		Arrays.sort(results, 0, numResults);
+
+		return numResults;
+	}
+
+	/**
+	 * Returns the k-th result of the last query.
+	 *
+	 * @param k		the index of the result
+	 * @return the item of the leaf
+	 */
+	public int getResult(int k) {
+		return results[k];
+	}
+
+	/**
+	 * Returns the height of the tree.
+	 *
+	 * @return height
+	 */
+	public int getHeight() {
+		return root == NULL_NODE ? 0 : height[root];
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Checks whether the given list holds the same entities, in the
+	 * same order, as the tree.
+	 */
+	private boolean isSameEntities(ArrayList<Entity> list) {
+
+		if (list.size() != numKnown)
+			return false;
+
+		for (int i = 0; i < numKnown; i++) {
+
+			if (list.get(i) != known[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks whether a node is a leaf.
+	 */
+	private boolean isLeaf(int node) {
+		return child1[node] == NULL_NODE;
+	}
+
+	/**
+	 * Sets a leaf's AABB to the entity's bounds grown by the margin.
+	 */
+	private void setFatAABB(int node, Entity entity) {
+
+		aabbs[node].getMin().x = Broadphase.getMinX(entity) - margin;
+		aabbs[node].getMin().y = Broadphase.getMinY(entity) - margin;
+		aabbs[node].getMax().x = Broadphase.getMaxX(entity) + margin;
+		aabbs[node].getMax().y = Broadphase.getMaxY(entity) + margin;
+	}
+
+	/**
+	 * Sets a node's AABB to the AABB enclosing two other nodes.
+	 */
+	private void setUnion(int node, int a, int b) {
+
+		AABB boxA = aabbs[a];
+		AABB boxB = aabbs[b];
+
+		aabbs[node].getMin().x = Math.min(boxA.getMin().x, boxB.getMin().x);
+		aabbs[node].getMin().y = Math.min(boxA.getMin().y, boxB.getMin().y);
+		aabbs[node].getMax().x = Math.max(boxA.getMax().x, boxB.getMax().x);
+		aabbs[node].getMax().y = Math.max(boxA.getMax().y, boxB.getMax().y);
+	}
+
+	/**
+	 * Returns the perimeter of a node's AABB.
+	 */
+	private float perimeter(int node) {
+
+		AABB box = aabbs[node];
+
+		return 2 * (box.getMax().x - box.getMin().x + box.getMax().y - box.getMin().y);
+	}
+
+	/**
+	 * Returns the perimeter of the AABB enclosing two nodes.
+	 */
+	private float unionPerimeter(int a, int b) {
+
+		AABB boxA = aabbs[a];
+		AABB boxB = aabbs[b];
+
+		float width = Math.max(boxA.getMax().x, boxB.getMax().x) - Math.min(boxA.getMin().x, boxB.getMin().x);
+		float height = Math.max(boxA.getMax().y, boxB.getMax().y) - Math.min(boxA.getMin().y, boxB.getMin().y);
+
+		return 2 * (width + height);
+	}
+
+	/**
+	 * Takes a node from the free list, growing the node arrays if
+	 * the free list is empty.
+	 */
+	private int allocateNode() {
+
+		if (freeList == NULL_NODE)
+			grow(parent.length * 2);
+
+		int node = freeList;
+		freeList = parent[node];
+
+		parent[node] = NULL_NODE;
+		child1[node] = NULL_NODE;
+		child2[node] = NULL_NODE;
+		height[node] = 0;
+		items[node] = -1;
+		entities[node] = null;
+
+		return node;
+	}
+
+	/**
+	 * Returns a node to the free list.
+	 */
+	private void freeNode(int node) {
+
+		parent[node] = freeList;
+		height[node] = -1;
+		entities[node] = null;
+		freeList = node;
+	}
+
+	/**
+	 * Grows the node arrays and adds the new nodes to the free list.
+	 */
+	private void grow(int capacity) {
+
+		int oldCapacity = parent.length;
+
+		aabbs = Arrays.copyOf(aabbs, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		child1 = Arrays.copyOf(child1, capacity);
+		child2 = Arrays.copyOf(child2, capacity);
+		height = Arrays.copyOf(height, capacity);
+		items = Arrays.copyOf(items, capacity);
+		entities = Arrays.copyOf(entities, capacity);
+
+		for (int i = oldCapacity; i < capacity; i++) {
+
+			aabbs[i] = new AABB(new Vector2f(), new Vector2f());
+			parent[i] = i + 1 < capacity ? i + 1 : freeList;
+			height[i] = -1;
+		}
+
+		freeList = oldCapacity;
+	}
+
+	/**
+	 * Inserts a leaf next to the sibling that increases the total
+	 * perimeter of the tree the least.
+	 */
+	private void insertLeaf(int leaf) {
+
+		if (root == NULL_NODE) {
+			root = leaf;
+			parent[root] = NULL_NODE;
+			return;
+		}
+
+		// find the best sibling
+		int index = root;
+
+		while (!isLeaf(index)) {
+
+			int c1 = child1[index];
+			int c2 = child2[index];
+
+			float area = perimeter(index);
+			float combinedArea = unionPerimeter(index, leaf);
+
+			// cost of creating a new parent for this node and the new leaf
+			float cost = 2 * combinedArea;
+
+			// minimum cost of pushing the leaf further down the tree
+			float inheritanceCost = 2 * (combinedArea - area);
+
+			float cost1 = unionPerimeter(c1, leaf) + inheritanceCost;
+			if (!isLeaf(c1))
+				cost1 -= perimeter(c1);
+
+			float cost2 = unionPerimeter(c2, leaf) + inheritanceCost;
+			if (!isLeaf(c2))
+				cost2 -= perimeter(c2);
+
+			// descend according to the minimum cost
+			if (cost < cost1 && cost < cost2)
+				break;
+
+			index = cost1 < cost2 ? c1 : c2;
+		}
+
+		int sibling = index;
+
+		// create a new parent
+		int oldParent = parent[sibling];
+		int newParent = allocateNode();
+
+		parent[newParent] = oldParent;
+		setUnion(newParent, leaf, sibling);
+		height[newParent] = height[sibling] + 1;
+		child1[newParent] = sibling;
+		child2[newParent] = leaf;
+		parent[sibling] = newParent;
+		parent[leaf] = newParent;
+
+		if (oldParent != NULL_NODE) {
+
+			if (child1[oldParent] == sibling)
+				child1[oldParent] = newParent;
+			else
+				child2[oldParent] = newParent;
+		}
+		else {
+			root = newParent;
+		}
+
+		// walk back up the tree fixing heights and AABBs
+		refit(parent[leaf]);
+	}
+
+	/**
+	 * Removes a leaf from the tree (but does not free it).
+	 */
+	private void removeLeaf(int leaf) {
+
+		if (leaf == root) {
+			root = NULL_NODE;
+			return;
+		}
+
+		int p = parent[leaf];
+		int grandParent = parent[p];
+		int sibling = child1[p] == leaf ? child2[p] : child1[p];
+
+		if (grandParent != NULL_NODE) {
+
+			// connect the sibling to the grandparent
+			if (child1[grandParent] == p)
+				child1[grandParent] = sibling;
+			else
+				child2[grandParent] = sibling;
+
+			parent[sibling] = grandParent;
+			freeNode(p);
+
+			refit(grandParent);
+		}
+		else {
+
+			root = sibling;
+			parent[sibling] = NULL_NODE;
+			freeNode(p);
+		}
+
+		parent[leaf] = NULL_NODE;
+	}
+
+	/**
+	 * Walks from the given node up to the root, balancing the tree and
+	 * recomputing the heights and AABBs of the branches.
+	 */
+	private void refit(int index) {
+
+		while (index != NULL_NODE) {
+
+			index = balance(index);
+
+			int c1 = child1[index];
+			int c2 = child2[index];
+
+			height[index] = 1 + Math.max(height[c1], height[c2]);
+			setUnion(index, c1, c2);
+
+			index = parent[index];
+		}
+	}
+
+	/**
+	 * Performs a left or right rotation if node A is imbalanced.
+	 * Returns the new root of the rotated branch.
+	 */
+	private int balance(int iA) {
+
+		if (isLeaf(iA) || height[iA] < 2)
+			return iA;
+
+		int iB = child1[iA];
+		int iC = child2[iA];
+
+		int balance = height[iC] - height[iB];
+
+		// rotate C up
+		if (balance > 1) {
+
+			int iF = child1[iC];
+			int iG = child2[iC];
+
+			// swap A and C
+			child1[iC] = iA;
+			parent[iC] = parent[iA];
+			parent[iA] = iC;
+
+			replaceChild(parent[iC], iA, iC);
+
+			// rotate
+			if (height[iF] > height[iG]) {
+
+				child2[iC] = iF;
+				child2[iA] = iG;
+				parent[iG] = iA;
+
+				setUnion(iA, iB, iG);
+				setUnion(iC, iA, iF);
+
+				height[iA] = 1 + Math.max(height[iB], height[iG]);
+				height[iC] = 1 + Math.max(height[iA], height[iF]);
+			}
+			else {
+
+				child2[iC] = iG;
+				child2[iA] = iF;
+				parent[iF] = iA;
+
+				setUnion(iA, iB, iF);
+				setUnion(iC, iA, iG);
+
+				height[iA] = 1 + Math.max(height[iB], height[iF]);
+				height[iC] = 1 + Math.max(height[iA], height[iG]);
+			}
+
+			return iC;
+		}
+
+		// rotate B up
+		if (balance < -1) {
+
+			int iD = child1[iB];
+			int iE = child2[iB];
+
+			// swap A and B
+			child1[iB] = iA;
+			parent[iB] = parent[iA];
+			parent[iA] = iB;
+
+			replaceChild(parent[iB], iA, iB);
+
+			// rotate
+			if (height[iD] > height[iE]) {
+
+				child2[iB] = iD;
+				child1[iA] = iE;
+				parent[iE] = iA;
+
+				setUnion(iA, iC, iE);
+				setUnion(iB, iA, iD);
+
+				height[iA] = 1 + Math.max(height[iC], height[iE]);
+				height[iB] = 1 + Math.max(height[iA], height[iD]);
+			}
+			else {
+
+				child2[iB] = iE;
+				child1[iA] = iD;
+				parent[iD] = iA;
+
+				setUnion(iA, iC, iD);
+				setUnion(iB, iA, iE);
+
+				height[iA] = 1 + Math.max(height[iC], height[iD]);
+				height[iB] = 1 + Math.max(height[iA], height[iE]);
+			}
+
+			return iB;
+		}
+
+		return iA;
+	}
+
+	/**
+	 * Replaces oldChild with newChild in the given parent node, or makes
+	 * newChild the root if there is no parent.
+	 */
+	private void replaceChild(int p, int oldChild, int newChild) {
+
+		if (p == NULL_NODE) {
+			root = newChild;
+		}
+		else if (child1[p] == oldChild) {
+			child1[p] = newChild;
+		}
+		else {
+			child2[p] = newChild;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+
+import objects.Circle;
+import objects.Entity;
+import objects.Rectangle;
+
+/**
+ * A broadphase quickly finds the pairs of entities that might be
+ * colliding, so that the (more expensive) narrowphase in the physics
+ * classes only needs to check those pairs instead of every possible
+ * pair.
+ *
+ * Implementations must fill the given CollisionPairs in ascending
+ * (i, j) order without duplicates, so that the narrowphase resolves
+ * collisions in the same order as the brute-force i < j loop.
+ */
+public interface Broadphase {
+
+	/**
+	 * Finds the candidate collision pairs between the given entities.
+	 *
+	 * @param entities  the ArrayList containing the entities to check for collision
+	 * @param pairs     where the candidate pairs are stored (cleared first)
+	 */
+	void findPairs(ArrayList<Entity> entities, CollisionPairs pairs);
+
+	/**
+	 * Returns how far an entity can move after findPairs() before the
+	 * pairs found may be missing a pair with it. (Every bounding box is
+	 * grown by this margin on each side, so two entities that have each
+	 * moved less than it are still found if they now overlap.)
+	 *
+	 * @return the margin
+	 */
+	float getMargin();
+
+
+	// ********** BOUNDS HELPERS **********
+
+	/**
+	 * Returns the smallest x coordinate covered by an entity.
+	 *
+	 * @param entity
+	 * @return xMin
+	 */
+	static float getMinX(Entity entity) {
+
+		if (entity instanceof Rectangle)
+			return ((Rectangle) entity).getAabb().getMin().x;
+
+		return entity.getX() - ((Circle) entity).getRadius();
+	}
+
+	/**
+	 * Returns the smallest y coordinate covered by an entity.
+	 *
+	 * @param entity
+	 * @return yMin
+	 */
+	static float getMinY(Entity entity) {
+
+		if (entity instanceof Rectangle)
+			return ((Rectangle) entity).getAabb().getMin().y;
+
+		return entity.getY() - ((Circle) entity).getRadius();
+	}
+
+	/**
+	 * Returns the largest x coordinate covered by an entity.
+	 *
+	 * @param entity
+	 * @return xMax
+	 */
+	static float getMaxX(Entity entity) {
+
+		if (entity instanceof Rectangle)
+			return ((Rectangle) entity).getAabb().getMax().x;
+
+		return entity.getX() + ((Circle) entity).getRadius();
+	}
+
+	/**
+	 * Returns the largest y coordinate covered by an entity.
+	 *
+	 * @param entity
+	 * @return yMax
+	 */
+	static float getMaxY(Entity entity) {
+
+		if (entity instanceof Rectangle)
+			return ((Rectangle) entity).getAabb().getMax().y;
+
+		return entity.getY() + ((Circle) entity).getRadius();
+	}
+}
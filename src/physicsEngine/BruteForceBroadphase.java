@@ -0,0 +1,40 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+
+import objects.Entity;
+
+/**
+ * This broadphase reports every possible pair of entities. It is
+ * the original O(n^2) behaviour of the physics classes and is kept so
+ * that the faster broadphases can be compared against it.
+ */
+public class BruteForceBroadphase implements Broadphase {
+
+	/**
+	 * Adds every pair (i, j) with i < j.
+	 *
+	 * @param entities  the ArrayList containing the entities to check for collision
+	 * @param pairs     where the candidate pairs are stored
+	 */
+	public void findPairs(ArrayList<Entity> entities, CollisionPairs pairs) {
+
+		pairs.clear();
+
+		for (int i = 0; i < entities.size(); i++) {
+			for (int j = i + 1; j < entities.size(); j++) {
+
+				pairs.add(i, j);
+			}
+		}
+	}
+
+	/**
+	 * Returns an infinite margin, since every pair is always found.
+	 *
+	 * @return Float.POSITIVE_INFINITY
+	 */
+	public float getMargin() {
+		return Float.POSITIVE_INFINITY;
+	}
+}
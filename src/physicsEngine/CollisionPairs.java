@@ -0,0 +1,183 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import objects.Entity;
+
+/**
+ * This class stores the candidate collision pairs found by a
+ * broadphase. Each pair is a pair of indices (i, j), with i < j, into
+ * the ArrayList of entities that was passed to the broadphase.
+ *
+ * It can also remember where the entities were when the pairs were
+ * found, so that the physics can tell when a positional correction has
+ * moved an entity far enough for the pairs to be out of date.
+ *
+ * The backing array is reused from step to step, so filling the
+ * list does not create any garbage once it has grown large enough.
+ */
+public class CollisionPairs {
+
+	// instance variables
+	private long[] pairs;
+	private int size;
+
+	// the lower corner of each entity's bounds when the pairs were found
+	private float[] minX;
+	private float[] minY;
+
+	/**
+	 * Creates an empty list of collision pairs.
+	 */
+	public CollisionPairs() {
+
+		pairs = new long[64];
+		size = 0;
+
+		minX = new float[16];
+		minY = new float[16];
+	}
+
+	/**
+	 * Adds a pair to the list. The indices are swapped if
+	 * necessary so that the first index is always the smaller one.
+	 *
+	 * @param i  the index of the first entity
+	 * @param j  the index of the second entity
+	 */
+	public void add(int i, int j) {
+
+		if (i > j) {
+			int temp = i;
+			i = j;
+			j = temp;
+		}
+
+		// grow the array if it is full
+		if (size == pairs.length)
+			pairs = Arrays.copyOf(pairs, pairs.length * 2);
+
+		pairs[size++] = ((long) i << 32) | (j & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Sorts the pairs into the same (i, j) order as the brute-force
+	 * i < j loop and removes any pair that was added more than once.
+	 */
+	public void sortAndRemoveDuplicates() {
+
+		Arrays.sort(pairs, 0, size);
+
+		int n = 0;
+
+		for (int k = 0; k < size; k++) {
+
+			if (n == 0 || pairs[k] != pairs[n - 1])
+				pairs[n++] = pairs[k];
+		}
+
+		size = n;
+	}
+
+	/**
+	 * Returns the index of the first pair that comes after (i, j) in
+	 * (i, j) order, or size() if there is none. The pairs must be sorted.
+	 *
+	 * @param i  the index of the first entity
+	 * @param j  the index of the second entity
+	 * @return the index of the pair
+	 */
+	public int indexAfter(int i, int j) {
+
+		long key = ((long) i << 32) | (j & 0xFFFFFFFFL);
+
+		int low = 0;
+		int high = size;
+
+		while (low < high) {
+
+			int middle = (low + high) >>> 1;
+
+			if (pairs[middle] <= key)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low;
+	}
+
+	/**
+	 * Remembers where the entities are, as the positions the pairs were
+	 * found for (see hasMoved()).
+	 *
+	 * @param entities  the ArrayList of entities the pairs were found for
+	 */
+	public void setBounds(ArrayList<Entity> entities) {
+
+		int n = entities.size();
+
+		if (n > minX.length) {
+			minX = new float[Math.max(n, minX.length * 2)];
+			minY = new float[minX.length];
+		}
+
+		for (int i = 0; i < n; i++) {
+
+			minX[i] = Broadphase.getMinX(entities.get(i));
+			minY[i] = Broadphase.getMinY(entities.get(i));
+		}
+	}
+
+	/**
+	 * Checks whether an entity's bounds have moved by at least the
+	 * given distance along either axis since setBounds().
+	 *
+	 * @param entity	the entity
+	 * @param i			the index of the entity
+	 * @param distance	the distance
+	 * @return true if yes, false otherwise
+	 */
+	public boolean hasMoved(Entity entity, int i, float distance) {
+
+		return Math.abs(Broadphase.getMinX(entity) - minX[i]) >= distance ||
+				Math.abs(Broadphase.getMinY(entity) - minY[i]) >= distance;
+	}
+
+	/**
+	 * Removes all pairs from the list.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of pairs in the list.
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the index of the first entity of the k-th pair.
+	 *
+	 * @param k  the index of the pair
+	 * @return the index of the first entity
+	 */
+	public int getFirst(int k) {
+		return (int) (pairs[k] >>> 32);
+	}
+
+	/**
+	 * Returns the index of the second entity of the k-th pair.
+	 *
+	 * @param k  the index of the pair
+	 * @return the index of the second entity
+	 */
+	public int getSecond(int k) {
+		return (int) pairs[k];
+	}
+}
@@ -0,0 +1,160 @@
+package physicsEngine;
+
+import java.util.Arrays;
+
+/**
+ * This class splits a list of collision pairs into batches in which no
+ * entity appears more than once (a graph coloring of the pairs). The
+ * pairs in one batch do not touch the same entities, so they can be
+ * resolved at the same time, in any order, and always give the same
+ * result.
+ *
+ * The pairs are colored greedily in the order of the list: each pair is
+ * given the first batch that neither of its entities is in yet. The
+ * pairs keep their relative order within a batch. Pairs that would need
+ * more than MAX_BATCHES batches are put in one last batch that must be
+ * resolved one pair at a time.
+ */
+public class ContactBatches {
+
+	// static variables
+	public static final int MAX_BATCHES = 64;
+
+	// instance variables
+
+	// for each entity, a bit for every batch it is already in
+	private long[] used;
+
+	// the batch of each pair
+	private int[] color;
+
+	// the pairs, sorted by batch, and where each batch starts
+	private int[] order;
+	private int[] batchStart;
+
+	private int numBatches;
+
+	/**
+	 * Creates an empty set of batches.
+	 */
+	public ContactBatches() {
+
+		used = new long[16];
+		color = new int[64];
+		order = new int[64];
+		batchStart = new int[MAX_BATCHES + 2];
+		numBatches = 0;
+	}
+
+	/**
+	 * Splits the given pairs into batches.
+	 *
+	 * @param pairs			the collision pairs
+	 * @param numEntities	the number of entities the pairs refer to
+	 */
+	public void build(CollisionPairs pairs, int numEntities) {
+
+		int n = pairs.size();
+
+		if (used.length < numEntities)
+			used = new long[Math.max(numEntities, used.length * 2)];
+
+		if (color.length < n) {
+			color = new int[Math.max(n, color.length * 2)];
+			order = new int[color.length];
+		}
+
+		Arrays.fill(used, 0, numEntities, 0L);
+		Arrays.fill(batchStart, 0);
+
+		// color the pairs
+		for (int k = 0; k < n; k++) {
+
+			int a = pairs.getFirst(k);
+			int b = pairs.getSecond(k);
+
+			long free = ~(used[a] | used[b]);
+			int c = Long.numberOfTrailingZeros(free);
+
+			// the last batch is for the pairs that did not fit anywhere else
+			if (c < MAX_BATCHES) {
+				used[a] |= 1L << c;
+				used[b] |= 1L << c;
+			}
+
+			color[k] = c;
+			batchStart[c + 1]++;
+		}
+
+		// find where each batch starts
+		numBatches = 0;
+
+		for (int c = 0; c <= MAX_BATCHES; c++) {
+
+			if (batchStart[c + 1] > 0)
+				numBatches = c + 1;
+
+			batchStart[c + 1] += batchStart[c];
+		}
+
+		// sort the pairs by batch (stable, so they keep their order within a batch)
+		for (int k = 0; k < n; k++)
+			order[batchStart[color[k]]++] = k;
+
+		// the loop above moved each start to the end of its batch
+		for (int c = MAX_BATCHES; c > 0; c--)
+			batchStart[c] = batchStart[c - 1];
+
+		batchStart[0] = 0;
+	}
+
+	/**
+	 * Returns the number of batches. Some of the batches may be empty.
+	 *
+	 * @return numBatches
+	 */
+	public int getNumBatches() {
+		return numBatches;
+	}
+
+	/**
+	 * Returns the position of the first pair of a batch.
+	 *
+	 * @param batch		the index of the batch
+	 * @return the position of the first pair
+	 */
+	public int getBatchStart(int batch) {
+		return batchStart[batch];
+	}
+
+	/**
+	 * Returns the position after the last pair of a batch.
+	 *
+	 * @param batch		the index of the batch
+	 * @return the position after the last pair
+	 */
+	public int getBatchEnd(int batch) {
+		return batchStart[batch + 1];
+	}
+
+	/**
+	 * Checks whether the pairs of a batch may share entities and must be
+	 * resolved one at a time.
+	 *
+	 * @param batch		the index of the batch
+	 * @return true if yes, false otherwise
+	 */
+	public boolean isSequential(int batch) {
+		return batch == MAX_BATCHES;
+	}
+
+	/**
+	 * Returns the index (in the CollisionPairs) of the pair at a position.
+	 *
+	 * @param position	the position of the pair, sorted by batch
+	 * @return the index of the pair
+	 */
+	public int getPair(int position) {
+		return order[position];
+	}
+}
@@ -0,0 +1,254 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import objects.Entity;
+import physicsEngine.PhysicsWithCannons.Scratch;
+
+/**
+ * This class resolves the entity-entity collisions of a time step for
+ * PhysicsWithCannons. Small scenes are resolved one pair at a time, in
+ * the order of the pairs. Once there are enough pairs, they are split
+ * into ContactBatches, and the pairs in each batch are resolved in
+ * parallel on a ForkJoinPool.
+ *
+ * The batches do not depend on the number of threads, and the pairs in
+ * a batch never share an entity, so the result is the same for any
+ * number of threads above one. (With one thread, or below the minimum
+ * number of pairs, the pairs are resolved in their original order, which
+ * can give a slightly different result.)
+ *
+ * When the pairs are resolved in order, they are found again whenever a
+ * positional correction moves an entity beyond the broadphase's margin
+ * (see Physics.refreshPairs()), so no pair that checking every pair
+ * would have resolved is missed. The batches are built from the pairs
+ * found at the start of the step, so a large push there only reaches a
+ * new neighbour in the next step.
+ */
+public class ContactSolver {
+
+	// static variables
+	public static final int DEFAULT_MIN_PAIRS = 512;
+
+	// each task resolves at least this many pairs
+	private static final int MIN_PAIRS_PER_TASK = 32;
+
+	// instance variables
+	private ForkJoinPool pool;
+	private int parallelism;
+	private int minPairs;
+
+	private ContactBatches batches;
+
+	// reused every step, so that solving does not create garbage
+	private BatchTask root;
+	private ChunkTask[] chunks;
+
+	// the scratch vectors of the thread that calls solve()
+	private Scratch scratch;
+
+	// the contacts being solved
+	private PhysicsWorld world;
+	private CollisionPairs pairs;
+
+	/**
+	 * Creates a contact solver that uses every available processor.
+	 */
+	public ContactSolver() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_PAIRS);
+	}
+
+	/**
+	 * Creates a contact solver.
+	 *
+	 * @param parallelism	the number of threads to resolve the pairs on
+	 * @param minPairs		the number of pairs from which they are resolved in parallel
+	 */
+	public ContactSolver(int parallelism, int minPairs) {
+
+		this.parallelism = Math.max(1, parallelism);
+		this.minPairs = minPairs;
+
+		batches = new ContactBatches();
+		root = new BatchTask();
+		scratch = new Scratch();
+
+		chunks = new ChunkTask[this.parallelism];
+
+		for (int i = 0; i < chunks.length; i++)
+			chunks[i] = new ChunkTask();
+	}
+
+	/**
+	 * Resolves the collisions between the given candidate pairs.
+	 *
+	 * @param world		the world holding the entities
+	 * @param broadphase	the broadphase the pairs were found with
+	 * @param entities	the ArrayList the pairs were found for (see Physics.findPairs())
+	 * @param pairs		the candidate collision pairs (indices into the world)
+	 */
+	public void solve(PhysicsWorld world, Broadphase broadphase, ArrayList<Entity> entities, CollisionPairs pairs) {
+
+		if (parallelism == 1 || pairs.size() < minPairs) {
+
+			for (int k = 0; k < pairs.size(); k++) {
+
+				if (solvePair(world, pairs, k, scratch))
+					k = Physics.refreshPairs(broadphase, entities, pairs, k);
+			}
+
+			return;
+		}
+
+		// the pool is only started once a scene is large enough to need it
+		if (pool == null)
+			pool = new ForkJoinPool(parallelism);
+
+		this.world = world;
+		this.pairs = pairs;
+
+		batches.build(pairs, world.getNumBodies());
+
+		root.reinitialize();
+		pool.invoke(root);
+
+		this.world = null;
+		this.pairs = null;
+	}
+
+	/**
+	 * Stops the threads of the pool, if it was started.
+	 */
+	public void shutdown() {
+
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Returns the number of threads the pairs are resolved on.
+	 *
+	 * @return parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Returns the number of pairs from which they are resolved in parallel.
+	 *
+	 * @return minPairs
+	 */
+	public int getMinPairs() {
+		return minPairs;
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Resolves the k-th pair if its entities are (still) colliding, with
+	 * the scratch vectors of the thread (or task) that resolves it.
+	 * Returns true if they were.
+	 */
+	private static boolean solvePair(PhysicsWorld world, CollisionPairs pairs, int k, Scratch s) {
+
+		Entity a = world.getBody(pairs.getFirst(k));
+		Entity b = world.getBody(pairs.getSecond(k));
+
+		// sleeping entities are at rest against each other
+		if (a.isSleeping() && b.isSleeping())
+			return false;
+
+		// if collision is detected
+		if (a.intersects(b)) {
+
+			// an entity that is hit wakes up
+			a.setSleeping(false);
+			b.setSleeping(false);
+
+			PhysicsWithCannons.collisionEntityEntity(world, pairs.getFirst(k), pairs.getSecond(k), s);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Resolves the batches one after the other, splitting each batch
+	 * into chunks that run in parallel.
+	 */
+	private class BatchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private transient Scratch scratch = new Scratch();
+
+		protected void compute() {
+
+			for (int batch = 0; batch < batches.getNumBatches(); batch++) {
+
+				int start = batches.getBatchStart(batch);
+				int end = batches.getBatchEnd(batch);
+
+				if (batches.isSequential(batch)) {
+
+					for (int p = start; p < end; p++)
+						solvePair(world, pairs, batches.getPair(p), scratch);
+
+					continue;
+				}
+
+				int numChunks = Math.min(chunks.length, (end - start + MIN_PAIRS_PER_TASK - 1) / MIN_PAIRS_PER_TASK);
+
+				// small batches are not worth handing to other threads
+				if (numChunks <= 1) {
+
+					for (int p = start; p < end; p++)
+						solvePair(world, pairs, batches.getPair(p), scratch);
+
+					continue;
+				}
+
+				for (int i = 0; i < numChunks; i++) {
+
+					chunks[i].reinitialize();
+					chunks[i].start = start + (int) ((long) (end - start) * i / numChunks);
+					chunks[i].end = start + (int) ((long) (end - start) * (i + 1) / numChunks);
+				}
+
+				// run the other chunks in parallel and the first chunk on this thread
+				for (int i = 1; i < numChunks; i++)
+					chunks[i].fork();
+
+				chunks[0].compute();
+
+				for (int i = 1; i < numChunks; i++)
+					chunks[i].join();
+			}
+		}
+	}
+
+	/**
+	 * Resolves a range of the pairs of one batch.
+	 */
+	private class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int start;
+		private int end;
+
+		private transient Scratch scratch = new Scratch();
+
+		protected void compute() {
+
+			for (int p = start; p < end; p++)
+				solvePair(world, pairs, batches.getPair(p), scratch);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package physicsEngine;
 
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
 import org.joml.Vector3f;
 
@@ -20,69 +21,67 @@ import objects.Rectangle;
  */
 public class Physics {
 	
+	// static variables
+	// makes the broadphase of each simulation (see createBroadphase())
+	private static Supplier<Broadphase> broadphaseFactory = SpatialHashBroadphase::new;
+	
+	// scratch vectors, reused every collision so that a step does not create garbage
+	private static final Vector3f collisionNormal = new Vector3f();
+	private static final Vector3f closest = new Vector3f();
+	private static final Vector3f radius = new Vector3f();
+	private static final Vector3f radius2 = new Vector3f();
+	private static final Vector3f penetration = new Vector3f();
+	private static final Vector3f relativeVel = new Vector3f();
+	private static final Vector3f impulse = new Vector3f();
+	private static final Vector3f tangent = new Vector3f();
+	private static final Vector3f frictionImpulse = new Vector3f();
+	private static final Vector3f temp = new Vector3f();
+	
 	/**
 	 * Manages the collision detection and collision response between 
 	 * all possible collision scenarios.
 	 * 
+	 * @param world			the world holding the entities (see PhysicsWorld.setBodies())
 	 * @param entities   	the ArrayList containing the entities to check for collision
+	 * @param broadphase	the broadphase of the simulation (one per simulation)
+	 * @param pairs			where the candidate pairs are stored (one per simulation)
 	 * @param ground 	 	the boundary bordering the bottom of the simulation window
 	 * @param leftBoundary  the boundary bordering the left of the simulation window
 	 * @param topBoundary 	the boundary bordering the top of the simulation window
 	 * @param rightBoundary  	the boundary bordering the right of the simulation window
 	 * @param z 		 	the z-value of all entities
 	 */
-	public static void collision(ArrayList<Entity> entities, Rectangle ground, Rectangle leftBoundary, 
-			Rectangle topBoundary, Rectangle rightBoundary, float z) {
+	public static void collision(PhysicsWorld world, ArrayList<Entity> entities, Broadphase broadphase, 
+			CollisionPairs pairs, Rectangle ground, Rectangle leftBoundary, Rectangle topBoundary, 
+			Rectangle rightBoundary, float z) {
+		
+		float[] x = world.getX();
+		float[] y = world.getY();
+		float[] vx = world.getVelocityX();
+		float[] vy = world.getVelocityY();
+		float[] e = world.getRestitution();
 			
 		// entity-entity collision
-		for (int i = 0; i < entities.size(); i++) {
-			for (int j = i + 1; j < entities.size(); j++) {
-					
-				Entity a = entities.get(i);
-				Entity b = entities.get(j);
-					
-					
-				// if collision is detected
-				if (a.intersects(b)) {
-					
-					// if A is Rectangle
-					if (a instanceof Rectangle) {
-							
-						// if B is Rectangle
-						if (b instanceof Rectangle) {
-								
-							collisionRectangleRectangle((Rectangle) a, (Rectangle) b);
-						}
-							
-						// if B is Circle
-						if (b instanceof Circle) {
-								
-							collisionRectangleCircle((Rectangle) a, (Circle) b);
-						}
-					}
-						
-					// if A is Circle
-					if (a instanceof Circle) {
-							
-						// if B is Rectangle
-						if (b instanceof Rectangle) {
-								
-							collisionRectangleCircle((Rectangle) b, (Circle) a);
-						}
-							
-						// if B is Circle
-						if (b instanceof Circle) {
-								
-							collisionCircleCircle((Circle) a, (Circle) b);
-						}
-					}
-				}
-					
+		// only the candidate pairs found by the broadphase need to be checked
+		findPairs(broadphase, entities, pairs);
+		
+		for (int k = 0; k < pairs.size(); k++) {
+				
+			Entity a = entities.get(pairs.getFirst(k));
+			Entity b = entities.get(pairs.getSecond(k));
+				
+			// if collision is detected
+			if (a.intersects(b)) {
+				
+				collisionEntityEntity(world, pairs.getFirst(k), pairs.getSecond(k));
+				k = refreshPairs(broadphase, entities, pairs, k);
 			}
 		}
 			
 		// entity-boundary collision
-		for (Entity entity:entities) {
+		for (int i = 0; i < entities.size(); i++) {
+			
+			Entity entity = entities.get(i);
 				
 			// if entity is rectangle
 			if (entity instanceof Rectangle) {
@@ -92,53 +91,49 @@ public class Physics {
 				// ground
 				if (r.getAabb().intersects(ground.getAabb())) {
 					
-					r.setPosition(new Vector3f(r.getPosition().x, 
-							ground.getAabb().getMax().y + r.getHeight()/2, z));
-					r.setVelocity(new Vector3f(r.getVelocity().x, 
-							r.getVelocity().y * r.getCoefficientOfRestitution(), 0));
+					y[i] = ground.getAabb().getMax().y + r.getHeight()/2;
+					vy[i] = vy[i] * e[i];
+					resetZ(entity, z);
 					
 					// friction
-					float mu = pythagoreanTheorem(r.getKineticFriction(), ground.getKineticFriction());
+					float mu = pythagoreanTheorem(world.getKineticFriction()[i], ground.getKineticFriction());
 					float magnitude = mu * 9.81f;
 					
-					if (r.getVelocity().x > 0) {
+					if (vx[i] > 0) {
 						
-						if (r.getVelocity().x < magnitude)
-							r.getVelocity().x = 0f;
+						if (vx[i] < magnitude)
+							vx[i] = 0f;
 						else
-							r.getVelocity().x -= magnitude;
+							vx[i] -= magnitude;
 					}
-					else if (r.getVelocity().x < 0) {
+					else if (vx[i] < 0) {
 						
-						if (r.getVelocity().x > -magnitude)
-							r.getVelocity().x = 0f;
+						if (vx[i] > -magnitude)
+							vx[i] = 0f;
 						else
-							r.getVelocity().x += magnitude;
+							vx[i] += magnitude;
 					}
 				}
 					
 				// left boundary
 				if (r.getAabb().intersects(leftBoundary.getAabb())) {
-					r.setPosition(new Vector3f(leftBoundary.getAabb().getMax().x + r.getWidth()/2, 
-							r.getPosition().y, z));
-					r.setVelocity(new Vector3f(r.getVelocity().x * r.getCoefficientOfRestitution(), 
-							r.getVelocity().y, 0));
+					x[i] = leftBoundary.getAabb().getMax().x + r.getWidth()/2;
+					vx[i] = vx[i] * e[i];
+					resetZ(entity, z);
 				}
 					
 				// top boundary
 				if (r.getAabb().intersects(topBoundary.getAabb())) {
-					r.setPosition(new Vector3f(r.getPosition().x, 
-							topBoundary.getAabb().getMin().y - r.getHeight()/2, z));
-					r.setVelocity(new Vector3f(r.getVelocity().x, 
-							r.getVelocity().y * r.getCoefficientOfRestitution(), 0));
+					y[i] = topBoundary.getAabb().getMin().y - r.getHeight()/2;
+					vy[i] = vy[i] * e[i];
+					resetZ(entity, z);
 				}
 					
 				// right boundary
 				if (r.getAabb().intersects(rightBoundary.getAabb())) {
-					r.setPosition(new Vector3f(rightBoundary.getAabb().getMin().x - r.getWidth()/2, 
-							r.getPosition().y, z));
-					r.setVelocity(new Vector3f(r.getVelocity().x * r.getCoefficientOfRestitution(), 
-							r.getVelocity().y, 0));
+					x[i] = rightBoundary.getAabb().getMin().x - r.getWidth()/2;
+					vx[i] = vx[i] * e[i];
+					resetZ(entity, z);
 				}
 			}
 				
@@ -149,53 +144,49 @@ public class Physics {
 					
 				// ground
 				if (c.intersects(ground.getAabb())) {
-					c.setPosition(new Vector3f(c.getPosition().x, 
-							ground.getAabb().getMax().y + c.getRadius(), z));
-					c.setVelocity(new Vector3f(c.getVelocity().x, 
-							c.getVelocity().y * c.getCoefficientOfRestitution(), 0));
+					y[i] = ground.getAabb().getMax().y + c.getRadius();
+					vy[i] = vy[i] * e[i];
+					resetZ(entity, z);
 					
 					// friction
-					float mu = pythagoreanTheorem(c.getKineticFriction(), ground.getKineticFriction());
+					float mu = pythagoreanTheorem(world.getKineticFriction()[i], ground.getKineticFriction());
 					float magnitude = mu * 9.81f;
 					
-					if (c.getVelocity().x > 0) {
+					if (vx[i] > 0) {
 						
-						if (c.getVelocity().x < magnitude)
-							c.getVelocity().x = 0f;
+						if (vx[i] < magnitude)
+							vx[i] = 0f;
 						else
-							c.getVelocity().x -= magnitude;
+							vx[i] -= magnitude;
 					}
-					else if (c.getVelocity().x < 0) {
+					else if (vx[i] < 0) {
 						
-						if (c.getVelocity().x > -magnitude)
-							c.getVelocity().x = 0f;
+						if (vx[i] > -magnitude)
+							vx[i] = 0f;
 						else
-							c.getVelocity().x += magnitude;
+							vx[i] += magnitude;
 					}
 				}
 					
 				// left boundary
 				if (c.intersects(leftBoundary.getAabb())) {
-					c.setPosition(new Vector3f(leftBoundary.getAabb().getMax().x + c.getRadius(), 
-							c.getPosition().y, z));
-					c.setVelocity(new Vector3f(c.getVelocity().x * c.getCoefficientOfRestitution(), 
-							c.getVelocity().y, 0));
+					x[i] = leftBoundary.getAabb().getMax().x + c.getRadius();
+					vx[i] = vx[i] * e[i];
+					resetZ(entity, z);
 				}
 					
 				// top boundary
 				if (c.intersects(topBoundary.getAabb())) {
-					c.setPosition(new Vector3f(c.getPosition().x, 
-							topBoundary.getAabb().getMin().y - c.getRadius(), z));
-					c.setVelocity(new Vector3f(c.getVelocity().x, 
-							c.getVelocity().y * c.getCoefficientOfRestitution(), 0));
+					y[i] = topBoundary.getAabb().getMin().y - c.getRadius();
+					vy[i] = vy[i] * e[i];
+					resetZ(entity, z);
 				}
 					
 				// right boundary
 				if (c.intersects(rightBoundary.getAabb())) {
-					c.setPosition(new Vector3f(rightBoundary.getAabb().getMin().x - c.getRadius(), 
-							c.getPosition().y, z));
-					c.setVelocity(new Vector3f(c.getVelocity().x * c.getCoefficientOfRestitution(), 
-							c.getVelocity().y, 0));
+					x[i] = rightBoundary.getAabb().getMin().x - c.getRadius();
+					vx[i] = vx[i] * e[i];
+					resetZ(entity, z);
 				}
 			}
 				
@@ -203,49 +194,101 @@ public class Physics {
 			
 	}
 		
+	/**
+	 * Calls the collision response that matches the types of the two 
+	 * colliding entities.
+	 * 
+	 * @param w  the world
+	 * @param a  the index of the first entity
+	 * @param b  the index of the second entity
+	 */
+	public static void collisionEntityEntity(PhysicsWorld w, int a, int b) {
+		
+		Entity ea = w.getBody(a);
+		Entity eb = w.getBody(b);
+		
+		// if A is Rectangle
+		if (ea instanceof Rectangle) {
+				
+			// if B is Rectangle
+			if (eb instanceof Rectangle) {
+					
+				collisionRectangleRectangle(w, a, b);
+			}
+				
+			// if B is Circle
+			if (eb instanceof Circle) {
+					
+				collisionRectangleCircle(w, a, b);
+			}
+		}
+			
+		// if A is Circle
+		if (ea instanceof Circle) {
+				
+			// if B is Rectangle
+			if (eb instanceof Rectangle) {
+					
+				collisionRectangleCircle(w, b, a);
+			}
+				
+			// if B is Circle
+			if (eb instanceof Circle) {
+					
+				collisionCircleCircle(w, a, b);
+			}
+		}
+	}
+		
 	/**
 	 * Manages rectangle-rectangle collision.
 	 * 
-	 * @param a  the first rectangle
-	 * @param b  the second rectangle
+	 * @param w  the world
+	 * @param a  the index of the first rectangle
+	 * @param b  the index of the second rectangle
 	 */
-	public static void collisionRectangleRectangle(Rectangle a, Rectangle b) {
+	public static void collisionRectangleRectangle(PhysicsWorld w, int a, int b) {
+		
+		Rectangle ra = (Rectangle) w.getBody(a);
+		Rectangle rb = (Rectangle) w.getBody(b);
+		
+		float[] x = w.getX();
+		float[] y = w.getY();
 			
 		// the collision normal is the vector whose direction is the 
 		// direction the collision will resolve in
-		Vector3f collisionNormal;
 		
 		// horizontal penetration
-		float horizontal = Math.min(a.getAabb().getMax().x - b.getAabb().getMin().x, 
-				b.getAabb().getMax().x - a.getAabb().getMin().x);
+		float horizontal = Math.min(ra.getAabb().getMax().x - rb.getAabb().getMin().x, 
+				rb.getAabb().getMax().x - ra.getAabb().getMin().x);
 		
 		// vertical penetration
-		float vertical = Math.min(a.getAabb().getMax().y - b.getAabb().getMin().y, 
-				b.getAabb().getMax().y - a.getAabb().getMin().y);
+		float vertical = Math.min(ra.getAabb().getMax().y - rb.getAabb().getMin().y, 
+				rb.getAabb().getMax().y - ra.getAabb().getMin().y);
 		
 		// if objects are colliding horizontally
 		if (horizontal < vertical) {
 				
 			// if A is to the left of B
-			if (a.getPosition().x < b.getPosition().x) {
+			if (x[a] < x[b]) {
 					
 				// positional correction
-				a.getPosition().sub(horizontal / 2, 0, 0);
-				b.getPosition().add(horizontal / 2, 0, 0);
+				x[a] -= horizontal / 2;
+				x[b] += horizontal / 2;
 					
 				// set collision normal (direction B should travel)
-				collisionNormal = new Vector3f(1,0,0);
+				collisionNormal.set(1,0,0);
 			}
 				
 			// if A is to the right of B
 			else {
 					
 				// positional correction
-				a.getPosition().add(horizontal / 2, 0, 0);
-				b.getPosition().sub(horizontal / 2, 0, 0);
+				x[a] += horizontal / 2;
+				x[b] -= horizontal / 2;
 					
 				// set collision normal (direction B should travel)
-				collisionNormal = new Vector3f(-1,0,0);
+				collisionNormal.set(-1,0,0);
 			}
 				
 		}
@@ -254,25 +297,29 @@ public class Physics {
 		else if (horizontal == vertical ){
 				
 			// if A is to the left of B
-			if (a.getPosition().x < b.getPosition().x) {
+			if (x[a] < x[b]) {
 
 				// positional correction
-				a.getPosition().sub(horizontal / 2, vertical / 2, 0);
-				b.getPosition().add(horizontal / 2, vertical / 2, 0);
+				x[a] -= horizontal / 2;
+				y[a] -= vertical / 2;
+				x[b] += horizontal / 2;
+				y[b] += vertical / 2;
 					
 				// set collision normal (direction B should travel)
-				collisionNormal = new Vector3f(1,1,0);
+				collisionNormal.set(1,1,0);
 			}
 				
 			// if A is to the right of B
 			else {
 					
 				// positional correction
-				a.getPosition().add(horizontal / 2, vertical / 2, 0);
-				b.getPosition().sub(horizontal / 2, vertical / 2, 0);
+				x[a] += horizontal / 2;
+				y[a] += vertical / 2;
+				x[b] -= horizontal / 2;
+				y[b] -= vertical / 2;
 					
 				// set collision normal (direction B should travel)
-				collisionNormal = new Vector3f(-1,-1,0);
+				collisionNormal.set(-1,-1,0);
 			}
 				
 		}
@@ -281,136 +328,138 @@ public class Physics {
 		else {
 				
 			// if A is to the bottom of B
-			if (a.getPosition().y < b.getPosition().y) {
+			if (y[a] < y[b]) {
 					
 				// positional correction
-				a.getPosition().sub(0, vertical / 2, 0);
-				b.getPosition().add(0, vertical / 2, 0);
+				y[a] -= vertical / 2;
+				y[b] += vertical / 2;
 					
 				// set collision normal (direction B should travel)
-				collisionNormal = new Vector3f(0,1,0);
+				collisionNormal.set(0,1,0);
 			}
 			
 			// if A is to the top of B
 			else {
 					
 				// positional correction
-				a.getPosition().add(0, vertical / 2, 0);
-				b.getPosition().sub(0, vertical / 2, 0);
+				y[a] += vertical / 2;
+				y[b] -= vertical / 2;
 					
 				// set collision normal (direction B should travel)
-				collisionNormal = new Vector3f(0,-1,0);
+				collisionNormal.set(0,-1,0);
 			}
 				
 		}
 			
 		// impulse resolution
-		impulseResolution(collisionNormal, a, b);
+		impulseResolution(collisionNormal, w, a, b);
 	}
 		
 	/**
 	 * Manages rectangle-circle collision.
 	 * 
-	 * @param a  the rectangle
-	 * @param b  the circle
+	 * @param w  the world
+	 * @param a  the index of the rectangle
+	 * @param b  the index of the circle
 	 */
-	public static void collisionRectangleCircle(Rectangle a, Circle b) {
+	public static void collisionRectangleCircle(PhysicsWorld w, int a, int b) {
+		
+		Rectangle ra = (Rectangle) w.getBody(a);
+		Circle cb = (Circle) w.getBody(b);
+		
+		float[] x = w.getX();
+		float[] y = w.getY();
 			
 		// collision normal
 			
-		Vector3f closest = new Vector3f(b.getPosition().x, b.getPosition().y, b.getPosition().z);
+		closest.set(x[b], y[b], cb.getZ());
 			
-		closest.x = Physics.clamp(closest.x, a.getPosition().x - a.getWidth()/2, a.getPosition().x + a.getWidth()/2);
-		closest.y = Physics.clamp(closest.y, a.getPosition().y - a.getHeight()/2, a.getPosition().y + a.getHeight()/2);
+		closest.x = Physics.clamp(closest.x, x[a] - ra.getWidth()/2, x[a] + ra.getWidth()/2);
+		closest.y = Physics.clamp(closest.y, y[a] - ra.getHeight()/2, y[a] + ra.getHeight()/2);
 			
-		Vector3f collisionNormal = new Vector3f();
-		b.getPosition().sub(closest, collisionNormal);
+		collisionNormal.set(x[b] - closest.x, y[b] - closest.y, cb.getZ() - closest.z);
 			
 			
 		// find penetration vector along collision normal
 			
 		float distance = collisionNormal.length();
 			
-		float rX = collisionNormal.x * b.getRadius() / distance;
-		float rY = collisionNormal.y * b.getRadius() / distance;
+		float rX = collisionNormal.x * cb.getRadius() / distance;
+		float rY = collisionNormal.y * cb.getRadius() / distance;
 			
-		Vector3f radius = new Vector3f(rX, rY, b.getPosition().z - a.getPosition().z);
+		radius.set(rX, rY, cb.getZ() - ra.getZ());
 			
-		Vector3f penetration = new Vector3f();
 		radius.sub(collisionNormal, penetration);
 			
 			
 		// positional correction
 			
-		Vector3f newPos = new Vector3f(
-			a.getPosition().x - penetration.x / 2, 
-			a.getPosition().y - penetration.y / 2,
-			a.getPosition().z - penetration.z / 2);
-		a.setPosition(newPos);
+		x[a] = x[a] - penetration.x / 2;
+		y[a] = y[a] - penetration.y / 2;
+		ra.setZ(ra.getZ() - penetration.z / 2);
 			
-		newPos = new Vector3f(
-			b.getPosition().x + penetration.x / 2, 
-			b.getPosition().y + penetration.y / 2,
-			b.getPosition().z + penetration.z / 2);
-		b.setPosition(newPos);
+		x[b] = x[b] + penetration.x / 2;
+		y[b] = y[b] + penetration.y / 2;
+		cb.setZ(cb.getZ() + penetration.z / 2);
 			
 			
 		// impulse resolution
 		collisionNormal.normalize();
-		impulseResolution(collisionNormal, a, b);
+		impulseResolution(collisionNormal, w, a, b);
 	}
 
 	/**
 	 * Manages circle-circle collision.
 	 * 
-	 * @param a  the first circle
-	 * @param b  the second circle
+	 * @param w  the world
+	 * @param a  the index of the first circle
+	 * @param b  the index of the second circle
 	 */
-	public static void collisionCircleCircle(Circle a, Circle b) {
+	public static void collisionCircleCircle(PhysicsWorld w, int a, int b) {
+		
+		Circle ca = (Circle) w.getBody(a);
+		Circle cb = (Circle) w.getBody(b);
+		
+		float[] x = w.getX();
+		float[] y = w.getY();
 			
 		// collision normal
-		Vector3f collisionNormal = new Vector3f();
-		b.getPosition().sub(a.getPosition(), collisionNormal);
+		collisionNormal.set(x[b] - x[a], y[b] - y[a], cb.getZ() - ca.getZ());
 			
 		
 		// find penetration vector along collision normal
 			
 		float distance = collisionNormal.length();
 			
-		float rX = collisionNormal.x * a.getRadius() / distance;
-		float rY = collisionNormal.y * a.getRadius() / distance;
+		float rX = collisionNormal.x * ca.getRadius() / distance;
+		float rY = collisionNormal.y * ca.getRadius() / distance;
 			
-		Vector3f radius1 = new Vector3f(rX, rY, b.getPosition().z - a.getPosition().z);
+		radius.set(rX, rY, cb.getZ() - ca.getZ());
 			
-		rX = collisionNormal.x * b.getRadius() / distance;
-		rY = collisionNormal.y * b.getRadius() / distance;
+		rX = collisionNormal.x * cb.getRadius() / distance;
+		rY = collisionNormal.y * cb.getRadius() / distance;
 					
-		Vector3f radius2 = new Vector3f(rX, rY, b.getPosition().z - a.getPosition().z);
+		radius2.set(rX, rY, cb.getZ() - ca.getZ());
 			
-		radius1.add(radius2);
+		radius.add(radius2);
 			
-		Vector3f penetration = new Vector3f();
-		radius1.sub(collisionNormal, penetration);
+		radius.sub(collisionNormal, penetration);
 			
 			
 		// positional correction
 			
-		Vector3f newPos = new Vector3f(
-			a.getPosition().x - penetration.x / 2, 
-			a.getPosition().y - penetration.y / 2,
-			a.getPosition().z - penetration.z / 2);
-		a.setPosition(newPos);
+		x[a] = x[a] - penetration.x / 2;
+		y[a] = y[a] - penetration.y / 2;
+		ca.setZ(ca.getZ() - penetration.z / 2);
 					
-		newPos = new Vector3f(
-			b.getPosition().x + penetration.x / 2, 
-			b.getPosition().y + penetration.y / 2,
-			b.getPosition().z + penetration.z / 2);
-		b.setPosition(newPos);
+		x[b] = x[b] + penetration.x / 2;
+		y[b] = y[b] + penetration.y / 2;
+		cb.setZ(cb.getZ() + penetration.z / 2);
 			
 			
 		// impulse resolution
 		collisionNormal.normalize();
-		impulseResolution(collisionNormal, a, b);
+		impulseResolution(collisionNormal, w, a, b);
 	}
 	
 	/**
@@ -419,18 +468,25 @@ public class Physics {
 	 * applied to each of the objects involved.
 	 * 
 	 * @param collisionNormal  the direction in which the collision should resolve
-	 * @param a  the first entity
-	 * @param b  the second entity
+	 * @param w  the world
+	 * @param a  the index of the first entity
+	 * @param b  the index of the second entity
 	 */
-	public static void impulseResolution(Vector3f collisionNormal, Entity a, Entity b) {
+	public static void impulseResolution(Vector3f collisionNormal, PhysicsWorld w, int a, int b) {
+		
+		Entity ea = w.getBody(a);
+		Entity eb = w.getBody(b);
+		
+		float[] vx = w.getVelocityX();
+		float[] vy = w.getVelocityY();
+		float[] mass = w.getMass();
 			
 		// store inverse masses
-		float invMassA = 1f / a.getMass();
-		float invMassB = 1f / b.getMass();
+		float invMassA = w.getInvMass()[a];
+		float invMassB = w.getInvMass()[b];
 		
 		// find velocity of B relative to A
-		Vector3f relativeVel = new Vector3f();
-		b.getVelocity().sub(a.getVelocity(), relativeVel);
+		relativeVel.set(vx[b] - vx[a], vy[b] - vy[a], eb.getVelocityZ() - ea.getVelocityZ());
 			
 		// take the dot product of the relative velocity and the collision normal
 		float velAlongNormal = relativeVel.dot(collisionNormal);
@@ -440,25 +496,25 @@ public class Physics {
 				
 			// get coefficient of restitution
 			// this will be the smallest of the two objects
-			float e = Math.min(-a.getCoefficientOfRestitution(), -b.getCoefficientOfRestitution());
+			float e = Math.min(-w.getRestitution()[a], -w.getRestitution()[b]);
 				
 			// calculate impulse scalar
 			float impulseScalar = (-(1+e) * velAlongNormal) / (invMassA + invMassB);
 				
-			// calculate impulse
-			Vector3f impulseA = new Vector3f();
-			collisionNormal.mul(impulseScalar, impulseA);
-				
-			Vector3f impulseB = new Vector3f();
-			collisionNormal.mul(impulseScalar, impulseB);
+			// calculate and apply impulse
+			collisionNormal.mul(impulseScalar, impulse).div(mass[a]);
+			vx[a] -= impulse.x;
+			vy[a] -= impulse.y;
+			ea.setVelocityZ(ea.getVelocityZ() - impulse.z);
 				
-			// apply impulse
-			a.getVelocity().sub(impulseA.div(a.getMass()));
-			b.getVelocity().add(impulseB.div(b.getMass()));
+			collisionNormal.mul(impulseScalar, impulse).div(mass[b]);
+			vx[b] += impulse.x;
+			vy[b] += impulse.y;
+			eb.setVelocityZ(eb.getVelocityZ() + impulse.z);
 			
 			// apply friction
 			// this method is called here to make use of the impulse scalar that was calculated
-			friction(collisionNormal, a, b, impulseScalar);
+			friction(collisionNormal, w, a, b, impulseScalar);
 		}
 	}
 	
@@ -470,23 +526,29 @@ public class Physics {
 	 * objects when they are sliding across each other.
 	 * 
 	 * @param collisionNormal  the direction in which the collision resolved
-	 * @param a  the first entity
-	 * @param b  the second entity
+	 * @param w  the world
+	 * @param a  the index of the first entity
+	 * @param b  the index of the second entity
 	 * @param j  the magnitude of the normal force
 	 */
 	public static void friction(Vector3f collisionNormal, 
-			Entity a, Entity b, float j) {
+			PhysicsWorld w, int a, int b, float j) {
+		
+		Entity ea = w.getBody(a);
+		Entity eb = w.getBody(b);
+		
+		float[] vx = w.getVelocityX();
+		float[] vy = w.getVelocityY();
+		float[] mass = w.getMass();
 		
 		// store inverse masses
-		float invMassA = 1f / a.getMass();
-		float invMassB = 1f / b.getMass();
+		float invMassA = w.getInvMass()[a];
+		float invMassB = w.getInvMass()[b];
 		
 		// find velocity of B relative to A
-		Vector3f relativeVel = new Vector3f();
-		b.getVelocity().sub(a.getVelocity(), relativeVel);
+		relativeVel.set(vx[b] - vx[a], vy[b] - vy[a], eb.getVelocityZ() - ea.getVelocityZ());
 		
 		// solve for tangent vector
-		Vector3f tangent = new Vector3f();
 		collisionNormal.mul(relativeVel.dot(collisionNormal), tangent);		
 		relativeVel.sub(tangent, tangent);
 		
@@ -500,27 +562,113 @@ public class Physics {
 		// solve for static friction given the static friction coefficients 
 		// of each object
 		// this method uses the Pythagorean Theorem
-		float staticFriction = pythagoreanTheorem(a.getStaticFriction(), 
-				b.getStaticFriction());
+		float staticFriction = pythagoreanTheorem(w.getStaticFriction()[a], 
+				w.getStaticFriction()[b]);
 		
 		// clamp magnitude of friction and create impulse vector
-		Vector3f frictionImpulse = new Vector3f();
 		if (Math.abs(jt) < j * staticFriction) {
 			tangent.mul(jt, frictionImpulse);
 		}
 		else {
-			float kineticFriction = pythagoreanTheorem(a.getKineticFriction(), 
-					b.getKineticFriction());
+			float kineticFriction = pythagoreanTheorem(w.getKineticFriction()[a], 
+					w.getKineticFriction()[b]);
 			
 			tangent.mul(kineticFriction, frictionImpulse);
 			frictionImpulse.mul(-j);
 		}
 		
-		Vector3f temp = new Vector3f(frictionImpulse.x, frictionImpulse.y, frictionImpulse.z); 
+		temp.set(frictionImpulse); 
 		
 		// apply friction impulse
-		a.getVelocity().sub(temp.div(a.getMass()));
-		b.getVelocity().add(frictionImpulse.div(b.getMass()));
+		temp.div(mass[a]);
+		vx[a] -= temp.x;
+		vy[a] -= temp.y;
+		ea.setVelocityZ(ea.getVelocityZ() - temp.z);
+		
+		frictionImpulse.div(mass[b]);
+		vx[b] += frictionImpulse.x;
+		vy[b] += frictionImpulse.y;
+		eb.setVelocityZ(eb.getVelocityZ() + frictionImpulse.z);
+	}
+	
+	/**
+	 * Puts an entity that hit a boundary back at the given z-value, and 
+	 * stops its movement along z.
+	 * 
+	 * @param entity	the entity
+	 * @param z			the z-value of all entities
+	 */
+	private static void resetZ(Entity entity, float z) {
+		
+		entity.setZ(z);
+		entity.setVelocityZ(0);
+	}
+		
+	/**
+	 * Creates a broadphase to find the candidate collision pairs of a 
+	 * simulation. A broadphase keeps the state of its last query, so 
+	 * each simulation needs its own.
+	 * 
+	 * @return the broadphase
+	 */
+	public static Broadphase createBroadphase() {
+		return broadphaseFactory.get();
+	}
+	
+	/**
+	 * Sets how the broadphases of the simulations created from now on 
+	 * are made (for both Physics and PhysicsWithCannons). A 
+	 * SweepAndPruneBroadphase works better than the default grid for 
+	 * scenes with tall, crowded stacks. Use a BruteForceBroadphase to 
+	 * compare against the original behaviour.
+	 * 
+	 * @param broadphaseFactory
+	 */
+	public static void setBroadphase(Supplier<Broadphase> broadphaseFactory) {
+		Physics.broadphaseFactory = broadphaseFactory;
+	}
+	
+	/**
+	 * Finds the candidate collision pairs between the given entities 
+	 * with the broadphase, and remembers where the entities were when 
+	 * they were found (see refreshPairs()).
+	 * 
+	 * @param broadphase	the broadphase of the simulation
+	 * @param entities  	the ArrayList containing the entities to check for collision
+	 * @param pairs     	where the candidate pairs are stored
+	 */
+	static void findPairs(Broadphase broadphase, ArrayList<Entity> entities, CollisionPairs pairs) {
+		
+		broadphase.findPairs(entities, pairs);
+		pairs.setBounds(entities);
+	}
+	
+	/**
+	 * Finds the candidate pairs again if resolving the k-th pair has 
+	 * pushed either of its entities by the broadphase's margin or more 
+	 * since the pairs were found, since they may then be missing a pair 
+	 * the push has made collide. The pairs are visited in (i, j) order 
+	 * either way, so the collisions are resolved in the same order as 
+	 * checking every pair would.
+	 * 
+	 * @param broadphase	the broadphase the pairs were found with
+	 * @param entities  	the ArrayList containing the entities to check for collision
+	 * @param pairs     	the candidate pairs
+	 * @param k         	the index of the pair that was just resolved
+	 * @return the index to carry on from, so that the next index is the 
+	 * 		   first pair after (i, j)
+	 */
+	static int refreshPairs(Broadphase broadphase, ArrayList<Entity> entities, CollisionPairs pairs, int k) {
+		
+		int i = pairs.getFirst(k);
+		int j = pairs.getSecond(k);
+		float margin = broadphase.getMargin();
+		
+		if (!pairs.hasMoved(entities.get(i), i, margin) && !pairs.hasMoved(entities.get(j), j, margin))
+			return k;
+		
+		findPairs(broadphase, entities, pairs);
+		return pairs.indexAfter(i, j) - 1;
 	}
 		
 	/**
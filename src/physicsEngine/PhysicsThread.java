@@ -0,0 +1,171 @@
+package physicsEngine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class runs time steps of a simulation on its own thread, so that
+ * the physics can run while the main thread is busy with something
+ * else (e.g. waiting for the buffers to be swapped).
+ *
+ * Starting time steps does not wait for the ones started before: they 
+ * are added to the steps still to be taken. The thread that starts them 
+ * should not touch the simulation while they run, but read what they 
+ * publish (see PhysicsWorld.getSnapshot()) and hand them its changes 
+ * (see SimulationWindow.post()). Handing time steps over does not 
+ * allocate or take a lock.
+ */
+public class PhysicsThread implements Runnable {
+
+	// static variables
+
+	// the most time steps the physics thread can be behind (e.g. after a slow frame)
+	public static final int MAX_PENDING_STEPS = 8;
+
+	// instance variables
+	private Thread thread;
+
+	private volatile boolean running;
+
+	// the time step to run, and how many times it still has to run
+	private volatile Runnable step;
+	private AtomicInteger steps;
+
+	private volatile Thread waiter;
+	private volatile Throwable failure;
+
+	/**
+	 * Creates and starts the physics thread.
+	 */
+	public PhysicsThread() {
+
+		running = true;
+		steps = new AtomicInteger();
+
+		thread = new Thread(this, "Physics");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Runs a time step a number of times on the physics thread, after 
+	 * the time steps started before. Does not wait for them, unless they 
+	 * are of another time step (e.g. another screen's simulation). If the 
+	 * physics thread has fallen more than MAX_PENDING_STEPS behind, the 
+	 * time steps over that are dropped.
+	 *
+	 * @param step	what to run for each time step
+	 * @param steps	the number of time steps
+	 *
+	 * @throws RuntimeException if a time step threw an exception
+	 */
+	public void start(Runnable step, int steps) {
+
+		rethrowFailure();
+
+		if (steps == 0)
+			return;
+
+		if (step != this.step) {
+
+			join();
+			this.step = step;
+		}
+
+		// publishes the step above to the physics thread
+		int pending;
+
+		do {
+			pending = this.steps.get();
+		} while (!this.steps.compareAndSet(pending, Math.min(pending + steps, MAX_PENDING_STEPS)));
+
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Waits until the time steps started so far have been taken.
+	 *
+	 * @throws RuntimeException if a time step threw an exception
+	 */
+	public void join() {
+
+		waiter = Thread.currentThread();
+
+		while (steps.get() > 0)
+			LockSupport.park(this);
+
+		waiter = null;
+
+		rethrowFailure();
+	}
+
+	/**
+	 * Waits for the last batch of time steps and stops the thread.
+	 */
+	public void stop() {
+
+		join();
+
+		running = false;
+		LockSupport.unpark(thread);
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs on the physics thread.
+	 */
+	public void run() {
+
+		while (running) {
+
+			if (steps.get() == 0) {
+				LockSupport.park(this);
+				continue;
+			}
+
+			try {
+
+				// only counts a time step once it has been taken, so that join() waits for it
+				do {
+					step.run();
+				} while (steps.decrementAndGet() > 0);
+
+			} catch (Throwable t) {
+
+				failure = t;
+				steps.set(0);
+
+			} finally {
+
+				Thread t = waiter;
+
+				if (t != null)
+					LockSupport.unpark(t);
+			}
+		}
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Passes on anything thrown by a time step since the last call.
+	 *
+	 * @throws RuntimeException if a time step threw an exception
+	 */
+	private void rethrowFailure() {
+
+		if (failure != null) {
+
+			Throwable t = failure;
+			failure = null;
+
+			throw new RuntimeException("Exception in the physics thread", t);
+		}
+	}
+}
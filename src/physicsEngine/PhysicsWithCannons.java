@@ -25,186 +25,273 @@ public class PhysicsWithCannons {
 	
 	static float z;
 	
+	// resolves the entity-entity collisions (in parallel for large scenes)
+	private static ContactSolver contactSolver = new ContactSolver();
+	
+	// scratch vectors for the entity-boundary collisions, which are resolved on one thread
+	private static final Scratch scratch = new Scratch();
+	
+	/**
+	 * Scratch vectors, reused every collision so that a step does not 
+	 * create garbage. Each thread that resolves collisions needs its own 
+	 * (see ContactSolver), and passes it to every collision it resolves.
+	 */
+	public static class Scratch {
+		
+		final Vector3f collisionNormal = new Vector3f();
+		final Vector3f closest = new Vector3f();
+		final Vector3f radius = new Vector3f();
+		final Vector3f radius2 = new Vector3f();
+		final Vector3f penetration = new Vector3f();
+		final Vector3f relativeVel = new Vector3f();
+		final Vector3f impulse = new Vector3f();
+		final Vector3f tangent = new Vector3f();
+		final Vector3f frictionImpulse = new Vector3f();
+		final Vector3f temp = new Vector3f();
+	}
+	
 	/**
 	 * Manages the collision detection and collision response between 
 	 * all possible collision scenarios.
 	 * 
+	 * @param world			the world holding the entities, then the boundaries (see PhysicsWorld.setBodies())
 	 * @param entities   	the ArrayList containing the entities to check for collision
 	 * @param boundaries    the ArrayList containing the boundaries to check for collision
+	 * @param broadphase	the broadphase of the simulation (one per simulation)
+	 * @param pairs			where the candidate pairs are stored (one per simulation)
+	 * @param boundaryTree	the tree of the boundaries (one per simulation, updated here)
 	 * @param z 		 	the z-value of all entities
 	 */
-	public static void collision(ArrayList<Entity> entities,ArrayList<Entity> boundaries , float z1) {
+	public static void collision(PhysicsWorld world, ArrayList<Entity> entities, ArrayList<Entity> boundaries, 
+			Broadphase broadphase, CollisionPairs pairs, AABBTree boundaryTree, float z1) {
 				
 		z=z1;
 		
 		// entity-entity collision
+		// only the candidate pairs found by the broadphase need to be checked
+		Physics.findPairs(broadphase, entities, pairs);
+		contactSolver.solve(world, broadphase, entities, pairs);
+			
+		// entity-boundary collision
+		// only the boundaries whose leaves overlap the entity need to be checked
+		boundaryTree.update(boundaries);
+		
 		for (int i = 0; i < entities.size(); i++) {
-			for (int j = i + 1; j < entities.size(); j++) {
-						
-				Entity a = entities.get(i);
-				Entity b = entities.get(j);
-					
-				// if collision is detected
-				if (a.intersects(b)) {
-					
-					// if A is Rectangle
-					if (a instanceof Rectangle) {
-								
-						// if B is Rectangle
-						if (b instanceof Rectangle) {
-								
-							if(a instanceof Cannon) {
-									
-								if (b instanceof Cannon) {
-										
-									collisionCannon((Cannon) b, (Cannon)a);
-								}
-								else {
-									
-									collisionCannon((Rectangle) b, (Cannon)a);
-								}
-							}
-							else if (b instanceof Cannon) {
-									
-								collisionCannon((Rectangle) a, (Cannon)b);
-							}
-							else {
-								collisionRectangleRectangle((Rectangle) a, (Rectangle) b, false);
-							}
-						}
-								
-						// if B is Circle
-						else if (b instanceof Circle) {
-									
-							if(a instanceof Cannon) {
-									
-								collisionCannon((Circle) b,(Cannon) a);
-							}
-							else {
-									
-							collisionRectangleCircle((Rectangle) a, (Circle) b, false);
-							}
-								
-						}
-					}
-							
-					// if A is Circle
-					else if (a instanceof Circle) {
-								
-						// if B is Rectangle
-						if (b instanceof Rectangle) {
-							
-							if(b instanceof Cannon) {
-									
-								collisionCannon((Circle) a,(Cannon) b);
-							}
-							else {
-									
-								collisionRectangleCircle((Rectangle) b, (Circle) a, false);
-							}
-								
-						}
-								
-						// if B is Circle
-						else if (b instanceof Circle) {
-									
-							collisionCircleCircle((Circle) a, (Circle) b);
-						}
-					}
+			
+			Entity entity = entities.get(i);
+			
+			// sleeping entities are at rest against the boundaries
+			if (entity.isSleeping())
+				continue;
+			
+			// the boundaries are checked in order, each against the entity's 
+			// position after the boundaries before it have pushed it
+			int n = queryBoundaries(boundaryTree, entity);
+			int last = -1;
+			
+			for (int k = 0; k < n; k++) {
+				
+				int index = boundaryTree.getResult(k);
+				
+				// already checked before the entity was last pushed
+				if (index <= last)
+					continue;
+				
+				last = index;
+				
+				// a push can move the entity into a boundary the last query 
+				// did not find, so the boundaries after this one are found again
+				if (collisionEntityBoundary(world, i, world.getNumBodies() + index)) {
+					n = queryBoundaries(boundaryTree, entity);
+					k = -1;
 				}
-						
 			}
 		}
+	}
+	
+	/**
+	 * Finds the boundaries near an entity (see AABBTree.getResult()).
+	 * 
+	 * @return the number of boundaries found
+	 */
+	private static int queryBoundaries(AABBTree boundaryTree, Entity entity) {
+		
+		return boundaryTree.query(
+				Broadphase.getMinX(entity) - SpatialHashBroadphase.DEFAULT_MARGIN, 
+				Broadphase.getMinY(entity) - SpatialHashBroadphase.DEFAULT_MARGIN, 
+				Broadphase.getMaxX(entity) + SpatialHashBroadphase.DEFAULT_MARGIN, 
+				Broadphase.getMaxY(entity) + SpatialHashBroadphase.DEFAULT_MARGIN);
+	}
+	
+	/**
+	 * Resolves the collision between an entity and a boundary, if 
+	 * they collide.
+	 * 
+	 * @param w			the world
+	 * @param entity	the index of the entity
+	 * @param b			the index of the boundary
+	 * @return true if they collided (and the entity was pushed), false otherwise
+	 */
+	private static boolean collisionEntityBoundary(PhysicsWorld w, int entity, int b) {
+		
+		Entity e = w.getBody(entity);
+		Rectangle boundary = (Rectangle) w.getBody(b);
+		
+		// if entity is rectangle
+		if (e instanceof Rectangle) {
 			
-		// entity-boundary collision
-		for (Entity entity:entities) {
+			Rectangle r = (Rectangle) e;
+			
+			// ground
+			if (r.getAabb().intersects(boundary.getAabb())) {
 				
-			// if entity is rectangle
-			if (entity instanceof Rectangle) {
+				collisionRectangleRectangle(w, b, entity, true, scratch);
+				return true;
+			}
+		}
+		
+		// if entity is circle
+		else if (e instanceof Circle) {
+			
+			Circle c = (Circle) e;
+			
+			if (c.intersects(boundary)) {
+				collisionRectangleCircle(w, b, entity, true, scratch);
+				return true;
+			}
+		}
+		
+		return false;
+	}
+		
+	/**
+	 * Calls the collision response that matches the types of the two 
+	 * colliding entities.
+	 * 
+	 * @param w  the world
+	 * @param a  the index of the first entity
+	 * @param b  the index of the second entity
+	 * @param s  the scratch vectors of this thread
+	 */
+	public static void collisionEntityEntity(PhysicsWorld w, int a, int b, Scratch s) {
+		
+		Entity ea = w.getBody(a);
+		Entity eb = w.getBody(b);
+		
+		// if A is Rectangle
+		if (ea instanceof Rectangle) {
 					
-				Rectangle r = (Rectangle) entity;
-				
-				for (int i = 0; i < boundaries.size(); i++) {
+			// if B is Rectangle
+			if (eb instanceof Rectangle) {
 					
-					Rectangle b = (Rectangle) boundaries.get(i);
+				if(ea instanceof Cannon) {
+						
+					collisionCannon(w, b, a, s);
+				}
+				else if (eb instanceof Cannon) {
+						
+					collisionCannon(w, a, b, s);
+				}
+				else {
+					collisionRectangleRectangle(w, a, b, false, s);
+				}
+			}
 					
-					// ground
-					if (r.getAabb().intersects(b.getAabb())) {
+			// if B is Circle
+			else if (eb instanceof Circle) {
 						
-						collisionRectangleRectangle(b,r,true);
-					}
+				if(ea instanceof Cannon) {
+						
+					collisionCannon(w, b, a, s);
+				}
+				else {
+						
+				collisionRectangleCircle(w, a, b, false, s);
 				}
+					
 			}
+		}
 				
-			// if entity is circle
-			else if (entity instanceof Circle) {
+		// if A is Circle
+		else if (ea instanceof Circle) {
 					
-				Circle c = (Circle) entity;
+			// if B is Rectangle
+			if (eb instanceof Rectangle) {
 				
-				for (int i = 0; i < boundaries.size(); i++) {
+				if(eb instanceof Cannon) {
+						
+					collisionCannon(w, a, b, s);
+				}
+				else {
+						
+					collisionRectangleCircle(w, b, a, false, s);
+				}
 					
-					Rectangle b = (Rectangle) boundaries.get(i);
+			}
 					
-					if (c.intersects(b)) {
-						collisionRectangleCircle(b, c, true);
-					}
-				
-				}
-				
+			// if B is Circle
+			else if (eb instanceof Circle) {
+						
+				collisionCircleCircle(w, a, b, s);
 			}
-				
 		}
-			
 	}
 		
 	/**
 	 * Manages rectangle-rectangle collision.
 	 * 
-	 * @param a  the first rectangle
-	 * @param b  the second rectangle
+	 * @param w  the world
+	 * @param a  the index of the first rectangle
+	 * @param b  the index of the second rectangle
+	 * @param s  the scratch vectors of this thread
 	 */
-	public static void collisionRectangleRectangle(Rectangle a, Rectangle b, Boolean boundary) {
+	public static void collisionRectangleRectangle(PhysicsWorld w, int a, int b, Boolean boundary, Scratch s) {
+		
+		Rectangle ra = (Rectangle) w.getBody(a);
+		Rectangle rb = (Rectangle) w.getBody(b);
+		
+		float[] x = w.getX();
+		float[] y = w.getY();
+		float[] vx = w.getVelocityX();
+		float[] vy = w.getVelocityY();
 			
 		// the collision normal is the vector whose direction is the 
 		// direction the collision will resolve in
-		Vector3f collisionNormal;
 		
 		// horizontal penetration
-		float horizontal = Math.min(a.getAabb().getMax().x - b.getAabb().getMin().x, 
-				b.getAabb().getMax().x - a.getAabb().getMin().x);
+		float horizontal = Math.min(ra.getAabb().getMax().x - rb.getAabb().getMin().x, 
+				rb.getAabb().getMax().x - ra.getAabb().getMin().x);
 		
 		// vertical penetration
-		float vertical = Math.min(a.getAabb().getMax().y - b.getAabb().getMin().y, 
-				b.getAabb().getMax().y - a.getAabb().getMin().y);
+		float vertical = Math.min(ra.getAabb().getMax().y - rb.getAabb().getMin().y, 
+				rb.getAabb().getMax().y - ra.getAabb().getMin().y);
 		
 		// if objects are colliding horizontally
 		if (horizontal < vertical) {
 				
 			// if A is to the left of B
-			if (a.getPosition().x < b.getPosition().x) {
+			if (x[a] < x[b]) {
 					
 				if(boundary==false)
 				{
 					// positional correction
-					a.getPosition().sub(horizontal / 2, 0, 0);
-					b.getPosition().add(horizontal / 2, 0, 0);
+					x[a] -= horizontal / 2;
+					x[b] += horizontal / 2;
 				
 					// if A is a cannon
-					if (a instanceof Cannon) {
+					if (ra instanceof Cannon) {
 					
 						// set object's new velocity to the cannon's stored velocity
-						Vector3f New = new Vector3f(a.getStoredVelocity());
-					
-						b.setVelocity(New);
+						launch(w, b, ra);
 					}
 				}
 				else
 				{
-					b.getPosition().add(horizontal / 2, 0, 0);
+					x[b] += horizontal / 2;
 				}
 				
 				// set collision normal (direction A should travel)
-				collisionNormal = new Vector3f(1,0,0);
+				s.collisionNormal.set(1,0,0);
 			}
 				
 			// if A is to the right of B
@@ -212,25 +299,23 @@ public class PhysicsWithCannons {
 				if(boundary ==false)
 				{
 					// positional correction
-					a.getPosition().add(horizontal / 2, 0, 0);
-					b.getPosition().sub(horizontal / 2, 0, 0);
+					x[a] += horizontal / 2;
+					x[b] -= horizontal / 2;
 					
 					// if B is a cannon
-					if (b instanceof Cannon) {
+					if (rb instanceof Cannon) {
 						
 						// set object's new velocity to the cannon's stored velocity
-						Vector3f New = new Vector3f(b.getStoredVelocity());
-						
-						a.setVelocity(New);
+						launch(w, a, rb);
 					}
 				}
 				else
 				{
-					b.getPosition().sub(horizontal / 2, 0, 0);
+					x[b] -= horizontal / 2;
 				}
 				
 				// set collision normal (direction A should travel)
-				collisionNormal = new Vector3f(-1,0,0);
+				s.collisionNormal.set(-1,0,0);
 			}
 				
 		}
@@ -239,31 +324,32 @@ public class PhysicsWithCannons {
 		else if (horizontal == vertical ){
 				
 			// if A is to the left of B
-			if (a.getPosition().x < b.getPosition().x) {
+			if (x[a] < x[b]) {
 
 				if(boundary==false)
 				{
 					// positional correction
-					a.getPosition().sub(horizontal / 2, vertical / 2, 0);
-					b.getPosition().add(horizontal / 2, vertical / 2, 0);
+					x[a] -= horizontal / 2;
+					y[a] -= vertical / 2;
+					x[b] += horizontal / 2;
+					y[b] += vertical / 2;
 				
 					// if A is a cannon
-					if (a instanceof Cannon) {
+					if (ra instanceof Cannon) {
 						
 						// set object's new velocity to the cannon's stored velocity
-						Vector3f New = new Vector3f(a.getStoredVelocity());
-						
-						b.setVelocity(New);
+						launch(w, b, ra);
 					}
 				}
 				// positional correction
 				
 				else {
-					b.getPosition().add(horizontal / 2, vertical / 2, 0);
+					x[b] += horizontal / 2;
+					y[b] += vertical / 2;
 				}
 					
 				// set collision normal (direction A should travel)
-				collisionNormal = new Vector3f(1,1,0);
+				s.collisionNormal.set(1,1,0);
 			}
 				
 			// if A is to the right of B
@@ -271,25 +357,26 @@ public class PhysicsWithCannons {
 				if(boundary == false)
 				{
 					// positional correction
-					a.getPosition().add(horizontal / 2, vertical / 2, 0);
-					b.getPosition().sub(horizontal / 2, vertical / 2, 0);
+					x[a] += horizontal / 2;
+					y[a] += vertical / 2;
+					x[b] -= horizontal / 2;
+					y[b] -= vertical / 2;
 					
 					// if B is a cannon
-					if (b instanceof Cannon) {
+					if (rb instanceof Cannon) {
 						
 						// set object's new velocity to the cannon's stored velocity
-						Vector3f New = new Vector3f(b.getStoredVelocity());
-						
-						a.setVelocity(New);
+						launch(w, a, rb);
 					}
 				}
 				// positional correction
 				else {
-					b.getPosition().sub(horizontal / 2, vertical / 2, 0);
+					x[b] -= horizontal / 2;
+					y[b] -= vertical / 2;
 				}
 					
 				// set collision normal (direction A should travel)
-				collisionNormal = new Vector3f(-1,-1,0);
+				s.collisionNormal.set(-1,-1,0);
 			}
 				
 		}
@@ -298,29 +385,27 @@ public class PhysicsWithCannons {
 		else {
 				
 			// if A is to the bottom of B
-			if (a.getPosition().y < b.getPosition().y) {
+			if (y[a] < y[b]) {
 				if(boundary==false)
 				{
 					// positional correction
-					a.getPosition().sub(0, vertical / 2, 0);
-					b.getPosition().add(0, vertical / 2, 0);
+					y[a] -= vertical / 2;
+					y[b] += vertical / 2;
 					
 					// if A is a cannon
-					if (a instanceof Cannon) {
+					if (ra instanceof Cannon) {
 						
 						// set object's new velocity to the cannon's stored velocity
-						Vector3f New = new Vector3f(a.getStoredVelocity());
-						
-						b.setVelocity(New);
+						launch(w, b, ra);
 					}
 				}
 				else {
 					// positional correction
-					b.getPosition().add(0, vertical / 2, 0);
+					y[b] += vertical / 2;
 				}
 				
 				// set collision normal (direction A should travel)
-				collisionNormal = new Vector3f(0,1,0);
+				s.collisionNormal.set(0,1,0);
 			}
 			
 			// if A is to the top of B
@@ -328,158 +413,154 @@ public class PhysicsWithCannons {
 				if(boundary==false)
 				{
 					// positional correction
-					a.getPosition().add(0, vertical / 2, 0);
+					y[a] += vertical / 2;
 					
 					// if B is a cannon
-					if (b instanceof Cannon) {
+					if (rb instanceof Cannon) {
 						
 						// set object's new velocity to the cannon's stored velocity
-						Vector3f New = new Vector3f(b.getStoredVelocity());
-						
-						a.setVelocity(New);
+						launch(w, a, rb);
 					}
 					
 				}
 				else {
-					b.getPosition().sub(0, vertical / 2, 0);
+					y[b] -= vertical / 2;
 				}
 					
 				// set collision normal (direction A should travel)
-				collisionNormal = new Vector3f(0,-1,0);
+				s.collisionNormal.set(0,-1,0);
 			}
 				
 		}
 			
 		// impulse resolution
-		impulseResolution(collisionNormal, a, b, boundary);
+		impulseResolution(s.collisionNormal, w, a, b, boundary, s);
 	}
 	
 	/**
 	 * Manages rectangle-circle collision.
 	 * 
-	 * @param a  the rectangle
-	 * @param b  the circle
+	 * @param w  the world
+	 * @param a  the index of the rectangle
+	 * @param b  the index of the circle
+	 * @param s  the scratch vectors of this thread
 	 */
-	public static void collisionRectangleCircle(Rectangle a, Circle b, boolean boundaryCollision) {
+	public static void collisionRectangleCircle(PhysicsWorld w, int a, int b, boolean boundaryCollision, 
+			Scratch s) {
+		
+		Rectangle ra = (Rectangle) w.getBody(a);
+		Circle cb = (Circle) w.getBody(b);
+		
+		float[] x = w.getX();
+		float[] y = w.getY();
 			
 		// collision normal
 			
-		Vector3f closest = new Vector3f(b.getPosition().x, b.getPosition().y, b.getPosition().z);
+		s.closest.set(x[b], y[b], cb.getZ());
 			
-		closest.x = Physics.clamp(closest.x, a.getPosition().x - a.getWidth()/2, a.getPosition().x + a.getWidth()/2);
-		closest.y = Physics.clamp(closest.y, a.getPosition().y - a.getHeight()/2, a.getPosition().y + a.getHeight()/2);
+		s.closest.x = Physics.clamp(s.closest.x, x[a] - ra.getWidth()/2, x[a] + ra.getWidth()/2);
+		s.closest.y = Physics.clamp(s.closest.y, y[a] - ra.getHeight()/2, y[a] + ra.getHeight()/2);
 			
-		Vector3f collisionNormal = new Vector3f();
-		b.getPosition().sub(closest, collisionNormal);
+		s.collisionNormal.set(x[b] - s.closest.x, y[b] - s.closest.y, cb.getZ() - s.closest.z);
 			
 			
 		// find penetration vector along collision normal
 			
-		float distance = collisionNormal.length();
+		float distance = s.collisionNormal.length();
 			
-		float rX = collisionNormal.x * b.getRadius() / distance;
-		float rY = collisionNormal.y * b.getRadius() / distance;
+		float rX = s.collisionNormal.x * cb.getRadius() / distance;
+		float rY = s.collisionNormal.y * cb.getRadius() / distance;
 			
-		Vector3f radius = new Vector3f(rX, rY, b.getPosition().z - a.getPosition().z);
+		s.radius.set(rX, rY, cb.getZ() - ra.getZ());
 			
-		Vector3f penetration = new Vector3f();
-		radius.sub(collisionNormal, penetration);
+		s.radius.sub(s.collisionNormal, s.penetration);
 			
 			
 		// positional correction
 			
 		if (boundaryCollision) {
 			
-			Vector3f newPos = new Vector3f(
-					b.getPosition().x + penetration.x / 2, 
-					b.getPosition().y + penetration.y / 2,
-					b.getPosition().z);
-				b.setPosition(newPos);
+			x[b] = x[b] + s.penetration.x / 2;
+			y[b] = y[b] + s.penetration.y / 2;
 		}
 		else {
 				
-				Vector3f newPos = new Vector3f(
-						a.getPosition().x - penetration.x / 2, 
-						a.getPosition().y - penetration.y / 2,
-						a.getPosition().z);
-					a.setPosition(newPos);
+			x[a] = x[a] - s.penetration.x / 2;
+			y[a] = y[a] - s.penetration.y / 2;
 		}
 			
-		Vector3f newPos = new Vector3f(
-			b.getPosition().x + penetration.x / 2, 
-			b.getPosition().y + penetration.y / 2,
-			b.getPosition().z);
-		b.setPosition(newPos);
+		x[b] = x[b] + s.penetration.x / 2;
+		y[b] = y[b] + s.penetration.y / 2;
 		
 		// if A is a cannon
-		if (a instanceof Cannon) {
+		if (ra instanceof Cannon) {
 			
 			// only if circle is to the top right of the cannon
-			if (b.getPosition().x >= a.getAabb().getMin().x && b.getPosition().y >= a.getAabb().getMin().y) {
+			if (x[b] >= ra.getAabb().getMin().x && y[b] >= ra.getAabb().getMin().y) {
 				
 				// set object's new velocity to the cannon's stored velocity
-				Vector3f New = new Vector3f(a.getStoredVelocity());
-				
-				b.setVelocity(New);
+				launch(w, b, ra);
 			}
 		}
 			
 		// impulse resolution
-		collisionNormal.normalize();
-		impulseResolution(collisionNormal, a, b, boundaryCollision);
+		s.collisionNormal.normalize();
+		impulseResolution(s.collisionNormal, w, a, b, boundaryCollision, s);
 	}
 
 	/**
 	 * Manages circle-circle collision.
 	 * 
-	 * @param a  the first circle
-	 * @param b  the second circle
+	 * @param w  the world
+	 * @param a  the index of the first circle
+	 * @param b  the index of the second circle
+	 * @param s  the scratch vectors of this thread
 	 */
-	public static void collisionCircleCircle(Circle a, Circle b) {
+	public static void collisionCircleCircle(PhysicsWorld w, int a, int b, Scratch s) {
+		
+		Circle ca = (Circle) w.getBody(a);
+		Circle cb = (Circle) w.getBody(b);
+		
+		float[] x = w.getX();
+		float[] y = w.getY();
 			
 		// collision normal
-		Vector3f collisionNormal = new Vector3f();
-		b.getPosition().sub(a.getPosition(), collisionNormal);
+		s.collisionNormal.set(x[b] - x[a], y[b] - y[a], cb.getZ() - ca.getZ());
 			
 		
 		// find penetration vector along collision normal
 			
-		float distance = collisionNormal.length();
+		float distance = s.collisionNormal.length();
 			
-		float rX = collisionNormal.x * a.getRadius() / distance;
-		float rY = collisionNormal.y * a.getRadius() / distance;
+		float rX = s.collisionNormal.x * ca.getRadius() / distance;
+		float rY = s.collisionNormal.y * ca.getRadius() / distance;
 			
-		Vector3f radius1 = new Vector3f(rX, rY, b.getPosition().z - a.getPosition().z);
+		s.radius.set(rX, rY, cb.getZ() - ca.getZ());
 			
-		rX = collisionNormal.x * b.getRadius() / distance;
-		rY = collisionNormal.y * b.getRadius() / distance;
+		rX = s.collisionNormal.x * cb.getRadius() / distance;
+		rY = s.collisionNormal.y * cb.getRadius() / distance;
 					
-		Vector3f radius2 = new Vector3f(rX, rY, b.getPosition().z - a.getPosition().z);
+		s.radius2.set(rX, rY, cb.getZ() - ca.getZ());
 			
-		radius1.add(radius2);
+		s.radius.add(s.radius2);
 			
-		Vector3f penetration = new Vector3f();
-		radius1.sub(collisionNormal, penetration);
+		s.radius.sub(s.collisionNormal, s.penetration);
 			
 			
 		// positional correction
 			
-		Vector3f newPos = new Vector3f(
-			a.getPosition().x - penetration.x / 2, 
-			a.getPosition().y - penetration.y / 2,
-			a.getPosition().z - penetration.z / 2);
-		a.setPosition(newPos);
+		x[a] = x[a] - s.penetration.x / 2;
+		y[a] = y[a] - s.penetration.y / 2;
+		ca.setZ(ca.getZ() - s.penetration.z / 2);
 					
-		newPos = new Vector3f(
-			b.getPosition().x + penetration.x / 2, 
-			b.getPosition().y + penetration.y / 2,
-			b.getPosition().z + penetration.z / 2);
-		b.setPosition(newPos);
+		x[b] = x[b] + s.penetration.x / 2;
+		y[b] = y[b] + s.penetration.y / 2;
+		cb.setZ(cb.getZ() + s.penetration.z / 2);
 			
 			
 		// impulse resolution
-		collisionNormal.normalize();
-		impulseResolution(collisionNormal, a, b, false);
+		s.collisionNormal.normalize();
+		impulseResolution(s.collisionNormal, w, a, b, false, s);
 	}
 	
 	/**
@@ -488,14 +569,24 @@ public class PhysicsWithCannons {
 	 * applied to each of the objects involved.
 	 * 
 	 * @param collisionNormal  the direction in which the collision should resolve
-	 * @param a  the first entity
-	 * @param b  the second entity
+	 * @param w  the world
+	 * @param a  the index of the first entity
+	 * @param b  the index of the second entity
+	 * @param s  the scratch vectors of this thread
 	 */
-	public static void impulseResolution(Vector3f collisionNormal, Entity a, Entity b, boolean boundaryCollision) {
+	public static void impulseResolution(Vector3f collisionNormal, PhysicsWorld w, int a, int b, 
+			boolean boundaryCollision, Scratch s) {
+		
+		Entity ea = w.getBody(a);
+		Entity eb = w.getBody(b);
+		
+		float[] vx = w.getVelocityX();
+		float[] vy = w.getVelocityY();
+		float[] mass = w.getMass();
 			
 		// store inverse masses
-		float invMassA = 1f / a.getMass();
-		float invMassB = 1f / b.getMass();
+		float invMassA = w.getInvMass()[a];
+		float invMassB = w.getInvMass()[b];
 		
 		if(boundaryCollision)
 		{
@@ -503,39 +594,38 @@ public class PhysicsWithCannons {
 		}
 			
 		// find velocity of B relative to A
-		Vector3f relativeVel = new Vector3f();
-		b.getVelocity().sub(a.getVelocity(), relativeVel);
+		s.relativeVel.set(vx[b] - vx[a], vy[b] - vy[a], eb.getVelocityZ() - ea.getVelocityZ());
 			
 		// take the dot product of the relative velocity and the collision normal
-		float velAlongNormal = relativeVel.dot(collisionNormal);
+		float velAlongNormal = s.relativeVel.dot(collisionNormal);
 			
 		// resolve collision only if objects are moving towards each other
 		if (velAlongNormal <= 0) {
 				
 			// get coefficient of restitution
 			// this will be the smallest of the two objects
-			float e = Math.min(-a.getCoefficientOfRestitution(), -b.getCoefficientOfRestitution());
+			float e = Math.min(-w.getRestitution()[a], -w.getRestitution()[b]);
 				
 			// calculate impulse scalar
 			float impulseScalar = (-(1+e) * velAlongNormal) / (invMassA + invMassB);
 				
-			// calculate impulse
-			Vector3f impulseA = new Vector3f();
-			collisionNormal.mul(impulseScalar, impulseA);
-				
-			Vector3f impulseB = new Vector3f();
-			collisionNormal.mul(impulseScalar, impulseB);
-			
-			// apply impulse
-			if (!boundaryCollision)
-				a.getVelocity().sub(impulseA.div(a.getMass()));
+			// calculate and apply impulse
+			if (!boundaryCollision) {
+				collisionNormal.mul(impulseScalar, s.impulse).div(mass[a]);
+				vx[a] -= s.impulse.x;
+				vy[a] -= s.impulse.y;
+				ea.setVelocityZ(ea.getVelocityZ() - s.impulse.z);
+			}
 			
-			b.getVelocity().add(impulseB.div(b.getMass()));
+			collisionNormal.mul(impulseScalar, s.impulse).div(mass[b]);
+			vx[b] += s.impulse.x;
+			vy[b] += s.impulse.y;
+			eb.setVelocityZ(eb.getVelocityZ() + s.impulse.z);
 			
 			
 			// apply friction
 			// this method is called here to make use of the impulse scalar that was calculated
-			friction(collisionNormal, a, b, impulseScalar, boundaryCollision);
+			friction(collisionNormal, w, a, b, impulseScalar, boundaryCollision, s);
 		}
 	}
 	
@@ -547,17 +637,26 @@ public class PhysicsWithCannons {
 	 * objects when they are sliding across each other.
 	 * 
 	 * @param collisionNormal  the direction in which the collision resolved
-	 * @param a  the first entity
-	 * @param b  the second entity
+	 * @param w  the world
+	 * @param a  the index of the first entity
+	 * @param b  the index of the second entity
 	 * @param j  the magnitude of the normal force
 	 * @param boundaryCollision  true if entity a is a boundary, false otherwise
+	 * @param s  the scratch vectors of this thread
 	 */
 	public static void friction(Vector3f collisionNormal, 
-			Entity a, Entity b, float j, boolean boundaryCollision) {
+			PhysicsWorld w, int a, int b, float j, boolean boundaryCollision, Scratch s) {
+		
+		Entity ea = w.getBody(a);
+		Entity eb = w.getBody(b);
+		
+		float[] vx = w.getVelocityX();
+		float[] vy = w.getVelocityY();
+		float[] mass = w.getMass();
 		
 		// store inverse masses
-		float invMassA = 1f / a.getMass();
-		float invMassB = 1f / b.getMass();
+		float invMassA = w.getInvMass()[a];
+		float invMassB = w.getInvMass()[b];
 		
 		if(boundaryCollision)
 		{
@@ -565,49 +664,75 @@ public class PhysicsWithCannons {
 		}
 		
 		// find velocity of B relative to A
-		Vector3f relativeVel = new Vector3f();
-		b.getVelocity().sub(a.getVelocity(), relativeVel);
+		s.relativeVel.set(vx[b] - vx[a], vy[b] - vy[a], eb.getVelocityZ() - ea.getVelocityZ());
 		
 		// solve for tangent vector
-		Vector3f tangent = new Vector3f();
-		collisionNormal.mul(relativeVel.dot(collisionNormal), tangent);		
-		relativeVel.sub(tangent, tangent);
+		collisionNormal.mul(s.relativeVel.dot(collisionNormal), s.tangent);		
+		s.relativeVel.sub(s.tangent, s.tangent);
 		
-		if (tangent.length() != 0)
-			tangent.normalize();
+		if (s.tangent.length() != 0)
+			s.tangent.normalize();
 		
 		// solve for magnitude and apply along friction vector
-		float jt = -relativeVel.dot(tangent);
+		float jt = -s.relativeVel.dot(s.tangent);
 		jt /= invMassA + invMassB;
 		
 		// solve for static friction given the static friction coefficients 
 		// of each object
 		// this method uses the Pythagorean Theorem
-		float staticFriction = pythagoreanTheorem(a.getStaticFriction(), 
-				b.getStaticFriction());
+		float staticFriction = pythagoreanTheorem(w.getStaticFriction()[a], 
+				w.getStaticFriction()[b]);
 		
 		// clamp magnitude of friction and create impulse vector
-		Vector3f frictionImpulse = new Vector3f();
 		if (Math.abs(jt) < j * staticFriction) {
-			tangent.mul(jt, frictionImpulse);
+			s.tangent.mul(jt, s.frictionImpulse);
 		}
 		else {
-			float kineticFriction = pythagoreanTheorem(a.getKineticFriction(), 
-					b.getKineticFriction());
+			float kineticFriction = pythagoreanTheorem(w.getKineticFriction()[a], 
+					w.getKineticFriction()[b]);
 			
-			tangent.mul(kineticFriction, frictionImpulse);
-			frictionImpulse.mul(-j);
+			s.tangent.mul(kineticFriction, s.frictionImpulse);
+			s.frictionImpulse.mul(-j);
 		}
 		
-		Vector3f temp = new Vector3f(frictionImpulse.x, frictionImpulse.y, frictionImpulse.z); 
+		s.temp.set(s.frictionImpulse); 
 		
 		// apply friction impulse
-		if (!boundaryCollision)
-			a.getVelocity().sub(temp.div(a.getMass()));
+		if (!boundaryCollision) {
+			s.temp.div(mass[a]);
+			vx[a] -= s.temp.x;
+			vy[a] -= s.temp.y;
+			ea.setVelocityZ(ea.getVelocityZ() - s.temp.z);
+		}
 		
-		b.getVelocity().add(frictionImpulse.div(b.getMass()));
+		s.frictionImpulse.div(mass[b]);
+		vx[b] += s.frictionImpulse.x;
+		vy[b] += s.frictionImpulse.y;
+		eb.setVelocityZ(eb.getVelocityZ() + s.frictionImpulse.z);
+	}
+		
+	/**
+	 * Returns the solver used for entity-entity collisions.
+	 * 
+	 * @return contactSolver
+	 */
+	public static ContactSolver getContactSolver() {
+		return contactSolver;
 	}
+	
+	/**
+	 * Sets the solver used for entity-entity collisions, and stops the 
+	 * threads of the previous one. Use a ContactSolver with a parallelism 
+	 * of 1 to always resolve the pairs one at a time, in order.
+	 * 
+	 * @param contactSolver
+	 */
+	public static void setContactSolver(ContactSolver contactSolver) {
 		
+		PhysicsWithCannons.contactSolver.shutdown();
+		PhysicsWithCannons.contactSolver = contactSolver;
+	}
+	
 	/**
 	 * Clamps the given float to the given extents. If x is smaller 
 	 * than min, x will be set to min. If x is larger than max, x 
@@ -645,34 +770,35 @@ public class PhysicsWithCannons {
 	}
 	
 	/**
-	 * Manages circle-cannon collision.
+	 * Sets the velocity of the i-th body to the cannon's stored velocity.
 	 * 
-	 * @param a		the circle
-	 * @param b		the cannon
+	 * @param w			the world
+	 * @param i			the index of the body
+	 * @param cannon	the cannon
 	 */
-	public static void collisionCannon(Circle a, Cannon b) {
-		collisionRectangleCircle(b, a, false);
-	}
-	
-	/**
-	 * Manages rectangle-cannon collision.
-	 * 
-	 * @param a		the rectangle
-	 * @param b		the cannon
-	 */
-	public static void collisionCannon(Rectangle a, Cannon b) {
-		collisionRectangleRectangle(b, a, false);
+	private static void launch(PhysicsWorld w, int i, Rectangle cannon) {
+		
+		w.getVelocityX()[i] = cannon.getStoredVelocity().x;
+		w.getVelocityY()[i] = cannon.getStoredVelocity().y;
+		w.getBody(i).setVelocityZ(cannon.getStoredVelocity().z);
 	}
 	
 	/**
-	 * Manages cannon-cannon collision.
+	 * Manages the collision between a cannon and a circle or a 
+	 * (regular) rectangle.
 	 * 
-	 * @param a		the first cannon
-	 * @param b		the second cannon
+	 * @param w			the world
+	 * @param a			the index of the circle or rectangle
+	 * @param cannon	the index of the cannon
+	 * @param s			the scratch vectors of this thread
 	 */
-	public static void collisionCannon(Cannon a,  Cannon b) {
-		collisionRectangleRectangle(b, a, false);
+	public static void collisionCannon(PhysicsWorld w, int a, int cannon, Scratch s) {
+		
+		if (w.getBody(a) instanceof Circle)
+			collisionRectangleCircle(w, cannon, a, false, s);
+		else
+			collisionRectangleRectangle(w, cannon, a, false, s);
 	}
 	
 	
-}
+}
\ No newline at end of file
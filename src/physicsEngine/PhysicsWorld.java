@@ -0,0 +1,903 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import objects.Entity;
+import objects.Rectangle;
+
+/**
+ * This class stores the state of the bodies in a simulation as
+ * parallel float arrays (a "structure of arrays") instead of one
+ * object per vector. Integrating the bodies is then a single loop over
+ * plain arrays, which the JIT can turn into vector instructions.
+ *
+ * The arrays are the only copy of the bodies' state: each entity in the
+ * world is a handle to its slot (see Entity.setWorld()), so the screens
+ * read and change the state through the entity, and the collision code
+ * works on the arrays directly. The moving bodies (the entities) come
+ * first, followed by the static bodies (the boundaries), which are never
+ * integrated or put to sleep. Bodies move in the xy plane only; z is
+ * kept by the entities.
+ *
+ * The world also remembers where each body was at the start of the
+ * last time step, so that a frame drawn between two time steps can
+ * place the bodies in between their previous and current positions.
+ * The thread that steps the world publishes these positions as a
+ * Snapshot (see publish()), which another thread can draw while the
+ * next time step runs (see getSnapshot()).
+ *
+ * Bodies that have been (nearly) at rest for SLEEP_STEPS time steps are
+ * put to sleep, together with everything near them (their island).
+ * A sleeping body is not integrated, and the collision code skips it
+ * unless an awake body hits it. It is woken up when its island wakes
+ * up, when something outside the physics (e.g. the user) changes its
+ * position, velocity, acceleration, size or mass, or when a body in its
+ * island is removed.
+ */
+public class PhysicsWorld {
+
+	// static variables
+
+	// a body is at rest while its speed is below this (a crate resting on the
+	// ground still bounces with a speed of up to about 4)
+	public static final float SLEEP_VELOCITY = 5f;
+
+	// an island falls asleep once all of its bodies have been at rest this long
+	public static final int SLEEP_STEPS = 60;
+
+	// instance variables
+	private int size;
+	private int numBodies;			// the number of moving bodies (the static ones come after them)
+	private Entity[] bodies;
+
+	private float[] x;
+	private float[] y;
+	private float[] vx;
+	private float[] vy;
+	private float[] ax;
+	private float[] ay;
+	private float[] mass;
+	private float[] invMass;
+	private float[] restitution;
+	private float[] staticFriction;
+	private float[] kineticFriction;
+
+	// positions at the start of the last time step
+	private float[] previousX;
+	private float[] previousY;
+
+	// a triple buffer of snapshots: the stepping thread fills back, then swaps it
+	// with latest, and the drawing thread swaps its front with latest when that is newer
+	private Snapshot back;
+	private AtomicReference<Snapshot> latest;
+	private Snapshot front;
+	private long numPublished;
+
+	// sleeping
+	private boolean sleepingEnabled;
+	private boolean[] sleeping;
+	private float[] awake;			// 1 if awake, 0 if sleeping (so that integrate() has no branches)
+	private int[] restingSteps;
+	private int[] island;			// union-find parent of each body
+	private int[] islandRestingSteps;
+	private boolean islandsFound;	// whether island holds the islands of the current bodies
+	private int numSleeping;
+
+	/**
+	 * Creates an empty physics world.
+	 */
+	public PhysicsWorld() {
+
+		size = 0;
+		numBodies = 0;
+		sleepingEnabled = true;
+		allocate(16);
+
+		back = new Snapshot();
+		latest = new AtomicReference<Snapshot>(new Snapshot());
+		front = new Snapshot();
+	}
+
+	/**
+	 * Makes the world hold exactly the entities and then the boundaries
+	 * in the given lists, in the same order. Nothing is done if the lists
+	 * have not changed since the last call. The islands of the bodies
+	 * that are no longer in the list are woken up, since what they rested
+	 * on may be gone.
+	 *
+	 * @param entities		the ArrayList containing the (moving) entities
+	 * @param boundaries	the ArrayList containing the (static) boundaries
+	 */
+	public void setBodies(ArrayList<Entity> entities, ArrayList<Entity> boundaries) {
+
+		if (hasBodies(entities, boundaries))
+			return;
+
+		wakeIslandsOfRemoved(entities);
+		clear();
+
+		for (int i = 0; i < entities.size(); i++)
+			add(entities.get(i));
+
+		numBodies = size;
+
+		for (int i = 0; i < boundaries.size(); i++)
+			add(boundaries.get(i));
+	}
+
+	/**
+	 * Removes every body from the world. Their state is copied back
+	 * into the entities.
+	 */
+	public void clear() {
+
+		for (int i = 0; i < size; i++) {
+			bodies[i].setWorld(null, -1);
+			bodies[i] = null;
+		}
+
+		size = 0;
+		numBodies = 0;
+		numSleeping = 0;
+		islandsFound = false;
+	}
+
+	/**
+	 * Advances every moving body by one time step using the same
+	 * (semi-implicit Euler) integration as Entity.update().
+	 *
+	 * @param dt  the change in time or time step
+	 */
+	public void integrate(float dt) {
+
+		// update velocity (sleeping bodies are multiplied by 0 instead of skipped)
+		for (int i = 0; i < numBodies; i++) {
+			vx[i] += ax[i] * dt * awake[i];
+			vy[i] += ay[i] * dt * awake[i];
+		}
+
+		// update position
+		for (int i = 0; i < numBodies; i++) {
+			x[i] += vx[i] * dt * awake[i];
+			y[i] += vy[i] * dt * awake[i];
+		}
+	}
+
+	/**
+	 * Performs a whole time step of integration, and updates the AABBs
+	 * of the rectangles that moved.
+	 *
+	 * @param dt  the change in time or time step
+	 */
+	public void update(float dt) {
+
+		System.arraycopy(x, 0, previousX, 0, numBodies);
+		System.arraycopy(y, 0, previousY, 0, numBodies);
+
+		integrate(dt);
+
+		for (int i = 0; i < numBodies; i++) {
+
+			if (!sleeping[i] && bodies[i] instanceof Rectangle)
+				((Rectangle) bodies[i]).updateAABB();
+		}
+	}
+
+	/**
+	 * Publishes the positions of the bodies as the latest snapshot. Only 
+	 * the thread that steps the world may call this. It does not wait 
+	 * for the thread that reads the snapshots, and does not allocate 
+	 * once the snapshots are large enough.
+	 *
+	 * @param stamp		a number stored with the snapshot (see Snapshot.getStamp())
+	 */
+	public void publish(long stamp) {
+
+		back.copy(this, stamp, ++numPublished);
+		back = latest.getAndSet(back);
+	}
+
+	/**
+	 * Returns the latest snapshot published by the stepping thread. Only 
+	 * one thread may call this. The snapshot is not changed until the 
+	 * next call (and stays the same if nothing was published since).
+	 *
+	 * @return the latest snapshot
+	 */
+	public Snapshot getSnapshot() {
+
+		// only the stepping thread replaces latest in between, with a newer snapshot
+		if (latest.get().getVersion() > front.getVersion())
+			front = latest.getAndSet(front);
+
+		return front;
+	}
+
+	/**
+	 * Checks whether the given lists hold the same entities and 
+	 * boundaries, in the same order, as the world.
+	 *
+	 * @param entities		the ArrayList containing the entities
+	 * @param boundaries	the ArrayList containing the boundaries
+	 * @return true if yes, false otherwise
+	 */
+	public boolean hasBodies(ArrayList<Entity> entities, ArrayList<Entity> boundaries) {
+
+		if (entities.size() != numBodies || boundaries.size() != size - numBodies)
+			return false;
+
+		for (int i = 0; i < numBodies; i++) {
+
+			if (entities.get(i) != bodies[i])
+				return false;
+		}
+
+		for (int i = numBodies; i < size; i++) {
+
+			if (boundaries.get(i - numBodies) != bodies[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Puts bodies to sleep and wakes them up after the collisions of a
+	 * time step have been resolved. The bodies connected by the given
+	 * candidate collision pairs form an island, which sleeps only when
+	 * all of its bodies have been at rest for SLEEP_STEPS time steps, and
+	 * wakes up as a whole when any of its bodies is moving.
+	 *
+	 * @param pairs		the candidate collision pairs of the time step (indices into the bodies)
+	 */
+	public void updateSleeping(CollisionPairs pairs) {
+
+		if (!sleepingEnabled)
+			return;
+
+		for (int i = 0; i < numBodies; i++) {
+
+			// woken up by the collision code
+			if (sleeping[i] && !bodies[i].isSleeping())
+				wake(i);
+
+			if (sleeping[i])
+				continue;
+
+			if (vx[i] * vx[i] + vy[i] * vy[i] < SLEEP_VELOCITY * SLEEP_VELOCITY)
+				restingSteps[i]++;
+			else
+				restingSteps[i] = 0;
+		}
+
+		// join the bodies into islands
+		for (int i = 0; i < numBodies; i++)
+			island[i] = i;
+
+		for (int k = 0; k < pairs.size(); k++) {
+
+			int a = findIsland(pairs.getFirst(k));
+			int b = findIsland(pairs.getSecond(k));
+
+			// the smaller index becomes the root, so that islands do not depend on the pair order
+			if (a < b)
+				island[b] = a;
+			else if (b < a)
+				island[a] = b;
+		}
+
+		// an island has been at rest as long as its most recently moving body
+		for (int i = 0; i < numBodies; i++)
+			islandRestingSteps[i] = Integer.MAX_VALUE;
+
+		for (int i = 0; i < numBodies; i++) {
+
+			int root = findIsland(i);
+			int steps = sleeping[i] ? SLEEP_STEPS : restingSteps[i];
+
+			islandRestingSteps[root] = Math.min(islandRestingSteps[root], steps);
+		}
+
+		islandsFound = true;
+
+		for (int i = 0; i < numBodies; i++) {
+
+			boolean resting = islandRestingSteps[findIsland(i)] >= SLEEP_STEPS;
+
+			if (resting && !sleeping[i])
+				sleep(i);
+			else if (!resting && sleeping[i])
+				wake(i);
+		}
+	}
+
+	/**
+	 * Wakes up the i-th body, if it is asleep.
+	 *
+	 * @param i		the index of the body
+	 */
+	public void wake(int i) {
+
+		if (!sleeping[i])
+			return;
+
+		bodies[i].setSleeping(false);
+
+		sleeping[i] = false;
+		awake[i] = 1f;
+		restingSteps[i] = 0;
+		numSleeping--;
+	}
+
+	/**
+	 * Wakes up every body.
+	 */
+	public void wakeAll() {
+
+		for (int i = 0; i < numBodies; i++) {
+
+			wake(i);
+			restingSteps[i] = 0;
+		}
+	}
+
+	/**
+	 * Sets the position of the i-th body, waking it up if it changed. 
+	 * It jumps there, instead of being drawn moving there.
+	 *
+	 * @param i		the index of the body
+	 * @param x		the x coordinate
+	 * @param y		the y coordinate
+	 */
+	public void setPosition(int i, float x, float y) {
+
+		if (this.x[i] != x || this.y[i] != y)
+			wake(i);
+
+		this.x[i] = x;
+		this.y[i] = y;
+
+		// the body is not drawn moving from where it was
+		previousX[i] = x;
+		previousY[i] = y;
+	}
+
+	/**
+	 * Sets the velocity of the i-th body, waking it up if it changed.
+	 *
+	 * @param i		the index of the body
+	 * @param vx	the horizontal component
+	 * @param vy	the vertical component
+	 */
+	public void setVelocity(int i, float vx, float vy) {
+
+		if (this.vx[i] != vx || this.vy[i] != vy)
+			wake(i);
+
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+	}
+
+	/**
+	 * Sets the acceleration of the i-th body, waking it up if it changed.
+	 *
+	 * @param i		the index of the body
+	 * @param ax	the horizontal component
+	 * @param ay	the vertical component
+	 */
+	public void setAcceleration(int i, float ax, float ay) {
+
+		if (this.ax[i] != ax || this.ay[i] != ay)
+			wake(i);
+
+		this.ax[i] = ax;
+		this.ay[i] = ay;
+	}
+
+	/**
+	 * Sets the mass of the i-th body, waking it up if it changed.
+	 *
+	 * @param i		the index of the body
+	 * @param mass	the mass
+	 */
+	public void setMass(int i, float mass) {
+
+		if (this.mass[i] != mass)
+			wake(i);
+
+		this.mass[i] = mass;
+		invMass[i] = 1f / mass;
+	}
+
+	/**
+	 * Returns whether or not bodies are put to sleep.
+	 *
+	 * @return sleepingEnabled
+	 */
+	public boolean isSleepingEnabled() {
+		return sleepingEnabled;
+	}
+
+	/**
+	 * Sets whether or not bodies are put to sleep. Disabling sleeping
+	 * wakes every body up.
+	 *
+	 * @param sleepingEnabled
+	 */
+	public void setSleepingEnabled(boolean sleepingEnabled) {
+
+		this.sleepingEnabled = sleepingEnabled;
+
+		if (!sleepingEnabled)
+			wakeAll();
+	}
+
+	/**
+	 * Returns the number of sleeping bodies.
+	 *
+	 * @return numSleeping
+	 */
+	public int getNumSleeping() {
+		return numSleeping;
+	}
+
+	/**
+	 * Returns the number of bodies in the world, including the static ones.
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of moving bodies. Their indices are 0 to 
+	 * numBodies - 1, and the static bodies follow them.
+	 *
+	 * @return numBodies
+	 */
+	public int getNumBodies() {
+		return numBodies;
+	}
+
+	/**
+	 * Returns the entity of a body.
+	 *
+	 * @param i		the index of the body
+	 * @return the entity
+	 */
+	public Entity getBody(int i) {
+		return bodies[i];
+	}
+
+	/**
+	 * Returns the x coordinates of the bodies.
+	 *
+	 * @return x
+	 */
+	public float[] getX() {
+		return x;
+	}
+
+	/**
+	 * Returns the y coordinates of the bodies.
+	 *
+	 * @return y
+	 */
+	public float[] getY() {
+		return y;
+	}
+
+	/**
+	 * Returns the horizontal velocities of the bodies.
+	 *
+	 * @return vx
+	 */
+	public float[] getVelocityX() {
+		return vx;
+	}
+
+	/**
+	 * Returns the vertical velocities of the bodies.
+	 *
+	 * @return vy
+	 */
+	public float[] getVelocityY() {
+		return vy;
+	}
+
+	/**
+	 * Returns the horizontal accelerations of the bodies.
+	 *
+	 * @return ax
+	 */
+	public float[] getAccelerationX() {
+		return ax;
+	}
+
+	/**
+	 * Returns the vertical accelerations of the bodies.
+	 *
+	 * @return ay
+	 */
+	public float[] getAccelerationY() {
+		return ay;
+	}
+
+	/**
+	 * Returns the masses of the bodies.
+	 *
+	 * @return mass
+	 */
+	public float[] getMass() {
+		return mass;
+	}
+
+	/**
+	 * Returns the inverse masses (1 / mass) of the bodies.
+	 *
+	 * @return invMass
+	 */
+	public float[] getInvMass() {
+		return invMass;
+	}
+
+	/**
+	 * Returns the coefficients of restitution of the bodies.
+	 *
+	 * @return restitution
+	 */
+	public float[] getRestitution() {
+		return restitution;
+	}
+
+	/**
+	 * Returns the coefficients of static friction of the bodies.
+	 *
+	 * @return staticFriction
+	 */
+	public float[] getStaticFriction() {
+		return staticFriction;
+	}
+
+	/**
+	 * Returns the coefficients of kinetic friction of the bodies.
+	 *
+	 * @return kineticFriction
+	 */
+	public float[] getKineticFriction() {
+		return kineticFriction;
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Adds a body to the end of the world, moving the entity's state
+	 * into the new slot.
+	 */
+	private void add(Entity entity) {
+
+		if (size == bodies.length)
+			grow(size * 2);
+
+		// the entity's getters still read its own fields here
+		x[size] = entity.getX();
+		y[size] = entity.getY();
+		vx[size] = entity.getVelocityX();
+		vy[size] = entity.getVelocityY();
+		ax[size] = entity.getAccelerationX();
+		ay[size] = entity.getAccelerationY();
+		mass[size] = entity.getMass();
+		invMass[size] = 1f / mass[size];
+		restitution[size] = entity.getCoefficientOfRestitution();
+		staticFriction[size] = entity.getStaticFriction();
+		kineticFriction[size] = entity.getKineticFriction();
+
+		bodies[size] = entity;
+		entity.setWorld(this, size);
+
+		restingSteps[size] = 0;
+
+		// the islands are found again by the next updateSleeping()
+		islandsFound = false;
+
+		// a sleeping entity stays asleep (e.g. when another entity is added)
+		sleeping[size] = entity.isSleeping();
+		awake[size] = sleeping[size] ? 0f : 1f;
+
+		if (sleeping[size])
+			numSleeping++;
+
+		previousX[size] = x[size];
+		previousY[size] = y[size];
+
+		size++;
+	}
+
+	/**
+	 * Wakes up the islands of the bodies that are not in the given list,
+	 * or every body if the islands of the current bodies are not known.
+	 */
+	private void wakeIslandsOfRemoved(ArrayList<Entity> entities) {
+
+		if (numSleeping == 0)
+			return;
+
+		Set<Entity> kept = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+		kept.addAll(entities);
+
+		// mark the roots of the removed bodies' islands (islandRestingSteps is found again by updateSleeping())
+		boolean removed = false;
+
+		for (int i = 0; i < numBodies; i++) {
+
+			if (kept.contains(bodies[i]))
+				continue;
+
+			removed = true;
+
+			if (islandsFound)
+				islandRestingSteps[findIsland(i)] = -1;
+		}
+
+		if (!removed)
+			return;
+
+		for (int i = 0; i < numBodies; i++) {
+
+			if (sleeping[i] && (!islandsFound || islandRestingSteps[findIsland(i)] == -1))
+				wake(i);
+		}
+	}
+
+	/**
+	 * Puts the i-th body to sleep. It stops.
+	 */
+	private void sleep(int i) {
+
+		vx[i] = 0f;
+		vy[i] = 0f;
+		bodies[i].setSleeping(true);
+
+		sleeping[i] = true;
+		awake[i] = 0f;
+		numSleeping++;
+	}
+
+	/**
+	 * Returns the root of the island the i-th body is in.
+	 */
+	private int findIsland(int i) {
+
+		while (island[i] != i) {
+
+			// path halving
+			island[i] = island[island[i]];
+			i = island[i];
+		}
+
+		return i;
+	}
+
+	/**
+	 * Creates the arrays with the given capacity.
+	 */
+	private void allocate(int capacity) {
+
+		bodies = new Entity[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		ax = new float[capacity];
+		ay = new float[capacity];
+		mass = new float[capacity];
+		invMass = new float[capacity];
+		restitution = new float[capacity];
+		staticFriction = new float[capacity];
+		kineticFriction = new float[capacity];
+		previousX = new float[capacity];
+		previousY = new float[capacity];
+		sleeping = new boolean[capacity];
+		awake = new float[capacity];
+		restingSteps = new int[capacity];
+		island = new int[capacity];
+		islandRestingSteps = new int[capacity];
+	}
+
+	/**
+	 * Grows the arrays, keeping their contents.
+	 */
+	private void grow(int capacity) {
+
+		bodies = Arrays.copyOf(bodies, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		ax = Arrays.copyOf(ax, capacity);
+		ay = Arrays.copyOf(ay, capacity);
+		mass = Arrays.copyOf(mass, capacity);
+		invMass = Arrays.copyOf(invMass, capacity);
+		restitution = Arrays.copyOf(restitution, capacity);
+		staticFriction = Arrays.copyOf(staticFriction, capacity);
+		kineticFriction = Arrays.copyOf(kineticFriction, capacity);
+		previousX = Arrays.copyOf(previousX, capacity);
+		previousY = Arrays.copyOf(previousY, capacity);
+		sleeping = Arrays.copyOf(sleeping, capacity);
+		awake = Arrays.copyOf(awake, capacity);
+		restingSteps = Arrays.copyOf(restingSteps, capacity);
+		island = Arrays.copyOf(island, capacity);
+		islandRestingSteps = Arrays.copyOf(islandRestingSteps, capacity);
+	}
+
+	/**
+	 * The positions of a world's bodies after a time step, and before 
+	 * it, for drawing. The moving bodies come first, followed by the 
+	 * static ones, in the same order as in the world.
+	 */
+	public static class Snapshot {
+
+		// instance variables
+		private int size;
+		private int numBodies;
+		private Entity[] bodies;
+
+		private float[] x;
+		private float[] y;
+		private float[] z;
+		private float[] rotation;		// about the z axis, in degrees
+		private float[] previousX;
+		private float[] previousY;
+
+		private long stamp;
+		private volatile long version;	// written last, so a newer version means the copy is done
+
+		/**
+		 * Creates an empty snapshot.
+		 */
+		private Snapshot() {
+
+			bodies = new Entity[0];
+			x = y = z = rotation = previousX = previousY = new float[0];
+		}
+
+		/**
+		 * Returns the number of bodies.
+		 *
+		 * @return size
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Returns the number of moving bodies. The static bodies follow them.
+		 *
+		 * @return numBodies
+		 */
+		public int getNumBodies() {
+			return numBodies;
+		}
+
+		/**
+		 * Returns the entity of a body. Only its model, scale and shape 
+		 * may be read from another thread than the stepping one.
+		 *
+		 * @param i		the index of the body
+		 * @return the entity
+		 */
+		public Entity getBody(int i) {
+			return bodies[i];
+		}
+
+		/**
+		 * Returns the x coordinate of a body, between its position before 
+		 * and after the time step.
+		 *
+		 * @param i			the index of the body
+		 * @param alpha		how far between the previous (0) and current (1) positions
+		 * @return x
+		 */
+		public float getX(int i, float alpha) {
+			return previousX[i] + (x[i] - previousX[i]) * alpha;
+		}
+
+		/**
+		 * Returns the y coordinate of a body, between its position before 
+		 * and after the time step.
+		 *
+		 * @param i			the index of the body
+		 * @param alpha		how far between the previous (0) and current (1) positions
+		 * @return y
+		 */
+		public float getY(int i, float alpha) {
+			return previousY[i] + (y[i] - previousY[i]) * alpha;
+		}
+
+		/**
+		 * Returns the z coordinate of a body.
+		 *
+		 * @param i		the index of the body
+		 * @return z
+		 */
+		public float getZ(int i) {
+			return z[i];
+		}
+
+		/**
+		 * Returns the rotation of a body about the z axis, in degrees.
+		 *
+		 * @param i		the index of the body
+		 * @return rotation
+		 */
+		public float getRotation(int i) {
+			return rotation[i];
+		}
+
+		/**
+		 * Returns the number the snapshot was published with.
+		 *
+		 * @return stamp
+		 */
+		public long getStamp() {
+			return stamp;
+		}
+
+		/**
+		 * Returns how many snapshots the world had published when this 
+		 * one was, so that newer snapshots have larger versions.
+		 *
+		 * @return version
+		 */
+		private long getVersion() {
+			return version;
+		}
+
+		/**
+		 * Copies the positions of the bodies of a world.
+		 */
+		private void copy(PhysicsWorld world, long stamp, long version) {
+
+			size = world.size;
+			numBodies = world.numBodies;
+
+			if (bodies.length < size) {
+
+				int capacity = world.bodies.length;
+
+				bodies = new Entity[capacity];
+				x = new float[capacity];
+				y = new float[capacity];
+				z = new float[capacity];
+				rotation = new float[capacity];
+				previousX = new float[capacity];
+				previousY = new float[capacity];
+			}
+
+			System.arraycopy(world.bodies, 0, bodies, 0, size);
+			System.arraycopy(world.x, 0, x, 0, size);
+			System.arraycopy(world.y, 0, y, 0, size);
+
+			System.arraycopy(world.previousX, 0, previousX, 0, size);
+			System.arraycopy(world.previousY, 0, previousY, 0, size);
+
+			for (int i = 0; i < size; i++) {
+				z[i] = bodies[i].getZ();
+				rotation[i] = bodies[i].getRotation().z;
+			}
+
+			// let go of the entities that are no longer in the world
+			Arrays.fill(bodies, size, bodies.length, null);
+
+			this.stamp = stamp;
+			this.version = version;
+		}
+	}
+}
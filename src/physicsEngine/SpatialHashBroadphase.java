@@ -0,0 +1,333 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import objects.Entity;
+
+/**
+ * This broadphase sorts the entities into a uniform grid of square
+ * cells. Each entity is inserted into every cell its bounding box
+ * covers, and only entities that share a cell (and whose bounding boxes
+ * overlap) are reported as candidate pairs.
+ *
+ * The grid is stored as a spatial hash, so it does not need to know the
+ * size of the simulation window. All of the arrays are reused from step
+ * to step.
+ */
+public class SpatialHashBroadphase implements Broadphase {
+
+	// static variables
+	public static final float DEFAULT_CELL_SIZE = 64f;
+
+	// the bounding boxes are grown by this much so that pairs which only start
+	// touching after an earlier pair's positional correction are still reported
+	public static final float DEFAULT_MARGIN = 2f;
+
+	// entities that cover more cells than this are checked against every entity
+	private static final int MAX_CELLS_PER_ENTITY = 64;
+
+	private static final int EMPTY = -1;
+
+	// instance variables
+	private float cellSize;
+	private float margin;
+
+	// cached bounds of each entity (including the margin)
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+
+	// hash table from cell to the first entry in that cell
+	private long[] cellKeys;
+	private int[] cellHeads;
+	private int[] usedSlots;
+	private int numUsedSlots;
+
+	// linked lists of the entities in each cell
+	private int[] entryEntity;
+	private int[] entryNext;
+	private int numEntries;
+
+	// entities too large to be put in the grid
+	private int[] oversized;
+	private int numOversized;
+
+	/**
+	 * Creates a spatial hash broadphase with the default cell size.
+	 */
+	public SpatialHashBroadphase() {
+		this(DEFAULT_CELL_SIZE, DEFAULT_MARGIN);
+	}
+
+	/**
+	 * Creates a spatial hash broadphase.
+	 *
+	 * @param cellSize  the side length of a grid cell (should be about the size of a typical entity)
+	 * @param margin    how much each bounding box is grown on every side
+	 */
+	public SpatialHashBroadphase(float cellSize, float margin) {
+
+		this.cellSize = cellSize;
+		this.margin = margin;
+
+		minX = new float[16];
+		minY = new float[16];
+		maxX = new float[16];
+		maxY = new float[16];
+
+		cellKeys = new long[64];
+		cellHeads = new int[64];
+		Arrays.fill(cellHeads, EMPTY);
+		usedSlots = new int[64];
+
+		entryEntity = new int[64];
+		entryNext = new int[64];
+
+		oversized = new int[16];
+	}
+
+	/**
+	 * Finds the candidate collision pairs between the given entities.
+	 *
+	 * @param entities  the ArrayList containing the entities to check for collision
+	 * @param pairs     where the candidate pairs are stored
+	 */
+	public void findPairs(ArrayList<Entity> entities, CollisionPairs pairs) {
+
+		pairs.clear();
+
+		int n = entities.size();
+		ensureEntityCapacity(n);
+
+		// store bounds
+		for (int i = 0; i < n; i++) {
+
+			Entity entity = entities.get(i);
+
+			minX[i] = Broadphase.getMinX(entity) - margin;
+			minY[i] = Broadphase.getMinY(entity) - margin;
+			maxX[i] = Broadphase.getMaxX(entity) + margin;
+			maxY[i] = Broadphase.getMaxY(entity) + margin;
+		}
+
+		clearGrid();
+
+		// insert each entity into the cells it covers
+		numOversized = 0;
+
+		for (int i = 0; i < n; i++) {
+
+			if (cellsCovered(i) > MAX_CELLS_PER_ENTITY) {
+
+				if (numOversized == oversized.length)
+					oversized = Arrays.copyOf(oversized, oversized.length * 2);
+
+				oversized[numOversized++] = i;
+				continue;
+			}
+
+			int cxMin = cell(minX[i]);
+			int cxMax = cell(maxX[i]);
+			int cyMin = cell(minY[i]);
+			int cyMax = cell(maxY[i]);
+
+			for (int cx = cxMin; cx <= cxMax; cx++) {
+				for (int cy = cyMin; cy <= cyMax; cy++) {
+
+					insert(cx, cy, i);
+				}
+			}
+		}
+
+		// pairs that share a cell
+		for (int s = 0; s < numUsedSlots; s++) {
+
+			for (int p = cellHeads[usedSlots[s]]; p != EMPTY; p = entryNext[p]) {
+				for (int q = entryNext[p]; q != EMPTY; q = entryNext[q]) {
+
+					int a = entryEntity[p];
+					int b = entryEntity[q];
+
+					if (overlaps(a, b))
+						pairs.add(a, b);
+				}
+			}
+		}
+
+		// oversized entities against everything else
+		for (int k = 0; k < numOversized; k++) {
+
+			int a = oversized[k];
+
+			for (int b = 0; b < n; b++) {
+
+				if (b != a && overlaps(a, b))
+					pairs.add(a, b);
+			}
+		}
+
+		pairs.sortAndRemoveDuplicates();
+	}
+
+	/**
+	 * Returns the side length of a grid cell.
+	 *
+	 * @return cellSize
+	 */
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Sets the side length of a grid cell.
+	 *
+	 * @param cellSize
+	 */
+	public void setCellSize(float cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Returns how much each bounding box is grown on every side.
+	 *
+	 * @return margin
+	 */
+	public float getMargin() {
+		return margin;
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Returns the grid coordinate that contains the given world coordinate.
+	 */
+	private int cell(float x) {
+		return (int) Math.floor(x / cellSize);
+	}
+
+	/**
+	 * Returns how many cells the i-th entity's bounding box covers.
+	 */
+	private int cellsCovered(int i) {
+
+		long w = (long) cell(maxX[i]) - cell(minX[i]) + 1;
+		long h = (long) cell(maxY[i]) - cell(minY[i]) + 1;
+
+		return (int) Math.min(w * h, Integer.MAX_VALUE / 2);
+	}
+
+	/**
+	 * Checks whether the bounding boxes of the a-th and b-th entities overlap.
+	 */
+	private boolean overlaps(int a, int b) {
+
+		return maxX[a] >= minX[b] && minX[a] <= maxX[b] &&
+				maxY[a] >= minY[b] && minY[a] <= maxY[b];
+	}
+
+	/**
+	 * Empties the hash table by resetting only the slots that were used
+	 * last time.
+	 */
+	private void clearGrid() {
+
+		for (int s = 0; s < numUsedSlots; s++)
+			cellHeads[usedSlots[s]] = EMPTY;
+
+		numUsedSlots = 0;
+		numEntries = 0;
+	}
+
+	/**
+	 * Inserts the i-th entity into the cell (cx, cy).
+	 */
+	private void insert(int cx, int cy, int i) {
+
+		// grow the table if it is more than half full
+		if ((numUsedSlots + 1) * 2 > cellKeys.length)
+			rehash(cellKeys.length * 2);
+
+		long key = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+		int mask = cellKeys.length - 1;
+		int slot = hash(key) & mask;
+
+		// linear probing
+		while (cellHeads[slot] != EMPTY && cellKeys[slot] != key)
+			slot = (slot + 1) & mask;
+
+		if (cellHeads[slot] == EMPTY) {
+			cellKeys[slot] = key;
+			usedSlots[numUsedSlots++] = slot;
+		}
+
+		if (numEntries == entryEntity.length) {
+			entryEntity = Arrays.copyOf(entryEntity, entryEntity.length * 2);
+			entryNext = Arrays.copyOf(entryNext, entryNext.length * 2);
+		}
+
+		entryEntity[numEntries] = i;
+		entryNext[numEntries] = cellHeads[slot];
+		cellHeads[slot] = numEntries;
+		numEntries++;
+	}
+
+	/**
+	 * Moves every used cell into a larger hash table.
+	 */
+	private void rehash(int capacity) {
+
+		long[] oldKeys = cellKeys;
+		int[] oldHeads = cellHeads;
+		int[] oldUsed = usedSlots;
+		int oldNumUsed = numUsedSlots;
+
+		cellKeys = new long[capacity];
+		cellHeads = new int[capacity];
+		Arrays.fill(cellHeads, EMPTY);
+		usedSlots = new int[capacity];
+		numUsedSlots = 0;
+
+		int mask = capacity - 1;
+
+		for (int s = 0; s < oldNumUsed; s++) {
+
+			long key = oldKeys[oldUsed[s]];
+			int slot = hash(key) & mask;
+
+			while (cellHeads[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+
+			cellKeys[slot] = key;
+			cellHeads[slot] = oldHeads[oldUsed[s]];
+			usedSlots[numUsedSlots++] = slot;
+		}
+	}
+
+	/**
+	 * Mixes the bits of a cell key.
+	 */
+	private static int hash(long key) {
+
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+
+	/**
+	 * Makes sure the bounds arrays can hold n entities.
+	 */
+	private void ensureEntityCapacity(int n) {
+
+		if (minX.length < n) {
+
+			int capacity = Math.max(n, minX.length * 2);
+
+			minX = new float[capacity];
+			minY = new float[capacity];
+			maxX = new float[capacity];
+			maxY = new float[capacity];
+		}
+	}
+}
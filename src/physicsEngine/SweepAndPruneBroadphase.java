@@ -0,0 +1,192 @@
+package physicsEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import objects.Entity;
+
+/**
+ * This broadphase keeps the entities sorted by the lower edge of their
+ * bounding boxes along one axis (x by default). Sweeping through the
+ * sorted list, an entity only has to be checked against the entities
+ * that start before it ends.
+ *
+ * The sorted order is kept between steps. Since the entities only move
+ * a little each time step, the list is almost sorted already and an
+ * insertion sort puts it back in order in close to linear time.
+ */
+public class SweepAndPruneBroadphase implements Broadphase {
+
+	// static variables
+	public static final int X_AXIS = 0;
+	public static final int Y_AXIS = 1;
+
+	// instance variables
+	private int axis;
+	private float margin;
+
+	// cached bounds of each entity (including the margin)
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+
+	// entity indices sorted by the lower edge along the sweep axis
+	private int[] order;
+
+	// the entities the sorted order was built for
+	private Entity[] known;
+	private int numKnown;
+
+	/**
+	 * Creates a sweep-and-prune broadphase that sweeps along the x axis.
+	 */
+	public SweepAndPruneBroadphase() {
+		this(X_AXIS, SpatialHashBroadphase.DEFAULT_MARGIN);
+	}
+
+	/**
+	 * Creates a sweep-and-prune broadphase.
+	 *
+	 * @param axis    the axis to sweep along (X_AXIS or Y_AXIS)
+	 * @param margin  how much each bounding box is grown on every side
+	 */
+	public SweepAndPruneBroadphase(int axis, float margin) {
+
+		this.axis = axis;
+		this.margin = margin;
+
+		minX = new float[16];
+		minY = new float[16];
+		maxX = new float[16];
+		maxY = new float[16];
+
+		order = new int[16];
+		known = new Entity[16];
+		numKnown = 0;
+	}
+
+	/**
+	 * Finds the candidate collision pairs between the given entities.
+	 *
+	 * @param entities  the ArrayList containing the entities to check for collision
+	 * @param pairs     where the candidate pairs are stored
+	 */
+	public void findPairs(ArrayList<Entity> entities, CollisionPairs pairs) {
+
+		pairs.clear();
+
+		int n = entities.size();
+
+		// start over if entities were added, removed or replaced
+		if (!isSameEntities(entities))
+			rebuild(entities);
+
+		// store bounds
+		for (int i = 0; i < n; i++) {
+
+			Entity entity = entities.get(i);
+
+			minX[i] = Broadphase.getMinX(entity) - margin;
+			minY[i] = Broadphase.getMinY(entity) - margin;
+			maxX[i] = Broadphase.getMaxX(entity) + margin;
+			maxY[i] = Broadphase.getMaxY(entity) + margin;
+		}
+
+		float[] sweepMin = axis == X_AXIS ? minX : minY;
+		float[] sweepMax = axis == X_AXIS ? maxX : maxY;
+		float[] otherMin = axis == X_AXIS ? minY : minX;
+		float[] otherMax = axis == X_AXIS ? maxY : maxX;
+
+		// insertion sort (the list is nearly sorted from the last step)
+		for (int k = 1; k < n; k++) {
+
+			int i = order[k];
+			float key = sweepMin[i];
+			int m = k - 1;
+
+			while (m >= 0 && sweepMin[order[m]] > key) {
+				order[m + 1] = order[m];
+				m--;
+			}
+
+			order[m + 1] = i;
+		}
+
+		// sweep
+		for (int k = 0; k < n; k++) {
+
+			int a = order[k];
+
+			for (int m = k + 1; m < n && sweepMin[order[m]] <= sweepMax[a]; m++) {
+
+				int b = order[m];
+
+				// check the other axis
+				if (otherMax[a] >= otherMin[b] && otherMin[a] <= otherMax[b])
+					pairs.add(a, b);
+			}
+		}
+
+		pairs.sortAndRemoveDuplicates();
+	}
+
+	/**
+	 * Returns how much each bounding box is grown on every side.
+	 *
+	 * @return margin
+	 */
+	public float getMargin() {
+		return margin;
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Checks whether the given entities are the same entities, in the
+	 * same order, as the last step.
+	 */
+	private boolean isSameEntities(ArrayList<Entity> entities) {
+
+		if (entities.size() != numKnown)
+			return false;
+
+		for (int i = 0; i < numKnown; i++) {
+
+			if (entities.get(i) != known[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Remembers the given entities and resets the sorted order.
+	 */
+	private void rebuild(ArrayList<Entity> entities) {
+
+		int n = entities.size();
+
+		if (order.length < n) {
+
+			int capacity = Math.max(n, order.length * 2);
+
+			minX = new float[capacity];
+			minY = new float[capacity];
+			maxX = new float[capacity];
+			maxY = new float[capacity];
+			order = new int[capacity];
+			known = new Entity[capacity];
+		}
+
+		Arrays.fill(known, null);
+
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+			known[i] = entities.get(i);
+		}
+
+		numKnown = n;
+	}
+}
@@ -0,0 +1,347 @@
+package renderEngine;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps track of the OpenGL state that the program changes
+ * (the bound shader program, VAO, array buffer and textures, the enabled
+ * vertex attributes and capabilities and the blend function), and skips
+ * the calls that would set it to what it already is.
+ *
+ * Every change to this state must go through this class, or it will
+ * no longer match OpenGL. Deleting an object through this class also
+ * forgets it, since OpenGL unbinds deleted objects.
+ *
+ * The number of calls made and avoided is counted; endFrame() stores
+ * the counts of the frame that just ended.
+ */
+public class GLState {
+
+	// static variables
+	private static final int MAX_TEXTURE_UNITS = 16;
+
+	private static int program = 0;
+	private static int vertexArray = 0;
+	private static int arrayBuffer = 0;
+
+	private static int activeTexture = 0;
+	private static int[] textures = new int[MAX_TEXTURE_UNITS];
+
+	// the enabled vertex attributes of each VAO, one bit per attribute
+	private static int[] enabledAttributes = new int[64];
+
+	private static boolean depthTest = false;
+	private static boolean blend = false;
+	private static int blendSource = GL_ONE;
+	private static int blendDestination = GL_ZERO;
+
+	// calls counted this frame and last frame
+	private static int calls = 0;
+	private static int avoided = 0;
+	private static int lastFrameCalls = 0;
+	private static int lastFrameAvoided = 0;
+
+	/**
+	 * Binds a shader program.
+	 *
+	 * @param programID		the shader program, or 0
+	 */
+	public static void useProgram(int programID) {
+
+		if (program == programID) {
+			avoided++;
+			return;
+		}
+
+		glUseProgram(programID);
+		program = programID;
+		calls++;
+	}
+
+	/**
+	 * Binds a VAO.
+	 *
+	 * @param vaoID		the VAO, or 0
+	 */
+	public static void bindVertexArray(int vaoID) {
+
+		if (vertexArray == vaoID) {
+			avoided++;
+			return;
+		}
+
+		glBindVertexArray(vaoID);
+		vertexArray = vaoID;
+		calls++;
+	}
+
+	/**
+	 * Binds a buffer to GL_ARRAY_BUFFER.
+	 *
+	 * @param vboID		the buffer, or 0
+	 */
+	public static void bindArrayBuffer(int vboID) {
+
+		if (arrayBuffer == vboID) {
+			avoided++;
+			return;
+		}
+
+		glBindBuffer(GL_ARRAY_BUFFER, vboID);
+		arrayBuffer = vboID;
+		calls++;
+	}
+
+	/**
+	 * Binds a 2D texture to a texture unit, making that unit active.
+	 *
+	 * @param unit			the texture unit (0 for GL_TEXTURE0)
+	 * @param textureID		the texture, or 0
+	 */
+	public static void bindTexture(int unit, int textureID) {
+
+		if (textures[unit] == textureID) {
+			avoided++;
+			return;
+		}
+
+		activeTexture(unit);
+
+		glBindTexture(GL_TEXTURE_2D, textureID);
+		textures[unit] = textureID;
+		calls++;
+	}
+
+	/**
+	 * Enables a vertex attribute of the bound VAO.
+	 *
+	 * @param index		the attribute
+	 */
+	public static void enableVertexAttribArray(int index) {
+
+		int enabled = getEnabledAttributes();
+
+		if ((enabled & (1 << index)) != 0) {
+			avoided++;
+			return;
+		}
+
+		glEnableVertexAttribArray(index);
+		setEnabledAttributes(enabled | (1 << index));
+		calls++;
+	}
+
+	/**
+	 * Disables a vertex attribute of the bound VAO.
+	 *
+	 * @param index		the attribute
+	 */
+	public static void disableVertexAttribArray(int index) {
+
+		int enabled = getEnabledAttributes();
+
+		if ((enabled & (1 << index)) == 0) {
+			avoided++;
+			return;
+		}
+
+		glDisableVertexAttribArray(index);
+		setEnabledAttributes(enabled & ~(1 << index));
+		calls++;
+	}
+
+	/**
+	 * Checks whether a vertex attribute of the bound VAO is enabled.
+	 *
+	 * @param index		the attribute
+	 * @return true if yes, false otherwise
+	 */
+	public static boolean isVertexAttribArrayEnabled(int index) {
+		return (getEnabledAttributes() & (1 << index)) != 0;
+	}
+
+	/**
+	 * Enables or disables the depth test.
+	 *
+	 * @param enabled
+	 */
+	public static void setDepthTest(boolean enabled) {
+
+		if (depthTest == enabled) {
+			avoided++;
+			return;
+		}
+
+		if (enabled)
+			glEnable(GL_DEPTH_TEST);
+		else
+			glDisable(GL_DEPTH_TEST);
+
+		depthTest = enabled;
+		calls++;
+	}
+
+	/**
+	 * Enables or disables blending, with the given blend function.
+	 *
+	 * @param enabled
+	 * @param source		the source factor
+	 * @param destination	the destination factor
+	 */
+	public static void setBlend(boolean enabled, int source, int destination) {
+
+		if (enabled && (blendSource != source || blendDestination != destination)) {
+
+			glBlendFunc(source, destination);
+			blendSource = source;
+			blendDestination = destination;
+			calls++;
+		}
+		else if (enabled) {
+			avoided++;
+		}
+
+		if (blend == enabled) {
+			avoided++;
+			return;
+		}
+
+		if (enabled)
+			glEnable(GL_BLEND);
+		else
+			glDisable(GL_BLEND);
+
+		blend = enabled;
+		calls++;
+	}
+
+	/**
+	 * Deletes a shader program.
+	 *
+	 * @param programID
+	 */
+	public static void deleteProgram(int programID) {
+
+		glDeleteProgram(programID);
+
+		if (program == programID)
+			program = 0;
+	}
+
+	/**
+	 * Deletes a VAO.
+	 *
+	 * @param vaoID
+	 */
+	public static void deleteVertexArray(int vaoID) {
+
+		glDeleteVertexArrays(vaoID);
+
+		if (vertexArray == vaoID)
+			vertexArray = 0;
+
+		// the name may be reused for a new VAO, with no attributes enabled
+		if (vaoID < enabledAttributes.length)
+			enabledAttributes[vaoID] = 0;
+	}
+
+	/**
+	 * Deletes a buffer.
+	 *
+	 * @param vboID
+	 */
+	public static void deleteBuffer(int vboID) {
+
+		glDeleteBuffers(vboID);
+
+		if (arrayBuffer == vboID)
+			arrayBuffer = 0;
+	}
+
+	/**
+	 * Deletes a texture.
+	 *
+	 * @param textureID
+	 */
+	public static void deleteTexture(int textureID) {
+
+		glDeleteTextures(textureID);
+
+		for (int unit = 0; unit < textures.length; unit++) {
+			if (textures[unit] == textureID)
+				textures[unit] = 0;
+		}
+	}
+
+	/**
+	 * Stores the counts of the frame that just ended and starts
+	 * counting the next frame.
+	 */
+	public static void endFrame() {
+
+		lastFrameCalls = calls;
+		lastFrameAvoided = avoided;
+
+		calls = 0;
+		avoided = 0;
+	}
+
+	/**
+	 * Returns the number of state changes made in the last frame.
+	 *
+	 * @return the number of calls made
+	 */
+	public static int getCalls() {
+		return lastFrameCalls;
+	}
+
+	/**
+	 * Returns the number of redundant state changes skipped in the
+	 * last frame.
+	 *
+	 * @return the number of calls avoided
+	 */
+	public static int getAvoidedCalls() {
+		return lastFrameAvoided;
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Makes a texture unit active.
+	 */
+	private static void activeTexture(int unit) {
+
+		if (activeTexture == unit)
+			return;
+
+		glActiveTexture(GL_TEXTURE0 + unit);
+		activeTexture = unit;
+		calls++;
+	}
+
+	/**
+	 * Returns the enabled attributes of the bound VAO.
+	 */
+	private static int getEnabledAttributes() {
+		return vertexArray < enabledAttributes.length ? enabledAttributes[vertexArray] : 0;
+	}
+
+	/**
+	 * Sets the enabled attributes of the bound VAO.
+	 */
+	private static void setEnabledAttributes(int enabled) {
+
+		if (vertexArray >= enabledAttributes.length)
+			enabledAttributes = Arrays.copyOf(enabledAttributes, Math.max(vertexArray + 1, enabledAttributes.length * 2));
+
+		enabledAttributes[vertexArray] = enabled;
+	}
+}
@@ -1,23 +1,25 @@
 package renderEngine;
 
 import static org.lwjgl.glfw.GLFW.glfwGetWindowSize;
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL13.*;
-import static org.lwjgl.opengl.GL20.*;
-import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.system.MemoryStack.stackPush;
 
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 
+import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
-import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.system.MemoryStack;
 
 import objects.Entity;
+import objects.Model;
+import physicsEngine.PhysicsWorld;
 import shaders.ShaderProgram;
 import widgets.GUIComponent;
 
 /**
- * This class allows objects to be rendered in OpenGL.
+ * This class allows objects to be rendered in OpenGL. Objects are 
+ * collected in a SpriteBatch and drawn together when the frame is 
+ * flushed.
  * 
  * @author Cindy Li
  * @author Larissa Jin
@@ -28,12 +30,25 @@ public class Renderer {
 	// static variables
 	private static final float Z_NEAR = 1f; 	// distance from camera to near plane
 	private static final float Z_FAR = 1000; 	// distance from camera to far plane
+	private static final float MID_DEPTH = -(Z_NEAR + Z_FAR) / 2;
 	
 	// instance variables
 	private Matrix4f projectionMatrix;
 	private ShaderProgram shader;
 	private long window;
 	
+	// the sprites of the current frame
+	private SpriteBatch batch;
+	
+	// the view volume of the projection, to skip objects that are off screen
+	private FrustumIntersection frustum;
+	
+	// objects drawn and culled this frame and last frame
+	private int numDrawn;
+	private int numCulled;
+	private int lastFrameDrawn;
+	private int lastFrameCulled;
+	
 	/**
 	 * Constructor.
 	 * 
@@ -45,6 +60,9 @@ public class Renderer {
 		this.shader = shader;
 		this.window = window;
 		
+		batch = new SpriteBatch();
+		frustum = new FrustumIntersection();
+		
 		createProjectionMatrix();
 		
 		shader.bind();
@@ -54,41 +72,17 @@ public class Renderer {
 	
 	/**
 	 * Takes in an entity and renders it in the OpenGL 
-	 * world.
+	 * world. The entity is drawn when the frame is flushed.
 	 * 
 	 * @param entity
 	 */
 	public void render(Entity entity) {
 		
-		shader.bind();
-			
-		// create transformation matrix
-		Matrix4f worldMatrix = Transformation.getWorldMatrix(
-				entity.getPosition(), 
-				entity.getRotation(), 
-				entity.getScale());
-			
-		shader.loadWorldMatrix(worldMatrix);
-			
-			
-		// bind the entity's model
-		glBindVertexArray(entity.getModel().getVaoID());
-		glEnableVertexAttribArray(0);
-		glEnableVertexAttribArray(1);
-		glEnableVertexAttribArray(2);
-			
-		// render the entity's model
-		glActiveTexture(GL_TEXTURE0);
-		glBindTexture(GL_TEXTURE_2D, entity.getModel().getTextureID());
-		glDrawElements(GL_TRIANGLES, entity.getModel().getVertexCount(), GL_UNSIGNED_INT, 0);
-			
-		// unbind the entity's model
-		glDisableVertexAttribArray(0);
-		glDisableVertexAttribArray(1);
-		glDisableVertexAttribArray(2);
-		glBindVertexArray(0);
+		// the entity's cached transformation matrix
+		Matrix4f worldMatrix = entity.getWorldMatrix();
 		
-		shader.unbind();
+		if (isVisible(entity.getModel(), worldMatrix))
+			batch.add(entity.getModel(), worldMatrix);
 	}
 	
 	/**
@@ -105,39 +99,43 @@ public class Renderer {
 	}
 	
 	/**
-	 * Takes in a GUI component and renders it in the OpenGL 
-	 * world.
+	 * Takes in a snapshot of a physics world and renders its bodies 
+	 * from start to end - 1 in the OpenGL world, between their 
+	 * positions before and after the time step.
 	 * 
-	 * @param guiComponent
+	 * @param snapshot	the snapshot
+	 * @param start		the index of the first body
+	 * @param end		the index after the last body
+	 * @param alpha		how far between the previous (0) and current (1) positions
 	 */
-	public void render(GUIComponent guiComponent) {
+	public void render(PhysicsWorld.Snapshot snapshot, int start, int end, float alpha) {
 		
-		shader.bind();
+		for (int i = start; i < end; i++) {
 			
-		// create transformation matrix
-		Matrix4f worldMatrix = Transformation.getWorldMatrix(
-				guiComponent.getPosition(), 
-				guiComponent.getRotation(), 
-				guiComponent.getScale());
+			Entity entity = snapshot.getBody(i);
 			
-		shader.loadWorldMatrix(worldMatrix);
+			// the entity's cached transformation matrix, at its position in the snapshot
+			Matrix4f worldMatrix = entity.getWorldMatrix(snapshot.getX(i, alpha), snapshot.getY(i, alpha), 
+					snapshot.getZ(i), snapshot.getRotation(i));
 			
-		// bind the GUI component's model
-		glBindVertexArray(guiComponent.getModel().getVaoID());
-		glEnableVertexAttribArray(0);
-		glEnableVertexAttribArray(1);
-		glEnableVertexAttribArray(2);
-			
-		// render the GUI component's model
-		glActiveTexture(GL_TEXTURE0);
-		glBindTexture(GL_TEXTURE_2D, guiComponent.getModel().getTextureID());
-		glDrawElements(GL_TRIANGLES, guiComponent.getModel().getVertexCount(), GL_UNSIGNED_INT, 0);
-			
-		// unbind the GUI component's model
-		glDisableVertexAttribArray(0);
-		glDisableVertexAttribArray(1);
-		glDisableVertexAttribArray(2);
-		glBindVertexArray(0);
+			if (isVisible(entity.getModel(), worldMatrix))
+				batch.add(entity.getModel(), worldMatrix);
+		}
+	}
+	
+	/**
+	 * Takes in a GUI component and renders it in the OpenGL 
+	 * world. The GUI component is drawn when the frame is flushed.
+	 * 
+	 * @param guiComponent
+	 */
+	public void render(GUIComponent guiComponent) {
+		
+		// the GUI component's cached transformation matrix
+		Matrix4f worldMatrix = guiComponent.getWorldMatrix();
+		
+		if (isVisible(guiComponent.getModel(), worldMatrix))
+			batch.add(guiComponent.getModel(), worldMatrix);
 	}
 	
 	/**
@@ -153,20 +151,128 @@ public class Renderer {
 			render(guiComponent);
 	}
 	
+	/**
+	 * Draws everything rendered since the last flush, with one draw 
+	 * call per texture and model at each z-value. Must be called once 
+	 * per frame, before the buffers are swapped.
+	 */
+	public void flush() {
+		
+		// the shader is left bound, so binding it next frame costs nothing
+		shader.bind();
+		batch.flush();
+		
+		lastFrameDrawn = numDrawn;
+		lastFrameCulled = numCulled;
+		numDrawn = 0;
+		numCulled = 0;
+	}
+	
+	/**
+	 * Returns the number of objects drawn by the last flush.
+	 * 
+	 * @return the number of objects drawn
+	 */
+	public int getNumDrawn() {
+		return lastFrameDrawn;
+	}
+	
+	/**
+	 * Returns the number of objects skipped in the last frame because 
+	 * they were off screen.
+	 * 
+	 * @return the number of objects culled
+	 */
+	public int getNumCulled() {
+		return lastFrameCulled;
+	}
+	
+	/**
+	 * Returns the number of draw calls made by the last flush.
+	 * 
+	 * @return the number of draw calls
+	 */
+	public int getDrawCalls() {
+		return batch.getDrawCalls();
+	}
+	
+	/**
+	 * Deletes the renderer's buffers.
+	 */
+	public void cleanUp() {
+		batch.cleanUp();
+	}
+	
 	/**
 	 * Creates a projetion matrix. A projection matrix controls the 
 	 * view through which the OpenGL world is displayed to the screen.
 	 */
 	public void createProjectionMatrix() {
 		
+		int width;
+		int height;
+		
 		// get width and height of window
-		IntBuffer w = MemoryUtil.memAllocInt(1);
-		IntBuffer h = MemoryUtil.memAllocInt(1);
-		glfwGetWindowSize(window, w, h);
-		int width = w.get(0);
-		int height = h.get(0);
+		try (MemoryStack stack = stackPush()) {
+			
+			IntBuffer w = stack.mallocInt(1);
+			IntBuffer h = stack.mallocInt(1);
+			glfwGetWindowSize(window, w, h);
+			width = w.get(0);
+			height = h.get(0);
+		}
 		
 		// create projection matrix
 		projectionMatrix = new Matrix4f().ortho(-width / 2, width / 2, -height / 2, height / 2, Z_NEAR, Z_FAR);
+		
+		// there is no view matrix, so world coordinates are tested against the projection
+		frustum.set(projectionMatrix);
+	}
+	
+	
+	// ********** PRIVATE HELPER METHODS **********
+	
+	/**
+	 * Checks whether a model with the given world matrix may be seen, 
+	 * and counts it as drawn or culled. Models without bounds are 
+	 * always drawn.
+	 * 
+	 * @param model			the model
+	 * @param worldMatrix	its world matrix
+	 * @return true if it may be seen, false otherwise
+	 */
+	private boolean isVisible(Model model, Matrix4f worldMatrix) {
+		
+		if (!model.hasBounds()) {
+			numDrawn++;
+			return true;
+		}
+		
+		Matrix4f m = worldMatrix;
+		
+		// the centre and half-size of the model's box
+		float cx = (model.getMinX() + model.getMaxX()) * 0.5f;
+		float cy = (model.getMinY() + model.getMaxY()) * 0.5f;
+		float cz = (model.getMinZ() + model.getMaxZ()) * 0.5f;
+		float ex = (model.getMaxX() - model.getMinX()) * 0.5f;
+		float ey = (model.getMaxY() - model.getMinY()) * 0.5f;
+		float ez = (model.getMaxZ() - model.getMinZ()) * 0.5f;
+		
+		// the box around the transformed box, in world coordinates
+		float x = m.m00 * cx + m.m10 * cy + m.m20 * cz + m.m30;
+		float y = m.m01 * cx + m.m11 * cy + m.m21 * cz + m.m31;
+		float rx = Math.abs(m.m00) * ex + Math.abs(m.m10) * ey + Math.abs(m.m20) * ez;
+		float ry = Math.abs(m.m01) * ex + Math.abs(m.m11) * ey + Math.abs(m.m21) * ez;
+		
+		// only x and y are tested (at a depth halfway between the near and far 
+		// planes): most objects are right at the near plane, where a rounding 
+		// error could cull them, and depth is clipped by OpenGL anyway
+		if (frustum.testAab(x - rx, y - ry, MID_DEPTH, x + rx, y + ry, MID_DEPTH)) {
+			numDrawn++;
+			return true;
+		}
+		
+		numCulled++;
+		return false;
 	}
 }
@@ -0,0 +1,394 @@
+package renderEngine;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL33.*;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import org.joml.Matrix4f;
+import org.lwjgl.system.MemoryUtil;
+
+import objects.Model;
+
+/**
+ * This class collects the sprites drawn in a frame and draws them with
+ * as few draw calls as possible. The sprites are sorted by texture (and
+ * model), and each group of sprites sharing a texture and a model is drawn
+ * with one instanced draw call. The world matrix of each sprite is streamed
+ * to the GPU in an instance VBO, once per frame, together with the part
+ * of the texture it shows (so that sprites packed in a TextureAtlas share
+ * one texture, and one draw call).
+ *
+ * Most sprites are drawn at the same z-value, where the depth test lets
+ * the sprite that was drawn first win. Since sorting changes the order in
+ * which the sprites are drawn, the sprites are first split into planes of
+ * the same z-value, which are drawn back to front with the depth buffer
+ * cleared in between. Within a plane, every sprite is given its position
+ * among the plane's sprites (its layer), and the vertex shader pushes it
+ * back by one depth buffer step per layer. The sprite that was added first
+ * is therefore still the one that is seen, whatever order the draw calls
+ * are made in, and sprites at different z-values cover each other by
+ * their z-values alone, however many sprites are drawn.
+ */
+public class SpriteBatch {
+
+	// static variables
+
+	// per instance: the world matrix (4 columns), the layer and the texture region
+	private static final int INSTANCE_FLOATS = 21;
+	private static final int INSTANCE_BYTES = INSTANCE_FLOATS * 4;
+
+	// attribute locations (see ShaderProgram.bindAllAttributes())
+	public static final int WORLD_MATRIX_ATTRIBUTE = 3;
+	public static final int LAYER_ATTRIBUTE = 7;
+	public static final int TEXTURE_REGION_ATTRIBUTE = 8;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	// the sort key is the texture, the VAO and the sprite, in that order
+	// (the planes are sorted by z-value and sprite first)
+	private static final int LAYER_BITS = 21;
+	private static final int VAO_BITS = 21;
+	private static final long LAYER_MASK = (1L << LAYER_BITS) - 1;
+	private static final long VAO_MASK = (1L << VAO_BITS) - 1;
+	private static final long TEXTURE_MASK = (1L << (64 - VAO_BITS - LAYER_BITS)) - 1;
+
+	public static final int MAX_SPRITES = 1 << LAYER_BITS;
+
+	// instance variables
+	private int vboID;
+	private int capacity;
+
+	// the sprites, in the order they were added
+	private Model[] models;
+	private float[] instances;
+	private int numSprites;
+
+	// sort keys of the sprites, by plane and within each plane
+	private long[] planeKeys;
+	private long[] keys;
+
+	// the end of each plane in the drawing order
+	private int[] planeEnds;
+	private int numPlanes;
+
+	// instance data in drawing order, streamed to the VBO
+	private FloatBuffer buffer;
+
+	// draw calls made by the last flush
+	private int drawCalls;
+
+	/**
+	 * Constructor. Creates the instance VBO.
+	 */
+	public SpriteBatch() {
+
+		vboID = glGenBuffers();
+
+		capacity = INITIAL_CAPACITY;
+		models = new Model[capacity];
+		instances = new float[capacity * INSTANCE_FLOATS];
+		planeKeys = new long[capacity];
+		keys = new long[capacity];
+		planeEnds = new int[16];
+		buffer = MemoryUtil.memAllocFloat(capacity * INSTANCE_FLOATS);
+
+		numSprites = 0;
+		drawCalls = 0;
+	}
+
+	/**
+	 * Adds a sprite to the batch. The world matrix is copied, so it can
+	 * be changed as soon as this returns.
+	 *
+	 * @param model			the sprite's model
+	 * @param worldMatrix	the sprite's world matrix
+	 */
+	public void add(Model model, Matrix4f worldMatrix) {
+
+		if (numSprites == MAX_SPRITES)
+			throw new IllegalStateException("Too many sprites in one frame: " + MAX_SPRITES);
+
+		if (numSprites == capacity)
+			grow();
+
+		int offset = numSprites * INSTANCE_FLOATS;
+
+		worldMatrix.get(instances, offset);
+		
+		// a model sharing the unit quad's VAO is scaled to its size and moved to its depth
+		if (model.isUnitQuad())
+			applyQuad(offset, model.getQuadWidth(), model.getQuadHeight(), model.getQuadZ());
+		
+		// the part of the texture to show (all of it, unless the texture is an atlas)
+		instances[offset + 17] = model.getTextureU();
+		instances[offset + 18] = model.getTextureV();
+		instances[offset + 19] = model.getTextureWidth();
+		instances[offset + 20] = model.getTextureHeight();
+
+		models[numSprites] = model;
+
+		// back to front, then in the order the sprites were added
+		planeKeys[numSprites] = (toSortable(getZ(model, offset)) << LAYER_BITS) | numSprites;
+
+		numSprites++;
+	}
+
+	/**
+	 * Draws every sprite added since the last flush and empties the batch.
+	 * The shader must be bound.
+	 */
+	public void flush() {
+
+		drawCalls = 0;
+
+		if (numSprites == 0)
+			return;
+
+		sort();
+
+		// write the instances in drawing order
+		buffer.clear();
+
+		for (int i = 0; i < numSprites; i++) {
+			int sprite = (int) (keys[i] & LAYER_MASK);
+			buffer.put(instances, sprite * INSTANCE_FLOATS, INSTANCE_FLOATS);
+		}
+
+		buffer.flip();
+
+		// orphan the last frame's data, so the driver does not have to wait for it
+		GLState.bindArrayBuffer(vboID);
+		glBufferData(GL_ARRAY_BUFFER, (long) capacity * INSTANCE_BYTES, GL_STREAM_DRAW);
+		glBufferSubData(GL_ARRAY_BUFFER, 0, buffer);
+
+		// draw each run of sprites with the same texture and model, plane by plane
+		int start = 0;
+
+		for (int plane = 0; plane < numPlanes; plane++) {
+
+			// the sprites of the planes behind can't hide this plane's sprites
+			if (plane > 0)
+				glClear(GL_DEPTH_BUFFER_BIT);
+
+			while (start < planeEnds[plane]) {
+
+				long group = keys[start] >>> LAYER_BITS;
+				int end = start + 1;
+
+				while (end < planeEnds[plane] && (keys[end] >>> LAYER_BITS) == group)
+					end++;
+
+				Model model = models[(int) (keys[start] & LAYER_MASK)];
+
+				draw(model, start, end - start);
+
+				start = end;
+			}
+		}
+
+		// don't keep the models alive until the next frame
+		Arrays.fill(models, 0, numSprites, null);
+		numSprites = 0;
+	}
+
+	/**
+	 * Returns the number of draw calls made by the last flush.
+	 *
+	 * @return drawCalls
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * Returns the number of sprites waiting to be drawn.
+	 *
+	 * @return numSprites
+	 */
+	public int getNumSprites() {
+		return numSprites;
+	}
+
+	/**
+	 * Deletes the instance VBO.
+	 */
+	public void cleanUp() {
+
+		GLState.deleteBuffer(vboID);
+		MemoryUtil.memFree(buffer);
+	}
+
+
+	// ********** PRIVATE HELPER METHODS **********
+
+	/**
+	 * Sorts the sprites into drawing order: the planes back to front,
+	 * and the sprites of each plane by texture and model. Sets the layer
+	 * of each sprite to its position among its plane's sprites.
+	 */
+	private void sort() {
+
+		Arrays.sort(planeKeys, 0, numSprites);
+
+		numPlanes = 0;
+
+		int start = 0;
+
+		while (start < numSprites) {
+
+			long z = planeKeys[start] >>> LAYER_BITS;
+			int end = start;
+
+			for (; end < numSprites && (planeKeys[end] >>> LAYER_BITS) == z; end++) {
+
+				int sprite = (int) (planeKeys[end] & LAYER_MASK);
+				Model model = models[sprite];
+
+				instances[sprite * INSTANCE_FLOATS + 16] = end - start;
+
+				keys[end] = ((model.getTextureID() & TEXTURE_MASK) << (VAO_BITS + LAYER_BITS)) |
+						((model.getVaoID() & VAO_MASK) << LAYER_BITS) |
+						sprite;
+			}
+
+			Arrays.sort(keys, start, end);
+
+			if (numPlanes == planeEnds.length)
+				planeEnds = Arrays.copyOf(planeEnds, numPlanes * 2);
+
+			planeEnds[numPlanes++] = end;
+
+			start = end;
+		}
+	}
+
+	/**
+	 * Returns the z-value of a sprite's vertices (sprites are flat, and
+	 * only rotate about the z-axis).
+	 *
+	 * @param offset	the instance's first float
+	 */
+	private float getZ(Model model, int offset) {
+
+		// a unit quad's z-value is already in its world matrix
+		float z = model.isUnitQuad() || !model.hasBounds() ? 0f : model.getMinZ();
+
+		return instances[offset + 14] + z * instances[offset + 10];
+	}
+
+	/**
+	 * Returns a z-value as a number that sorts the same way (from the 
+	 * back to the front), and fits in 32 bits.
+	 */
+	private static long toSortable(float z) {
+
+		// -0 is the same plane as 0
+		int bits = Float.floatToIntBits(z + 0f);
+
+		if (bits < 0)
+			bits ^= Integer.MAX_VALUE;
+
+		return (long) bits - Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Draws a run of instances that share a model.
+	 *
+	 * @param model		the model
+	 * @param first		the first instance in the VBO
+	 * @param count		the number of instances
+	 */
+	private void draw(Model model, int first, int count) {
+
+		GLState.bindVertexArray(model.getVaoID());
+
+		// a new VAO (or a deleted VAO's name reused) has no attributes enabled
+		if (!GLState.isVertexAttribArrayEnabled(TEXTURE_REGION_ATTRIBUTE))
+			prepare();
+
+		// point the instance attributes at this run's instances
+		setInstanceAttributes((long) first * INSTANCE_BYTES);
+
+		GLState.bindTexture(0, model.getTextureID());
+		glDrawElementsInstanced(GL_TRIANGLES, model.getVertexCount(), GL_UNSIGNED_INT, 0, count);
+
+		drawCalls++;
+	}
+
+	/**
+	 * Enables the model and instance attributes of the bound VAO. This
+	 * only has to be done once per VAO, since the VAO remembers it.
+	 */
+	private void prepare() {
+
+		GLState.enableVertexAttribArray(0);
+		GLState.enableVertexAttribArray(1);
+
+		for (int i = 0; i < 4; i++) {
+			GLState.enableVertexAttribArray(WORLD_MATRIX_ATTRIBUTE + i);
+			glVertexAttribDivisor(WORLD_MATRIX_ATTRIBUTE + i, 1);
+		}
+
+		GLState.enableVertexAttribArray(LAYER_ATTRIBUTE);
+		glVertexAttribDivisor(LAYER_ATTRIBUTE, 1);
+
+		GLState.enableVertexAttribArray(TEXTURE_REGION_ATTRIBUTE);
+		glVertexAttribDivisor(TEXTURE_REGION_ATTRIBUTE, 1);
+	}
+
+	/**
+	 * Points the instance attributes of the bound VAO at the VBO,
+	 * starting at the given byte offset.
+	 */
+	private void setInstanceAttributes(long offset) {
+
+		GLState.bindArrayBuffer(vboID);
+
+		for (int i = 0; i < 4; i++)
+			glVertexAttribPointer(WORLD_MATRIX_ATTRIBUTE + i, 4, GL_FLOAT, false, INSTANCE_BYTES, offset + i * 16);
+
+		glVertexAttribPointer(LAYER_ATTRIBUTE, 1, GL_FLOAT, false, INSTANCE_BYTES, offset + 64);
+		glVertexAttribPointer(TEXTURE_REGION_ATTRIBUTE, 4, GL_FLOAT, false, INSTANCE_BYTES, offset + 68);
+	}
+
+	/**
+	 * Multiplies the world matrix of an instance by the translation to z 
+	 * and the scaling by (width, height, 1), so that the unit quad's 
+	 * vertex (x, y, 0) ends up where (x * width, y * height, z) would.
+	 * 
+	 * @param offset	the instance's first float
+	 */
+	private void applyQuad(int offset, float width, float height, float z) {
+		
+		for (int i = 0; i < 4; i++) {
+			
+			// the last column gains z times the third column
+			instances[offset + 12 + i] += z * instances[offset + 8 + i];
+			
+			instances[offset + i] *= width;
+			instances[offset + 4 + i] *= height;
+		}
+	}
+	
+	/**
+	 * Doubles the number of sprites the batch can hold.
+	 */
+	private void grow() {
+
+		capacity *= 2;
+
+		models = Arrays.copyOf(models, capacity);
+		instances = Arrays.copyOf(instances, capacity * INSTANCE_FLOATS);
+		planeKeys = Arrays.copyOf(planeKeys, capacity);
+		keys = Arrays.copyOf(keys, capacity);
+
+		MemoryUtil.memFree(buffer);
+		buffer = MemoryUtil.memAllocFloat(capacity * INSTANCE_FLOATS);
+	}
+}
@@ -22,8 +22,20 @@ public class Transformation {
 	 * @return worldMatrix  the world matrix
 	 */
 	public static Matrix4f getWorldMatrix(Vector3f offset, Vector3f rotation, float scale) {
-		
-		Matrix4f worldMatrix = new Matrix4f();
+		return getWorldMatrix(offset, rotation, scale, new Matrix4f());
+	}
+	
+	/**
+	 * Creates a world matrix based on the given parameters, and stores 
+	 * it in an existing matrix (so that no matrix is created).
+	 * 
+	 * @param offset  		the offset from the origin of the OpenGL coordinate system
+	 * @param rotation  	the rotation to be applied to the model
+	 * @param scale  		the model's scale
+	 * @param worldMatrix	the matrix to store the world matrix in
+	 * @return worldMatrix  the world matrix
+	 */
+	public static Matrix4f getWorldMatrix(Vector3f offset, Vector3f rotation, float scale, Matrix4f worldMatrix) {
 		
 		worldMatrix.identity().translate(offset).
 			rotateX((float) Math.toRadians(rotation.x)).
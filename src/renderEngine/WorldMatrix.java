@@ -0,0 +1,106 @@
+package renderEngine;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+/**
+ * This class caches the world matrix of an object, so that it is only
+ * recomputed when the object's position, rotation or scale change.
+ *
+ * Objects' positions and rotations are often changed in place (e.g.
+ * getPosition().x += dx), so the cache can't rely on setters being
+ * called. Instead, it is dirty whenever the values differ from the
+ * ones the matrix was computed from, or when markDirty() was called.
+ */
+public class WorldMatrix {
+
+	// instance variables
+	private Matrix4f matrix;
+	private boolean dirty;
+
+	// the values the matrix was computed from
+	private float x;
+	private float y;
+	private float z;
+	private float rotationX;
+	private float rotationY;
+	private float rotationZ;
+	private float scale;
+
+	// the transformation, for Transformation.getWorldMatrix()
+	private Vector3f offset;
+	private Vector3f rotation;
+
+	/**
+	 * Constructor.
+	 */
+	public WorldMatrix() {
+
+		matrix = new Matrix4f();
+		dirty = true;
+
+		offset = new Vector3f();
+		rotation = new Vector3f();
+	}
+
+	/**
+	 * Returns the world matrix for the given transformation,
+	 * recomputing it only if the transformation changed.
+	 *
+	 * @param position		the object's position
+	 * @param rotation		the object's rotation, in degrees
+	 * @param scale			the object's scale
+	 * @return the world matrix (do not change it)
+	 */
+	public Matrix4f get(Vector3f position, Vector3f rotation, float scale) {
+		return get(position.x, position.y, position.z, rotation.x, rotation.y, rotation.z, scale);
+	}
+
+	/**
+	 * Returns the world matrix for the given transformation,
+	 * recomputing it only if the transformation changed.
+	 *
+	 * @param x				the x coordinate of the object's position
+	 * @param y				the y coordinate of the object's position
+	 * @param z				the z coordinate of the object's position
+	 * @param rotationX		the object's rotation about the x axis, in degrees
+	 * @param rotationY		the object's rotation about the y axis, in degrees
+	 * @param rotationZ		the object's rotation about the z axis, in degrees
+	 * @param scale			the object's scale
+	 * @return the world matrix (do not change it)
+	 */
+	public Matrix4f get(float x, float y, float z, float rotationX, float rotationY, float rotationZ,
+			float scale) {
+
+		if (dirty || x != this.x || y != this.y || z != this.z ||
+				rotationX != this.rotationX || rotationY != this.rotationY || rotationZ != this.rotationZ ||
+				scale != this.scale) {
+
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.rotationX = rotationX;
+			this.rotationY = rotationY;
+			this.rotationZ = rotationZ;
+			this.scale = scale;
+
+			// most objects are not rotated: a translation and a scale
+			if (rotationX == 0 && rotationY == 0 && rotationZ == 0)
+				matrix.scaling(scale).setTranslation(x, y, z);
+			else
+				Transformation.getWorldMatrix(offset.set(x, y, z), 
+						rotation.set(rotationX, rotationY, rotationZ), scale, matrix);
+
+			dirty = false;
+		}
+
+		return matrix;
+	}
+
+	/**
+	 * Forces the matrix to be recomputed the next time it is needed.
+	 */
+	public void markDirty() {
+		dirty = true;
+	}
+}
@@ -3,6 +3,7 @@ package screens;
 import static org.lwjgl.glfw.GLFW.*;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 
@@ -11,7 +12,9 @@ import javax.swing.JOptionPane;
 import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
 
-import io.IO;
+import io.Scene;
+import io.SceneCache;
+import io.SceneWriter;
 import main.Main;
 import objects.Cannon;
 import objects.Circle;
@@ -72,11 +75,18 @@ public class CustomizedScreen {
 	
 	private int currentSim;
 	
+	// the scenes of the simulations, so that switching and resetting don't read the files
+	private SceneCache scenes;
+	
 	private long window;
 	private float screenWidth;
 	private float screenHeight;
 	
 	// static variables
+	
+	// the owner of the pop-up box's models and textures (see Loader.beginOwner())
+	private static final String POP_UP_BOX_OWNER = "customized screen pop-up box";
+	
 	public static final String SAVE_BUTTON_TEXTURE_FILE = "./res/Save.png";
 	public static final String DELETE_BUTTON_TEXTURE_FILE = "./res/Delete.png";
 	public static final String SELECT_A_SIM_LABEL_TEXTURE_FILE = "./res/selectASimulationLabel.png";
@@ -91,13 +101,19 @@ public class CustomizedScreen {
 	 * @param screenHeight		the height of the screen
 	 * @param z					the z-value of the components of the screen
 	 * @param files				the data files that contain data for each custom simulation
+	 * @param scenes			the cache of the simulations' scenes
 	 */
 	public CustomizedScreen(long window, Loader loader, float screenWidth, float screenHeight, float z, 
-			String[] files) {
+			String[] files, SceneCache scenes) {
+		
+		this.scenes = scenes;
 					
 		// simulation window
 		simulation = new SimulationWindow(window, loader, screenWidth, screenHeight, z);
 		
+		// the simulation is updated on the physics thread (see Main.loop())
+		simulation.setQueueEdits(true);
+		
 		// toolbar
 		toolbar = new Toolbar(loader, z);
 		
@@ -232,10 +248,10 @@ public class CustomizedScreen {
 				x = ((Circle) selectedEntity).getRadius();
 			}
 			
-			float offsetX = selectedEntity.getPosition().x - 
+			float offsetX = selectedEntity.getX() - 
 					(popUpBox.getPosition().x + popUpBox.getWidth()/2 + x + 5f);
 			
-			float offsetY = selectedEntity.getPosition().y - 
+			float offsetY = selectedEntity.getY() - 
 					(popUpBox.getPosition().y - 20f);
 			
 			popUpBox.update(offsetX, offsetY);
@@ -250,6 +266,10 @@ public class CustomizedScreen {
 		
 		if (!simulation.isPaused())
 			simulation.update(true);
+		
+		// make the changes posted while paused
+		else
+			simulation.applyEdits();
 	}
 	
 	/**
@@ -311,6 +331,7 @@ public class CustomizedScreen {
 				// close button
 				if (popUpBox.getCloseButton().getAabb().intersects(x, y)) {
 					
+					loader.releaseOwner(POP_UP_BOX_OWNER);
 					popUpBox = null;
 					selectedEntity = null;
 					program = 0;
@@ -320,15 +341,10 @@ public class CustomizedScreen {
 				// delete entity button
 				else if (popUpBox.getDeleteEntityButton().getAabb().intersects(x, y)) {
 					
-					// find and remove entity from array list
-					for (int i = 0; i < simulation.getEntities().size(); i++) {
-						
-						if (selectedEntity.equals(simulation.getEntities().get(i))) {
-							simulation.getEntities().remove(i);
-							break;
-						}
-					}
+					// remove entity (and wake up the entities resting on it)
+					simulation.removeEntity(selectedEntity);
 					
+					loader.releaseOwner(POP_UP_BOX_OWNER);
 					popUpBox = null;
 					selectedEntity = null;
 					program = 0;
@@ -339,41 +355,18 @@ public class CustomizedScreen {
 				else if (popUpBox.getIncreaseSizeButton().getAabb().intersects(x, y)) {
 					
 					// increase entity's scale
-					selectedEntity.setScale(selectedEntity.getScale() + 5f);
+					float size = selectedEntity.getScale() + 5f;
 					
-					if (selectedEntity.getScale() > 95f) {
+					if (size > 95f) {
 						
-						selectedEntity.setScale(100f);
+						size = 100f;
 						popUpBox.setIncreaseSizeButtonState(false);
 					}
 					else {
 						popUpBox.setDecreaseSizeButtonState(true);
 					}
 					
-					float size = 1f;
-					
-					// rectangle
-					if (selectedEntity instanceof Rectangle) {
-						
-						Rectangle r = (Rectangle) selectedEntity;
-						
-						r.setWidth(r.getScale());
-						r.setHeight(r.getScale());
-						
-						r.updateAABB();
-						
-						size = r.getWidth();
-					}
-					
-					// circle
-					else if (selectedEntity instanceof Circle) {
-						
-						Circle c = (Circle) selectedEntity;
-						
-						c.setRadius(c.getScale()/2);
-						
-						size = c.getRadius() * 2;
-					}
+					simulation.resizeEntity(selectedEntity, size);
 					
 					// update text
 					popUpBox.updateSizeText(size);
@@ -383,41 +376,18 @@ public class CustomizedScreen {
 				else if (popUpBox.getDecreaseSizeButton().getAabb().intersects(x, y)) {
 					
 					// decrease entity's scale
-					selectedEntity.setScale(selectedEntity.getScale() - 5f);
+					float size = selectedEntity.getScale() - 5f;
 					
-					if (selectedEntity.getScale() < 35f) {
+					if (size < 35f) {
 						
-						selectedEntity.setScale(30f);
+						size = 30f;
 						popUpBox.setDecreaseSizeButtonState(false);
 					}
 					else {
 						popUpBox.setIncreaseSizeButtonState(true);
 					}
 					
-					float size = 1f;
-					
-					// rectangle
-					if (selectedEntity instanceof Rectangle) {
-						
-						Rectangle r = (Rectangle) selectedEntity;
-						
-						r.setWidth(r.getScale());
-						r.setHeight(r.getScale());
-						
-						r.updateAABB();
-						
-						size = r.getWidth();
-					}
-					
-					// circle
-					else if (selectedEntity instanceof Circle) {
-						
-						Circle c = (Circle) selectedEntity;
-						
-						c.setRadius(c.getScale()/2);
-						
-						size = c.getRadius() * 2;
-					}
+					simulation.resizeEntity(selectedEntity, size);
 					
 					// update text
 					popUpBox.updateSizeText(size);
@@ -430,38 +400,42 @@ public class CustomizedScreen {
 					if (selectedEntity instanceof Cannon) {
 						
 						// increase cannon's stored horizontal velocity
-						selectedEntity.getStoredVelocity().x += 5f;
+						float vx = selectedEntity.getStoredVelocity().x + 5f;
 						
-						if (selectedEntity.getStoredVelocity().x > 995f) {
+						if (vx > 995f) {
 							
-							selectedEntity.getStoredVelocity().x = 999.9f;
+							vx = 999.9f;
 							popUpBox.setIncreaseVelocityXButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseVelocityXButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityX(selectedEntity, vx);
+						
 						// update text
-						popUpBox.updateVelocityXText(selectedEntity.getStoredVelocity().x);
+						popUpBox.updateVelocityXText(vx);
 					}
 					
 					// not cannon
 					else {
 						
 						// increase entity's horizontal velocity
-						selectedEntity.getVelocity().x += 5f;
+						float vx = selectedEntity.getVelocityX() + 5f;
 						
-						if (selectedEntity.getVelocity().x > 995f) {
+						if (vx > 995f) {
 							
-							selectedEntity.getVelocity().x = 999.9f;
+							vx = 999.9f;
 							popUpBox.setIncreaseVelocityXButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseVelocityXButtonState(true);
 						}
 						
+						simulation.setEntityVelocityX(selectedEntity, vx);
+						
 						// update text
-						popUpBox.updateVelocityXText(selectedEntity.getVelocity().x);
+						popUpBox.updateVelocityXText(vx);
 					}
 				}
 				
@@ -472,38 +446,42 @@ public class CustomizedScreen {
 					if (selectedEntity instanceof Cannon) {
 						
 						// decrease cannon's stored horizontal velocity
-						selectedEntity.getStoredVelocity().x -= 5f;
+						float vx = selectedEntity.getStoredVelocity().x - 5f;
 						
-						if (selectedEntity.getStoredVelocity().x < -995) {
+						if (vx < -995) {
 							
-							selectedEntity.getStoredVelocity().x = -999.9f;
+							vx = -999.9f;
 							popUpBox.setDecreaseVelocityXButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseVelocityXButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityX(selectedEntity, vx);
+						
 						// update text
-						popUpBox.updateVelocityXText(selectedEntity.getStoredVelocity().x);
+						popUpBox.updateVelocityXText(vx);
 					}
 					
 					// not cannon
 					else {
 						
 						// decrease entity's horizontal velocity
-						selectedEntity.getVelocity().x -= 5f;
+						float vx = selectedEntity.getVelocityX() - 5f;
 						
-						if (selectedEntity.getVelocity().x < -995) {
+						if (vx < -995) {
 							
-							selectedEntity.getVelocity().x = -999.9f;
+							vx = -999.9f;
 							popUpBox.setDecreaseVelocityXButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseVelocityXButtonState(true);
 						}
 						
+						simulation.setEntityVelocityX(selectedEntity, vx);
+						
 						// update text
-						popUpBox.updateVelocityXText(selectedEntity.getVelocity().x);
+						popUpBox.updateVelocityXText(vx);
 					}
 				}
 				
@@ -514,38 +492,42 @@ public class CustomizedScreen {
 					if (selectedEntity instanceof Cannon) {
 						
 						// increase cannon's stored vertical velocity
-						selectedEntity.getStoredVelocity().y += 5f;
+						float vy = selectedEntity.getStoredVelocity().y + 5f;
 						
-						if (selectedEntity.getStoredVelocity().y > 995f) {
+						if (vy > 995f) {
 							
-							selectedEntity.getStoredVelocity().y = 999.9f;
+							vy = 999.9f;
 							popUpBox.setIncreaseVelocityYButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseVelocityYButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityY(selectedEntity, vy);
+						
 						// update text
-						popUpBox.updateVelocityYText(selectedEntity.getStoredVelocity().y);
+						popUpBox.updateVelocityYText(vy);
 					}
 					
 					// not cannon
 					else {
 						
 						// increase entity's vertical velocity
-						selectedEntity.getVelocity().y += 5f;
+						float vy = selectedEntity.getVelocityY() + 5f;
 						
-						if (selectedEntity.getVelocity().y > 995f) {
+						if (vy > 995f) {
 							
-							selectedEntity.getVelocity().y = 999.9f;
+							vy = 999.9f;
 							popUpBox.setIncreaseVelocityYButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseVelocityYButtonState(true);
 						}
 						
+						simulation.setEntityVelocityY(selectedEntity, vy);
+						
 						// update text
-						popUpBox.updateVelocityYText(selectedEntity.getVelocity().y);
+						popUpBox.updateVelocityYText(vy);
 					}
 				}
 				
@@ -556,38 +538,42 @@ public class CustomizedScreen {
 					if (selectedEntity instanceof Cannon) {
 						
 						// decrease cannon's stored vertical velocity
-						selectedEntity.getStoredVelocity().y -= 5f;
+						float vy = selectedEntity.getStoredVelocity().y - 5f;
 						
-						if (selectedEntity.getStoredVelocity().y < -995) {
+						if (vy < -995) {
 							
-							selectedEntity.getStoredVelocity().y = -999.9f;
+							vy = -999.9f;
 							popUpBox.setDecreaseVelocityYButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseVelocityYButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityY(selectedEntity, vy);
+						
 						// update text
-						popUpBox.updateVelocityYText(selectedEntity.getStoredVelocity().y);
+						popUpBox.updateVelocityYText(vy);
 					}
 					
 					// not cannon
 					else {
 						
 						// decrease entity's vertical velocity
-						selectedEntity.getVelocity().y -= 5f;
+						float vy = selectedEntity.getVelocityY() - 5f;
 						
-						if (selectedEntity.getVelocity().y < -995) {
+						if (vy < -995) {
 							
-							selectedEntity.getVelocity().y = -999.9f;
+							vy = -999.9f;
 							popUpBox.setDecreaseVelocityYButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseVelocityYButtonState(true);
 						}
 						
+						simulation.setEntityVelocityY(selectedEntity, vy);
+						
 						// update text
-						popUpBox.updateVelocityYText(selectedEntity.getVelocity().y);
+						popUpBox.updateVelocityYText(vy);
 					}
 				}
 				
@@ -595,38 +581,42 @@ public class CustomizedScreen {
 				else if (popUpBox.getIncreaseMassButton().getAabb().intersects(x, y)) {
 					
 					// increase entity's mass
-					selectedEntity.setMass(selectedEntity.getMass() + 1f);
+					float mass = selectedEntity.getMass() + 1f;
 					
-					if (selectedEntity.getMass() > 99f) {
+					if (mass > 99f) {
 						
-						selectedEntity.setMass(100f);
+						mass = 100f;
 						popUpBox.setIncreaseMassButtonState(false);
 					}
 					else {
 						popUpBox.setDecreaseMassButtonState(true);
 					}
 					
+					simulation.setEntityMass(selectedEntity, mass);
+					
 					// update text
-					popUpBox.updateMassText(selectedEntity.getMass());
+					popUpBox.updateMassText(mass);
 				}
 				
 				// decrease mass button
 				else if (popUpBox.getDecreaseMassButton().getAabb().intersects(x, y)) {
 					
 					// decrease entity's mass
-					selectedEntity.setMass(selectedEntity.getMass() - 1f);
+					float mass = selectedEntity.getMass() - 1f;
 					
-					if (selectedEntity.getMass() < 2f) {
+					if (mass < 2f) {
 						
-						selectedEntity.setMass(1f);
+						mass = 1f;
 						popUpBox.setDecreaseMassButtonState(false);
 					}
 					else {
 						popUpBox.setIncreaseMassButtonState(true);
 					}
 					
+					simulation.setEntityMass(selectedEntity, mass);
+					
 					// update text
-					popUpBox.updateMassText(selectedEntity.getMass());
+					popUpBox.updateMassText(mass);
 				}
 			}
 			
@@ -786,25 +776,16 @@ public class CustomizedScreen {
 									-(20f/2 +0.5f*20f*newButton.getText().getGUIlist().size() + 8f)/2, 0);
 							
 							// update file
-							IO.createOutputFile(fileName);
-							IO.println("0");
-							IO.closeOutputFile();
+							saveScene(Scene.EMPTY, fileName);
 							
 							// sort simulations
 							sidebar.sortSimulations(fileName);
 							
 							// add to customized data file
-							IO.createOutputFile("./data/customized_data_files.txt");
-							IO.println(Integer.toString(sidebar.getSimulationsData().size()));
-							
-							for (String file: sidebar.getSimulationsData()) {
-								
-								IO.println(file);
-							}
-							IO.closeOutputFile();
+							saveSimulationsData();
 							
 							// change to current simulation
-							simulation.getEntities().clear();
+							simulation.clearEntities();
 
 							for (int i = 0; i < sidebar.getSimulationsData().size(); i++) {
 								
@@ -896,70 +877,16 @@ public class CustomizedScreen {
 					
 					if (currentSim != -1) {
 					
-						// save data into text file
-						IO.createOutputFile(sidebar.getButtons().get(currentSim - 1).getFileName());
-						
-						// number of entities
-						IO.println(Integer.toString(simulation.getEntities().size()));
+						String fileName = sidebar.getButtons().get(currentSim - 1).getFileName();
 						
-						// loop through entities
-						for (Entity entity: simulation.getEntities()) {
-								
-							// line buffer
-							IO.println("");
+						// save data into text file, reading the entities between 
+						// time steps on the thread that updates the simulation
+						simulation.post(() -> {
 							
-							// rectangle
-							if (entity instanceof Rectangle) {
-									
-								// cannon
-								if (entity instanceof Cannon) {
-									
-									Cannon r = (Cannon) entity;
-									
-									IO.println("CANNON");
-									IO.println(Float.toString(r.getWidth()));
-									IO.println(Float.toString(r.getPosition().x));
-									IO.println(Float.toString(r.getPosition().y));
-									IO.println(Float.toString(r.getStoredVelocity().x));
-									IO.println(Float.toString(r.getStoredVelocity().y));
-									IO.println(Float.toString(r.getMass()));
-									IO.println(Float.toString(r.getCoefficientOfRestitution()));
-								}
-								
-								// regular rectangle
-								else {
-									
-									Rectangle r = (Rectangle) entity;
-									
-									IO.println("RECTANGLE");
-									IO.println(Float.toString(r.getWidth()));
-									IO.println(Float.toString(r.getPosition().x));
-									IO.println(Float.toString(r.getPosition().y));
-									IO.println(Float.toString(r.getVelocity().x));
-									IO.println(Float.toString(r.getVelocity().y));
-									IO.println(Float.toString(r.getMass()));
-									IO.println(Float.toString(r.getCoefficientOfRestitution()));
-								}
-							}
-								
-							// circle
-							else if (entity instanceof Circle) {
-									
-								Circle c = (Circle) entity;
-									
-								IO.println("CIRCLE");
-								IO.println(Float.toString(c.getRadius()));
-								IO.println(Float.toString(c.getPosition().x));
-								IO.println(Float.toString(c.getPosition().y));
-								IO.println(Float.toString(c.getVelocity().x));
-								IO.println(Float.toString(c.getVelocity().y));
-								IO.println(Float.toString(c.getMass()));
-								IO.println(Float.toString(c.getCoefficientOfRestitution()));
-							}
-						}
-						IO.closeOutputFile();
-						
-						System.out.println("Simulation saved!");
+							saveScene(createScene(), fileName);
+							
+							System.out.println("Simulation saved!");
+						});
 					}
 					return;
 				}
@@ -980,16 +907,11 @@ public class CustomizedScreen {
 							// delete file
 							File file = new File(sidebar.getSimulationsData().get(currentSim - 1));
 							file.delete();
+							scenes.invalidate(file.getPath());
 							sidebar.getSimulationsData().remove(currentSim - 1);
 							
 							// edit customized_data_files.txt data
-							IO.createOutputFile("./data/customized_data_files.txt");
-							IO.println(Integer.toString(sidebar.getSimulationsData().size()));
-							
-							for (String fileName: sidebar.getSimulationsData())
-								IO.println(fileName);
-							
-							IO.closeOutputFile();
+							saveSimulationsData();
 							
 							// delete simulation button
 							Button button = sidebar.getButtons().get(currentSim - 1);
@@ -997,7 +919,7 @@ public class CustomizedScreen {
 							sidebar.getGUIComponents().remove(button);
 							
 							// clear simulation data
-							simulation.getEntities().clear();
+							simulation.clearEntities();
 							
 							// update top simulation index
 							sidebar.updateTopSimulationIndex();
@@ -1031,14 +953,14 @@ public class CustomizedScreen {
 				if (simulation.isPaused() && currentSim != -1 && program == 0) {
 					
 					// loop through entities of simulation
-					for (Entity entity: simulation.getEntities()) {
+					for (Entity entity: simulation.getSnapshotEntities()) {
 					
 						if (entity.intersects(x, y)) {
 						
 							// select entity
 							selectedEntity = entity;
-							selectedEntityOriginalX = selectedEntity.getPosition().x;
-							selectedEntityOriginalY = selectedEntity.getPosition().y;
+							selectedEntityOriginalX = selectedEntity.getX();
+							selectedEntityOriginalY = selectedEntity.getY();
 						
 							program = 3;						
 							return;
@@ -1054,7 +976,7 @@ public class CustomizedScreen {
 		else if (rightClick && simulation.isPaused() && currentSim != -1 && program == 0) {
 			
 			// loop through entities of simulation
-			for (Entity entity: simulation.getEntities()) {
+			for (Entity entity: simulation.getSnapshotEntities()) {
 				
 				if (entity.intersects(x, y)) {
 					
@@ -1129,15 +1051,7 @@ public class CustomizedScreen {
 		y += screenHeight/2;
 		
 		// set position of entity
-		selectedEntity.setPosition(new Vector3f(x,y, selectedEntity.getPosition().z));
-				
-		// update AABB if entity is a rectangle
-		if (selectedEntity instanceof Rectangle) {
-			Rectangle r = (Rectangle) selectedEntity;
-					
-			r.updateAABB();
-		}
-			
+		simulation.moveEntity(selectedEntity, x, y);
 	}
 	
 	/**
@@ -1147,60 +1061,14 @@ public class CustomizedScreen {
 	 * the entity.
 	 */
 	public void placeEntity() {
-			
-		// check if entity can be placed
-		if (!simulation.isWithinBounds(selectedEntity)) {
-				
-			if (program == 1)
-				simulation.getEntities().remove(simulation.getEntities().size()-1);
-				
-			else if (program == 3) {
-					
-				selectedEntity.setPosition(new Vector3f(selectedEntityOriginalX, selectedEntityOriginalY, 
-						selectedEntity.getPosition().z));
-					
-				// update AABB if selected entity is a rectangle
-				if (selectedEntity instanceof Rectangle) {
-					
-					Rectangle r = (Rectangle) selectedEntity;
-					r.updateAABB();
-				}
-			}
-			
-			return;
-		}
 		
-		// loop through entities
-		for (Entity entity : simulation.getEntities()) {
-			
-			// check that the entities to check collision for are not the same entity
-			if (!selectedEntity.equals(entity)) {
-				
-				if (selectedEntity.intersects(entity)) {
-					
-					if (program == 1)
-						simulation.getEntities().remove(simulation.getEntities().size()-1);
-					
-					else if (program == 3) {
-						
-						selectedEntity.setPosition(new Vector3f(selectedEntityOriginalX, selectedEntityOriginalY, 
-								selectedEntity.getPosition().z));
-						
-						// update AABB if selected entity is a rectangle
-						if (selectedEntity instanceof Rectangle) {
-							
-							Rectangle r = (Rectangle) selectedEntity;
-							
-							r.updateAABB();
-						}
-						
-					}
-					
-					return;
-				}
-			}
-		}
+		Entity entity = selectedEntity;
+		int program = this.program;
+		float originalX = selectedEntityOriginalX;
+		float originalY = selectedEntityOriginalY;
 		
+		// checked once the moves posted before it have been made
+		simulation.post(() -> placeEntity(entity, program, originalX, originalY));
 	}
 	
 	/**
@@ -1210,6 +1078,10 @@ public class CustomizedScreen {
 	 */
 	public PopUpBox createPopUpBox(Entity entity) {
 		
+		// the previous pop-up box's models and textures are no longer needed
+		loader.releaseOwner(POP_UP_BOX_OWNER);
+		loader.beginOwner(POP_UP_BOX_OWNER);
+		
 		float offsetX = 0f;
 		float size = 1f;
 		
@@ -1230,8 +1102,8 @@ public class CustomizedScreen {
 		float width = 250f;
 		float height = 180f;
 		
-		float x = entity.getPosition().x - width/2 - offsetX - 5f;
-		float y = entity.getPosition().y + 20f;
+		float x = entity.getX() - width/2 - offsetX - 5f;
+		float y = entity.getY() + 20f;
 				
 		float[] vertices = Entity.getVertices(width, height, z);
 		float[] texCoords = Entity.getTexCoords();
@@ -1248,11 +1120,13 @@ public class CustomizedScreen {
 		// create pop-up box
 		PopUpBox p = new PopUpBox(loader, model, position, rotation, scale, width, height, z + 0.4f);
 		
+		loader.endOwner();
+		
 		// set values
 		p.updateSizeText(size);
 		p.updateMassText(entity.getMass());
-		p.updateVelocityXText(entity.getVelocity().x);
-		p.updateVelocityYText(entity.getVelocity().y);
+		p.updateVelocityXText(entity.getVelocityX());
+		p.updateVelocityYText(entity.getVelocityY());
 		
 		
 		// edit button states
@@ -1290,23 +1164,23 @@ public class CustomizedScreen {
 		else {
 			
 			// velocity x
-			if (entity.getVelocity().x > 995f)
+			if (entity.getVelocityX() > 995f)
 				p.setIncreaseVelocityXButtonState(false);
 			else 
 				p.setIncreaseVelocityXButtonState(true);
 			
-			if (entity.getVelocity().x < -995f)
+			if (entity.getVelocityX() < -995f)
 				p.setDecreaseVelocityXButtonState(false);
 			else 
 				p.setDecreaseVelocityXButtonState(true);
 			
 			// velocity y
-			if (entity.getVelocity().y > 995f)
+			if (entity.getVelocityY() > 995f)
 				p.setIncreaseVelocityYButtonState(false);
 			else 
 				p.setIncreaseVelocityYButtonState(true);
 			
-			if (entity.getVelocity().y < -995f)
+			if (entity.getVelocityY() < -995f)
 				p.setDecreaseVelocityYButtonState(false);
 			else 
 				p.setDecreaseVelocityYButtonState(true);
@@ -1356,6 +1230,170 @@ public class CustomizedScreen {
 		simulation.pausePlaySimulation();
 		
 		// load simulation
-		simulation.loadSimulation(sidebar.getSimulationsData().get(currentSim - 1));
+		simulation.loadSimulation(sidebar.getSimulationsData().get(currentSim - 1), scenes);
+	}
+	
+	
+	// ********** PRIVATE HELPER METHODS **********
+	
+	/**
+	 * Places an entity where it is, if it is within the bounds of 
+	 * the simulation and does not intersect another entity. If not, 
+	 * deletes the entity if it was just created, or moves it back.
+	 * 
+	 * @param entity		the entity to place
+	 * @param program		1 if the entity was just created, 3 if it was moved
+	 * @param originalX		the entity's x coordinate before it was moved
+	 * @param originalY		the entity's y coordinate before it was moved
+	 */
+	private void placeEntity(Entity entity, int program, float originalX, float originalY) {
+			
+		// check if entity can be placed
+		if (!simulation.isWithinBounds(entity)) {
+				
+			if (program == 1)
+				simulation.getEntities().remove(simulation.getEntities().size()-1);
+				
+			else if (program == 3) {
+					
+				entity.setPosition(new Vector3f(originalX, originalY, 
+						entity.getZ()));
+					
+				// update AABB if selected entity is a rectangle
+				if (entity instanceof Rectangle) {
+					
+					Rectangle r = (Rectangle) entity;
+					r.updateAABB();
+				}
+			}
+			
+			return;
+		}
+		
+		// loop through entities
+		for (Entity other : simulation.getEntities()) {
+			
+			// check that the entities to check collision for are not the same entity
+			if (!entity.equals(other)) {
+				
+				if (entity.intersects(other)) {
+					
+					if (program == 1)
+						simulation.getEntities().remove(simulation.getEntities().size()-1);
+					
+					else if (program == 3) {
+						
+						entity.setPosition(new Vector3f(originalX, originalY, 
+								entity.getZ()));
+						
+						// update AABB if selected entity is a rectangle
+						if (entity instanceof Rectangle) {
+							
+							Rectangle r = (Rectangle) entity;
+							
+							r.updateAABB();
+						}
+						
+					}
+					
+					return;
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * Returns a scene of the simulation's entities. Cannons 
+	 * are saved with their stored velocity. Only call this from 
+	 * an edit passed to simulation.post(), since the entities' 
+	 * state is changed by every time step.
+	 * 
+	 * @return the scene
+	 */
+	private Scene createScene() {
+		
+		ArrayList<Entity> entities = simulation.getEntities();
+		
+		int[] types = new int[entities.size()];
+		float[] fields = new float[entities.size() * Scene.MAX_FIELDS];
+		
+		for (int i = 0; i < entities.size(); i++) {
+			
+			Entity entity = entities.get(i);
+			float vx = entity.getVelocityX();
+			float vy = entity.getVelocityY();
+			float size;
+			
+			// cannon
+			if (entity instanceof Cannon) {
+				
+				types[i] = Scene.CANNON;
+				size = ((Cannon) entity).getWidth();
+				vx = ((Cannon) entity).getStoredVelocity().x;
+				vy = ((Cannon) entity).getStoredVelocity().y;
+			}
+			
+			// regular rectangle
+			else if (entity instanceof Rectangle) {
+				
+				types[i] = Scene.RECTANGLE;
+				size = ((Rectangle) entity).getWidth();
+			}
+			
+			// circle
+			else {
+				
+				types[i] = Scene.CIRCLE;
+				size = ((Circle) entity).getRadius();
+			}
+			
+			// side length or radius, x, y, vx, vy, mass, e
+			int offset = i * Scene.MAX_FIELDS;
+			
+			fields[offset] = size;
+			fields[offset + 1] = entity.getX();
+			fields[offset + 2] = entity.getY();
+			fields[offset + 3] = vx;
+			fields[offset + 4] = vy;
+			fields[offset + 5] = entity.getMass();
+			fields[offset + 6] = entity.getCoefficientOfRestitution();
+		}
+		
+		return new Scene(types, fields);
+	}
+	
+	/**
+	 * Writes a scene to a text scene file, and drops the 
+	 * old scene from the scene cache.
+	 * 
+	 * @param scene
+	 * @param fileName
+	 */
+	private void saveScene(Scene scene, String fileName) {
+		
+		try (SceneWriter writer = new SceneWriter(fileName)) {
+			writer.writeScene(scene);
+			
+		} catch (IOException exception) {
+			exception.printStackTrace();
+		}
+		
+		// the file watcher may not have seen the change yet
+		scenes.invalidate(fileName);
+	}
+	
+	/**
+	 * Writes the list of customized simulations to 
+	 * customized_data_files.txt.
+	 */
+	private void saveSimulationsData() {
+		
+		try (SceneWriter writer = new SceneWriter("./data/customized_data_files.txt")) {
+			writer.writeFileList(sidebar.getSimulationsData());
+			
+		} catch (IOException exception) {
+			exception.printStackTrace();
+		}
 	}
 }
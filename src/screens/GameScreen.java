@@ -10,6 +10,7 @@ import javax.swing.JOptionPane;
 import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
 
+import io.SceneCache;
 import main.Main;
 import objects.Cannon;
 import objects.Circle;
@@ -56,6 +57,9 @@ public class GameScreen {
 	private float z;
 	
 	private Levels levels = new Levels();
+	
+	// whether the ball hit the target in the last time step
+	private volatile boolean hit;
 			
 	// specifies the program:
 	// 0 = default
@@ -66,6 +70,9 @@ public class GameScreen {
 			
 	private int currentSim;
 	
+	// the scenes of the simulations, so that switching and resetting don't read the files
+	private SceneCache scenes;
+	
 	private boolean[] levelsUnlocked;
 			
 	private long window;
@@ -73,6 +80,10 @@ public class GameScreen {
 	private float screenHeight;
 	
 	// static variables
+	
+	// the owner of the pop-up box's models and textures (see Loader.beginOwner())
+	private static final String POP_UP_BOX_OWNER = "game screen pop-up box";
+	
 	public static final String LEVEL_1_TEXTURE_FILE = "./res/level_1.png";
 	public static final String LEVEL_2_TEXTURE_FILE = "./res/level_2.png";
 	public static final String LEVEL_3_TEXTURE_FILE = "./res/level_3.png";
@@ -92,12 +103,18 @@ public class GameScreen {
 	 * @param screenHeight		the height of the screen
 	 * @param z					the z-value of the components of the screen
 	 * @param files				the data files that contain data for each custom simulation
+	 * @param scenes			the cache of the simulations' scenes
 	 */
 	public GameScreen(long window, Loader loader, float screenWidth, float screenHeight, float z,
-			String[] files) {
+			String[] files, SceneCache scenes) {
+		
+		this.scenes = scenes;
 		
 		// simulation window
 		simulation = new SimulationWindow(window, loader, screenWidth, screenHeight, z);
+		
+		// the simulation is updated on the physics thread (see Main.loop())
+		simulation.setQueueEdits(true);
 				
 		// toolbar
 		toolbar = new Toolbar(loader, z);
@@ -223,10 +240,10 @@ public class GameScreen {
 				x = ((Circle) selectedEntity).getRadius();
 			}
 			
-			float offsetX = selectedEntity.getPosition().x - 
+			float offsetX = selectedEntity.getX() - 
 					(popUpBox.getPosition().x + popUpBox.getWidth()/2 + x + 5f);
 			
-			float offsetY = selectedEntity.getPosition().y - 
+			float offsetY = selectedEntity.getY() - 
 					(popUpBox.getPosition().y - 20f);
 			
 			// update pop-up box
@@ -237,9 +254,7 @@ public class GameScreen {
 		// if a simulation is currently playing
 		else if(!simulation.isPaused() && currentSim>0) {
 			
-			// check if the ball hit the target
-			Boolean hit = levels.check(currentSim, simulation.getEntities().get(0), simulation.getTarget());
-			
+			// if the ball hit the target (see update())
 			if(hit) {
 				
 				// unlock next level
@@ -264,8 +279,20 @@ public class GameScreen {
 	 */
 	public void update() {
 		
-		if (!simulation.isPaused())
+		if (!simulation.isPaused()) {
+			
 			simulation.update(true);
+			
+			// check if the ball hit the target (here, since the entities are updated on this thread)
+			Entity target = simulation.getTarget();
+			ArrayList<Entity> entities = simulation.getEntities();
+			
+			hit = target != null && !entities.isEmpty() && levels.check(currentSim, entities.get(0), target);
+		}
+		
+		// make the changes posted while paused
+		else
+			simulation.applyEdits();
 	}
 	
 	/**
@@ -327,6 +354,7 @@ public class GameScreen {
 				// close button
 				if (popUpBox.getCloseButton().getAabb().intersects(x, y)) {
 					
+					loader.releaseOwner(POP_UP_BOX_OWNER);
 					popUpBox = null;
 					selectedEntity = null;
 					program = 0;
@@ -336,15 +364,10 @@ public class GameScreen {
 				// delete entity button
 				else if (popUpBox.getDeleteEntityButton().getAabb().intersects(x, y)) {
 					
-					// find and remove entity from array list
-					for (int i = 0; i < simulation.getEntities().size(); i++) {
-						
-						if (selectedEntity.equals(simulation.getEntities().get(i))) {
-							simulation.getEntities().remove(i);
-							break;
-						}
-					}
+					// remove entity (and wake up the entities resting on it)
+					simulation.removeEntity(selectedEntity);
 					
+					loader.releaseOwner(POP_UP_BOX_OWNER);
 					popUpBox = null;
 					selectedEntity = null;
 					program = 0;
@@ -358,76 +381,84 @@ public class GameScreen {
 					if (popUpBox.getIncreaseVelocityXButton().getAabb().intersects(x, y)) {
 						
 						// increase entity's horizontal velocity
-						selectedEntity.getStoredVelocity().x += 5f;
+						float vx = selectedEntity.getStoredVelocity().x + 5f;
 						
-						if (selectedEntity.getStoredVelocity().x > 995f) {
+						if (vx > 995f) {
 							
-							selectedEntity.getStoredVelocity().x = 999.9f;
+							vx = 999.9f;
 							popUpBox.setIncreaseVelocityXButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseVelocityXButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityX(selectedEntity, vx);
+						
 						// update text
-						popUpBox.updateVelocityXText(selectedEntity.getStoredVelocity().x);
+						popUpBox.updateVelocityXText(vx);
 					}
 					
 					// decrease velocity x button
 					else if (popUpBox.getDecreaseVelocityXButton().getAabb().intersects(x, y)) {
 						
 						// decrease entity's horizontal velocity
-						selectedEntity.getStoredVelocity().x -= 5f;
+						float vx = selectedEntity.getStoredVelocity().x - 5f;
 						
-						if (selectedEntity.getStoredVelocity().x < -995) {
+						if (vx < -995) {
 							
-							selectedEntity.getStoredVelocity().x = -999.9f;
+							vx = -999.9f;
 							popUpBox.setDecreaseVelocityXButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseVelocityXButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityX(selectedEntity, vx);
+						
 						// update text
-						popUpBox.updateVelocityXText(selectedEntity.getStoredVelocity().x);
+						popUpBox.updateVelocityXText(vx);
 					}
 					
 					// increase velocity y button
 					else if (popUpBox.getIncreaseVelocityYButton().getAabb().intersects(x, y)) {
 						
 						// increase entity's vertical velocity
-						selectedEntity.getStoredVelocity().y += 5f;
+						float vy = selectedEntity.getStoredVelocity().y + 5f;
 						
-						if (selectedEntity.getStoredVelocity().y > 995f) {
+						if (vy > 995f) {
 							
-							selectedEntity.getStoredVelocity().y = 999.9f;
+							vy = 999.9f;
 							popUpBox.setIncreaseVelocityYButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseVelocityYButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityY(selectedEntity, vy);
+						
 						// update text
-						popUpBox.updateVelocityYText(selectedEntity.getStoredVelocity().y);
+						popUpBox.updateVelocityYText(vy);
 					}
 					
 					// decrease velocity y button
 					else if (popUpBox.getDecreaseVelocityYButton().getAabb().intersects(x, y)) {
 						
 						// decrease entity's vertical velocity
-						selectedEntity.getStoredVelocity().y -= 5f;
+						float vy = selectedEntity.getStoredVelocity().y - 5f;
 						
-						if (selectedEntity.getStoredVelocity().y < -995) {
+						if (vy < -995) {
 							
-							selectedEntity.getStoredVelocity().y = -999.9f;
+							vy = -999.9f;
 							popUpBox.setDecreaseVelocityYButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseVelocityYButtonState(true);
 						}
 						
+						simulation.setEntityStoredVelocityY(selectedEntity, vy);
+						
 						// update text
-						popUpBox.updateVelocityYText(selectedEntity.getStoredVelocity().y);
+						popUpBox.updateVelocityYText(vy);
 					}
 				}
 					
@@ -437,41 +468,18 @@ public class GameScreen {
 					if (popUpBox.getIncreaseSizeButton().getAabb().intersects(x, y)) {
 						
 						// increase entity's scale
-						selectedEntity.setScale(selectedEntity.getScale() + 5f);
+						float size = selectedEntity.getScale() + 5f;
 						
-						if (selectedEntity.getScale() > 95f) {
+						if (size > 95f) {
 							
-							selectedEntity.setScale(100f);
+							size = 100f;
 							popUpBox.setIncreaseSizeButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseSizeButtonState(true);
 						}
 						
-						float size = 1f;
-						
-						// rectangle
-						if (selectedEntity instanceof Rectangle) {
-							
-							Rectangle r = (Rectangle) selectedEntity;
-							
-							r.setWidth(r.getScale());
-							r.setHeight(r.getScale());
-							
-							r.updateAABB();
-							
-							size = r.getWidth();
-						}
-						
-						// circle
-						else if (selectedEntity instanceof Circle) {
-							
-							Circle c = (Circle) selectedEntity;
-							
-							c.setRadius(c.getScale()/2);
-							
-							size = c.getRadius() * 2;
-						}
+						simulation.resizeEntity(selectedEntity, size);
 						
 						// update text
 						popUpBox.updateSizeText(size);
@@ -481,41 +489,18 @@ public class GameScreen {
 					else if (popUpBox.getDecreaseSizeButton().getAabb().intersects(x, y)) {
 						
 						// decrease entity's scale
-						selectedEntity.setScale(selectedEntity.getScale() - 5f);
+						float size = selectedEntity.getScale() - 5f;
 						
-						if (selectedEntity.getScale() < 35f) {
+						if (size < 35f) {
 							
-							selectedEntity.setScale(30f);
+							size = 30f;
 							popUpBox.setDecreaseSizeButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseSizeButtonState(true);
 						}
 						
-						float size = 1f;
-						
-						// rectangle
-						if (selectedEntity instanceof Rectangle) {
-							
-							Rectangle r = (Rectangle) selectedEntity;
-							
-							r.setWidth(r.getScale());
-							r.setHeight(r.getScale());
-							
-							r.updateAABB();
-							
-							size = r.getWidth();
-						}
-						
-						// circle
-						else if (selectedEntity instanceof Circle) {
-							
-							Circle c = (Circle) selectedEntity;
-							
-							c.setRadius(c.getScale()/2);
-							
-							size = c.getRadius() * 2;
-						}
+						simulation.resizeEntity(selectedEntity, size);
 						
 						// update text
 						popUpBox.updateSizeText(size);
@@ -525,73 +510,42 @@ public class GameScreen {
 					else if (popUpBox.getIncreaseMassButton().getAabb().intersects(x, y)) {
 						
 						// increase entity's mass
-						selectedEntity.setMass(selectedEntity.getMass() + 1f);
+						float mass = selectedEntity.getMass() + 1f;
 						
-						if (selectedEntity.getMass() > 99f) {
+						if (mass > 99f) {
 							
-							selectedEntity.setMass(100f);
+							mass = 100f;
 							popUpBox.setIncreaseMassButtonState(false);
 						}
 						else {
 							popUpBox.setDecreaseMassButtonState(true);
 						}
 						
+						simulation.setEntityMass(selectedEntity, mass);
+						
 						// update text
-						popUpBox.updateMassText(selectedEntity.getMass());
+						popUpBox.updateMassText(mass);
 					}
 					
 					// decrease mass button
 					else if (popUpBox.getDecreaseMassButton().getAabb().intersects(x, y)) {
 						
 						// decrease entity's mass
-						selectedEntity.setMass(selectedEntity.getMass() - 1f);
+						float mass = selectedEntity.getMass() - 1f;
 						
-						if (selectedEntity.getMass() < 2f) {
+						if (mass < 2f) {
 							
-							selectedEntity.setMass(1f);
+							mass = 1f;
 							popUpBox.setDecreaseMassButtonState(false);
 						}
 						else {
 							popUpBox.setIncreaseMassButtonState(true);
 						}
 						
+						simulation.setEntityMass(selectedEntity, mass);
+						
 						// update text
-						popUpBox.updateMassText(selectedEntity.getMass());
-					}
-							
-					// decrease size button
-					else if (popUpBox.getDecreaseSizeButton().getAabb().intersects(x, y)) {
-								
-						// increase entity's scale
-						selectedEntity.setScale(selectedEntity.getScale() - 10f);
-								
-						if (selectedEntity.getScale() <= 30f) {
-									
-							selectedEntity.setScale(30f);
-							popUpBox.setDecreaseSizeButtonState(false);
-						}
-						else {
-							popUpBox.setIncreaseSizeButtonState(true);
-						}
-								
-						// rectangle
-						if (selectedEntity instanceof Rectangle) {
-									
-							Rectangle r = (Rectangle) selectedEntity;
-									
-							r.setWidth(r.getScale());
-							r.setHeight(r.getScale());
-									
-							r.updateAABB();
-						}
-								
-						// circle
-						else if (selectedEntity instanceof Circle) {
-									
-							Circle c = (Circle) selectedEntity;
-									
-							c.setRadius(c.getScale()/2);
-						}
+						popUpBox.updateMassText(mass);
 					}
 				}
 				
@@ -613,12 +567,7 @@ public class GameScreen {
 							
 							// reset to no simulations
 							currentSim = -1;
-							simulation.getEntities().clear();
-							simulation.getOther().clear();
-							
-							while (simulation.getBoundaries().size() > 4) {
-								simulation.getBoundaries().remove(4);
-							}
+							simulation.clear();
 							
 							main.setCurrScreen(0);
 							return;
@@ -743,8 +692,7 @@ public class GameScreen {
 				// selecting an object
 				if (simulation.isPaused() && currentSim != -1 && program == 0) {
 					
-					ArrayList<Entity> sim = new ArrayList<Entity>();
-					sim.addAll(simulation.getEntities());
+					ArrayList<Entity> sim = simulation.getSnapshotEntities();
 					
 					// remove the target from the objects array list
 					// the target cannot be selected
@@ -758,8 +706,8 @@ public class GameScreen {
 								
 							// select entity
 							selectedEntity = entity;
-							selectedEntityOriginalX = selectedEntity.getPosition().x;
-							selectedEntityOriginalY = selectedEntity.getPosition().y;
+							selectedEntityOriginalX = selectedEntity.getX();
+							selectedEntityOriginalY = selectedEntity.getY();
 								
 							program = 3;						
 							return;
@@ -773,8 +721,7 @@ public class GameScreen {
 		// if right mouse button was pressed
 		else if (rightClick && simulation.isPaused() && currentSim != -1 && program == 0) {
 			
-			ArrayList<Entity> sim = new ArrayList<Entity>();
-			sim.addAll(simulation.getEntities());
+			ArrayList<Entity> sim = simulation.getSnapshotEntities();
 			
 			// remove the target from the objects array list
 			// the target cannot be selected
@@ -860,15 +807,7 @@ public class GameScreen {
 		y += screenHeight/2;
 		
 		// set position of entity
-		selectedEntity.setPosition(new Vector3f(x,y, selectedEntity.getPosition().z));
-				
-		// update AABB if entity is a rectangle
-		if (selectedEntity instanceof Rectangle) {
-			Rectangle r = (Rectangle) selectedEntity;
-					
-			r.updateAABB();
-		}
-			
+		simulation.moveEntity(selectedEntity, x, y);
 	}
 	
 	/**
@@ -878,60 +817,14 @@ public class GameScreen {
 	 * the entity.
 	 */
 	public void placeEntity() {
-			
-		// check if entity can be placed
-		if (!simulation.isWithinBounds(selectedEntity)) {
-				
-			if (program == 1)
-				simulation.getEntities().remove(simulation.getEntities().size()-1);
-				
-			else if (program == 3) {
-					
-				selectedEntity.setPosition(new Vector3f(selectedEntityOriginalX, selectedEntityOriginalY, 
-						selectedEntity.getPosition().z));
-					
-				// update AABB if selected entity is a rectangle
-				if (selectedEntity instanceof Rectangle) {
-					
-					Rectangle r = (Rectangle) selectedEntity;
-					r.updateAABB();
-				}
-			}
-			
-			return;
-		}
 		
-		// loop through entities
-		for (Entity entity : simulation.getEntities()) {
-			
-			// check that the entities to check collision for are not the same entity
-			if (!selectedEntity.equals(entity)) {
-				
-				if (selectedEntity.intersects(entity)) {
-					
-					if (program == 1)
-						simulation.getEntities().remove(simulation.getEntities().size()-1);
-					
-					else if (program == 3) {
-						
-						selectedEntity.setPosition(new Vector3f(selectedEntityOriginalX, selectedEntityOriginalY, 
-								selectedEntity.getPosition().z));
-						
-						// update AABB if selected entity is a rectangle
-						if (selectedEntity instanceof Rectangle) {
-							
-							Rectangle r = (Rectangle) selectedEntity;
-							
-							r.updateAABB();
-						}
-						
-					}
-					
-					return;
-				}
-			}
-		}
+		Entity entity = selectedEntity;
+		int program = this.program;
+		float originalX = selectedEntityOriginalX;
+		float originalY = selectedEntityOriginalY;
 		
+		// checked once the moves posted before it have been made
+		simulation.post(() -> placeEntity(entity, program, originalX, originalY));
 	}
 	
 	/**
@@ -941,6 +834,10 @@ public class GameScreen {
 	 */
 	public PopUpBox createPopUpBox(Entity entity) {
 		
+		// the previous pop-up box's models and textures are no longer needed
+		loader.releaseOwner(POP_UP_BOX_OWNER);
+		loader.beginOwner(POP_UP_BOX_OWNER);
+		
 		float offsetX = 0f;
 		float size = 1f;
 		
@@ -961,8 +858,8 @@ public class GameScreen {
 		float width = 250f;
 		float height = 180f;
 		
-		float x = entity.getPosition().x - width/2 - offsetX - 5f;
-		float y = entity.getPosition().y + 20f;
+		float x = entity.getX() - width/2 - offsetX - 5f;
+		float y = entity.getY() + 20f;
 				
 		float[] vertices = Entity.getVertices(width, height, z);
 		float[] texCoords = Entity.getTexCoords();
@@ -978,6 +875,8 @@ public class GameScreen {
 		// create pop-up box
 		PopUpBox p =  new PopUpBox(loader, model, position, rotation, scale, width, height, z + 0.4f);
 		
+		loader.endOwner();
+		
 		// set values
 		p.updateSizeText(size);
 		p.updateMassText(entity.getMass());
@@ -1034,7 +933,7 @@ public class GameScreen {
 			else 
 				p.setDecreaseSizeButtonState(true);
 					
-			if (entity.getVelocity().y < -995f)
+			if (entity.getVelocityY() < -995f)
 				p.setDecreaseVelocityYButtonState(false);
 			else 
 				p.setDecreaseVelocityYButtonState(true);
@@ -1081,7 +980,78 @@ public class GameScreen {
 		simulation.pausePlaySimulation();
 		
 		// load simulation
-		simulation.loadSimulation(sidebar.getSimulationsData().get(currentSim - 1));
+		hit = false;
+		simulation.loadSimulation(sidebar.getSimulationsData().get(currentSim - 1), scenes);
 	}
 	
+	
+	// ********** PRIVATE HELPER METHODS **********
+	
+	/**
+	 * Places an entity where it is, if it is within the bounds of 
+	 * the simulation and does not intersect another entity. If not, 
+	 * deletes the entity if it was just created, or moves it back.
+	 * 
+	 * @param entity		the entity to place
+	 * @param program		1 if the entity was just created, 3 if it was moved
+	 * @param originalX		the entity's x coordinate before it was moved
+	 * @param originalY		the entity's y coordinate before it was moved
+	 */
+	private void placeEntity(Entity entity, int program, float originalX, float originalY) {
+
+			
+		// check if entity can be placed
+		if (!simulation.isWithinBounds(entity)) {
+				
+			if (program == 1)
+				simulation.getEntities().remove(simulation.getEntities().size()-1);
+				
+			else if (program == 3) {
+					
+				entity.setPosition(new Vector3f(originalX, originalY, 
+						entity.getZ()));
+					
+				// update AABB if selected entity is a rectangle
+				if (entity instanceof Rectangle) {
+					
+					Rectangle r = (Rectangle) entity;
+					r.updateAABB();
+				}
+			}
+			
+			return;
+		}
+		
+		// loop through entities
+		for (Entity other : simulation.getEntities()) {
+			
+			// check that the entities to check collision for are not the same entity
+			if (!entity.equals(other)) {
+				
+				if (entity.intersects(other)) {
+					
+					if (program == 1)
+						simulation.getEntities().remove(simulation.getEntities().size()-1);
+					
+					else if (program == 3) {
+						
+						entity.setPosition(new Vector3f(originalX, originalY, 
+								entity.getZ()));
+						
+						// update AABB if selected entity is a rectangle
+						if (entity instanceof Rectangle) {
+							
+							Rectangle r = (Rectangle) entity;
+							
+							r.updateAABB();
+						}
+						
+					}
+					
+					return;
+				}
+			}
+		}
+		
+	}
 }
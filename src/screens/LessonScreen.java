@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
 
+import io.SceneCache;
 import main.Main;
 import objects.Circle;
 import objects.Entity;
@@ -56,6 +57,9 @@ public class LessonScreen {
 		
 	private int currentSim;
 	
+	// the scenes of the simulations, so that switching and resetting don't read the files
+	private SceneCache scenes;
+	
 	// for all lessons
 	private float time;
 	private float positionX;
@@ -104,9 +108,12 @@ public class LessonScreen {
 	 * @param screenHeight		the height of the screen
 	 * @param z					the z-value of the components of the screen
 	 * @param files				the data files that contain data for each custom simulation
+	 * @param scenes			the cache of the simulations' scenes
 	 */
 	public LessonScreen(long window, Loader loader, float screenWidth, float screenHeight, float z, 
-			String[] files) {
+			String[] files, SceneCache scenes) {
+		
+		this.scenes = scenes;
 		
 		// simulation window
 		simulation = new SimulationWindow(window, loader, screenWidth, screenHeight, z);
@@ -267,7 +274,7 @@ public class LessonScreen {
 			case 5:
 				frictionLessonDisplayPanel.render(renderer);
 				
-				if (!simulation.isPaused() && simulation.getEntities().get(0).getVelocity().x != 0)
+				if (!simulation.isPaused() && simulation.getEntities().get(0).getVelocityX() != 0)
 					renderer.render(frictionArrow);
 				break;
 		}
@@ -293,8 +300,8 @@ public class LessonScreen {
 				case 1:
 						
 					// update attributes
-					positionX = entity.getPosition().x;
-					velocityX = entity.getVelocity().x;
+					positionX = entity.getX();
+					velocityX = entity.getVelocityX();
 						
 					break;
 						
@@ -302,10 +309,10 @@ public class LessonScreen {
 				case 2:
 						
 					// update attributes
-					positionX = entity.getPosition().x;
-					velocityX = entity.getVelocity().x;
-					positionY = entity.getPosition().y;
-					velocityY = entity.getVelocity().y;
+					positionX = entity.getX();
+					velocityX = entity.getVelocityX();
+					positionY = entity.getY();
+					velocityY = entity.getVelocityY();
 						
 					break;
 						
@@ -315,8 +322,8 @@ public class LessonScreen {
 					// update net force arrow
 					Rectangle r1 = (Rectangle) entity;
 						
-					float arrowX = r1.getPosition().x + r1.getWidth()/2 + 20f;
-					float arrowY = r1.getPosition().y;
+					float arrowX = r1.getX() + r1.getWidth()/2 + 20f;
+					float arrowY = r1.getY();
 						
 					netForceArrow.getPosition().x = arrowX;
 					netForceArrow.getPosition().y = arrowY;
@@ -329,8 +336,8 @@ public class LessonScreen {
 					// update force of gravity arrow
 					Circle c = (Circle) entity;
 						
-					arrowX = c.getPosition().x;
-					arrowY = c.getPosition().y - c.getRadius() - 20f * forceOfGravityArrow.getScale();
+					arrowX = c.getX();
+					arrowY = c.getY() - c.getRadius() - 20f * forceOfGravityArrow.getScale();
 						
 					forceOfGravityArrow.getPosition().x = arrowX;
 					forceOfGravityArrow.getPosition().y = arrowY;
@@ -346,23 +353,23 @@ public class LessonScreen {
 					arrowX = 0;
 						
 					// object traveling right
-					if (r2.getVelocity().x > 0) {
+					if (r2.getVelocityX() > 0) {
 							
-						arrowX = r2.getPosition().x - r2.getWidth()/2 - 20f;
+						arrowX = r2.getX() - r2.getWidth()/2 - 20f;
 						frictionArrow.setRotation(new Vector3f(0,0,180));
 					}
 						
 					// object traveling left
-					else if (r2.getVelocity().x < 0) {
+					else if (r2.getVelocityX() < 0) {
 							
-						arrowX = r2.getPosition().x + r2.getWidth()/2 + 20f;
+						arrowX = r2.getX() + r2.getWidth()/2 + 20f;
 						frictionArrow.setRotation(new Vector3f(0,0,0));
 					}
 						
 					frictionArrow.getPosition().x = arrowX;
 						
 					// update attributes
-					velocityX = entity.getVelocity().x;
+					velocityX = entity.getVelocityX();
 						
 					break;
 			}
@@ -379,12 +386,12 @@ public class LessonScreen {
 					case 1:
 							
 						// update velocity button states
-						if (entity.getVelocity().x < 995)
+						if (entity.getVelocityX() < 995)
 							motionLessonDisplayPanel.setIncreaseVelocityButtonState(true);
 						else
 							motionLessonDisplayPanel.setIncreaseVelocityButtonState(false);
 							
-						if (entity.getVelocity().x > -995)
+						if (entity.getVelocityX() > -995)
 							motionLessonDisplayPanel.setDecreaseVelocityButtonState(true);
 						else
 							motionLessonDisplayPanel.setDecreaseVelocityButtonState(false);
@@ -400,23 +407,23 @@ public class LessonScreen {
 					case 2:
 							
 						// update velocity x button states
-						if (entity.getVelocity().x < 995)
+						if (entity.getVelocityX() < 995)
 							projectileMotionLessonDisplayPanel.setIncreaseVelocityXButtonState(true);
 						else
 							projectileMotionLessonDisplayPanel.setIncreaseVelocityXButtonState(false);
 							
-						if (entity.getVelocity().x > -995)
+						if (entity.getVelocityX() > -995)
 							projectileMotionLessonDisplayPanel.setDecreaseVelocityXButtonState(true);
 						else
 							projectileMotionLessonDisplayPanel.setDecreaseVelocityXButtonState(false);
 							
 						// update velocity y button states
-						if (entity.getVelocity().y < 995)
+						if (entity.getVelocityY() < 995)
 							projectileMotionLessonDisplayPanel.setIncreaseVelocityYButtonState(true);
 						else
 							projectileMotionLessonDisplayPanel.setIncreaseVelocityYButtonState(false);
 							
-						if (entity.getVelocity().y > -995)
+						if (entity.getVelocityY() > -995)
 							projectileMotionLessonDisplayPanel.setDecreaseVelocityYButtonState(true);
 						else
 							projectileMotionLessonDisplayPanel.setDecreaseVelocityYButtonState(false);
@@ -450,12 +457,12 @@ public class LessonScreen {
 					case 5:
 							
 						// update velocity button states
-						if (entity.getVelocity().x < 995)
+						if (entity.getVelocityX() < 995)
 							frictionLessonDisplayPanel.setIncreaseVelocityButtonState(true);
 						else
 							frictionLessonDisplayPanel.setIncreaseVelocityButtonState(false);
 							
-						if (entity.getVelocity().x > -995)
+						if (entity.getVelocityX() > -995)
 							frictionLessonDisplayPanel.setDecreaseVelocityButtonState(true);
 						else
 							frictionLessonDisplayPanel.setDecreaseVelocityButtonState(false);
@@ -624,16 +631,16 @@ public class LessonScreen {
 							motionLessonDisplayPanel.getIncreaseVelocityButton().getAabb().intersects(x, y)) {
 							
 						// increase object velocity
-						entity.getVelocity().x += 5f;
+						entity.setVelocityX(entity.getVelocityX() + 5f);
 						motionLessonDisplayPanel.setDecreaseVelocityButtonState(true);
 							
-						if (entity.getVelocity().x > 995f) {
+						if (entity.getVelocityX() > 995f) {
 								
-							entity.getVelocity().x = 999.9f;
+							entity.setVelocityX(999.9f);
 							motionLessonDisplayPanel.setIncreaseVelocityButtonState(false);
 						}
 						
-						velocityX = entity.getVelocity().x;
+						velocityX = entity.getVelocityX();
 						motionLessonDisplayPanel.updateVelocityText(velocityX);
 					}
 						
@@ -642,16 +649,16 @@ public class LessonScreen {
 							motionLessonDisplayPanel.getDecreaseVelocityButton().getAabb().intersects(x, y)) {
 							
 						// decrease object velocity
-						entity.getVelocity().x -= 5f;
+						entity.setVelocityX(entity.getVelocityX() - 5f);
 						motionLessonDisplayPanel.setIncreaseVelocityButtonState(true);
 							
-						if (entity.getVelocity().x < -995f) {
+						if (entity.getVelocityX() < -995f) {
 								
-							entity.getVelocity().x = -999.9f;
+							entity.setVelocityX(-999.9f);
 							motionLessonDisplayPanel.setDecreaseVelocityButtonState(false);
 						}
 						
-						velocityX = entity.getVelocity().x;
+						velocityX = entity.getVelocityX();
 						motionLessonDisplayPanel.updateVelocityText(velocityX);
 					}
 						
@@ -660,16 +667,16 @@ public class LessonScreen {
 							motionLessonDisplayPanel.getIncreaseAccelerationButton().getAabb().intersects(x, y)) {
 							
 						// increase object acceleration
-						entity.getAcceleration().x += 5f;
+						entity.setAccelerationX(entity.getAccelerationX() + 5f);
 						motionLessonDisplayPanel.setDecreaseAccelerationButtonState(true);
 							
-						if (entity.getAcceleration().x > 95f) {
+						if (entity.getAccelerationX() > 95f) {
 								
-							entity.getAcceleration().x = 100f;
+							entity.setAccelerationX(100f);
 							motionLessonDisplayPanel.setIncreaseAccelerationButtonState(false);
 						}
 						
-						accelerationX = entity.getAcceleration().x;
+						accelerationX = entity.getAccelerationX();
 						motionLessonDisplayPanel.updateAccelerationText(accelerationX);
 					}
 						
@@ -678,16 +685,16 @@ public class LessonScreen {
 							motionLessonDisplayPanel.getDecreaseAccelerationButton().getAabb().intersects(x, y)) {
 							
 						// decrease object acceleration
-						entity.getAcceleration().x -= 5f;
+						entity.setAccelerationX(entity.getAccelerationX() - 5f);
 						motionLessonDisplayPanel.setIncreaseAccelerationButtonState(true);
 							
-						if (entity.getAcceleration().x < -95f) {
+						if (entity.getAccelerationX() < -95f) {
 								
-							entity.getAcceleration().x = -100f;
+							entity.setAccelerationX(-100f);
 							motionLessonDisplayPanel.setDecreaseAccelerationButtonState(false);
 						}
 						
-						accelerationX = entity.getAcceleration().x;
+						accelerationX = entity.getAccelerationX();
 						motionLessonDisplayPanel.updateAccelerationText(accelerationX);
 					}
 				}
@@ -700,16 +707,16 @@ public class LessonScreen {
 							projectileMotionLessonDisplayPanel.getIncreaseVelocityXButton().getAabb().intersects(x, y)) {
 							
 						// increase object velocity x
-						simulation.getEntities().get(0).getVelocity().x += 5f;
+						simulation.getEntities().get(0).setVelocityX(simulation.getEntities().get(0).getVelocityX() + 5f);
 						projectileMotionLessonDisplayPanel.setDecreaseVelocityXButtonState(true);
 							
-						if (simulation.getEntities().get(0).getVelocity().x > 995f) {
+						if (simulation.getEntities().get(0).getVelocityX() > 995f) {
 								
-							simulation.getEntities().get(0).getVelocity().x = 999.9f;
+							simulation.getEntities().get(0).setVelocityX(999.9f);
 							projectileMotionLessonDisplayPanel.setIncreaseVelocityXButtonState(false);
 						}
 						
-						velocityX = entity.getVelocity().x;
+						velocityX = entity.getVelocityX();
 						projectileMotionLessonDisplayPanel.updateVelocityXText(velocityX);
 					}
 						
@@ -718,16 +725,16 @@ public class LessonScreen {
 							projectileMotionLessonDisplayPanel.getDecreaseVelocityXButton().getAabb().intersects(x, y)) {
 							
 						// decrease object velocity x
-						simulation.getEntities().get(0).getVelocity().x -= 5f;
+						simulation.getEntities().get(0).setVelocityX(simulation.getEntities().get(0).getVelocityX() - 5f);
 						projectileMotionLessonDisplayPanel.setIncreaseVelocityXButtonState(true);
 							
-						if (simulation.getEntities().get(0).getVelocity().x < -995f) {
+						if (simulation.getEntities().get(0).getVelocityX() < -995f) {
 								
-							simulation.getEntities().get(0).getVelocity().x = -999.9f;
+							simulation.getEntities().get(0).setVelocityX(-999.9f);
 							projectileMotionLessonDisplayPanel.setDecreaseVelocityXButtonState(false);
 						}
 						
-						velocityX = entity.getVelocity().x;
+						velocityX = entity.getVelocityX();
 						projectileMotionLessonDisplayPanel.updateVelocityXText(velocityX);
 					}
 						
@@ -736,16 +743,16 @@ public class LessonScreen {
 							projectileMotionLessonDisplayPanel.getIncreaseVelocityYButton().getAabb().intersects(x, y)) {
 							
 						// increase object velocity y
-						simulation.getEntities().get(0).getVelocity().y += 5f;
+						simulation.getEntities().get(0).setVelocityY(simulation.getEntities().get(0).getVelocityY() + 5f);
 						projectileMotionLessonDisplayPanel.setDecreaseVelocityYButtonState(true);
 							
-						if (simulation.getEntities().get(0).getVelocity().y > 995f) {
+						if (simulation.getEntities().get(0).getVelocityY() > 995f) {
 								
-							simulation.getEntities().get(0).getVelocity().y = 999.9f;
+							simulation.getEntities().get(0).setVelocityY(999.9f);
 							projectileMotionLessonDisplayPanel.setIncreaseVelocityYButtonState(false);
 						}
 						
-						velocityY = entity.getVelocity().y;
+						velocityY = entity.getVelocityY();
 						projectileMotionLessonDisplayPanel.updateVelocityYText(velocityY);
 					}
 						
@@ -754,16 +761,16 @@ public class LessonScreen {
 							projectileMotionLessonDisplayPanel.getDecreaseVelocityYButton().getAabb().intersects(x, y)) {
 							
 						// decrease object velocity y
-						simulation.getEntities().get(0).getVelocity().y -= 5f;
+						simulation.getEntities().get(0).setVelocityY(simulation.getEntities().get(0).getVelocityY() - 5f);
 						projectileMotionLessonDisplayPanel.setIncreaseVelocityYButtonState(true);
 							
-						if (simulation.getEntities().get(0).getVelocity().y < -995f) {
+						if (simulation.getEntities().get(0).getVelocityY() < -995f) {
 								
-							simulation.getEntities().get(0).getVelocity().y = -999.9f;
+							simulation.getEntities().get(0).setVelocityY(-999.9f);
 							projectileMotionLessonDisplayPanel.setDecreaseVelocityYButtonState(false);
 						}
 						
-						velocityY = entity.getVelocity().y;
+						velocityY = entity.getVelocityY();
 						projectileMotionLessonDisplayPanel.updateVelocityYText(velocityY);
 					}
 				}
@@ -787,7 +794,7 @@ public class LessonScreen {
 						
 						// update acceleration
 						accelerationX = netForce / simulation.getEntities().get(0).getMass();
-						simulation.getEntities().get(0).getAcceleration().x = accelerationX;
+						simulation.getEntities().get(0).setAccelerationX(accelerationX);
 						
 						mass = entity.getMass();
 						newtonsSecondLawLessonDisplayPanel.updateMassText(mass);
@@ -811,7 +818,7 @@ public class LessonScreen {
 						
 						// update acceleration
 						accelerationX = netForce / simulation.getEntities().get(0).getMass();
-						simulation.getEntities().get(0).getAcceleration().x = accelerationX;
+						simulation.getEntities().get(0).setAccelerationX(accelerationX);
 						
 						mass = entity.getMass();
 						newtonsSecondLawLessonDisplayPanel.updateMassText(mass);
@@ -841,7 +848,7 @@ public class LessonScreen {
 						mass = entity.getMass();
 						forceOfGravityLessonDisplayPanel.updateMassText(mass);
 						
-						forceOfGravity = mass * entity.getAcceleration().y;
+						forceOfGravity = mass * entity.getAccelerationY();
 						forceOfGravityLessonDisplayPanel.updateForceOfGravityText(forceOfGravity);
 					}
 							
@@ -863,7 +870,7 @@ public class LessonScreen {
 						mass = entity.getMass();
 						forceOfGravityLessonDisplayPanel.updateMassText(mass);
 						
-						forceOfGravity = mass * entity.getAcceleration().y;
+						forceOfGravity = mass * entity.getAccelerationY();
 						forceOfGravityLessonDisplayPanel.updateForceOfGravityText(forceOfGravity);
 					}
 					
@@ -871,8 +878,8 @@ public class LessonScreen {
 					
 					Circle c = (Circle) simulation.getEntities().get(0);
 					
-					float arrowX = c.getPosition().x;
-					float arrowY = c.getPosition().y - c.getRadius() - 20f * forceOfGravityArrow.getScale();
+					float arrowX = c.getX();
+					float arrowY = c.getY() - c.getRadius() - 20f * forceOfGravityArrow.getScale();
 					
 					forceOfGravityArrow.getPosition().x = arrowX;
 					forceOfGravityArrow.getPosition().y = arrowY;
@@ -887,16 +894,16 @@ public class LessonScreen {
 							frictionLessonDisplayPanel.getIncreaseVelocityButton().getAabb().intersects(x, y)) {
 							
 						// increase object velocity
-						entity.getVelocity().x += 5f;
+						entity.setVelocityX(entity.getVelocityX() + 5f);
 						frictionLessonDisplayPanel.setDecreaseVelocityButtonState(true);
 							
-						if (entity.getVelocity().x > 995f) {
+						if (entity.getVelocityX() > 995f) {
 								
-							entity.getVelocity().x = 999.9f;
+							entity.setVelocityX(999.9f);
 							frictionLessonDisplayPanel.setIncreaseVelocityButtonState(false);
 						}
 						
-						velocityX = entity.getVelocity().x;
+						velocityX = entity.getVelocityX();
 						frictionLessonDisplayPanel.updateVelocityText(velocityX);
 					}
 						
@@ -905,16 +912,16 @@ public class LessonScreen {
 							frictionLessonDisplayPanel.getDecreaseVelocityButton().getAabb().intersects(x, y)) {
 							
 						// decrease object velocity
-						entity.getVelocity().x -= 5f;
+						entity.setVelocityX(entity.getVelocityX() - 5f);
 						frictionLessonDisplayPanel.setIncreaseVelocityButtonState(true);
 							
-						if (entity.getVelocity().x < -995f) {
+						if (entity.getVelocityX() < -995f) {
 								
-							entity.getVelocity().x = -999.9f;
+							entity.setVelocityX(-999.9f);
 							frictionLessonDisplayPanel.setDecreaseVelocityButtonState(false);
 						}
 						
-						velocityX = entity.getVelocity().x;
+						velocityX = entity.getVelocityX();
 						frictionLessonDisplayPanel.updateVelocityText(velocityX);
 					}
 						
@@ -983,7 +990,7 @@ public class LessonScreen {
 		simulation.setPause(false);
 		simulation.pausePlaySimulation();
 					
-		simulation.loadSimulation(sidebar.getSimulationsData().get(currentSim - 1));
+		simulation.loadSimulation(sidebar.getSimulationsData().get(currentSim - 1), scenes);
 		lessonPanel.setLesson(currentSim - 1);
 		
 		timeLeft = 1f;
@@ -995,13 +1002,13 @@ public class LessonScreen {
 			
 			// motion lesson
 			case 1:
-				entity.getAcceleration().y = 0f;
+				entity.setAccelerationY(0f);
 				
 				// variables for text
 				time = 0f;
-				positionX = entity.getPosition().x;
-				velocityX = entity.getVelocity().x;
-				accelerationX = entity.getAcceleration().x;
+				positionX = entity.getX();
+				velocityX = entity.getVelocityX();
+				accelerationX = entity.getAccelerationX();
 				
 				motionLessonDisplayPanel.updateTimeText(time);
 				motionLessonDisplayPanel.updatePositionText(positionX + 180f);
@@ -1020,12 +1027,12 @@ public class LessonScreen {
 				
 				// variables for text
 				time = 0f;
-				positionX = entity.getPosition().x;
-				velocityX = entity.getVelocity().x;
-				accelerationX = entity.getAcceleration().x;
-				positionY = entity.getPosition().y;
-				velocityY = entity.getVelocity().y;
-				accelerationY = entity.getAcceleration().y;
+				positionX = entity.getX();
+				velocityX = entity.getVelocityX();
+				accelerationX = entity.getAccelerationX();
+				positionY = entity.getY();
+				velocityY = entity.getVelocityY();
+				accelerationY = entity.getAccelerationY();
 				
 				projectileMotionLessonDisplayPanel.updateTimeText(time);
 				projectileMotionLessonDisplayPanel.updatePositionXText(positionX + 180f);
@@ -1044,14 +1051,14 @@ public class LessonScreen {
 				
 			// Newton's Second Law lesson
 			case 3:
-				entity.getAcceleration().y = 0f;
-				entity.getAcceleration().x = 5f;
+				entity.setAccelerationY(0f);
+				entity.setAccelerationX(5f);
 				netForce = 50f;
 				
 				Rectangle r1 = (Rectangle) entity;
 						
-				float arrowX = r1.getPosition().x + r1.getWidth()/2 + 20f;
-				float arrowY = r1.getPosition().y;
+				float arrowX = r1.getX() + r1.getWidth()/2 + 20f;
+				float arrowY = r1.getY();
 					
 				netForceArrow.getPosition().x = arrowX;
 				netForceArrow.getPosition().y = arrowY;
@@ -1059,7 +1066,7 @@ public class LessonScreen {
 				// variables for text
 				time = 0f;
 				mass = entity.getMass();
-				accelerationX = entity.getAcceleration().x;
+				accelerationX = entity.getAccelerationX();
 				
 				newtonsSecondLawLessonDisplayPanel.updateTimeText(time);
 				newtonsSecondLawLessonDisplayPanel.updateMassText(mass);
@@ -1075,14 +1082,14 @@ public class LessonScreen {
 			case 4:
 				
 				// force of gravity arrow
-				forceOfGravity = entity.getMass() * entity.getAcceleration().y;
+				forceOfGravity = entity.getMass() * entity.getAccelerationY();
 				
 				forceOfGravityArrow.setScale(Math.abs(forceOfGravity) / 60f);
 				
 				Circle c = (Circle) entity;
 				
-				arrowX = c.getPosition().x;
-				arrowY = c.getPosition().y - c.getRadius() - 20f * forceOfGravityArrow.getScale();
+				arrowX = c.getX();
+				arrowY = c.getY() - c.getRadius() - 20f * forceOfGravityArrow.getScale();
 				
 				forceOfGravityArrow.getPosition().x = arrowX;
 				forceOfGravityArrow.getPosition().y = arrowY;
@@ -1090,7 +1097,7 @@ public class LessonScreen {
 				// variables for text
 				time = 0f;
 				mass = entity.getMass();
-				accelerationY = entity.getAcceleration().y;
+				accelerationY = entity.getAccelerationY();
 				
 				forceOfGravityLessonDisplayPanel.updateTimeText(time);
 				forceOfGravityLessonDisplayPanel.updateMassText(mass);
@@ -1110,19 +1117,19 @@ public class LessonScreen {
 				Rectangle r2 = (Rectangle) entity;
 				
 				arrowX = 0;
-				arrowY = r2.getPosition().y - 15f;
+				arrowY = r2.getY() - 15f;
 				
 				// object traveling right
-				if (r2.getVelocity().x > 0) {
+				if (r2.getVelocityX() > 0) {
 					
-					arrowX = r2.getPosition().x - r2.getWidth()/2 - 20f;
+					arrowX = r2.getX() - r2.getWidth()/2 - 20f;
 					frictionArrow.setRotation(new Vector3f(0,0,180));
 				}
 				
 				// object traveling left
-				else if (r2.getVelocity().x < 0) {
+				else if (r2.getVelocityX() < 0) {
 					
-					arrowX = r2.getPosition().x + r2.getWidth()/2 + 20f;
+					arrowX = r2.getX() + r2.getWidth()/2 + 20f;
 					frictionArrow.setRotation(new Vector3f(0,0,0));
 				}
 				
@@ -1131,7 +1138,7 @@ public class LessonScreen {
 				
 				// variables for text
 				time = 0f;
-				velocityX = entity.getVelocity().x;
+				velocityX = entity.getVelocityX();
 				
 				frictionLessonDisplayPanel.updateTimeText(time);
 				frictionLessonDisplayPanel.updateVelocityText(velocityX);
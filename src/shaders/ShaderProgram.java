@@ -11,6 +11,9 @@ import org.joml.Matrix4f;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.system.MemoryUtil;
 
+import renderEngine.GLState;
+import renderEngine.SpriteBatch;
+
 /**
  * This class manages the vertex and fragment shaders which 
  * OpenGL uses to render objects.
@@ -21,16 +24,18 @@ import org.lwjgl.system.MemoryUtil;
  */
 public class ShaderProgram {
 
-	// static variables
-	private static FloatBuffer matrixBuffer;
-	
 	// instance variables
 	private int programID;
 	private int vertexShaderID;
 	private int fragmentShaderID;
 	
 	private int locationProjectionMatrix;
-	private int locationWorldMatrix;
+	
+	// reused for every matrix upload
+	private FloatBuffer matrixBuffer;
+	
+	// the projection matrix last loaded, so it is only uploaded when it changes
+	private Matrix4f loadedProjectionMatrix;
 	
 	/**
 	 * Creates a shader program.
@@ -58,6 +63,8 @@ public class ShaderProgram {
 		bindAllAttributes();
 		link();
 		getAllUniformLocations();
+		
+		matrixBuffer = MemoryUtil.memAllocFloat(16);
 	}
 	
 	/**
@@ -140,30 +147,31 @@ public class ShaderProgram {
 	 * @param projection  the projection matrix to load
 	 */
 	public void loadProjectionMatrix(Matrix4f projection) {
+		
+		// uniforms keep their value, so an unchanged matrix is not uploaded again
+		if (loadedProjectionMatrix != null && loadedProjectionMatrix.equals(projection))
+			return;
+		
 		loadMatrix(locationProjectionMatrix, projection);
-	}
-	
-	/**
-	 * Loads the world matrix to the shader's uniform variable.
-	 * 
-	 * @param world  the world matrix to load
-	 */
-	public void loadWorldMatrix(Matrix4f world) {
-		loadMatrix(locationWorldMatrix, world);
+		
+		if (loadedProjectionMatrix == null)
+			loadedProjectionMatrix = new Matrix4f();
+		
+		loadedProjectionMatrix.set(projection);
 	}
 	
 	/**
 	 * Binds the shader program.
 	 */
 	public void bind() {
-		glUseProgram(programID);
+		GLState.useProgram(programID);
 	}
 	
 	/**
 	 * Unbinds the shader program.
 	 */
 	public void unbind() {
-		glUseProgram(0);
+		GLState.useProgram(0);
 	}
 
 	/**
@@ -174,7 +182,12 @@ public class ShaderProgram {
 		unbind();
 		
 		if (programID != 0)
-			glDeleteProgram(programID);
+			GLState.deleteProgram(programID);
+		
+		if (matrixBuffer != null) {
+			MemoryUtil.memFree(matrixBuffer);
+			matrixBuffer = null;
+		}
 	}
 	
 	/**
@@ -183,6 +196,11 @@ public class ShaderProgram {
 	private void bindAllAttributes() {
 		glBindAttribLocation(programID, 0, "position");
 		glBindAttribLocation(programID, 1, "textures");
+		
+		// per-instance attributes (the matrix takes one location per column)
+		glBindAttribLocation(programID, SpriteBatch.WORLD_MATRIX_ATTRIBUTE, "worldMatrix");
+		glBindAttribLocation(programID, SpriteBatch.LAYER_ATTRIBUTE, "layer");
+		glBindAttribLocation(programID, SpriteBatch.TEXTURE_REGION_ATTRIBUTE, "textureRegion");
 	}
 	
 	/**
@@ -190,7 +208,6 @@ public class ShaderProgram {
 	 */
 	private void getAllUniformLocations() {
 		locationProjectionMatrix = glGetUniformLocation(programID, "projectionMatrix");
-		locationWorldMatrix = glGetUniformLocation(programID, "worldMatrix");
 	}
 	
 	/**
@@ -200,7 +217,6 @@ public class ShaderProgram {
 	 * @param matrix  the matrix to load
 	 */
 	private void loadMatrix(int location, Matrix4f matrix) {
-		matrixBuffer = MemoryUtil.memAllocFloat(16);
 		matrix.get(matrixBuffer);
 		glUniformMatrix4fv(location, false, matrixBuffer);
 	}
@@ -2,14 +2,26 @@
 
 in vec3 position;
 in vec2 textures;
+in mat4 worldMatrix;
+in float layer;
+in vec4 textureRegion;
 
 out vec2 passTextures;
 
 uniform mat4 projectionMatrix;
-uniform mat4 worldMatrix;
+
+// one step of a 24-bit depth buffer, in normalized device coordinates
+const float LAYER_DEPTH = 1.0 / 8388608.0;
 
 void main(void) {
 
 	gl_Position = projectionMatrix * worldMatrix * vec4(position, 1.0);
-	passTextures = textures;
+	
+	// sprites drawn later at the same z-value are pushed back, so that they cover
+	// each other in the order they were drawn, whatever the batching (the layer
+	// only counts the sprites at the sprite's z-value, see SpriteBatch)
+	gl_Position.z += layer * LAYER_DEPTH * gl_Position.w;
+	
+	// the part of the texture the sprite shows (x, y, width, height)
+	passTextures = textureRegion.xy + textures * textureRegion.zw;
 }
\ No newline at end of file
@@ -10,8 +10,23 @@ import objects.Model;
 import widgets.Button;
 import widgets.GUIComponent;
 
+/**
+ * This class displays a line of text, one quad per character. The glyph 
+ * textures are loaded once, the first time a text is created, and all the 
+ * characters of a text share one quad model. Changing the string only 
+ * changes the textures of the characters' models; characters that are 
+ * removed are kept for when the string grows again. After a text is 
+ * created, changing it does not create any OpenGL objects.
+ */
 public class Text {
 
+	// static variables
+	private static final int FIRST_GLYPH = 32;	// ' '
+	private static final int LAST_GLYPH = 126;	// '~'
+	
+	// the texture ID of each printable character (FIRST_GLYPH to LAST_GLYPH)
+	private static int[] glyphs;
+	
 	//instance variables
 	private String str;
 	private float x;
@@ -22,6 +37,12 @@ public class Text {
 	private float z;
 	private ArrayList<GUIComponent> GUIlist = new ArrayList<GUIComponent>();
 	
+	// the quad shared by the characters
+	private Model quad;
+	
+	// characters that are not displayed, kept to be reused
+	private ArrayList<GUIComponent> unused = new ArrayList<GUIComponent>();
+	
 	/**
 	 * Creates a text object.
 	 * 
@@ -42,6 +63,11 @@ public class Text {
 		this.height = height;
 		this.width = width;
 		this.loader = loader;
+		
+		if (glyphs == null)
+			loadGlyphs(loader);
+		
+		loadQuad();
 		getList();
 	}
 	
@@ -62,49 +88,6 @@ public class Text {
 		}
 	}
 	
-	/**
-	 * Changes text into an array of strings, with each index holding a character
-	 * 
-	 * @return New array list of strings
-	 */
-	private ArrayList<String> changeText()
-	{
-		int sizeS = this.str.length();
-       
-		ArrayList<String> New = new ArrayList<String>();
-		
-		//goes through all characters of the string
-		for( int i=0;i<sizeS; i++)
-		{
-			New.add(charToString(this.str.charAt(i)));
-
-		}
-
-		return New;	
-	}
-
-	/**
-	 * Changes text into an array of strings, with each index holding a character
-	 * 
-	 * @param str string that needs to be changed
-	 * @return New array list of strings
-	 */
-	private ArrayList<String> changeText(String str)
-	{
-		int sizeS = str.length();
-
-		ArrayList<String> New = new ArrayList<String>();
-		
-		//goes through all characters of the string
-		for( int i=0;i<sizeS; i++)
-		{
-			New.add(charToString(str.charAt(i)));
-
-		}
-
-		return New;	
-	}
-	
 	/** 
 	 * Changes the position of the string
 	 * 
@@ -146,6 +129,10 @@ public class Text {
 	{
 		this.height = this.height*size;
 		this.width = this.width*size;
+		
+		// characters added from now on use a quad of the new size
+		loadQuad();
+		unused.clear();
 	}
 	
 	/**
@@ -174,39 +161,13 @@ public class Text {
 	 *  
 	 */
 	public void getList(){
-		ArrayList<String> list = new ArrayList<String>();
-		list = changeText();
-		int size = list.size();
-
-		//goes through the array list of characters and creates a quad
-		for(int i = 0; i<size;i++ )
+		
+		//goes through the characters and creates a quad for each
+		for(int i = 0; i<str.length();i++ )
 		{
-			float height = this.height;
-			float width = this.width;
-			float x = this.x +width/2 +0.5f*width*i;
-			float y = this.y+height/2;
-			float z=this.z;
-
-			float[] vertices = Entity.getVertices(width, height, z);
-			float[] texCoords = Entity.getTexCoords();
-			int[] indices = Entity.getIndices();
-
-			Vector3f rotation = new Vector3f(0,0,0);
-			float scale = 1f;
-
-			Vector3f Pos = new Vector3f(x, y, z);
-			
-			//gets the specified character image
-			int textureID = loader.loadTexture("./text/"+list.get(i)+".png");
-			
-			Model nButtonModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
-
-			Button letter = new Button(nButtonModel, Pos, rotation, scale, width, height);
-
-			GUIlist.add(letter);
+			addStr(i);
+			setGlyph(i, str.charAt(i));
 		}
-
-
 	}
 
 	/**
@@ -223,19 +184,23 @@ public class Text {
 		float y = this.y+height/2;
 		float z=this.z;
 
-		//creates another quad
-		float[] vertices = Entity.getVertices(width, height, z);
-		float[] texCoords = Entity.getTexCoords();
-		int[] indices = Entity.getIndices();
+		Vector3f Pos = new Vector3f(x, y, z);
+		
+		//reuses a character that was removed, if there is one
+		if (!unused.isEmpty())
+		{
+			GUIComponent letter = unused.remove(unused.size() - 1);
+			letter.getPosition().set(Pos);
+			GUIlist.add(letter);
+			return;
+		}
 
 		Vector3f rotation = new Vector3f(0,0,0);
 		float scale = 1f;
 
-		Vector3f Pos = new Vector3f(x, y, z);
-
 		//gives the quad a default image, it will be changed to the correct one later
-		int textureID = loader.loadTexture("./text/1.png");
-		Model nButtonModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		Model nButtonModel = new Model(quad);
+		loader.setTexture(nButtonModel, getGlyph('1'));
 
 		Button letter = new Button(nButtonModel, Pos, rotation, scale, width, height);
 
@@ -244,64 +209,33 @@ public class Text {
 
 	/**
 	 * changes the text of each quad that is rendered
-	 * also gives the command of 
 	 * 
-	 * @param index index where the new character has to be added to
+	 * @param str the new string
 	 *  
 	 */
 	public void changeStr(String str)
 	{
-
 		int length = this.str.length();
 		
-		//changes the " " to "space" for the program to understand which image to get
-		str.replaceAll(" ","space");
-		ArrayList<String> intList = changeText(str);
-		
-		//if the new string is equal in length to the previous string
-		if(length==str.length())
+		//changes the characters that are already displayed
+		for(int i = 0; i<Math.min(length, str.length());i++)
 		{
-			//loops through all the characters in the new string
-			for(int i = 0; i<length;i++)
-			{
-				GUIlist.get(i).getModel().setTextureID("./text/"+intList.get(i)+".png", loader);
-			}
-
+			setGlyph(i, str.charAt(i));
 		}
 		
-		//if the new string is longer than the previous string
-		else if(length<str.length())
+		//if the new string is longer than the previous string, adds the new quads
+		for(int n= length;n<str.length();n++)
 		{
-			for(int i = 0; i<length;i++)
-			{
-				GUIlist.get(i).getModel().setTextureID("./text/"+intList.get(i)+".png", loader);
-			}
-			
-			//adds the new quads 
-			for(int n= length;n<str.length();n++)
-			{
-				addStr(n);
-				GUIlist.get(n).getModel().setTextureID("./text/"+intList.get(n)+".png", loader);
-
-			}
+			addStr(n);
+			setGlyph(n, str.charAt(n));
 		}
 		
-		//if the new string is shorter than the previous string
-		else if(length>str.length())
+		//if the new string is shorter than the previous string, keeps the unneeded characters for later
+		for(int n=length-1;n>=str.length();n--)
 		{
-			for(int i = 0; i<str.length();i++)
-			{
-				GUIlist.get(i).getModel().setTextureID("./text/"+intList.get(i)+".png", loader);
-			}
-			
-			//delete the unneeded characters
-			for(int n=length-1;n>=str.length();n--)
-			{
-
-				GUIlist.remove(n);
-
-			}
+			unused.add(GUIlist.remove(n));
 		}
+		
 		this.str = str;
 	}
 
@@ -323,6 +257,56 @@ public class Text {
 		return str;
 	}
 	
+	/**
+	 * Sets the texture of the character at the given index.
+	 * 
+	 * @param index		the index of the character
+	 * @param c			the character
+	 */
+	private void setGlyph(int index, char c) {
+		loader.setTexture(GUIlist.get(index).getModel(), getGlyph(c));
+	}
+	
+	/**
+	 * Loads the quad shared by the characters of the text.
+	 */
+	private void loadQuad() {
+		
+		float[] vertices = Entity.getVertices(width, height, z);
+		float[] texCoords = Entity.getTexCoords();
+		int[] indices = Entity.getIndices();
+		
+		quad = loader.loadToVAO(vertices, texCoords, indices, 0);
+	}
+	
+	/**
+	 * Returns the texture ID of a character's glyph.
+	 * 
+	 * @param c		the character
+	 * @return the texture ID
+	 */
+	private static int getGlyph(char c) {
+		
+		//characters without a glyph are shown as spaces
+		if (c < FIRST_GLYPH || c > LAST_GLYPH)
+			c = ' ';
+		
+		return glyphs[c - FIRST_GLYPH];
+	}
+	
+	/**
+	 * Loads the glyph of every printable character.
+	 * 
+	 * @param loader	the loader object
+	 */
+	private static void loadGlyphs(Loader loader) {
+		
+		glyphs = new int[LAST_GLYPH - FIRST_GLYPH + 1];
+		
+		for (char c = FIRST_GLYPH; c <= LAST_GLYPH; c++)
+			glyphs[c - FIRST_GLYPH] = loader.loadTexture("./text/" + charToString(c) + ".png");
+	}
+	
 	/**
 	 * Converts a given character to the string 
 	 * that represents the file name containing that 
@@ -330,7 +314,7 @@ public class Text {
 	 * 
 	 * @return a string
 	 */
-	private String charToString(char c) {
+	private static String charToString(char c) {
 		
 		switch (c) {
 			case 'A':
@@ -1,8 +1,10 @@
 package widgets;
 
+import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
 import objects.Model;
+import renderEngine.WorldMatrix;
 
 /**
  * This class is the blueprint for GUI components to 
@@ -19,6 +21,7 @@ public class GUIComponent {
 	private Vector3f position;
 	private Vector3f rotation;
 	private float scale;
+	private WorldMatrix worldMatrix;	// recomputed only when the component moves
 
 	/**
 	 * Creates a GUI component object.
@@ -34,6 +37,7 @@ public class GUIComponent {
 		this.position = position;
 		this.rotation = rotation;
 		this.scale = scale;
+		worldMatrix = new WorldMatrix();
 	}
 
 	/**
@@ -70,6 +74,7 @@ public class GUIComponent {
 	 */
 	public void setPosition(Vector3f position) {
 		this.position = position;
+		worldMatrix.markDirty();
 	}
 
 	/**
@@ -88,6 +93,7 @@ public class GUIComponent {
 	 */
 	public void setRotation(Vector3f rotation) {
 		this.rotation = rotation;
+		worldMatrix.markDirty();
 	}
 
 	/**
@@ -106,5 +112,16 @@ public class GUIComponent {
 	 */
 	public void setScale(float scale) {
 		this.scale = scale;
+		worldMatrix.markDirty();
+	}
+	
+	/**
+	 * Returns the GUI component's world matrix. It is only recomputed 
+	 * when the component's position, rotation or scale have changed.
+	 * 
+	 * @return the world matrix (do not change it)
+	 */
+	public Matrix4f getWorldMatrix() {
+		return worldMatrix.get(position, rotation, scale);
 	}
 }
@@ -18,6 +18,11 @@ public class Levels {
 
 	//static variables
 	private static final String CONGRATULATION_MESSAGE_TEXTURE_FILE = "./res/CongratulationsMessage.png";
+	
+	// instance variables
+	
+	// the congratulation message, created the first time it is displayed
+	private Label message;
 
 	/**
 	 * checks if the ball intersects target
@@ -38,7 +43,8 @@ public class Levels {
 	}
 
 	/**
-	 * displays the congratulation model
+	 * displays the congratulation model (the same label every time, 
+	 * since it is displayed every frame)
 	 * 
 	 * @param simulation takes in the current SimulationWindow
 	 * @param loader the current loader used
@@ -48,6 +54,15 @@ public class Levels {
 	 */
 	public Label displayMessage(SimulationWindow simulation,Loader loader, float z)
 	{
+		float labelX = (simulation.getMax().x + simulation.getMin().x) / 2;
+		float labelY = (simulation.getMax().y + simulation.getMin().y) / 2;
+		
+		if (message != null)
+		{
+			message.getPosition().set(labelX, labelY, z);
+			return message;
+		}
+		
 		float labelWidth = 3f;
 		float labelHeight = 3f;
 
@@ -55,16 +70,13 @@ public class Levels {
 		float[] texCoords = Entity.getTexCoords();
 		int[] indices = Entity.getIndices();
 
-		float labelX = (simulation.getMax().x + simulation.getMin().x) / 2;
-		float labelY = (simulation.getMax().y + simulation.getMin().y) / 2;
-
 		Vector3f position = new Vector3f(labelX, labelY, z);
 		Vector3f rotation = new Vector3f(0,0,0);
 
 		int textureID = loader.loadTexture(CONGRATULATION_MESSAGE_TEXTURE_FILE);
 		Model selectionASimModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
 
-		Label message = new Label(selectionASimModel, position, rotation, labelWidth, labelWidth, labelHeight);
+		message = new Label(selectionASimModel, position, rotation, labelWidth, labelWidth, labelHeight);
 		return message;
 	}
 
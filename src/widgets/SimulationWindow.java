@@ -2,18 +2,25 @@ package widgets;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.joml.Vector3f;
 
-import io.IO;
+import io.Scene;
+import io.SceneCache;
+import io.SceneFile;
 import objects.Cannon;
 import objects.Circle;
 import objects.Entity;
 import objects.Loader;
 import objects.Model;
 import objects.Rectangle;
+import physicsEngine.AABBTree;
+import physicsEngine.Broadphase;
+import physicsEngine.CollisionPairs;
 import physicsEngine.Physics;
 import physicsEngine.PhysicsWithCannons;
+import physicsEngine.PhysicsWorld;
 import renderEngine.Renderer;
 
 /**
@@ -39,9 +46,39 @@ public class SimulationWindow {
 	private ArrayList<Entity> other;
 	private ArrayList<GUIComponent> guiComponents;
 	
+	// the boundaries, to find the ones near an entity
+	private AABBTree boundaryTree;
+	
+	// finds the entities near each other, and the pairs it found in the last time step
+	private Broadphase broadphase;
+	private CollisionPairs pairs;
+	
+	// the state of the entities and boundaries as parallel arrays (the entities read and write it)
+	private PhysicsWorld world;
+	
+	// how far the frame being rendered is between the last two time steps (0 to 1)
+	private float alpha = 1f;
+	
+	// changes to the simulation made while it may be updated on another thread,
+	// which are made by that thread before its next time step (see post())
+	private ConcurrentLinkedQueue<Runnable> edits;
+	private boolean queueEdits;
+	private long numPosted;
+	private long numApplied;
+	
+	// the snapshots published before the simulation was last cleared are not drawn,
+	// since their entities may have been removed and their models released
+	private long sceneEdit;
+	
+	// the target of the game mode (read by the thread that updates the simulation)
+	private volatile Entity target;
+	
 	private Loader loader;
 	
-	private boolean pause;
+	// the owner of the loaded simulation's models and textures (see Loader.beginOwner())
+	private String simulationOwner;
+	
+	private volatile boolean pause;
 	private float z;
 	
 	private Vector3f min;	// the minimum point that is considered inside the bounds of the simulation
@@ -71,6 +108,10 @@ public class SimulationWindow {
 	private Button resetButton;
 	
 	// static variables
+	
+	// the number of simulation windows created, to name their owners
+	private static int numSimulationWindows = 0;
+	
 	public static final String CRATE_TEXTURE_FILE = "./res/crate.png";
 	public static final String METAL_BOX_TEXTURE_FILE = "./res/metal_box.png";
 	public static final String BALL_TEXTURE_FILE = "./res/ball.png";
@@ -101,16 +142,22 @@ public class SimulationWindow {
 	private static float g = -9.81f;	// acceleration due to gravity
 	
 	/**
-	 * Creates a simulation window.
+	 * Creates a simulation window. If the loader is null, no textures or 
+	 * models are loaded, so the simulation can be run without an OpenGL 
+	 * context (but not rendered).
 	 * 
 	 * @param window
-	 * @param loader
+	 * @param loader		the loader, or null to run headless
 	 * @param screenWidth
 	 * @param screenHeight
 	 * @param z
 	 */
 	public SimulationWindow(long window, Loader loader, float screenWidth, float screenHeight, float z) {
 		
+		// needed to load the models below
+		this.loader = loader;
+		simulationOwner = "simulation window " + (++numSimulationWindows);
+		
 		// ******** INITIAL STATES OF BOUNDARIES ********
 		// 
 		// 	width		the boundary width
@@ -136,8 +183,7 @@ public class SimulationWindow {
 		Vector3f gPos = new Vector3f(gX, gY, z - 100f);
 		
 		float[] vertices = Entity.getVertices(gWidth, gHeight, z - 100f);
-		int textureID = loader.loadTexture(GROUND_TEXTURE_FILE);
-		Model gModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		Model gModel = loadModel(vertices, texCoords, indices, GROUND_TEXTURE_FILE);
 		
 		ground = new Rectangle(gModel, gPos, velocity, acceleration, rotation, scale, 
 				maximumMass, -1f, gWidth, gHeight, GROUND_STATIC_FRICTION, GROUND_KINETIC_FRICTION);
@@ -151,8 +197,7 @@ public class SimulationWindow {
 		Vector3f lPos = new Vector3f(lX, lY, z - 100f);
 		
 		vertices = Entity.getVertices(lWidth, lHeight, z - 100f);
-		textureID = loader.loadTexture(BOUNDARY_TEXTURE_FILE);
-		boundaryModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		boundaryModel = loadModel(vertices, texCoords, indices, BOUNDARY_TEXTURE_FILE);
 		
 		leftBoundary = new Rectangle(boundaryModel, lPos, velocity, acceleration, rotation, scale, 
 				maximumMass, -1f, lWidth, lHeight, BOUNDARY_STATIC_FRICTION, BOUNDARY_KINETIC_FRICTION);
@@ -166,8 +211,7 @@ public class SimulationWindow {
 		Vector3f rPos = new Vector3f(rX, rY, z - 100f);
 		
 		vertices = Entity.getVertices(rWidth, rHeight, z - 100f);
-		textureID = loader.loadTexture(BOUNDARY_TEXTURE_FILE);
-		Model rModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		Model rModel = loadModel(vertices, texCoords, indices, BOUNDARY_TEXTURE_FILE);
 				
 		rightBoundary = new Rectangle(rModel, rPos, velocity, acceleration, rotation, scale, 
 				maximumMass, -1f, rWidth, rHeight, BOUNDARY_STATIC_FRICTION, BOUNDARY_KINETIC_FRICTION);
@@ -181,8 +225,7 @@ public class SimulationWindow {
 		Vector3f tPos = new Vector3f(tX, tY, z - 100f);
 		
 		vertices = Entity.getVertices(tWidth, tHeight, z - 100f);
-		textureID = loader.loadTexture(BOUNDARY_TEXTURE_FILE);
-		Model tModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		Model tModel = loadModel(vertices, texCoords, indices, BOUNDARY_TEXTURE_FILE);
 				
 		topBoundary = new Rectangle(tModel, tPos, velocity, acceleration, rotation, scale, 
 				maximumMass, -1f, tWidth, tHeight, BOUNDARY_STATIC_FRICTION, BOUNDARY_KINETIC_FRICTION);
@@ -195,6 +238,11 @@ public class SimulationWindow {
 		boundaries.add(rightBoundary);
 		boundaries.add(topBoundary);
 		
+		boundaryTree = new AABBTree();
+		
+		broadphase = Physics.createBroadphase();
+		pairs = new CollisionPairs();
+		
 		// **********************************************
 		
 		
@@ -208,8 +256,7 @@ public class SimulationWindow {
 		Vector3f sPos = new Vector3f(sX, sY, z - 110f);
 		
 		vertices = Entity.getVertices(sWidth, sHeight, z - 120f);
-		textureID = loader.loadTexture(SKY_TEXTURE_FILE);
-		Model sModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		Model sModel = loadModel(vertices, texCoords, indices, SKY_TEXTURE_FILE);
 				
 		sky = new GUIComponent(sModel, sPos, rotation, scale);
 		
@@ -231,11 +278,9 @@ public class SimulationWindow {
 		vertices = Entity.getVertices(buttonWidth, buttonHeight, z + 0.01f);
 		Vector3f position = new Vector3f(buttonX, buttonY, z - 100f);
 				
-		textureID = loader.loadTexture(PAUSE_BUTTON_TEXTURE_FILE);
-		pauseButtonModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		pauseButtonModel = loadModel(vertices, texCoords, indices, PAUSE_BUTTON_TEXTURE_FILE);
 		
-		textureID = loader.loadTexture(PLAY_BUTTON_TEXTURE_FILE);
-		playButtonModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		playButtonModel = loadModel(vertices, texCoords, indices, PLAY_BUTTON_TEXTURE_FILE);
 				
 		pausePlayButton = new Button(playButtonModel, position, rotation, scale, buttonWidth, buttonHeight);
 		guiComponents.add(pausePlayButton);
@@ -249,8 +294,7 @@ public class SimulationWindow {
 						
 		position = new Vector3f(buttonX, buttonY, z - 100f);
 						
-		textureID = loader.loadTexture(RESET_BUTTON_TEXTURE_FILE);
-		Model model = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		Model model = loadModel(vertices, texCoords, indices, RESET_BUTTON_TEXTURE_FILE);
 						
 		resetButton = new Button(model, position, rotation, scale, buttonWidth, buttonHeight);
 		guiComponents.add(resetButton);
@@ -267,24 +311,19 @@ public class SimulationWindow {
 		indices = Entity.getIndices();
 		
 		// crate model
-		textureID = loader.loadTexture(CRATE_TEXTURE_FILE);
-		crateModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		crateModel = loadModel(vertices, texCoords, indices, CRATE_TEXTURE_FILE);
 		
 		// metal box model
-		textureID = loader.loadTexture(METAL_BOX_TEXTURE_FILE);
-		metalBoxModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		metalBoxModel = loadModel(vertices, texCoords, indices, METAL_BOX_TEXTURE_FILE);
 		
 		// ball model
-		textureID = loader.loadTexture(BALL_TEXTURE_FILE);
-		ballModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		ballModel = loadModel(vertices, texCoords, indices, BALL_TEXTURE_FILE);
 		
 		// cannon model
-		textureID = loader.loadTexture(CANNON_TEXTURE_FILE);
-		cannonModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		cannonModel = loadModel(vertices, texCoords, indices, CANNON_TEXTURE_FILE);
 		
 		// target model
-		textureID = loader.loadTexture(TARGET_TEXTURE_FILE);
-		targetModel = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		targetModel = loadModel(vertices, texCoords, indices, TARGET_TEXTURE_FILE);
 		
 		// **********************************************
 		
@@ -292,12 +331,15 @@ public class SimulationWindow {
 		// initialize entities array list
 		entities = new ArrayList<Entity>();
 		other = new ArrayList<Entity>();
+		world = new PhysicsWorld();
+		
+		edits = new ConcurrentLinkedQueue<Runnable>();
+		queueEdits = false;
 		
 		// set pause to true
 		pause = true;
 		
 		this.z = z;
-		this.loader = loader;
 		
 		// set up min and max points
 		min = new Vector3f(leftBoundary.getAabb().getMax().x, ground.getAabb().getMax().y, z);
@@ -329,7 +371,7 @@ public class SimulationWindow {
 		Rectangle crate = new Rectangle(crateModel, position, velocity, acceleration, rotation, scale, 
 				mass, e, sideLength, sideLength, CRATE_STATIC_FRICTION, CRATE_KINETIC_FRICTION);
 		
-		entities.add(crate);
+		post(() -> entities.add(crate));
 		
 		return crate;
 	}
@@ -358,7 +400,7 @@ public class SimulationWindow {
 		Rectangle crate = new Rectangle(crateModel, position, velocity, acceleration, rotation, scale, 
 				mass, e, sideLength, sideLength, CRATE_STATIC_FRICTION, CRATE_KINETIC_FRICTION);
 		
-		boundaries.add(crate);
+		post(() -> boundaries.add(crate));
 		
 		return crate;
 	}
@@ -390,7 +432,7 @@ public class SimulationWindow {
 		Rectangle metalBox = new Rectangle(metalBoxModel, position, velocity, acceleration, rotation, scale, 
 				mass, e, sideLength, sideLength, METAL_BOX_STATIC_FRICTION, METAL_BOX_KINETIC_FRICTION);
 		
-		entities.add(metalBox);
+		post(() -> entities.add(metalBox));
 		
 		return metalBox;
 	}
@@ -419,13 +461,12 @@ public class SimulationWindow {
 		int[] indices = Entity.getIndices();
 		
 		// metal model
-		int textureID = loader.loadTexture(BOUNDARY_TEXTURE_FILE);
-		Model model = loader.loadToVAO(vertices, texCoords, indices, textureID);
+		Model model = loadModel(vertices, texCoords, indices, BOUNDARY_TEXTURE_FILE);
 				
 		Rectangle metal = new Rectangle(model, position, velocity, acceleration, rotation, scale, 
 				mass, e, width, height, METAL_BOX_STATIC_FRICTION, METAL_BOX_KINETIC_FRICTION);
 		
-		boundaries.add(metal);
+		post(() -> boundaries.add(metal));
 		
 		return metal;
 	}
@@ -455,7 +496,7 @@ public class SimulationWindow {
 		Circle ball = new Circle(ballModel, position, velocity, acceleration, rotation, scale, 
 				mass, e, radius, BALL_STATIC_FRICTION, BALL_KINETIC_FRICTION);
 		
-		entities.add(ball);
+		post(() -> entities.add(ball));
 		
 		return ball;
 	}
@@ -481,6 +522,7 @@ public class SimulationWindow {
 				Float.MAX_VALUE, -1, radius, BALL_STATIC_FRICTION, BALL_KINETIC_FRICTION);
 		
 		other.add(target);
+		this.target = target;
 		
 		return target;
 	}
@@ -513,42 +555,255 @@ public class SimulationWindow {
 		cannon.getStoredVelocity().x = vx;
 		cannon.getStoredVelocity().y = vy;
 		
-		entities.add(cannon);
+		post(() -> entities.add(cannon));
 		return cannon;
 	}
 	
 	/**
-	 * Renders the objects of the simulation window.
+	 * Sets an entity's mass.
+	 * 
+	 * @param entity
+	 * @param mass
+	 */
+	public void setEntityMass(Entity entity, float mass) {
+		post(() -> entity.setMass(mass));
+	}
+	
+	/**
+	 * Sets the horizontal component of an entity's velocity.
+	 * 
+	 * @param entity
+	 * @param vx
+	 */
+	public void setEntityVelocityX(Entity entity, float vx) {
+		post(() -> entity.setVelocityX(vx));
+	}
+	
+	/**
+	 * Sets the vertical component of an entity's velocity.
+	 * 
+	 * @param entity
+	 * @param vy
+	 */
+	public void setEntityVelocityY(Entity entity, float vy) {
+		post(() -> entity.setVelocityY(vy));
+	}
+	
+	/**
+	 * Sets the horizontal component of a cannon's stored velocity.
+	 * 
+	 * @param entity
+	 * @param vx
+	 */
+	public void setEntityStoredVelocityX(Entity entity, float vx) {
+		post(() -> entity.setStoredVelocityX(vx));
+	}
+	
+	/**
+	 * Sets the vertical component of a cannon's stored velocity.
+	 * 
+	 * @param entity
+	 * @param vy
+	 */
+	public void setEntityStoredVelocityY(Entity entity, float vy) {
+		post(() -> entity.setStoredVelocityY(vy));
+	}
+	
+	/**
+	 * Renders the objects of the simulation window. The entities and 
+	 * boundaries are drawn from the latest snapshot of the physics world, 
+	 * so this does not wait for a time step running on another thread.
 	 * 
 	 * @param renderer		the renderer
 	 */
 	public void render(Renderer renderer) {
 		
-		renderer.render(entities);
+		// nothing else publishes a snapshot when the simulation is only changed on this thread
+		if (!queueEdits)
+			publish();
+		
+		PhysicsWorld.Snapshot snapshot = world.getSnapshot();
+		
+		// the entities are drawn between their last two positions, except 
+		// while paused (when the last time step may have been long ago)
+		float a = pause ? 1f : alpha;
+		
+		if (snapshot.getStamp() >= sceneEdit)
+			renderer.render(snapshot, 0, snapshot.getNumBodies(), a);
+		
 		renderer.render(other);
-		renderer.render(boundaries);
+		
+		if (snapshot.getStamp() >= sceneEdit)
+			renderer.render(snapshot, snapshot.getNumBodies(), snapshot.size(), a);
+		
 		renderer.renderGUI(guiComponents);
 	}
 	
 	/**
-	 * Updates each object in the simulation.
+	 * Updates each object in the simulation, after making the changes 
+	 * posted since the last update.
 	 * 
 	 * @param physicsWithCannons	whether or not the physics allows cannons
 	 */
 	public void update(boolean physicsWithCannons) {
 		
-		for (Entity entity:entities) {
-			entity.update(dt);
+		runEdits();
+		
+		// integrate the entities in one pass over the world's arrays
+		// (the boundaries are static bodies in the world, and do not move)
+		world.setBodies(entities, boundaries);
+		world.update(dt);
+		
+		// only the game and customized modes put entities to sleep (the lessons 
+		// have a single entity, which can be set to move slower than a resting crate jitters)
+		if (physicsWithCannons) {
+			PhysicsWithCannons.collision(world, entities, boundaries, broadphase, pairs, boundaryTree, z);
+			world.updateSleeping(pairs);
 		}
+		else
+			Physics.collision(world, entities, broadphase, pairs, ground, leftBoundary, topBoundary, rightBoundary, z);
 		
-		for (Entity boundary:boundaries) {
-			boundary.update(dt);
+		publish();
+	}
+	
+	/**
+	 * Makes the changes posted since the last update, without taking 
+	 * a time step (e.g. while the simulation is paused).
+	 */
+	public void applyEdits() {
+		
+		if (runEdits())
+			publish();
+	}
+	
+	/**
+	 * Changes the simulation. If the simulation is updated on another 
+	 * thread (see setQueueEdits()), the change is queued and made by 
+	 * that thread before its next time step; otherwise it is made now. 
+	 * Changes are made in the order they were posted.
+	 * 
+	 * @param edit		the change
+	 */
+	public void post(Runnable edit) {
+		
+		numPosted++;
+		
+		if (queueEdits)
+			edits.add(edit);
+		
+		else {
+			edit.run();
+			numApplied++;
 		}
+	}
+	
+	/**
+	 * Sets whether or not the simulation is updated on another thread 
+	 * than the one that changes and renders it. If so, changes must be 
+	 * made with post(), and may only be made while the simulation is 
+	 * paused.
+	 * 
+	 * @param queueEdits
+	 */
+	public void setQueueEdits(boolean queueEdits) {
+		this.queueEdits = queueEdits;
+	}
+	
+	/**
+	 * Removes an entity from the simulation, and wakes up 
+	 * the sleeping entities that were resting on or against it.
+	 * 
+	 * @param entity
+	 */
+	public void removeEntity(Entity entity) {
 		
-		if (physicsWithCannons)
-			PhysicsWithCannons.collision(entities, boundaries, z);
-		else
-			Physics.collision(entities, ground, leftBoundary, topBoundary, rightBoundary, z);
+		post(() -> {
+			entities.remove(entity);
+			world.setBodies(entities, boundaries);
+		});
+	}
+	
+	/**
+	 * Removes every entity from the simulation.
+	 */
+	public void clearEntities() {
+		
+		post(() -> entities.clear());
+		
+		// the snapshots from before this are not drawn (see render())
+		sceneEdit = numPosted;
+	}
+	
+	/**
+	 * Removes every entity and other object from the simulation, 
+	 * and the boundaries other than the ground and walls.
+	 */
+	public void clear() {
+		
+		other.clear();
+		target = null;
+		
+		post(() -> {
+			
+			entities.clear();
+			
+			while (boundaries.size() > 4) {
+				boundaries.remove(4);
+			}
+		});	
+		// the snapshots from before this are not drawn (see render())
+		sceneEdit = numPosted;
+	}
+	
+	/**
+	 * Moves an entity to a position, keeping its z coordinate.
+	 * 
+	 * @param entity
+	 * @param x
+	 * @param y
+	 */
+	public void moveEntity(Entity entity, float x, float y) {
+		
+		post(() -> {
+			
+			entity.setPosition(new Vector3f(x, y, entity.getZ()));
+			
+			// update AABB if entity is a rectangle
+			if (entity instanceof Rectangle)
+				((Rectangle) entity).updateAABB();
+		});
+	}
+	
+	/**
+	 * Sets an entity's size. A rectangle becomes a square with the 
+	 * given side length, and a circle gets the given diameter.
+	 * 
+	 * @param entity
+	 * @param size		the entity's new scale
+	 */
+	public void resizeEntity(Entity entity, float size) {
+		
+		post(() -> {
+			
+			entity.setScale(size);
+			
+			// rectangle
+			if (entity instanceof Rectangle) {
+				
+				Rectangle r = (Rectangle) entity;
+				
+				r.setWidth(size);
+				r.setHeight(size);
+				
+				r.updateAABB();
+			}
+			
+			// circle
+			else if (entity instanceof Circle) {
+				
+				((Circle) entity).setRadius(size/2);
+			}
+		});
 	}
 	
 	/**
@@ -578,8 +833,8 @@ public class SimulationWindow {
 			Circle c = (Circle) entity;
 			
 			// check if circle is within bounds
-			if (c.getPosition().x - c.getRadius() < this.min.x || c.getPosition().x + c.getRadius() > this.max.x || 
-				c.getPosition().y - c.getRadius() < this.min.y || c.getPosition().y + c.getRadius() > this.max.y)
+			if (c.getX() - c.getRadius() < this.min.x || c.getX() + c.getRadius() > this.max.x || 
+				c.getY() - c.getRadius() < this.min.y || c.getY() + c.getRadius() > this.max.y)
 				
 				return false;
 		}
@@ -589,116 +844,104 @@ public class SimulationWindow {
 	
 	/**
 	 * Loads the specified simulation into the simulation 
-	 * window.
+	 * window. The file can be a text or binary scene file 
+	 * (see SceneFile). If it can't be read, the simulation 
+	 * window is left empty.
 	 * 
 	 * @param filename		where the simulation data is stored
 	 */
 	public void loadSimulation(String fileName) {
+		loadSimulation(fileName, null);
+	}
+	
+	/**
+	 * Loads the specified simulation into the simulation 
+	 * window, from a scene cache (which only reads the file 
+	 * if the scene is not cached). If it can't be read, the 
+	 * simulation window is left empty.
+	 * 
+	 * @param filename		where the simulation data is stored
+	 * @param scenes		the scene cache, or null to read the file
+	 */
+	public void loadSimulation(String fileName, SceneCache scenes) {
+		
+		Scene scene;
+		
+		try {
+			scene = scenes != null ? scenes.get(fileName) : SceneFile.read(fileName);
+			
+		} catch (IOException exception) {
+			exception.printStackTrace();
+			scene = Scene.EMPTY;
+		}
+		
+		loadScene(scene);
+	}
+	
+	/**
+	 * Loads a scene into the simulation window, replacing 
+	 * the current simulation.
+	 * 
+	 * @param scene
+	 */
+	public void loadScene(Scene scene) {
 		
 		// clear current simulation data
-		entities.clear();
-		other.clear();
+		clear();
 		
-		while (boundaries.size() > 4) {
-			boundaries.remove(4);
+		// the previous simulation's models and textures are no longer needed
+		if (loader != null) {
+			loader.releaseOwner(simulationOwner);
+			loader.beginOwner(simulationOwner);
 		}
 		
 		try {
-			IO.openInputFile(fileName);
+			
+			for (int i = 0; i < scene.getNumRecords(); i++) {
 				
-			// get number of entities
-			int numEntities = Integer.parseInt(IO.readLine());
-					
-			// line buffer
-			IO.readLine();
-					
-			for (int i = 0; i < numEntities; i++) {
+				switch (scene.getType(i)) {
+				
+					// rectangle: side length, x, y, vx, vy, mass, e
+					case Scene.RECTANGLE:
+						createCrateEntity(scene.getField(i, 0), scene.getField(i, 1), scene.getField(i, 2), z, 
+								scene.getField(i, 3), scene.getField(i, 4), scene.getField(i, 5), scene.getField(i, 6));
+						break;
 						
-				String type = IO.readLine();
+					// rectangle (boundary): side length, x, y, mass, e
+					case Scene.RECTANGLE_BOUNDARY:
+						ncreateCrateEntity(scene.getField(i, 0), scene.getField(i, 1), scene.getField(i, 2), z, 
+								scene.getField(i, 3), scene.getField(i, 4));
+						break;
 						
-				// rectangle
-				if (type.equals("RECTANGLE")) {
-							
-					float sideLength = Float.parseFloat(IO.readLine());
-					float x = Float.parseFloat(IO.readLine());
-					float y = Float.parseFloat(IO.readLine());
-					float vx = Float.parseFloat(IO.readLine());
-					float vy = Float.parseFloat(IO.readLine()); 
-					float mass = Float.parseFloat(IO.readLine());
-					float e = Float.parseFloat(IO.readLine());
-					
-					createCrateEntity(sideLength, x, y, z, vx, vy, mass, e);
-				}
-				
-				// rectangle (boundary)
-				else if (type.equals("bRECTANGLE")) {
-					
-					float sideLength = Float.parseFloat(IO.readLine());
-					float x = Float.parseFloat(IO.readLine());
-					float y = Float.parseFloat(IO.readLine());
-					float mass = Float.parseFloat(IO.readLine());
-					float e = Float.parseFloat(IO.readLine());
-					
-					ncreateCrateEntity(sideLength, x, y, z, mass, e);
-				}
-				
-				// cannon
-				else if (type.equals("CANNON")) {
-							
-					float sideLength = Float.parseFloat(IO.readLine());
-					float x = Float.parseFloat(IO.readLine());
-					float y = Float.parseFloat(IO.readLine());
-					float vx = Float.parseFloat(IO.readLine());
-					float vy = Float.parseFloat(IO.readLine()); 
-					float mass = Float.parseFloat(IO.readLine());
-					float e = Float.parseFloat(IO.readLine());
-					
-					createCannonEntity(sideLength, x, y, z, vx, vy, mass, e);
-				}
+					// cannon: side length, x, y, vx, vy, mass, e
+					case Scene.CANNON:
+						createCannonEntity(scene.getField(i, 0), scene.getField(i, 1), scene.getField(i, 2), z, 
+								scene.getField(i, 3), scene.getField(i, 4), scene.getField(i, 5), scene.getField(i, 6));
+						break;
 						
-				// circle
-				else if (type.equals("CIRCLE")) {
-							
-					float radius = Float.parseFloat(IO.readLine());
-					float x = Float.parseFloat(IO.readLine());
-					float y = Float.parseFloat(IO.readLine());
-					float vx = Float.parseFloat(IO.readLine());
-					float vy = Float.parseFloat(IO.readLine()); 
-					float mass = Float.parseFloat(IO.readLine());
-					float e = Float.parseFloat(IO.readLine());
-					
-					createBallEntity(radius, x, y, z, vx, vy, mass, e);
-				}
-				
-				// metal
-				else if(type.equals("METAL")) {
-					float width = Float.parseFloat(IO.readLine());
-					float height = Float.parseFloat(IO.readLine());
-					float x = Float.parseFloat(IO.readLine());
-					float y = Float.parseFloat(IO.readLine());
-					float mass = Float.parseFloat(IO.readLine());
-					float e = Float.parseFloat(IO.readLine());
-					
-					ncreateMetalEntity(width, height, x, y, z, mass, e);
-				}
-				
-				// target (only for game mode)
-				else if (type.equals("TARGET")) {
-					
-					float radius = Float.parseFloat(IO.readLine());
-					float x = Float.parseFloat(IO.readLine());
-					float y = Float.parseFloat(IO.readLine());
-					
-					createTargetEntity(radius,x,y,z);
-				}
+					// circle: radius, x, y, vx, vy, mass, e
+					case Scene.CIRCLE:
+						createBallEntity(scene.getField(i, 0), scene.getField(i, 1), scene.getField(i, 2), z, 
+								scene.getField(i, 3), scene.getField(i, 4), scene.getField(i, 5), scene.getField(i, 6));
+						break;
 						
-				// line buffer
-				IO.readLine();
+					// metal: width, height, x, y, mass, e
+					case Scene.METAL:
+						ncreateMetalEntity(scene.getField(i, 0), scene.getField(i, 1), scene.getField(i, 2), 
+								scene.getField(i, 3), z, scene.getField(i, 4), scene.getField(i, 5));
+						break;
+						
+					// target (only for game mode): radius, x, y
+					case Scene.TARGET:
+						createTargetEntity(scene.getField(i, 0), scene.getField(i, 1), scene.getField(i, 2), z);
+						break;
+				}
 			}
-			IO.closeInputFile();
-					
-		} catch (IOException exception) {
-			exception.printStackTrace();
+			
+		} finally {
+			
+			if (loader != null)
+				loader.endOwner();
 		}
 	}
 
@@ -782,7 +1025,8 @@ public class SimulationWindow {
 	
 	/**
 	 * Returns the array list of entities in the simulation
-	 * window.
+	 * window. If the simulation is updated on another thread, 
+	 * only use it in a change posted to that thread (see post()).
 	 * 
 	 * @return entities
 	 */
@@ -790,6 +1034,34 @@ public class SimulationWindow {
 		return entities;
 	}
 	
+	/**
+	 * Returns the entities in the latest snapshot (see getSnapshot()), 
+	 * which can be read while the simulation is updated on another thread.
+	 * 
+	 * @return a new array list of the entities
+	 */
+	public ArrayList<Entity> getSnapshotEntities() {
+		
+		PhysicsWorld.Snapshot snapshot = world.getSnapshot();
+		ArrayList<Entity> entities = new ArrayList<Entity>(snapshot.getNumBodies());
+		
+		for (int i = 0; i < snapshot.getNumBodies(); i++)
+			entities.add(snapshot.getBody(i));
+		
+		return entities;
+	}
+	
+	/**
+	 * Returns the latest snapshot of the entities and boundaries 
+	 * (see PhysicsWorld.getSnapshot()). Only call this on the 
+	 * thread that renders the simulation window.
+	 * 
+	 * @return the latest snapshot
+	 */
+	public PhysicsWorld.Snapshot getSnapshot() {
+		return world.getSnapshot();
+	}
+	
 	/**
 	 * Returns the array list of other objects in the simulation
 	 * window.
@@ -816,7 +1088,7 @@ public class SimulationWindow {
 	 * @return the target
 	 */
 	public Entity getTarget() {
-		return other.get(0);
+		return target;
 	}
 	
 	/**
@@ -847,4 +1119,80 @@ public class SimulationWindow {
 	public float getDt() {
 		return dt;
 	}
+	
+	/**
+	 * Returns the number of entities that are asleep.
+	 * 
+	 * @return the number of sleeping entities
+	 */
+	public int getNumSleepingEntities() {
+		return world.getNumSleeping();
+	}
+	
+	/**
+	 * Sets whether or not entities that have come to rest are put 
+	 * to sleep. Disabling sleeping wakes every entity up.
+	 * 
+	 * @param sleepingEnabled
+	 */
+	public void setSleepingEnabled(boolean sleepingEnabled) {
+		world.setSleepingEnabled(sleepingEnabled);
+	}
+	
+	/**
+	 * Sets how far the next rendered frame is between the last two 
+	 * time steps, from 0 (the previous step) to 1 (the current step).
+	 * 
+	 * @param alpha
+	 */
+	public void setInterpolation(float alpha) {
+		this.alpha = alpha;
+	}
+	
+	
+	// ********** PRIVATE HELPER METHODS **********
+	
+	/**
+	 * Loads a texture and a model, unless the simulation window is 
+	 * headless (has no loader).
+	 * 
+	 * @return the model, or null if headless
+	 */
+	private Model loadModel(float[] vertices, float[] texCoords, int[] indices, String textureFile) {
+		
+		if (loader == null)
+			return null;
+		
+		int textureID = loader.loadTexture(textureFile);
+		return loader.loadToVAO(vertices, texCoords, indices, textureID);
+	}
+	
+	/**
+	 * Makes the changes posted since the last call.
+	 * 
+	 * @return true if there were any, false otherwise
+	 */
+	private boolean runEdits() {
+		
+		boolean edited = false;
+		Runnable edit;
+		
+		while ((edit = edits.poll()) != null) {
+			
+			edit.run();
+			numApplied++;
+			edited = true;
+		}
+		
+		return edited;
+	}
+	
+	/**
+	 * Publishes the positions of the entities and boundaries for render().
+	 */
+	private void publish() {
+		
+		world.setBodies(entities, boundaries);
+		world.publish(numApplied);
+	}
 }